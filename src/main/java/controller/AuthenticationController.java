@@ -3,22 +3,36 @@ package controller;
 
 import database.*;
 import model.*;
+import service.PasswordService;
+import util.Passwords;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AuthenticationController {
     private UserDAO userDAO;
     private AuditDAO auditDAO;
+    private final PasswordService passwordService;
     private User currentUser;
     private static final int MAX_ATTEMPTS = getIntProperty("auth.maxAttempts", 5);
     private static final long LOCKOUT_MILLIS = TimeUnit.SECONDS.toMillis(
             getLongProperty("auth.lockoutSeconds", 45));
     private final Map<String, LoginAttempt> attemptTracker = new ConcurrentHashMap<>();
+    // Shared by every controller so the application reports one breakdown
+    private static final LoginTimer LOGIN_METRICS = new LoginTimer();
 
     public AuthenticationController() {
+        this(PasswordService.shared());
+    }
+
+    /**
+     * Controller verifying passwords on {@code passwordService}'s bounded pool.
+     */
+    public AuthenticationController(PasswordService passwordService) {
         this.userDAO = new UserDAO();
         this.auditDAO = new AuditDAO();
+        this.passwordService = passwordService;
     }
 
     
@@ -40,31 +54,56 @@ public class AuthenticationController {
                     "Too many failed attempts. Please try again in " + secondsLeft + "s.", null);
         }
         
-        // Step 2-3: Authenticate user
-        boolean authResult = userDAO.authenticate(username, password);
+        // Step 2-3: One round trip for the whole row, then Argon2 on the password pool
+        long started = System.nanoTime();
+        var userOpt = userDAO.findByUsername(username);
+        long dbNanos = System.nanoTime() - started;
+        long hashStarted = System.nanoTime();
+        PasswordService.Verdict verdict = userOpt
+            .map(user -> passwordService.verify(password, user.getPassword()))
+            .orElse(PasswordService.Verdict.MISMATCH);
+        long hashNanos = System.nanoTime() - hashStarted;
+        if (verdict == PasswordService.Verdict.BUSY) {
+            // Not a failed attempt: the credentials were never checked
+            LOGIN_METRICS.record(dbNanos, hashNanos, 0L);
+            System.out.println("AuthenticationController: Login BUSY for " + username);
+            return new LoginResult(false, null, "The system is busy. Please try again in a moment.", null);
+        }
         
-        if (authResult) {
+        if (verdict == PasswordService.Verdict.MATCH) {
             attemptTracker.remove(key);
-            // Step 5-6: Get user role
-            var userOpt = userDAO.findByUsername(username);
-            if (userOpt.isPresent()) {
-                currentUser = userOpt.get();
-                UserRole role = currentUser.getRole();
-                
-                // Step 7: Record successful login audit
-                auditDAO.recordAudit(currentUser.getUserId(), "LOGIN_SUCCESS", 
-                    "User logged in successfully with role: " + role);
-                
-                System.out.println("AuthenticationController: Login SUCCESS for " + username + ", role: " + role);
-                
-                // Step 8: Return success with role
-                return new LoginResult(true, role, "Login successful", currentUser);
+            currentUser = userOpt.get();
+            // Hashes made with older Argon2 parameters are replaced while the password is known
+            String storedHash = currentUser.getPassword();
+            if (Passwords.needsRehash(storedHash)) {
+                hashStarted = System.nanoTime();
+                var newHash = passwordService.hash(password);
+                hashNanos += System.nanoTime() - hashStarted;
+                if (newHash.isPresent()) {
+                    started = System.nanoTime();
+                    userDAO.replacePasswordHash(username, storedHash, newHash.get());
+                    dbNanos += System.nanoTime() - started;
+                }
             }
+            UserRole role = currentUser.getRole();
+            
+            // Step 7: Record successful login audit; the row just read spares the user check
+            started = System.nanoTime();
+            auditDAO.recordAudit(currentUser.getUserId(), "LOGIN_SUCCESS", 
+                "User logged in successfully with role: " + role);
+            LOGIN_METRICS.record(dbNanos, hashNanos, System.nanoTime() - started);
+            
+            System.out.println("AuthenticationController: Login SUCCESS for " + username + ", role: " + role);
+            
+            // Step 8: Return success with role
+            return new LoginResult(true, role, "Login successful", currentUser);
         }
         
         // Step 10: Record failed login audit and update attempt counter
-        auditDAO.recordAudit("UNKNOWN", "LOGIN_FAILED", 
+        started = System.nanoTime();
+        auditDAO.recordAudit(UserDAO.UNKNOWN_USER_ID, "LOGIN_FAILED", 
             "Failed login attempt for username: " + username);
+        LOGIN_METRICS.record(dbNanos, hashNanos, System.nanoTime() - started);
         attempt.failures += 1;
         if (attempt.failures >= MAX_ATTEMPTS) {
             attempt.lockoutUntil = now + LOCKOUT_MILLIS;
@@ -81,6 +120,14 @@ public class AuthenticationController {
         return new LoginResult(false, null, message, null);
     }
 
+    /**
+     * Where login time goes: the users read (and any rehash write), Argon2 including
+     * the wait for a pool worker, and handing the audit entry off.
+     */
+    public static LoginMetrics getLoginMetrics() {
+        return LOGIN_METRICS.snapshot();
+    }
+
     public void logout() {
         if (currentUser != null) {
             auditDAO.recordAudit(currentUser.getUserId(), "LOGOUT", 
@@ -119,6 +166,59 @@ public class AuthenticationController {
         public User getUser() { return user; }
     }
 
+    private static final class LoginTimer {
+        private final LongAdder logins = new LongAdder();
+        private final LongAdder dbNanos = new LongAdder();
+        private final LongAdder hashNanos = new LongAdder();
+        private final LongAdder auditNanos = new LongAdder();
+
+        void record(long db, long hash, long audit) {
+            dbNanos.add(db);
+            hashNanos.add(hash);
+            auditNanos.add(audit);
+            logins.increment();
+        }
+
+        LoginMetrics snapshot() {
+            long count = logins.sum();
+            return new LoginMetrics(count,
+                count == 0 ? 0 : dbNanos.sum() / count,
+                count == 0 ? 0 : hashNanos.sum() / count,
+                count == 0 ? 0 : auditNanos.sum() / count);
+        }
+    }
+
+    /**
+     * Snapshot of login latency, averaged per login and split by stage.
+     */
+    public static final class LoginMetrics {
+        private final long logins;
+        private final long averageDbNanos;
+        private final long averageHashNanos;
+        private final long averageAuditNanos;
+
+        LoginMetrics(long logins, long averageDbNanos, long averageHashNanos, long averageAuditNanos) {
+            this.logins = logins;
+            this.averageDbNanos = averageDbNanos;
+            this.averageHashNanos = averageHashNanos;
+            this.averageAuditNanos = averageAuditNanos;
+        }
+
+        // Getters
+        public long getLogins() { return logins; }
+        public long getAverageDbNanos() { return averageDbNanos; }
+        public long getAverageHashNanos() { return averageHashNanos; }
+        public long getAverageAuditNanos() { return averageAuditNanos; }
+
+        @Override
+        public String toString() {
+            return "AuthenticationController.LoginMetrics{logins=" + logins
+                + ", avgDbMicros=" + averageDbNanos / 1_000
+                + ", avgHashMicros=" + averageHashNanos / 1_000
+                + ", avgAuditMicros=" + averageAuditNanos / 1_000 + '}';
+        }
+    }
+
     private static class LoginAttempt {
         int failures = 0;
         long lockoutUntil = 0L;
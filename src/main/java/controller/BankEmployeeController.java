@@ -3,6 +3,7 @@ package controller;
 
 import database.*;
 import model.*;
+import service.IDGeneratorService;
 import view.BankEmployeeDashboard;
 
 import java.sql.SQLException;
@@ -16,6 +17,7 @@ public class BankEmployeeController {
     private AccountDAO accountDAO;
     private AuditDAO auditDAO;
     private TransactionController transactionController;
+    private final IDGeneratorService idGenerator = new IDGeneratorService();
 
     public BankEmployeeController() {
         this.customerDAO = new CustomerDAO();
@@ -221,7 +223,7 @@ public class BankEmployeeController {
     }
 
     private String generateAccountNumber() {
-        return "ACC" + System.currentTimeMillis();
+        return idGenerator.generateAccountNumber();
     }
 
     // In BankEmployeeController.java - Add account closure (AM-003)
@@ -235,14 +237,17 @@ public class BankEmployeeController {
             Account account = accountOpt.get();
             
             // Check if account has zero balance
-            if (account.getBalance() > 0) {
+            if (account.getBalanceMinor() != 0) {
                 throw new IllegalStateException(
-                    "Cannot close account with positive balance. Balance must be zero.");
+                    "Cannot close account with a non-zero balance. Balance must be zero.");
             }
             
-            // Update account status to CLOSED
+            // Status-only write, guarded by the balance and version just checked
+            if (!accountDAO.close(accountNumber, account.getVersion())) {
+                throw new IllegalStateException(
+                    "Account " + accountNumber + " changed while being closed. Please review it and try again.");
+            }
             account.updateStatus(AccountStatus.CLOSED);
-            accountDAO.update(account);
             
             // Record audit
             auditDAO.recordAudit(employeeId, "ACCOUNT_CLOSED", 
@@ -3,19 +3,43 @@ package controller;
 
 import database.*;
 import model.*;
+import service.LedgerEngine;
+import util.AccountNumbers;
+import util.SnowflakeIdGenerator;
+import util.StripedLocks;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 public class TransactionController implements TransactionProcessing {
+    // Per-account serialization shared by every controller; keyed by account number
+    // because the DAO hands out a new Account instance on every read
+    private static final StripedLocks ACCOUNT_LOCKS =
+        new StripedLocks(Integer.getInteger("txn.lockStripes", 64));
+
     private AccountDAO accountDAO;
     private TransactionDAO transactionDAO;
     private AuditDAO auditDAO;
+    // When set, balances are owned by the in-memory engine and reach the tables through its snapshots
+    private final LedgerEngine ledgerEngine;
 
     public TransactionController() {
+        this(LedgerEngine.shared());
+    }
+
+    /**
+     * @param ledgerEngine engine to route movements through, or null for one database
+     *                     transaction per movement
+     */
+    public TransactionController(LedgerEngine ledgerEngine) {
         this.accountDAO = new AccountDAO();
         this.transactionDAO = new TransactionDAO();
         this.auditDAO = new AuditDAO();
+        this.ledgerEngine = ledgerEngine;
     }
 
+    @SuppressWarnings("try") // the Held resource only releases its stripes
     public DepositResult processDeposit(String accountNumber, double amount, String userId) {
         if (accountNumber == null || accountNumber.trim().isEmpty()) {
             throw new IllegalArgumentException("Account number cannot be null or empty");
@@ -26,44 +50,51 @@ public class TransactionController implements TransactionProcessing {
 
         System.out.println("TransactionController: Processing deposit for account " + accountNumber + ", amount: " + amount);
 
-        try {
-            // Step 4-5: Get account
-            var accountOpt = accountDAO.findById(accountNumber);
-            if (accountOpt.isEmpty()) {
+        // A mistyped account number fails its check digit; no lookup needed
+        if (!AccountNumbers.isPlausible(accountNumber)) {
+            auditDAO.recordAudit(userId, "DEPOSIT_FAILED",
+                "Invalid account number: " + accountNumber);
+            return new DepositResult(false, 0, "Invalid account number", "");
+        }
+        if (ledgerEngine != null) {
+            return depositThroughEngine(accountNumber, amount, userId);
+        }
+
+        // Balance, ledger row and audit entry commit together or not at all
+        try (StripedLocks.Held held = ACCOUNT_LOCKS.lock(accountNumber);
+             UnitOfWork unit = UnitOfWork.begin()) {
+            // Step 4-5: Get account and apply the deposit to its current row
+            String transactionId = SnowflakeIdGenerator.next("TXN_");
+            String description = "Deposit processed for account: " + accountNumber;
+            Optional<List<Account>> accountsOpt = accountDAO.updateBalances(
+                journal(transactionId, TransactionType.DEPOSIT, description),
+                accounts -> accounts.get(0).deposit(amount), accountNumber);
+            if (accountsOpt.isEmpty()) {
                 // Step 16-17: Account not found
                 System.out.println("TransactionController: Account not found - " + accountNumber);
                 auditDAO.recordAudit(userId, "DEPOSIT_FAILED", 
                     "Account not found: " + accountNumber);
+                unit.commit();
                 return new DepositResult(false, 0, "Account not found", "");
             }
 
-            Account account = accountOpt.get();
-            
-            // Get current balance
-            double currentBalance = account.getBalance();
-            System.out.println("TransactionController: Current balance: " + currentBalance);
-            
-            //  Process deposit
-            account.deposit(amount);
-            
-            // Update account balance in database
-            accountDAO.updateBalance(accountNumber, account.getBalance());
+            Account account = accountsOpt.get().get(0);
             
             // Create and record transaction
-            String transactionId = "TXN_" + System.currentTimeMillis();
             Transaction transaction = new Transaction(
                 transactionId, 
                 TransactionType.DEPOSIT, 
                 amount, 
-                "Deposit processed for account: " + accountNumber,
+                description,
                 account
             );
-            transactionDAO.save(transaction);
+            saveTransaction(transaction);
             
             // Record audit
             auditDAO.recordAudit(userId, "DEPOSIT_SUCCESS", 
                 String.format("Deposit of %.2f to account %s. Transaction: %s", 
                     amount, accountNumber, transactionId));
+            unit.commit();
             
             // Get new balance
             double newBalance = account.getBalance();
@@ -83,6 +114,7 @@ public class TransactionController implements TransactionProcessing {
     }
 
     @Override
+    @SuppressWarnings("try")
     public void processDeposit(Account account, double amount) {
         if (account == null) {
             throw new IllegalArgumentException("Account cannot be null");
@@ -90,20 +122,26 @@ public class TransactionController implements TransactionProcessing {
         if (amount <= 0) {
             throw new IllegalArgumentException("Deposit amount must be positive");
         }
-        // Apply deposit to the provided in-memory account first for responsive UX
-        synchronized (account) {
-            double startingBalance = account.getBalance();
-            account.deposit(amount);
-            try {
-                accountDAO.updateBalance(account.getAccountNumber(), account.getBalance());
-            } catch (Exception ex) {
-                account.setBalance(startingBalance);
-                throw new IllegalStateException("Unable to persist deposit for " + account.getAccountNumber(), ex);
+        if (ledgerEngine != null) {
+            ledgerEngine.processDeposit(account, amount);
+            return;
+        }
+        try (StripedLocks.Held held = ACCOUNT_LOCKS.lock(account.getAccountNumber())) {
+            var persisted = accountDAO.updateBalances(
+                journal(SnowflakeIdGenerator.next("TXN_"), TransactionType.DEPOSIT,
+                    "Deposit processed for account: " + account.getAccountNumber()),
+                accounts -> accounts.get(0).deposit(amount), account.getAccountNumber());
+            if (persisted.isPresent()) {
+                refresh(account, persisted.get().get(0));
+            } else {
+                // not a stored account; only the in-memory copy changes
+                account.deposit(amount);
             }
         }
     }
 
     @Override
+    @SuppressWarnings("try")
     public void processWithdrawal(Account account, double amount) {
         if (account == null) {
             throw new IllegalArgumentException("Account cannot be null");
@@ -114,25 +152,42 @@ public class TransactionController implements TransactionProcessing {
 
         System.out.println("TransactionController: Processing withdrawal for account " + 
                           account.getAccountNumber() + ", amount: " + amount);
+        if (ledgerEngine != null) {
+            ledgerEngine.processWithdrawal(account, amount);
+            return;
+        }
         
-        account.withdraw(amount);
-        accountDAO.updateBalance(account.getAccountNumber(), account.getBalance());
-        
-        // Record transaction
-        String transactionId = "TXN_" + System.currentTimeMillis();
-        Transaction transaction = new Transaction(
-            transactionId, 
-            TransactionType.WITHDRAWAL, 
-            amount, 
-            "Withdrawal processed for account: " + account.getAccountNumber(),
-            account
-        );
-        transactionDAO.save(transaction);
+        String transactionId = SnowflakeIdGenerator.next("TXN_");
+        String description = "Withdrawal processed for account: " + account.getAccountNumber();
+        try (StripedLocks.Held held = ACCOUNT_LOCKS.lock(account.getAccountNumber());
+             UnitOfWork unit = UnitOfWork.begin()) {
+            var persisted = accountDAO.updateBalances(
+                journal(transactionId, TransactionType.WITHDRAWAL, description),
+                accounts -> accounts.get(0).withdraw(amount), account.getAccountNumber());
+            if (persisted.isPresent()) {
+                // Record transaction in the same commit as the balance
+                saveTransaction(new Transaction(
+                    transactionId, 
+                    TransactionType.WITHDRAWAL, 
+                    amount, 
+                    description,
+                    persisted.get().get(0)
+                ));
+                unit.commit();
+                refresh(account, persisted.get().get(0));
+            } else {
+                // not a stored account; only the in-memory copy changes
+                account.withdraw(amount);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to process withdrawal for " + account.getAccountNumber(), e);
+        }
         
         System.out.println("TransactionController: Withdrawal SUCCESS - Transaction: " + transactionId);
     }
 
     @Override
+    @SuppressWarnings("try")
     public void transferFunds(Account fromAccount, Account toAccount, double amount) {
         if (fromAccount == null || toAccount == null) {
             throw new IllegalArgumentException("Both accounts must be specified");
@@ -145,26 +200,89 @@ public class TransactionController implements TransactionProcessing {
                           fromAccount.getAccountNumber() + " to " + toAccount.getAccountNumber() + 
                           ", amount: " + amount);
         
-        fromAccount.transferTo(toAccount, amount);
-        
-        // Update both accounts in database
-        accountDAO.updateBalance(fromAccount.getAccountNumber(), fromAccount.getBalance());
-        accountDAO.updateBalance(toAccount.getAccountNumber(), toAccount.getBalance());
-        
-        // Record transaction for from account
-        String transactionId = "TXN_" + System.currentTimeMillis();
-        Transaction transaction = new Transaction(
-            transactionId, 
-            TransactionType.TRANSFER_INTERNAL, 
-            amount, 
-            String.format("Transfer to account %s", toAccount.getAccountNumber()), 
-            fromAccount
-        );
-        transactionDAO.save(transaction);
+        if (fromAccount.getAccountNumber().equals(toAccount.getAccountNumber())) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        if (ledgerEngine != null) {
+            ledgerEngine.transferFunds(fromAccount, toAccount, amount);
+            return;
+        }
+
+        // Both stripes are taken in a fixed order, so opposite transfers cannot deadlock;
+        // debit, credit and ledger row then commit together or not at all
+        String transactionId = SnowflakeIdGenerator.next("TXN_");
+        String description = String.format("Transfer to account %s", toAccount.getAccountNumber());
+        try (StripedLocks.Held held = ACCOUNT_LOCKS.lock(
+                fromAccount.getAccountNumber(), toAccount.getAccountNumber());
+             UnitOfWork unit = UnitOfWork.begin()) {
+            // Both legs are posted under the transaction ID, each naming the other account
+            var persisted = accountDAO.updateBalances(
+                journal(transactionId, TransactionType.TRANSFER_INTERNAL, description),
+                accounts -> accounts.get(0).transferTo(accounts.get(1), amount),
+                fromAccount.getAccountNumber(), toAccount.getAccountNumber());
+            if (persisted.isPresent()) {
+                // Record transaction for from account
+                saveTransaction(new Transaction(
+                    transactionId, 
+                    TransactionType.TRANSFER_INTERNAL, 
+                    amount, 
+                    description, 
+                    persisted.get().get(0)
+                ));
+                unit.commit();
+                refresh(fromAccount, persisted.get().get(0));
+                refresh(toAccount, persisted.get().get(1));
+            } else {
+                fromAccount.transferTo(toAccount, amount);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to process transfer from " + fromAccount.getAccountNumber(), e);
+        }
         
         System.out.println("TransactionController: Transfer SUCCESS - Transaction: " + transactionId);
     }
 
+    private DepositResult depositThroughEngine(String accountNumber, double amount, String userId) {
+        if (!ledgerEngine.hasAccount(accountNumber)) {
+            auditDAO.recordAudit(userId, "DEPOSIT_FAILED", "Account not found: " + accountNumber);
+            return new DepositResult(false, 0, "Account not found", "");
+        }
+        try {
+            LedgerEngine.Receipt receipt = ledgerEngine.deposit(accountNumber, Money.toMinor(amount));
+            auditDAO.recordAudit(userId, "DEPOSIT_SUCCESS",
+                String.format("Deposit of %.2f to account %s. Transaction: %s",
+                    amount, accountNumber, receipt.getTransactionId()));
+            return new DepositResult(true, Money.toMajor(receipt.getBalanceMinor()),
+                "Deposit processed successfully", receipt.getTransactionId());
+        } catch (RuntimeException e) {
+            System.err.println("TransactionController: Deposit FAILED - " + e.getMessage());
+            auditDAO.recordAudit(userId, "DEPOSIT_FAILED",
+                String.format("Deposit failed for account %s: %s", accountNumber, e.getMessage()));
+            return new DepositResult(false, 0, "Deposit failed: " + e.getMessage(), "");
+        }
+    }
+
+    private static PostingDAO.Journal journal(String transactionId, TransactionType type, String description) {
+        return new PostingDAO.Journal(transactionId, type.name(), description);
+    }
+
+    /**
+     * A balance change must not commit without its ledger row.
+     */
+    private void saveTransaction(Transaction transaction) {
+        if (!transactionDAO.save(transaction)) {
+            throw new IllegalStateException("Unable to record transaction " + transaction.getTransactionId());
+        }
+    }
+
+    /**
+     * Bring the caller's account up to the committed balance and version.
+     */
+    private static void refresh(Account account, Account committed) {
+        account.setBalanceMinor(committed.getBalanceMinor());
+        account.setVersion(committed.getVersion());
+    }
+
     // Helper class for deposit results that matches sequence diagram
     public static class DepositResult {
         private final boolean success;
@@ -1,14 +1,92 @@
 package database;
 
 import model.*;
+import util.AccountNumbers;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class AccountDAO implements DAO<Account> {
 
+    // Finder queries (package-private so query plans can be checked in tests)
+    // Accounts come back joined to their owner so each finder is a single query
+    private static final String SELECT_WITH_OWNER = """
+        SELECT a.*, c.customer_id AS owner_customer_id, c.user_id AS owner_user_id,
+               c.first_name AS owner_first_name, c.surname AS owner_surname,
+               c.address AS owner_address, c.phone_number AS owner_phone_number,
+               c.email AS owner_email, c.customer_type AS owner_customer_type
+        FROM accounts a
+        LEFT JOIN customers c ON c.customer_id = a.customer_id
+        """;
+    static final String FIND_BY_ID_SQL = SELECT_WITH_OWNER + "WHERE a.account_number = ?";
+    static final String FIND_BY_CUSTOMER_SQL = SELECT_WITH_OWNER + "WHERE a.customer_id = ?";
+    static final String FIND_BY_STATUS_SQL = SELECT_WITH_OWNER + "WHERE a.status = ?";
+    static final String FIND_BY_TYPE_SQL = SELECT_WITH_OWNER + "WHERE a.account_type = ?";
+    static final String FIND_ALL_SQL = SELECT_WITH_OWNER;
+    // Owner order lets a stream keep only the current owner in its identity map
+    static final String STREAM_ALL_SQL = SELECT_WITH_OWNER + "ORDER BY a.customer_id";
+    // Keyset range of active interest-bearing accounts; a NULL upper bound means no limit
+    static final String INTEREST_PAGE_SQL = SELECT_WITH_OWNER + """
+        WHERE a.account_type IN ('SAVINGS', 'INVESTMENT') AND a.status = 'ACTIVE'
+        AND a.account_number > ? AND (? IS NULL OR a.account_number < ?)
+        ORDER BY a.account_number LIMIT ?
+        """;
+
+    private static final String INSERT_SQL = """
+        INSERT INTO accounts (account_number, balance, date_created, date_opened,
+                             customer_id, status, account_type, interest_rate,
+                             employer_name, employer_address, employment_status)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+    // Matches nothing if the row moved since the account was read, so no write is lost
+    private static final String UPDATE_SQL = """
+        UPDATE accounts SET balance = ?, date_created = ?, date_opened = ?,
+                           customer_id = ?, status = ?, account_type = ?, interest_rate = ?,
+                           employer_name = ?, employer_address = ?, employment_status = ?,
+                           version = version + 1
+        WHERE account_number = ? AND version = ?
+        """;
+    private static final String CLOSE_SQL = """
+        UPDATE accounts SET status = 'CLOSED', version = version + 1
+        WHERE account_number = ? AND balance = 0 AND version = ?
+        """;
+    private static final String ADJUST_BALANCE_SQL =
+        "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE account_number = ?";
+
+    // Conditional delta for updateBalances; matches nothing if the row moved since it was read
+    private static final String DEBIT_SQL = """
+        UPDATE accounts SET balance = balance - ?, version = version + 1
+        WHERE account_number = ? AND balance >= ? AND version = ?
+        """;
+
+    /**
+     * Outcome of one conditional balance write.
+     */
+    enum BalanceUpdate { APPLIED, CONFLICT, INSUFFICIENT_FUNDS, NOT_FOUND }
+
+    private static final AtomicLong balanceConflicts = new AtomicLong();
+
+    // Interest on loaded accounts is computed from their recorded daily balances
+    private static final DailyBalanceDAO DAILY_BALANCES = new DailyBalanceDAO();
+
+    // Hot findById lookups; holds row snapshots, invalidated after every write below
+    private static final EntityCache<String, AccountRow> CACHE = DatabaseConnection.newEntityCache("accounts");
+
+    // Told the account number after a write that can change its status or remove it
+    private static final List<Consumer<String>> CHANGE_LISTENERS = new CopyOnWriteArrayList<>();
+
     public CustomerDAO customerDAO;
 
     public AccountDAO() {
@@ -19,18 +97,68 @@ public class AccountDAO implements DAO<Account> {
         this.customerDAO = customerDAO;
     }
     
+    public static EntityCache<String, ?> getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Call {@code listener} with the account number after each update, close or delete
+     * made through this DAO, so holders of long-lived account copies can reload them.
+     */
+    public static void addChangeListener(Consumer<String> listener) {
+        CHANGE_LISTENERS.add(listener);
+    }
+
+    public static void removeChangeListener(Consumer<String> listener) {
+        CHANGE_LISTENERS.remove(listener);
+    }
+
+    private static void accountChanged(String accountNumber) {
+        for (Consumer<String> listener : CHANGE_LISTENERS) {
+            listener.accept(accountNumber);
+        }
+    }
+
+    /**
+     * Drop cached accounts after a write that bypasses this DAO's own methods
+     * (owner details are part of every cached row).
+     */
+    static void invalidateCache() {
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * Served from the entity cache when possible; every call returns a fresh Account.
+     * Inside a write transaction the cache is bypassed, since that thread may see rows
+     * that are not committed yet.
+     */
     @Override
     public Optional<Account> findById(String accountNumber) {
-        String sql = "SELECT * FROM accounts WHERE account_number = ?";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        // a bad check digit means no such account can exist
+        if (!AccountNumbers.isPlausible(accountNumber)) {
+            return Optional.empty();
+        }
+        boolean cacheable = !DatabaseConnection.isWriterHeldByCurrentThread();
+        if (cacheable) {
+            AccountRow cached = CACHE.get(accountNumber);
+            if (cached != null) {
+                return Optional.of(cached.toAccount(new HashMap<>()));
+            }
+        }
+
+        long generation = CACHE.generation();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
             
             stmt.setString(1, accountNumber);
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return Optional.of(mapResultSetToAccount(rs, conn));
+                AccountRow row = AccountRow.read(rs);
+                if (cacheable) {
+                    CACHE.putIfUnchanged(accountNumber, row, generation);
+                }
+                return Optional.of(row.toAccount(new HashMap<>()));
             }
         } catch (SQLException e) {
             System.err.println("Error finding account by number: " + e.getMessage());
@@ -41,16 +169,16 @@ public class AccountDAO implements DAO<Account> {
 
     public List<Account> findByCustomerId(String customerId) {
         List<Account> accounts = new ArrayList<>();
-        String sql = "SELECT * FROM accounts WHERE customer_id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_CUSTOMER_SQL)) {
             
             stmt.setString(1, customerId);
             ResultSet rs = stmt.executeQuery();
+            Map<String, Customer> owners = new HashMap<>();
             
             while (rs.next()) {
-                accounts.add(mapResultSetToAccount(rs, conn));
+                accounts.add(mapResultSetToAccount(rs, owners));
             }
         } catch (SQLException e) {
             System.err.println("Error finding accounts by customer ID: " + e.getMessage());
@@ -61,16 +189,16 @@ public class AccountDAO implements DAO<Account> {
 
     public List<Account> findByStatus(AccountStatus status) {
         List<Account> accounts = new ArrayList<>();
-        String sql = "SELECT * FROM accounts WHERE status = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+            PreparedStatement stmt = conn.prepareStatement(FIND_BY_STATUS_SQL)) {
             
             stmt.setString(1, status.toString());
             ResultSet rs = stmt.executeQuery();
+            Map<String, Customer> owners = new HashMap<>();
             
             while (rs.next()) {
-                accounts.add(mapResultSetToAccount(rs, conn));
+                accounts.add(mapResultSetToAccount(rs, owners));
             }
         } catch (SQLException e) {
             System.err.println("Error finding accounts by status: " + e.getMessage());
@@ -81,16 +209,16 @@ public class AccountDAO implements DAO<Account> {
 
     public List<Account> findByType(String accountType) {
         List<Account> accounts = new ArrayList<>();
-        String sql = "SELECT * FROM accounts WHERE account_type = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+            PreparedStatement stmt = conn.prepareStatement(FIND_BY_TYPE_SQL)) {
             
             stmt.setString(1, accountType);
             ResultSet rs = stmt.executeQuery();
+            Map<String, Customer> owners = new HashMap<>();
             
             while (rs.next()) {
-                accounts.add(mapResultSetToAccount(rs, conn));
+                accounts.add(mapResultSetToAccount(rs, owners));
             }
         } catch (SQLException e) {
             System.err.println("Error finding accounts by type: " + e.getMessage());
@@ -99,18 +227,54 @@ public class AccountDAO implements DAO<Account> {
         return accounts;
     }
 
+    @Override
+    public Stream<Account> streamAll() {
+        Map<String, Customer> currentOwner = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Customer> eldest) {
+                return size() > 1;
+            }
+        };
+        return ResultStreams.stream(STREAM_ALL_SQL,
+            (rs, conn) -> mapResultSetToAccount(rs, currentOwner), "accounts");
+    }
+
+    /**
+     * Up to {@code limit} active savings and investment accounts numbered after
+     * {@code afterAccountNumber} and before {@code beforeAccountNumber} (null for no
+     * upper bound), in account number order. A failed read throws rather than returning
+     * a short page: an interest run takes an empty page as the end of its range.
+     */
+    public List<Account> findInterestBearingPage(String afterAccountNumber, String beforeAccountNumber, int limit)
+            throws SQLException {
+        List<Account> accounts = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(INTEREST_PAGE_SQL)) {
+            stmt.setString(1, afterAccountNumber);
+            stmt.setString(2, beforeAccountNumber);
+            stmt.setString(3, beforeAccountNumber);
+            stmt.setInt(4, limit);
+            ResultSet rs = stmt.executeQuery();
+            Map<String, Customer> owners = new HashMap<>();
+            while (rs.next()) {
+                accounts.add(mapResultSetToAccount(rs, owners));
+            }
+        }
+        return accounts;
+    }
+
     @Override
     public List<Account> findAll() {
         List<Account> accounts = new ArrayList<>();
-        String sql = "SELECT * FROM accounts";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             ResultSet rs = stmt.executeQuery(FIND_ALL_SQL)) {
+            Map<String, Customer> owners = new HashMap<>();
             
             while (rs.next()) {
                 try {
-                    Account account = mapResultSetToAccount(rs, conn);
+                    Account account = mapResultSetToAccount(rs, owners);
                     accounts.add(account);
                 } catch (SQLException e) {
                     System.err.println("Error mapping account from result set: " + e.getMessage());
@@ -126,15 +290,8 @@ public class AccountDAO implements DAO<Account> {
 
     @Override
     public boolean save(Account account) {
-        String sql = """
-            INSERT INTO accounts (account_number, balance, date_created, date_opened, 
-                                 customer_id, status, account_type, interest_rate, 
-                                 employer_name, employer_address, employment_status) 
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
             
             setAccountParameters(stmt, account);
             return stmt.executeUpdate() > 0;
@@ -145,82 +302,113 @@ public class AccountDAO implements DAO<Account> {
         }
     }
 
+    /**
+     * Write the account back if its row still has the version it was read at; false
+     * if another writer changed it meanwhile (re-read and retry) or it is gone.
+     */
     @Override
     public boolean update(Account account) {
-        String sql = """
-            UPDATE accounts SET balance = ?, date_created = ?, date_opened = ?,
-                               customer_id = ?, status = ?, account_type = ?, interest_rate = ?,
-                               employer_name = ?, employer_address = ?, employment_status = ?
-            WHERE account_number = ?
-        """;
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            // Set parameters in the correct order for UPDATE
-            stmt.setDouble(1, account.getBalance());
-            stmt.setDate(2, Date.valueOf(account.getDateCreated()));
-            stmt.setDate(3, Date.valueOf(account.getDateOpened()));
-            stmt.setString(4, account.getCustomer().getCustomerId());
-            stmt.setString(5, account.getStatus().toString());
-
-            // Determine account type and set specific fields
-            if (account instanceof SavingsAccount) {
-                SavingsAccount sa = (SavingsAccount) account;
-                stmt.setString(6, "SAVINGS");
-                stmt.setDouble(7, sa.getInterestRate());
-                stmt.setNull(8, Types.VARCHAR);
-                stmt.setNull(9, Types.VARCHAR);
-                stmt.setNull(10, Types.BOOLEAN);
-
-            } else if (account instanceof InvestmentAccount) {
-                InvestmentAccount ia = (InvestmentAccount) account;
-                stmt.setString(6, "INVESTMENT");
-                stmt.setDouble(7, ia.getInterestRate());
-                stmt.setNull(8, Types.VARCHAR);
-                stmt.setNull(9, Types.VARCHAR);
-                stmt.setNull(10, Types.BOOLEAN);
-
-            } else if (account instanceof ChequeAccount) {
-                ChequeAccount ca = (ChequeAccount) account;
-                stmt.setString(6, "CHEQUE");
-                stmt.setNull(7, Types.DOUBLE);
-                stmt.setString(8, ca.getEmployerName());
-                stmt.setString(9, ca.getEmployerAddress());
-                stmt.setBoolean(10, ca.isEmploymentStatus());
-
-            } else {
-                stmt.setString(6, "SAVINGS"); // Default
-                stmt.setNull(7, Types.DOUBLE);
-                stmt.setNull(8, Types.VARCHAR);
-                stmt.setNull(9, Types.VARCHAR);
-                stmt.setNull(10, Types.BOOLEAN);
+            setUpdateParameters(stmt, account);
+            if (stmt.executeUpdate() == 0) {
+                System.err.println("Account " + account.getAccountNumber()
+                    + " changed since it was read (version " + account.getVersion() + "); not updated");
+                return false;
             }
-
-            stmt.setString(11, account.getAccountNumber());
-
-            return stmt.executeUpdate() > 0;
+            account.setVersion(account.getVersion() + 1);
+            return true;
         } catch (SQLException e) {
             System.err.println("Error updating account: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            CACHE.invalidate(account.getAccountNumber());
+            accountChanged(account.getAccountNumber());
         }
     }
 
-    public boolean updateBalance(String accountNumber, double newBalance) {
-        String sql = "UPDATE accounts SET balance = ? WHERE account_number = ?";
-        
+    @Override
+    public BatchResult saveAll(Collection<Account> accounts) {
+        try {
+            return new BatchWriter<Account>("account", Account::getAccountNumber)
+                .step(INSERT_SQL, this::setAccountParameters)
+                .write(accounts);
+        } finally {
+            CACHE.invalidateAll();
+        }
+    }
+
+    /**
+     * Version-checked like update: an account whose row moved since it was read is
+     * reported as a failed row.
+     */
+    @Override
+    public BatchResult updateAll(Collection<Account> accounts) {
+        try {
+            BatchResult result = new BatchWriter<Account>("account", Account::getAccountNumber)
+                .step(UPDATE_SQL, this::setUpdateParameters)
+                .write(accounts);
+            List<Account> rows = new ArrayList<>(accounts);
+            boolean[] failed = new boolean[rows.size()];
+            for (BatchResult.RowFailure failure : result.getFailures()) {
+                failed[failure.getIndex()] = true;
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                if (!failed[i]) {
+                    rows.get(i).setVersion(rows.get(i).getVersion() + 1);
+                }
+            }
+            return result;
+        } finally {
+            CACHE.invalidateAll();
+            for (Account account : accounts) {
+                accountChanged(account.getAccountNumber());
+            }
+        }
+    }
+
+    /**
+     * Move a balance by {@code deltaMinor} outside the posting engine. The V8 trigger
+     * books the change as an ADJUSTMENT posting; a delta never overwrites a concurrent write.
+     */
+    public boolean adjustBalanceMinor(String accountNumber, long deltaMinor) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(ADJUST_BALANCE_SQL)) {
             
-            stmt.setDouble(1, newBalance);
+            stmt.setLong(1, deltaMinor);
             stmt.setString(2, accountNumber);
             
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating account balance: " + e.getMessage());
+            System.err.println("Error adjusting account balance: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            CACHE.invalidate(accountNumber);
+        }
+    }
+
+    /**
+     * Mark the account CLOSED, changing nothing else, only if its balance is zero and
+     * its row still has {@code expectedVersion}; false otherwise. A deposit committed
+     * after the caller's read therefore keeps the account open.
+     */
+    public boolean close(String accountNumber, long expectedVersion) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CLOSE_SQL)) {
+
+            stmt.setString(1, accountNumber);
+            stmt.setLong(2, expectedVersion);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error closing account: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            CACHE.invalidate(accountNumber);
+            accountChanged(accountNumber);
         }
     }
 
@@ -237,107 +425,379 @@ public class AccountDAO implements DAO<Account> {
             System.err.println("Error deleting account: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            CACHE.invalidate(accountNumber);
+            accountChanged(accountNumber);
         }
     }
 
-    private Account mapResultSetToAccount(ResultSet rs, Connection conn) throws SQLException {
-        String accountType = rs.getString("account_type");
-        String accountNumber = rs.getString("account_number");
-        double balance = rs.getDouble("balance");
-        
-        // Handle potential null dates
-        LocalDate dateCreated = rs.getDate("date_created") != null ? 
-            rs.getDate("date_created").toLocalDate() : LocalDate.now();
-        LocalDate dateOpened = rs.getDate("date_opened") != null ? 
-            rs.getDate("date_opened").toLocalDate() : LocalDate.now();
-            
-        String customerId = rs.getString("customer_id");
-        AccountStatus status = AccountStatus.valueOf(rs.getString("status"));
-        
-        // Create a minimal customer object using the existing connection
-        Customer minimalCustomer = createMinimalCustomer(customerId, conn);
-        
-        switch (accountType) {
-            case "SAVINGS":
-                SavingsAccount savingsAccount = new SavingsAccount(
-                    accountNumber, balance, dateCreated, dateOpened, 
-                    minimalCustomer, status
-                );
-                savingsAccount.setInterestRate(rs.getDouble("interest_rate"));
-                return savingsAccount;
-                
-            case "INVESTMENT":
-                InvestmentAccount investmentAccount = new InvestmentAccount(
-                    accountNumber, balance, dateCreated, dateOpened, 
-                    minimalCustomer, status
-                );
-                investmentAccount.setInterestRate(rs.getDouble("interest_rate"));
-                return investmentAccount;
-                
-            case "CHEQUE":
-                ChequeAccount chequeAccount = new ChequeAccount(
-                    accountNumber, balance, dateCreated, dateOpened, 
-                    minimalCustomer, status,
-                    rs.getString("employer_name"),
-                    rs.getString("employer_address"),
-                    rs.getBoolean("employment_status")
-                );
-                return chequeAccount;
-                
-            default:
-                return new Account(
-                    accountNumber, balance, dateCreated, dateOpened, 
-                    minimalCustomer, status
-                );
+    /**
+     * Change balances with conditional delta updates instead of absolute writes.
+     *
+     * Each attempt reads the accounts fresh, applies the operation to those copies (so
+     * the model's rules see current balances), then writes every balance delta in one
+     * transaction as
+     * {@code balance = balance - debit WHERE balance >= debit AND version = read version}.
+     * If another writer moved a row in between, the whole attempt rolls back and is
+     * retried, up to db.balance.maxAttempts times. Exceptions thrown by the operation
+     * propagate without anything being written. The journal's postings are written in
+     * the same transaction, ahead of the balances.
+     *
+     * Returns the accounts as committed, or empty if any of them does not exist.
+     */
+    public Optional<List<Account>> updateBalances(PostingDAO.Journal journal, Consumer<List<Account>> operation,
+                                                  String... accountNumbers) {
+        int maxAttempts = DatabaseConnection.getBalanceMaxAttempts();
+        for (int attempt = 1; ; attempt++) {
+            List<Account> accounts = new ArrayList<>(accountNumbers.length);
+            for (String accountNumber : accountNumbers) {
+                Optional<Account> current = findCurrent(accountNumber);
+                if (current.isEmpty()) {
+                    return Optional.empty();
+                }
+                accounts.add(current.get());
+            }
+            long[] before = new long[accounts.size()];
+            for (int i = 0; i < before.length; i++) {
+                before[i] = accounts.get(i).getBalanceMinor();
+            }
+
+            operation.accept(accounts);
+
+            BalanceUpdate outcome = applyDebits(journal, accounts, before);
+            switch (outcome) {
+                case APPLIED:
+                    for (int i = 0; i < before.length; i++) {
+                        Account account = accounts.get(i);
+                        if (account.getBalanceMinor() != before[i]) {
+                            account.setVersion(account.getVersion() + 1);
+                        }
+                    }
+                    return Optional.of(accounts);
+                case NOT_FOUND:
+                    return Optional.empty();
+                case INSUFFICIENT_FUNDS:
+                    throw new IllegalArgumentException("Insufficient funds");
+                default:
+                    balanceConflicts.incrementAndGet();
+                    if (attempt >= maxAttempts) {
+                        throw new IllegalStateException("Balance update gave up after " + attempt
+                            + " conflicting attempts on " + String.join(", ", accountNumbers));
+                    }
+                    // brief randomised pause so the competing writers spread out
+                    LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(50_000L * attempt, 200_000L * attempt));
+            }
         }
     }
 
-    
-    private Customer createMinimalCustomer(String customerId, Connection conn) {
-        // Instead of creating a temp customer, try to load the real one using existing connection
-        try {
-            String sql = "SELECT * FROM customers WHERE customer_id = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, customerId);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return new Customer(
-                            rs.getString("user_id"),
-                            "temp_username", // We don't need the actual username for display
-                            "TempPass@123", // Valid password that passes validation
-                            rs.getString("customer_id"),
-                            rs.getString("first_name"),
-                            rs.getString("surname"),
-                            rs.getString("address"),
-                            rs.getString("phone_number"),
-                            rs.getString("email"),
-                            CustomerType.valueOf(rs.getString("customer_type"))
-                        );
+    /**
+     * Balance writes that lost a version race and were retried.
+     */
+    public static long getBalanceConflicts() {
+        return balanceConflicts.get();
+    }
+
+    // Uncached read: a cached row may carry an old version and waste an attempt
+    private Optional<Account> findCurrent(String accountNumber) {
+        if (!AccountNumbers.isPlausible(accountNumber)) {
+            return Optional.empty();
+        }
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
+            stmt.setString(1, accountNumber);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(mapResultSetToAccount(rs, new HashMap<>()));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding account by number: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Write each account's change since {@code before} as one transaction (a savepoint
+     * inside a caller's transaction); nothing is written unless every row still has the
+     * version it was read at.
+     */
+    private BalanceUpdate applyDebits(PostingDAO.Journal journal, List<Account> accounts, long[] before) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            boolean ownTransaction = conn.getAutoCommit();
+            Savepoint savepoint = null;
+            try (PreparedStatement stmt = conn.prepareStatement(DEBIT_SQL)) {
+                if (ownTransaction) {
+                    conn.setAutoCommit(false);
+                } else {
+                    savepoint = conn.setSavepoint();
+                }
+                PostingDAO.insertLegs(conn, journal, accounts, before);
+                BalanceUpdate outcome = BalanceUpdate.APPLIED;
+                for (int i = 0; i < accounts.size() && outcome == BalanceUpdate.APPLIED; i++) {
+                    Account account = accounts.get(i);
+                    // credits are negative debits; their guard always holds
+                    long debit = before[i] - account.getBalanceMinor();
+                    if (debit == 0) {
+                        continue;
                     }
+                    stmt.setLong(1, debit);
+                    stmt.setString(2, account.getAccountNumber());
+                    stmt.setLong(3, debit);
+                    stmt.setLong(4, account.getVersion());
+                    if (stmt.executeUpdate() == 0) {
+                        outcome = classifyMiss(conn, account.getAccountNumber(), account.getVersion());
+                    }
+                }
+                if (outcome == BalanceUpdate.APPLIED) {
+                    if (ownTransaction) {
+                        conn.commit();
+                    } else {
+                        conn.releaseSavepoint(savepoint);
+                    }
+                } else if (ownTransaction) {
+                    conn.rollback();
+                } else {
+                    conn.rollback(savepoint);
+                    conn.releaseSavepoint(savepoint);
+                }
+                return outcome;
+            } catch (SQLException e) {
+                if (ownTransaction) {
+                    conn.rollback();
+                } else if (savepoint != null) {
+                    conn.rollback(savepoint);
+                    conn.releaseSavepoint(savepoint);
+                }
+                throw e;
+            } finally {
+                if (ownTransaction) {
+                    conn.setAutoCommit(true);
                 }
             }
-        } catch (Exception e) {
-            System.err.println("Error loading customer for account: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("Error updating account balances: " + e.getMessage());
+            throw new IllegalStateException("Unable to update account balances", e);
+        } finally {
+            for (Account account : accounts) {
+                CACHE.invalidate(account.getAccountNumber());
+            }
         }
-        return createFallbackCustomer(customerId);
     }
-    
-    private Customer createMinimalCustomer(String customerId) {
-        // Fallback method for backward compatibility
-        return createFallbackCustomer(customerId);
+
+    private static BalanceUpdate classifyMiss(Connection conn, String accountNumber, long expectedVersion)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT version FROM accounts WHERE account_number = ?")) {
+            stmt.setString(1, accountNumber);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return BalanceUpdate.NOT_FOUND;
+            }
+            return rs.getLong(1) == expectedVersion ? BalanceUpdate.INSUFFICIENT_FUNDS : BalanceUpdate.CONFLICT;
+        }
+    }
+
+    private void setUpdateParameters(PreparedStatement stmt, Account account) throws SQLException {
+        // Set parameters in the correct order for UPDATE
+        stmt.setLong(1, account.getBalanceMinor());
+        stmt.setDate(2, Date.valueOf(account.getDateCreated()));
+        stmt.setDate(3, Date.valueOf(account.getDateOpened()));
+        stmt.setString(4, account.getCustomer().getCustomerId());
+        stmt.setString(5, account.getStatus().toString());
+
+        // Determine account type and set specific fields
+        if (account instanceof SavingsAccount) {
+            SavingsAccount sa = (SavingsAccount) account;
+            stmt.setString(6, "SAVINGS");
+            stmt.setDouble(7, sa.getInterestRate());
+            stmt.setNull(8, Types.VARCHAR);
+            stmt.setNull(9, Types.VARCHAR);
+            stmt.setNull(10, Types.BOOLEAN);
+
+        } else if (account instanceof InvestmentAccount) {
+            InvestmentAccount ia = (InvestmentAccount) account;
+            stmt.setString(6, "INVESTMENT");
+            stmt.setDouble(7, ia.getInterestRate());
+            stmt.setNull(8, Types.VARCHAR);
+            stmt.setNull(9, Types.VARCHAR);
+            stmt.setNull(10, Types.BOOLEAN);
+
+        } else if (account instanceof ChequeAccount) {
+            ChequeAccount ca = (ChequeAccount) account;
+            stmt.setString(6, "CHEQUE");
+            stmt.setNull(7, Types.DOUBLE);
+            stmt.setString(8, ca.getEmployerName());
+            stmt.setString(9, ca.getEmployerAddress());
+            stmt.setBoolean(10, ca.isEmploymentStatus());
+
+        } else {
+            stmt.setString(6, "SAVINGS"); // Default
+            stmt.setNull(7, Types.DOUBLE);
+            stmt.setNull(8, Types.VARCHAR);
+            stmt.setNull(9, Types.VARCHAR);
+            stmt.setNull(10, Types.BOOLEAN);
+        }
+
+        stmt.setString(11, account.getAccountNumber());
+        stmt.setLong(12, account.getVersion());
     }
 
-    private Customer createFallbackCustomer(String customerId) {
-        return new Customer(
-            "temp_user_id", "temp_username", "TempPass@123",
-            customerId, "Unknown", "Customer", "Unknown Address",
+    /**
+     * Map a row of SELECT_WITH_OWNER. Owners are resolved through the query's identity
+     * map, so every account of one customer shares a single Customer instance.
+     */
+    private Account mapResultSetToAccount(ResultSet rs, Map<String, Customer> owners) throws SQLException {
+        return AccountRow.read(rs).toAccount(owners);
+    }
+
+    /**
+     * Dates written through JDBC are stored as epoch millis, while seeded rows use
+     * ISO text ('2024-01-15'); accept both instead of failing the whole row.
+     */
+    private static LocalDate readDate(ResultSet rs, String column) throws SQLException {
+        Object raw = rs.getObject(column);
+        if (raw == null) {
+            return LocalDate.now();
+        }
+        if (raw instanceof Number) {
+            return new Date(((Number) raw).longValue()).toLocalDate();
+        }
+        String text = raw.toString();
+        return LocalDate.parse(text.length() > 10 ? text.substring(0, 10) : text);
+    }
+
+    private static Customer createFallbackCustomer(String customerId) {
+        return Customer.reference(
+            "temp_user_id", customerId, "Unknown", "Customer", "Unknown Address",
             "000-0000", "unknown@email.com", CustomerType.INDIVIDUAL
         );
     }
 
+    /**
+     * Immutable copy of one SELECT_WITH_OWNER row. The cache stores these rather than
+     * Account objects, which callers mutate before their writes are committed.
+     */
+    private static final class AccountRow {
+        final String accountNumber;
+        final String accountType;
+        final long balanceMinor;
+        final long version;
+        final LocalDate dateCreated;
+        final LocalDate dateOpened;
+        final String customerId;
+        final AccountStatus status;
+        final double interestRate;
+        final String employerName;
+        final String employerAddress;
+        final boolean employmentStatus;
+        final LocalDate lastInterestApplied; // null until interest is first paid
+        // Owner columns; ownerCustomerId is null when the customers row is missing
+        final String ownerCustomerId;
+        final String ownerUserId;
+        final String ownerFirstName;
+        final String ownerSurname;
+        final String ownerAddress;
+        final String ownerPhoneNumber;
+        final String ownerEmail;
+        final String ownerCustomerType;
+
+        private AccountRow(ResultSet rs) throws SQLException {
+            accountNumber = rs.getString("account_number");
+            accountType = rs.getString("account_type");
+            balanceMinor = rs.getLong("balance");
+            version = rs.getLong("version");
+            // Handle potential null dates
+            dateCreated = readDate(rs, "date_created");
+            dateOpened = readDate(rs, "date_opened");
+            customerId = rs.getString("customer_id");
+            status = AccountStatus.valueOf(rs.getString("status"));
+            interestRate = rs.getDouble("interest_rate");
+            employerName = rs.getString("employer_name");
+            employerAddress = rs.getString("employer_address");
+            employmentStatus = rs.getBoolean("employment_status");
+            String lastInterest = rs.getString("last_interest_applied");
+            lastInterestApplied = lastInterest == null ? null : LocalDate.parse(lastInterest);
+            ownerCustomerId = rs.getString("owner_customer_id");
+            ownerUserId = rs.getString("owner_user_id");
+            ownerFirstName = rs.getString("owner_first_name");
+            ownerSurname = rs.getString("owner_surname");
+            ownerAddress = rs.getString("owner_address");
+            ownerPhoneNumber = rs.getString("owner_phone_number");
+            ownerEmail = rs.getString("owner_email");
+            ownerCustomerType = rs.getString("owner_customer_type");
+        }
+
+        static AccountRow read(ResultSet rs) throws SQLException {
+            return new AccountRow(rs);
+        }
+
+        Account toAccount(Map<String, Customer> owners) {
+            // Stored in thebe; the Pula double converts back to exactly this value
+            double balance = Money.toMajor(balanceMinor);
+
+            Customer minimalCustomer = owners.get(customerId);
+            if (minimalCustomer == null) {
+                minimalCustomer = toOwner();
+                owners.put(customerId, minimalCustomer);
+            }
+
+            Account account;
+            switch (accountType) {
+                case "SAVINGS":
+                    SavingsAccount savingsAccount = new SavingsAccount(
+                        accountNumber, balance, dateCreated, dateOpened,
+                        minimalCustomer, status
+                    );
+                    savingsAccount.setInterestRate(interestRate);
+                    account = savingsAccount;
+                    break;
+
+                case "INVESTMENT":
+                    InvestmentAccount investmentAccount = new InvestmentAccount(
+                        accountNumber, balance, dateCreated, dateOpened,
+                        minimalCustomer, status
+                    );
+                    investmentAccount.setInterestRate(interestRate);
+                    account = investmentAccount;
+                    break;
+
+                case "CHEQUE":
+                    account = new ChequeAccount(
+                        accountNumber, balance, dateCreated, dateOpened,
+                        minimalCustomer, status,
+                        employerName, employerAddress, employmentStatus
+                    );
+                    break;
+
+                default:
+                    account = new Account(
+                        accountNumber, balance, dateCreated, dateOpened,
+                        minimalCustomer, status
+                    );
+            }
+            if (account instanceof InterestBearing) {
+                if (lastInterestApplied != null) {
+                    ((InterestBearing) account).setLastInterestApplied(lastInterestApplied);
+                }
+                ((InterestBearing) account).setBalanceHistory(DAILY_BALANCES);
+            }
+            account.setVersion(version);
+            return account;
+        }
+
+        private Customer toOwner() {
+            if (ownerCustomerId == null) {
+                return createFallbackCustomer(customerId);
+            }
+            // Read-only owner reference: skips password hashing entirely
+            return Customer.reference(ownerUserId, ownerCustomerId, ownerFirstName, ownerSurname,
+                ownerAddress, ownerPhoneNumber, ownerEmail, CustomerType.valueOf(ownerCustomerType));
+        }
+    }
+
     private void setAccountParameters(PreparedStatement stmt, Account account) throws SQLException {
         stmt.setString(1, account.getAccountNumber());
-        stmt.setDouble(2, account.getBalance());
+        stmt.setLong(2, account.getBalanceMinor());
         stmt.setDate(3, Date.valueOf(account.getDateCreated()));
         stmt.setDate(4, Date.valueOf(account.getDateOpened()));
         stmt.setString(5, account.getCustomer().getCustomerId());
@@ -1,20 +1,55 @@
 package database;
 
 import model.AuditEntry;
+import util.SnowflakeIdGenerator;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class AuditDAO implements DAO<AuditEntry> {
 
+    // Finder queries (package-private so query plans can be checked in tests)
+    static final String FIND_BY_ID_SQL = "SELECT * FROM audit_trail WHERE audit_id = ?";
+    static final String FIND_BY_USER_SQL = "SELECT * FROM audit_trail WHERE user_id = ? ORDER BY timestamp DESC";
+    static final String FIND_BY_ACTION_SQL = "SELECT * FROM audit_trail WHERE action = ? ORDER BY timestamp DESC";
+
+    // Keyset pages, newest first; the (timestamp, audit_id) indexes serve them without sorting
+    static final String PAGE_ALL_FIRST_SQL = """
+            SELECT * FROM audit_trail
+            ORDER BY timestamp DESC, audit_id DESC LIMIT ?
+            """;
+    static final String PAGE_ALL_AFTER_SQL = """
+            SELECT * FROM audit_trail WHERE (timestamp, audit_id) < (?, ?)
+            ORDER BY timestamp DESC, audit_id DESC LIMIT ?
+            """;
+    static final String PAGE_BY_USER_FIRST_SQL = """
+            SELECT * FROM audit_trail WHERE user_id = ?
+            ORDER BY timestamp DESC, audit_id DESC LIMIT ?
+            """;
+    static final String PAGE_BY_USER_AFTER_SQL = """
+            SELECT * FROM audit_trail WHERE user_id = ?
+            AND (timestamp, audit_id) < (?, ?)
+            ORDER BY timestamp DESC, audit_id DESC LIMIT ?
+            """;
+
+    private static final String INSERT_SQL = """
+        INSERT INTO audit_trail (audit_id, action, timestamp, user_id, details)
+        VALUES (?, ?, ?, ?, ?)
+        """;
+    private static final String UPDATE_SQL = """
+        UPDATE audit_trail SET action = ?, timestamp = ?, user_id = ?, details = ?
+        WHERE audit_id = ?
+        """;
+
     @Override
     public Optional<AuditEntry> findById(String auditId) {
-        String sql = "SELECT * FROM audit_trail WHERE audit_id = ?";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        awaitPendingWrites();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
             
             stmt.setString(1, auditId);
             ResultSet rs = stmt.executeQuery();
@@ -29,11 +64,11 @@ public class AuditDAO implements DAO<AuditEntry> {
     }
 
     public List<AuditEntry> findByUserId(String userId) {
+        awaitPendingWrites();
         List<AuditEntry> auditEntries = new ArrayList<>();
-        String sql = "SELECT * FROM audit_trail WHERE user_id = ? ORDER BY timestamp DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_USER_SQL)) {
             
             stmt.setString(1, userId);
             ResultSet rs = stmt.executeQuery();
@@ -48,11 +83,11 @@ public class AuditDAO implements DAO<AuditEntry> {
     }
 
     public List<AuditEntry> findByAction(String action) {
+        awaitPendingWrites();
         List<AuditEntry> auditEntries = new ArrayList<>();
-        String sql = "SELECT * FROM audit_trail WHERE action = ? ORDER BY timestamp DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ACTION_SQL)) {
             
             stmt.setString(1, action);
             ResultSet rs = stmt.executeQuery();
@@ -66,12 +101,89 @@ public class AuditDAO implements DAO<AuditEntry> {
         return auditEntries;
     }
 
+    /**
+     * One page of the audit trail, newest first.
+     * @param afterCursor the previous page's next cursor, or null for the first page
+     */
+    public Page<AuditEntry> findPage(PageCursor afterCursor, int limit) {
+        return findPage(null, afterCursor, limit);
+    }
+
+    /**
+     * One page of a user's audit entries, newest first.
+     */
+    public Page<AuditEntry> findPageByUserId(String userId, PageCursor afterCursor, int limit) {
+        return findPage(userId, afterCursor, limit);
+    }
+
+    private Page<AuditEntry> findPage(String userId, PageCursor afterCursor, int limit) {
+        awaitPendingWrites();
+        Page.validateLimit(limit);
+        String sql = userId == null
+            ? (afterCursor == null ? PAGE_ALL_FIRST_SQL : PAGE_ALL_AFTER_SQL)
+            : (afterCursor == null ? PAGE_BY_USER_FIRST_SQL : PAGE_BY_USER_AFTER_SQL);
+        List<AuditEntry> auditEntries = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (userId != null) {
+                stmt.setString(index++, userId);
+            }
+            if (afterCursor != null) {
+                stmt.setTimestamp(index++, Timestamp.valueOf(afterCursor.getTimestamp()));
+                stmt.setString(index++, afterCursor.getId());
+            }
+            // One extra row tells us whether another page exists
+            stmt.setInt(index, limit + 1);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                auditEntries.add(mapResultSetToAuditEntry(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding audit entry page: " + e.getMessage());
+            return new Page<>(auditEntries, null);
+        }
+
+        if (auditEntries.size() <= limit) {
+            return new Page<>(auditEntries, null);
+        }
+        List<AuditEntry> items = auditEntries.subList(0, limit);
+        AuditEntry last = items.get(limit - 1);
+        return new Page<>(items, new PageCursor(last.getTimeStamp(), last.getAuditId()));
+    }
+
+    /**
+     * Number of audit entries, without loading them.
+     */
+    public int count() {
+        awaitPendingWrites();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM audit_trail")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error counting audit entries: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public Stream<AuditEntry> streamAll() {
+        awaitPendingWrites();
+        return ResultStreams.stream("SELECT * FROM audit_trail",
+            (rs, conn) -> mapResultSetToAuditEntry(rs), "audit entries");
+    }
+
     @Override
     public List<AuditEntry> findAll() {
+        awaitPendingWrites();
         List<AuditEntry> auditEntries = new ArrayList<>();
         String sql = "SELECT * FROM audit_trail ORDER BY timestamp DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
@@ -86,20 +198,10 @@ public class AuditDAO implements DAO<AuditEntry> {
 
     @Override
     public boolean save(AuditEntry auditEntry) {
-        String sql = """
-            INSERT INTO audit_trail (audit_id, action, timestamp, user_id, details) 
-            VALUES (?, ?, ?, ?, ?)
-        """;
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, auditEntry.getAuditId());
-            stmt.setString(2, auditEntry.getAction());
-            stmt.setTimestamp(3, Timestamp.valueOf(auditEntry.getTimeStamp()));
-            stmt.setString(4, auditEntry.getUserId());
-            stmt.setString(5, auditEntry.getDetails());
-            
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+
+            setInsertParameters(stmt, auditEntry);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error saving audit entry: " + e.getMessage());
@@ -109,20 +211,10 @@ public class AuditDAO implements DAO<AuditEntry> {
 
     @Override
     public boolean update(AuditEntry auditEntry) {
-        String sql = """
-            UPDATE audit_trail SET action = ?, timestamp = ?, user_id = ?, details = ? 
-            WHERE audit_id = ?
-        """;
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, auditEntry.getAction());
-            stmt.setTimestamp(2, Timestamp.valueOf(auditEntry.getTimeStamp()));
-            stmt.setString(3, auditEntry.getUserId());
-            stmt.setString(4, auditEntry.getDetails());
-            stmt.setString(5, auditEntry.getAuditId());
-            
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+
+            setUpdateParameters(stmt, auditEntry);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error updating audit entry: " + e.getMessage());
@@ -130,6 +222,20 @@ public class AuditDAO implements DAO<AuditEntry> {
         }
     }
 
+    @Override
+    public BatchResult saveAll(Collection<AuditEntry> auditEntries) {
+        return new BatchWriter<AuditEntry>("audit entry", AuditEntry::getAuditId)
+            .step(INSERT_SQL, this::setInsertParameters)
+            .write(auditEntries);
+    }
+
+    @Override
+    public BatchResult updateAll(Collection<AuditEntry> auditEntries) {
+        return new BatchWriter<AuditEntry>("audit entry", AuditEntry::getAuditId)
+            .step(UPDATE_SQL, this::setUpdateParameters)
+            .write(auditEntries);
+    }
+
     @Override
     public boolean delete(String auditId) {
         String sql = "DELETE FROM audit_trail WHERE audit_id = ?";
@@ -145,24 +251,52 @@ public class AuditDAO implements DAO<AuditEntry> {
         }
     }
 
-    // In AuditDAOImpl.java - Update the recordAudit method
+    /**
+     * Record an action. A null actor is the system; an ID with no users row is recorded
+     * against the reserved UNKNOWN user, keeping the claimed ID in the details, so the
+     * foreign key always holds without a read round trip for known users.
+     */
     public void recordAudit(String userId, String action, String details) {
-        // Validate that the user exists before recording audit
-        UserDAO userDAO = new UserDAO();
-        var userOpt = userDAO.findById(userId);
-        
-        // If user doesn't exist (and not a valid system ID), don't record audit
-        // to avoid foreign key constraint violations
-        if (userOpt.isEmpty()) {
-            System.err.println("Warning: Audit record not saved - user not found: " + userId);
-            return;
+        String actor = userId;
+        if (actor == null) {
+            actor = UserDAO.SYSTEM_USER_ID;
+        } else if (!UserDAO.exists(actor)) {
+            details = "[claimed user " + actor + "] " + details;
+            actor = UserDAO.UNKNOWN_USER_ID;
         }
         
-        String auditId = "AUDIT_" + System.currentTimeMillis() + "_" + userId;
+        String auditId = SnowflakeIdGenerator.next("AUDIT_");
         AuditEntry auditEntry = new AuditEntry(
-            auditId, action, LocalDateTime.now(), userId, details
+            auditId, action, LocalDateTime.now(), actor, details
         );
-        save(auditEntry);
+        // Queued for the next group commit; written inline when the pipeline is off,
+        // or inside a unit of work so the entry commits or rolls back with the operation
+        AuditWriter writer = DatabaseConnection.getAuditWriter();
+        if (writer != null && writer.isRunning() && !UnitOfWork.isActive()) {
+            writer.submit(auditEntry);
+        } else {
+            save(auditEntry);
+        }
+    }
+
+    /**
+     * Write any queued audit entries now.
+     */
+    public void flush() {
+        AuditWriter writer = DatabaseConnection.peekAuditWriter();
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Readers see their own recordAudit calls: anything still queued is written first.
+     */
+    private void awaitPendingWrites() {
+        AuditWriter writer = DatabaseConnection.peekAuditWriter();
+        if (writer != null && !writer.isIdle()) {
+            writer.flush();
+        }
     }
 
     /**
@@ -186,6 +320,22 @@ public class AuditDAO implements DAO<AuditEntry> {
         }
     }
 
+    private void setInsertParameters(PreparedStatement stmt, AuditEntry auditEntry) throws SQLException {
+        stmt.setString(1, auditEntry.getAuditId());
+        stmt.setString(2, auditEntry.getAction());
+        stmt.setTimestamp(3, Timestamp.valueOf(auditEntry.getTimeStamp()));
+        stmt.setString(4, auditEntry.getUserId());
+        stmt.setString(5, auditEntry.getDetails());
+    }
+
+    private void setUpdateParameters(PreparedStatement stmt, AuditEntry auditEntry) throws SQLException {
+        stmt.setString(1, auditEntry.getAction());
+        stmt.setTimestamp(2, Timestamp.valueOf(auditEntry.getTimeStamp()));
+        stmt.setString(3, auditEntry.getUserId());
+        stmt.setString(4, auditEntry.getDetails());
+        stmt.setString(5, auditEntry.getAuditId());
+    }
+
     private AuditEntry mapResultSetToAuditEntry(ResultSet rs) throws SQLException {
         return new AuditEntry(
             rs.getString("audit_id"),
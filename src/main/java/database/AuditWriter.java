@@ -0,0 +1,522 @@
+package database;
+
+import model.AuditEntry;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Group-commit pipeline for audit entries.
+ *
+ * recordAudit only enqueues; one background thread drains the queue and writes each
+ * batch as a single saveAll once it reaches the batch size or its oldest entry has
+ * waited the maximum latency. When the queue is full the overflow policy decides
+ * whether producers block, entries are dropped, or entries are appended to a spill
+ * file that is replayed the next time the writer starts.
+ *
+ * A batch the database rejects (a lease timeout, SQLITE_BUSY, a bad row) is not lost:
+ * its failed entries go to the spill file, which the writer retries once it is idle,
+ * or, without a spill file, back on the queue. Either way an entry gets a bounded
+ * number of writes (the spill file records its count); one that still fails is moved
+ * to the dead-letter file beside the spill file, or dropped without one. An entry
+ * submitted once the writer has stopped is written inline.
+ */
+public final class AuditWriter {
+
+    public enum OverflowPolicy { BLOCK, DROP, SPILL }
+
+    // Writes an entry gets before it is dead-lettered or dropped
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    // Spilled entries are retried this long after the last spill, once the queue is empty
+    private static final long SPILL_RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final Function<List<AuditEntry>, BatchResult> sink;
+    private final int capacity;
+    private final int batchSize;
+    private final long maxLatencyNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillFile;
+    private final Path deadLetterFile;
+
+    // Lock-free queue; the semaphore's permits are the free slots that bound it
+    private final ConcurrentLinkedQueue<AuditEntry> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore freeSlots;
+    // Held while a batch is between the queue and the database, so flush can wait for it
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Object spillLock = new Object();
+    // Failed writes per audit ID, for requeued and replayed entries
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+    // When the writer thread next retries the spill file; 0 when nothing was spilled
+    private volatile long spillRetryAt;
+
+    private volatile Thread writerThread;
+    private volatile boolean running;
+
+    // Metrics
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+
+    public AuditWriter(Function<List<AuditEntry>, BatchResult> sink, int capacity, int batchSize,
+                       long maxLatencyMillis, OverflowPolicy overflowPolicy, Path spillFile) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Audit queue capacity and batch size must be positive");
+        }
+        this.sink = sink;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis);
+        this.overflowPolicy = overflowPolicy;
+        this.spillFile = spillFile;
+        this.deadLetterFile = spillFile == null ? null
+            : spillFile.resolveSibling(spillFile.getFileName() + ".dead");
+        this.freeSlots = new Semaphore(capacity);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        replaySpillFile();
+        Thread thread = new Thread(this::runWriter, "audit-writer");
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Stop the background thread after writing everything still queued.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread thread = writerThread;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+        flush();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Queue an entry, or write it inline once the writer has stopped. Returns false if
+     * it was dropped by the overflow policy or could not be written.
+     */
+    public boolean submit(AuditEntry entry) {
+        if (!running) {
+            return writeInline(entry);
+        }
+        if (!freeSlots.tryAcquire()) {
+            switch (overflowPolicy) {
+                case BLOCK:
+                    blocked.incrementAndGet();
+                    LockSupport.unpark(writerThread);
+                    try {
+                        // a stopped writer frees no more slots, so stop waiting for one
+                        while (!freeSlots.tryAcquire(Math.max(maxLatencyNanos, 1_000_000L), TimeUnit.NANOSECONDS)) {
+                            if (!running) {
+                                return writeInline(entry);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped.incrementAndGet();
+                        return false;
+                    }
+                    break;
+                case SPILL:
+                    return spill(entry);
+                default:
+                    dropped.incrementAndGet();
+                    return false;
+            }
+        }
+        queue.offer(entry);
+        long count = enqueued.incrementAndGet();
+        if (count % batchSize == 0) {
+            LockSupport.unpark(writerThread);
+        }
+        if (!running) {
+            // stop() may have made its final flush before this entry was queued
+            flush();
+        }
+        return true;
+    }
+
+    private boolean writeInline(AuditEntry entry) {
+        enqueued.incrementAndGet();
+        return writeBatch(List.of(entry)) == 1;
+    }
+
+    /**
+     * Write everything queued so far and wait for any batch already in flight.
+     *
+     * A thread that holds the write connection cannot wait for the writer thread
+     * (which needs that connection), so it writes the queue itself instead. Inside a
+     * unit of work it does neither: the queued entries belong to other operations and
+     * must not roll back with this one.
+     */
+    public void flush() {
+        if (UnitOfWork.isActive()) {
+            return;
+        }
+        if (DatabaseConnection.isWriterHeldByCurrentThread()) {
+            while (drainOnce() > 0) {
+                // keep going until the queue is empty
+            }
+            return;
+        }
+        writeLock.lock();
+        try {
+            while (drainOnce() > 0) {
+                // keep going until the queue is empty
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * True when nothing is queued or in flight.
+     */
+    public boolean isIdle() {
+        return queue.isEmpty() && !writeLock.isLocked();
+    }
+
+    private void runWriter() {
+        long oldestSeenAt = 0;
+        while (running) {
+            if (queue.isEmpty()) {
+                oldestSeenAt = 0;
+                long retryAt = spillRetryAt;
+                if (retryAt != 0 && System.nanoTime() - retryAt >= 0) {
+                    spillRetryAt = 0;
+                    writeLock.lock();
+                    try {
+                        replaySpillFile();
+                    } finally {
+                        writeLock.unlock();
+                    }
+                    continue;
+                }
+                LockSupport.parkNanos(this, maxLatencyNanos);
+                continue;
+            }
+            long now = System.nanoTime();
+            if (oldestSeenAt == 0) {
+                oldestSeenAt = now;
+            }
+            int depth = capacity - freeSlots.availablePermits();
+            if (depth < batchSize && now - oldestSeenAt < maxLatencyNanos) {
+                LockSupport.parkNanos(this, maxLatencyNanos - (now - oldestSeenAt));
+                continue;
+            }
+            writeLock.lock();
+            try {
+                drainOnce();
+            } finally {
+                writeLock.unlock();
+            }
+            oldestSeenAt = 0;
+        }
+    }
+
+    /**
+     * Move up to one batch from the queue to the database; returns the batch size.
+     */
+    private int drainOnce() {
+        List<AuditEntry> batch = new ArrayList<>(batchSize);
+        AuditEntry entry;
+        while (batch.size() < batchSize && (entry = queue.poll()) != null) {
+            batch.add(entry);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        freeSlots.release(batch.size());
+        writeBatch(batch);
+        batches.incrementAndGet();
+        lastBatchSize.set(batch.size());
+        maxBatchSize.accumulateAndGet(batch.size(), Math::max);
+        return batch.size();
+    }
+
+    /**
+     * Hand a batch to the sink and keep whatever it could not write; returns the rows written.
+     */
+    private int writeBatch(List<AuditEntry> batch) {
+        List<AuditEntry> rejected = new ArrayList<>();
+        int writtenNow;
+        try {
+            BatchResult result = sink.apply(batch);
+            writtenNow = result.getWritten();
+            for (BatchResult.RowFailure failure : result.getFailures()) {
+                System.err.println("Warning: audit entry not saved: " + failure.getKey() + " (" + failure.getReason() + ")");
+                rejected.add(batch.get(failure.getIndex()));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Warning: audit batch failed: " + e.getMessage());
+            writtenNow = 0;
+            rejected.addAll(batch);
+        }
+        written.addAndGet(writtenNow);
+        failed.addAndGet(batch.size() - writtenNow);
+        if (!attempts.isEmpty()) {
+            Set<AuditEntry> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+            kept.addAll(rejected);
+            for (AuditEntry entry : batch) {
+                if (!kept.contains(entry)) {
+                    attempts.remove(entry.getAuditId());
+                }
+            }
+        }
+        for (AuditEntry entry : rejected) {
+            keep(entry);
+        }
+        return writtenNow;
+    }
+
+    /**
+     * An entry the database rejected: spilled for a later retry, or requeued when there
+     * is no spill file, until it has used its attempts; then dead-lettered or dropped.
+     */
+    private void keep(AuditEntry entry) {
+        int failures = attempts.merge(entry.getAuditId(), 1, Integer::sum);
+        if (failures < MAX_WRITE_ATTEMPTS) {
+            if (spillFile != null) {
+                attempts.remove(entry.getAuditId());
+                spill(entry, failures);
+                return;
+            }
+            if (running && freeSlots.tryAcquire()) {
+                queue.offer(entry);
+                return;
+            }
+        }
+        attempts.remove(entry.getAuditId());
+        dropped.incrementAndGet();
+        if (deadLetterFile != null && failures >= MAX_WRITE_ATTEMPTS) {
+            synchronized (spillLock) {
+                try {
+                    append(deadLetterFile, entry, failures);
+                    System.err.println("Warning: audit entry moved to " + deadLetterFile + " after "
+                        + failures + " failed writes: " + entry.getAuditId());
+                    return;
+                } catch (IOException e) {
+                    System.err.println("Warning: audit dead-letter write failed: " + e.getMessage());
+                }
+            }
+        }
+        System.err.println("Warning: audit entry dropped after failed writes: " + entry.getAuditId());
+    }
+
+    private boolean spill(AuditEntry entry) {
+        return spill(entry, 0);
+    }
+
+    // failures: writes the database already rejected, carried across replays
+    private boolean spill(AuditEntry entry, int failures) {
+        synchronized (spillLock) {
+            try {
+                append(spillFile, entry, failures);
+                spilled.incrementAndGet();
+                if (spillRetryAt == 0) {
+                    spillRetryAt = System.nanoTime() + SPILL_RETRY_NANOS;
+                }
+                return true;
+            } catch (IOException e) {
+                System.err.println("Warning: audit spill failed, entry dropped: " + e.getMessage());
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+    }
+
+    private static void append(Path file, AuditEntry entry, int failures) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(String.join("\t", escape(entry.getAuditId()), escape(entry.getAction()),
+                entry.getTimeStamp().toString(), escape(entry.getUserId()), escape(entry.getDetails()),
+                Integer.toString(failures)));
+            out.newLine();
+        }
+    }
+
+    /**
+     * Write spilled entries straight to the database and remove the file. Entries the
+     * database still rejects are spilled again for the next retry, with their failure
+     * count, until they run out of attempts.
+     */
+    private void replaySpillFile() {
+        if (spillFile == null || !Files.exists(spillFile)) {
+            return;
+        }
+        List<AuditEntry> entries = new ArrayList<>();
+        synchronized (spillLock) {
+            try (BufferedReader in = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] fields = line.split("\t", -1);
+                    // lines spilled before failure counts were recorded have five fields
+                    if (fields.length == 5 || fields.length == 6) {
+                        AuditEntry entry = new AuditEntry(unescape(fields[0]), unescape(fields[1]),
+                            LocalDateTime.parse(fields[2]), unescape(fields[3]), unescape(fields[4]));
+                        int failures = fields.length == 6 ? Integer.parseInt(fields[5]) : 0;
+                        if (failures > 0) {
+                            attempts.put(entry.getAuditId(), failures);
+                        }
+                        entries.add(entry);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Warning: could not replay audit spill file: " + e.getMessage());
+                return;
+            }
+            try {
+                Files.delete(spillFile);
+            } catch (IOException e) {
+                System.err.println("Warning: could not remove audit spill file: " + e.getMessage());
+                return;
+            }
+        }
+        int replayed = writeBatch(entries);
+        System.out.println("Replayed " + replayed + " of " + entries.size() + " spilled audit entries");
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "\\0";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if ("\\0".equals(value)) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public AuditWriterMetrics getMetrics() {
+        return new AuditWriterMetrics(
+                capacity - freeSlots.availablePermits(),
+                enqueued.get(),
+                written.get(),
+                failed.get(),
+                dropped.get(),
+                spilled.get(),
+                blocked.get(),
+                batches.get(),
+                lastBatchSize.get(),
+                maxBatchSize.get());
+    }
+
+    /**
+     * Point-in-time view of queue depth, batch sizes and overflow counts.
+     */
+    public static final class AuditWriterMetrics {
+        private final long queueDepth;
+        private final long enqueued;
+        private final long written;
+        private final long failed;
+        private final long dropped;
+        private final long spilled;
+        private final long blocked;
+        private final long batches;
+        private final long lastBatchSize;
+        private final long maxBatchSize;
+
+        AuditWriterMetrics(long queueDepth, long enqueued, long written, long failed, long dropped,
+                           long spilled, long blocked, long batches, long lastBatchSize, long maxBatchSize) {
+            this.queueDepth = queueDepth;
+            this.enqueued = enqueued;
+            this.written = written;
+            this.failed = failed;
+            this.dropped = dropped;
+            this.spilled = spilled;
+            this.blocked = blocked;
+            this.batches = batches;
+            this.lastBatchSize = lastBatchSize;
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        // Getters
+        public long getQueueDepth() { return queueDepth; }
+        public long getEnqueued() { return enqueued; }
+        public long getWritten() { return written; }
+        public long getFailed() { return failed; }
+        public long getDropped() { return dropped; }
+        public long getSpilled() { return spilled; }
+        public long getBlocked() { return blocked; }
+        public long getBatches() { return batches; }
+        public long getLastBatchSize() { return lastBatchSize; }
+        public long getMaxBatchSize() { return maxBatchSize; }
+
+        public double getAverageBatchSize() {
+            return batches == 0 ? 0.0 : (double) (written + failed) / batches;
+        }
+
+        @Override
+        public String toString() {
+            return "AuditWriterMetrics{" +
+                    "queueDepth=" + queueDepth +
+                    ", enqueued=" + enqueued +
+                    ", written=" + written +
+                    ", failed=" + failed +
+                    ", dropped=" + dropped +
+                    ", spilled=" + spilled +
+                    ", blocked=" + blocked +
+                    ", batches=" + batches +
+                    ", lastBatchSize=" + lastBatchSize +
+                    ", maxBatchSize=" + maxBatchSize +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a saveAll/updateAll call: how many rows were written and which ones failed.
+ */
+public final class BatchResult {
+    private final int attempted;
+    private final int written;
+    private final List<RowFailure> failures;
+
+    BatchResult(int attempted, int written, List<RowFailure> failures) {
+        this.attempted = attempted;
+        this.written = written;
+        this.failures = new ArrayList<>(failures);
+    }
+
+    public int getAttempted() {
+        return attempted;
+    }
+
+    public int getWritten() {
+        return written;
+    }
+
+    public List<RowFailure> getFailures() {
+        return new ArrayList<>(failures);
+    }
+
+    /**
+     * True when every row was written.
+     */
+    public boolean isComplete() {
+        return failures.isEmpty() && written == attempted;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{attempted=" + attempted + ", written=" + written
+                + ", failed=" + failures.size() + '}';
+    }
+
+    /**
+     * A row that was not written, by its position in the input and its key.
+     */
+    public static final class RowFailure {
+        private final int index;
+        private final String key;
+        private final String reason;
+
+        RowFailure(int index, String key, String reason) {
+            this.index = index;
+            this.key = key;
+            this.reason = reason;
+        }
+
+        // Getters
+        public int getIndex() { return index; }
+        public String getKey() { return key; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return "#" + index + " " + key + ": " + reason;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Shared saveAll/updateAll engine for the DAOs.
+ *
+ * Rows are written with addBatch/executeBatch in chunks, one transaction per chunk, so
+ * a bulk write pays one commit per chunk instead of one per row. A row may need several
+ * statements (a customer is a users row plus a customers row); each statement is a step.
+ * When a chunk fails it is rolled back and replayed row by row under savepoints, so the
+ * good rows still commit and each bad row is reported with its own error.
+ * Inside a caller's transaction nothing is committed; chunks are only savepoints.
+ */
+final class BatchWriter<T> {
+
+    /**
+     * Binds one row's parameters for a step's statement.
+     */
+    @FunctionalInterface
+    interface StatementBinder<T> {
+        void bind(PreparedStatement stmt, T row) throws SQLException;
+    }
+
+    private final String description;
+    private final Function<T, String> keyOf;
+    private final int chunkSize;
+    private final List<String> sqls = new ArrayList<>();
+    private final List<StatementBinder<T>> binders = new ArrayList<>();
+
+    BatchWriter(String description, Function<T, String> keyOf) {
+        this(description, keyOf, DatabaseConnection.getBatchChunkSize());
+    }
+
+    BatchWriter(String description, Function<T, String> keyOf, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Batch chunk size must be positive: " + chunkSize);
+        }
+        this.description = description;
+        this.keyOf = keyOf;
+        this.chunkSize = chunkSize;
+    }
+
+    BatchWriter<T> step(String sql, StatementBinder<T> binder) {
+        sqls.add(sql);
+        binders.add(binder);
+        return this;
+    }
+
+    BatchResult write(Collection<T> rows) {
+        List<T> input = new ArrayList<>(rows);
+        List<BatchResult.RowFailure> failures = new ArrayList<>();
+        int written = 0;
+        int done = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            boolean ownTransaction = conn.getAutoCommit();
+            List<PreparedStatement> statements = new ArrayList<>();
+            try {
+                for (String sql : sqls) {
+                    statements.add(conn.prepareStatement(sql));
+                }
+                if (ownTransaction) {
+                    conn.setAutoCommit(false);
+                }
+                while (done < input.size()) {
+                    int end = Math.min(done + chunkSize, input.size());
+                    int chunkWritten = writeChunk(conn, statements, input, done, end, failures);
+                    if (ownTransaction) {
+                        conn.commit();
+                    }
+                    written += chunkWritten;
+                    done = end;
+                }
+            } catch (SQLException e) {
+                System.err.println("Error writing " + description + " batch: " + e.getMessage());
+                if (ownTransaction) {
+                    rollbackQuietly(conn);
+                }
+                failRemaining(input, done, failures, e.getMessage());
+            } finally {
+                for (Statement stmt : statements) {
+                    stmt.close();
+                }
+                if (ownTransaction) {
+                    conn.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error writing " + description + " batch: " + e.getMessage());
+            failRemaining(input, done, failures, e.getMessage());
+        }
+        return new BatchResult(input.size(), written, failures);
+    }
+
+    private int writeChunk(Connection conn, List<PreparedStatement> statements, List<T> input,
+                           int start, int end, List<BatchResult.RowFailure> failures) throws SQLException {
+        Savepoint chunk = conn.setSavepoint();
+        try {
+            boolean allMatched = true;
+            for (int s = 0; s < statements.size(); s++) {
+                PreparedStatement stmt = statements.get(s);
+                for (int i = start; i < end; i++) {
+                    binders.get(s).bind(stmt, input.get(i));
+                    stmt.addBatch();
+                }
+                for (int count : stmt.executeBatch()) {
+                    // an update that matched nothing is a failed row
+                    allMatched &= count > 0 || count == Statement.SUCCESS_NO_INFO;
+                }
+            }
+            if (allMatched) {
+                conn.releaseSavepoint(chunk);
+                return end - start;
+            }
+        } catch (SQLException e) {
+            for (PreparedStatement stmt : statements) {
+                stmt.clearBatch();
+            }
+        }
+
+        // Replay the chunk a row at a time to find the rows that cannot be written
+        conn.rollback(chunk);
+        conn.releaseSavepoint(chunk);
+        int written = 0;
+        for (int i = start; i < end; i++) {
+            T row = input.get(i);
+            Savepoint single = conn.setSavepoint();
+            String reason = null;
+            try {
+                for (int s = 0; s < statements.size() && reason == null; s++) {
+                    PreparedStatement stmt = statements.get(s);
+                    binders.get(s).bind(stmt, row);
+                    if (stmt.executeUpdate() == 0) {
+                        reason = "no matching row";
+                    }
+                }
+            } catch (SQLException e) {
+                reason = e.getMessage();
+            }
+            if (reason == null) {
+                conn.releaseSavepoint(single);
+                written++;
+            } else {
+                conn.rollback(single);
+                conn.releaseSavepoint(single);
+                failures.add(new BatchResult.RowFailure(i, keyOf.apply(row), reason));
+            }
+        }
+        return written;
+    }
+
+    // Rows from the first unfinished chunk onwards were rolled back
+    private void failRemaining(List<T> input, int from, List<BatchResult.RowFailure> failures, String reason) {
+        failures.removeIf(failure -> failure.getIndex() >= from);
+        for (int i = from; i < input.size(); i++) {
+            failures.add(new BatchResult.RowFailure(i, keyOf.apply(input.get(i)), reason));
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("Warning: batch rollback failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package database;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background WAL checkpointing for the SQLite database.
+ *
+ * Automatic checkpoints are disabled on the writer; instead this manager runs a
+ * PASSIVE checkpoint once the WAL passes a size threshold or a time interval, escalates
+ * to RESTART when passive checkpoints cannot keep the WAL below its hard limit, and
+ * runs a TRUNCATE checkpoint once writers have gone idle so the WAL file shrinks back
+ * to zero bytes.
+ */
+public final class CheckpointManager {
+
+    public enum Mode { PASSIVE, RESTART, TRUNCATE }
+
+    private final ConnectionPool pool;
+    private final Path walFile;
+    private final long sizeThresholdBytes;
+    private final long maxIntervalMillis;
+    private final long idleMillis;
+    private final long pollMillis;
+
+    private ScheduledExecutorService scheduler;
+
+    // Idle detection based on writer activity
+    private long lastSeenWriterAcquisitions = -1;
+    private long lastWriteActivityAt = System.currentTimeMillis();
+    private volatile long lastCheckpointAt = System.currentTimeMillis();
+
+    // Metrics
+    private final AtomicLong passiveCheckpoints = new AtomicLong();
+    private final AtomicLong restartCheckpoints = new AtomicLong();
+    private final AtomicLong truncateCheckpoints = new AtomicLong();
+    private final AtomicLong busyCheckpoints = new AtomicLong();
+    private final AtomicLong lastLagFrames = new AtomicLong();
+    private final AtomicLong lastCheckpointMillis = new AtomicLong();
+
+    public CheckpointManager(ConnectionPool pool, Path walFile, long sizeThresholdBytes,
+                             long maxIntervalMillis, long idleMillis, long pollMillis) {
+        this.pool = pool;
+        this.walFile = walFile;
+        this.sizeThresholdBytes = sizeThresholdBytes;
+        this.maxIntervalMillis = maxIntervalMillis;
+        this.idleMillis = idleMillis;
+        this.pollMillis = pollMillis;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        System.out.println("Checkpoint manager started (WAL threshold " + sizeThresholdBytes + " bytes)");
+    }
+
+    /**
+     * Stop the background thread and leave the WAL fully checkpointed and truncated.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+        try {
+            checkpoint(Mode.TRUNCATE);
+        } catch (SQLException e) {
+            System.err.println("Warning: final WAL checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Decide whether a checkpoint is due and run it at the appropriate strength.
+     */
+    void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            long writes = pool.getMetrics().getWriterAcquisitions();
+            if (writes != lastSeenWriterAcquisitions) {
+                lastSeenWriterAcquisitions = writes;
+                lastWriteActivityAt = now;
+            }
+
+            long walSize = getWalSizeBytes();
+            if (walSize == 0) {
+                return;
+            }
+
+            boolean idle = now - lastWriteActivityAt >= idleMillis;
+            if (idle) {
+                checkpoint(Mode.TRUNCATE);
+            } else if (walSize >= sizeThresholdBytes * 4 && lastLagFrames.get() > 0) {
+                // Passive checkpoints are not keeping up; wait for readers so the WAL can restart
+                checkpoint(Mode.RESTART);
+            } else if (walSize >= sizeThresholdBytes || now - lastCheckpointAt >= maxIntervalMillis) {
+                checkpoint(Mode.PASSIVE);
+            } else {
+                return;
+            }
+            // Our own writer lease is not application write activity
+            lastSeenWriterAcquisitions = pool.getMetrics().getWriterAcquisitions();
+        } catch (Exception e) {
+            System.err.println("Warning: WAL checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Run one checkpoint on the writer connection.
+     */
+    public CheckpointResult checkpoint(Mode mode) throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Connection conn = pool.acquireWriter();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+            CheckpointResult result = rs.next()
+                    ? new CheckpointResult(mode, rs.getInt(1) != 0, rs.getInt(2), rs.getInt(3))
+                    : new CheckpointResult(mode, false, 0, 0);
+            record(result, System.currentTimeMillis() - start);
+            return result;
+        }
+    }
+
+    private void record(CheckpointResult result, long elapsedMillis) {
+        switch (result.getMode()) {
+            case PASSIVE:
+                passiveCheckpoints.incrementAndGet();
+                break;
+            case RESTART:
+                restartCheckpoints.incrementAndGet();
+                break;
+            case TRUNCATE:
+                truncateCheckpoints.incrementAndGet();
+                break;
+        }
+        if (result.isBusy()) {
+            busyCheckpoints.incrementAndGet();
+        }
+        lastLagFrames.set(Math.max(0, result.getLogFrames() - result.getCheckpointedFrames()));
+        lastCheckpointMillis.set(elapsedMillis);
+        lastCheckpointAt = System.currentTimeMillis();
+    }
+
+    public long getWalSizeBytes() {
+        try {
+            return Files.exists(walFile) ? Files.size(walFile) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public CheckpointMetrics getMetrics() {
+        return new CheckpointMetrics(
+                getWalSizeBytes(),
+                lastLagFrames.get(),
+                System.currentTimeMillis() - lastCheckpointAt,
+                lastCheckpointMillis.get(),
+                passiveCheckpoints.get(),
+                restartCheckpoints.get(),
+                truncateCheckpoints.get(),
+                busyCheckpoints.get());
+    }
+
+    /**
+     * Outcome of PRAGMA wal_checkpoint: busy flag, frames in the WAL, frames copied back.
+     */
+    public static final class CheckpointResult {
+        private final Mode mode;
+        private final boolean busy;
+        private final int logFrames;
+        private final int checkpointedFrames;
+
+        public CheckpointResult(Mode mode, boolean busy, int logFrames, int checkpointedFrames) {
+            this.mode = mode;
+            this.busy = busy;
+            this.logFrames = logFrames;
+            this.checkpointedFrames = checkpointedFrames;
+        }
+
+        // Getters
+        public Mode getMode() { return mode; }
+        public boolean isBusy() { return busy; }
+        public int getLogFrames() { return logFrames; }
+        public int getCheckpointedFrames() { return checkpointedFrames; }
+    }
+
+    /**
+     * Point-in-time view of WAL size and checkpoint progress.
+     */
+    public static final class CheckpointMetrics {
+        private final long walSizeBytes;
+        private final long lagFrames;
+        private final long millisSinceLastCheckpoint;
+        private final long lastCheckpointDurationMillis;
+        private final long passiveCheckpoints;
+        private final long restartCheckpoints;
+        private final long truncateCheckpoints;
+        private final long busyCheckpoints;
+
+        CheckpointMetrics(long walSizeBytes, long lagFrames, long millisSinceLastCheckpoint,
+                          long lastCheckpointDurationMillis, long passiveCheckpoints,
+                          long restartCheckpoints, long truncateCheckpoints, long busyCheckpoints) {
+            this.walSizeBytes = walSizeBytes;
+            this.lagFrames = lagFrames;
+            this.millisSinceLastCheckpoint = millisSinceLastCheckpoint;
+            this.lastCheckpointDurationMillis = lastCheckpointDurationMillis;
+            this.passiveCheckpoints = passiveCheckpoints;
+            this.restartCheckpoints = restartCheckpoints;
+            this.truncateCheckpoints = truncateCheckpoints;
+            this.busyCheckpoints = busyCheckpoints;
+        }
+
+        // Getters
+        public long getWalSizeBytes() { return walSizeBytes; }
+        public long getLagFrames() { return lagFrames; }
+        public long getMillisSinceLastCheckpoint() { return millisSinceLastCheckpoint; }
+        public long getLastCheckpointDurationMillis() { return lastCheckpointDurationMillis; }
+        public long getPassiveCheckpoints() { return passiveCheckpoints; }
+        public long getRestartCheckpoints() { return restartCheckpoints; }
+        public long getTruncateCheckpoints() { return truncateCheckpoints; }
+        public long getBusyCheckpoints() { return busyCheckpoints; }
+
+        @Override
+        public String toString() {
+            return "CheckpointMetrics{" +
+                    "walSizeBytes=" + walSizeBytes +
+                    ", lagFrames=" + lagFrames +
+                    ", millisSinceLastCheckpoint=" + millisSinceLastCheckpoint +
+                    ", lastCheckpointDurationMillis=" + lastCheckpointDurationMillis +
+                    ", passive=" + passiveCheckpoints +
+                    ", restart=" + restartCheckpoints +
+                    ", truncate=" + truncateCheckpoints +
+                    ", busy=" + busyCheckpoints +
+                    '}';
+        }
+    }
+}
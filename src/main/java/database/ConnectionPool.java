@@ -0,0 +1,466 @@
+package database;
+
+import org.sqlite.SQLiteConfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SQLite connection pool: one dedicated writer connection plus N read-only connections.
+ *
+ * Callers receive leases (proxied connections) whose close() hands the physical
+ * connection back to the pool instead of closing it, so DAOs can keep using
+ * try-with-resources. The writer lease is reentrant per thread: a thread that already
+ * holds the writer gets the same connection back, and read requests from that thread
+ * are served by the writer so they see its uncommitted work.
+ */
+public final class ConnectionPool {
+
+    /**
+     * Hook run exactly once on every physical connection right after it is opened.
+     */
+    @FunctionalInterface
+    public interface ConnectionInitializer {
+        void initialize(Connection conn) throws SQLException;
+    }
+
+    private final String jdbcUrl;
+    private final int maxReaders;
+    private final long acquireTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final List<ConnectionInitializer> initializers;
+
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+    private Connection writer;
+    private Lease writerLease;
+
+    private final BlockingQueue<Connection> idleReaders = new LinkedBlockingQueue<>();
+    private final List<Connection> allReaders = new ArrayList<>();
+    private final AtomicInteger openedReaders = new AtomicInteger();
+
+    private final Map<Long, Lease> activeLeases = new ConcurrentHashMap<>();
+    private final AtomicLong leaseSequence = new AtomicLong();
+    private final ScheduledExecutorService leakDetector;
+
+    // Metrics
+    private final AtomicLong writerAcquisitions = new AtomicLong();
+    private final AtomicLong readerAcquisitions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong physicalConnectionsOpened = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String jdbcUrl, int maxReaders, long acquireTimeoutMillis,
+                          long leakThresholdMillis, List<ConnectionInitializer> initializers) {
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("Pool needs at least one read connection");
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.maxReaders = maxReaders;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.initializers = new ArrayList<>(initializers);
+
+        if (leakThresholdMillis > 0) {
+            this.leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "db-pool-leak-detector");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1, leakThresholdMillis / 2);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.leakDetector = null;
+        }
+    }
+
+    /**
+     * Borrow the writer connection. Blocks while another thread holds it.
+     */
+    public Connection acquireWriter() throws SQLException {
+        ensureOpen();
+        long start = System.nanoTime();
+        try {
+            if (!writerLock.tryLock(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for the write connection after "
+                        + acquireTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the write connection", e);
+        }
+
+        try {
+            if (writerLock.getHoldCount() == 1) {
+                totalWaitNanos.addAndGet(System.nanoTime() - start);
+                writerAcquisitions.incrementAndGet();
+                if (writer == null || writer.isClosed()) {
+                    writer = openPhysical(false);
+                }
+                writerLease = register(writer, true);
+            }
+            return proxy(writerLease, true);
+        } catch (SQLException | RuntimeException e) {
+            releaseWriter();
+            throw e;
+        }
+    }
+
+    /**
+     * Borrow a read-only connection, or the writer if the calling thread already holds it.
+     */
+    public Connection acquireReader() throws SQLException {
+        ensureOpen();
+        if (writerLock.isHeldByCurrentThread()) {
+            return acquireWriter();
+        }
+
+        long start = System.nanoTime();
+        Connection physical = idleReaders.poll();
+        if (physical == null) {
+            physical = openReaderIfBelowLimit();
+        }
+        if (physical == null) {
+            try {
+                physical = idleReaders.poll(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a read connection", e);
+            }
+            if (physical == null) {
+                throw new SQLException("Timed out waiting for a read connection after "
+                        + acquireTimeoutMillis + " ms");
+            }
+        }
+        if (physical.isClosed()) {
+            physical = replaceReader(physical);
+        }
+
+        totalWaitNanos.addAndGet(System.nanoTime() - start);
+        readerAcquisitions.incrementAndGet();
+        return proxy(register(physical, false), false);
+    }
+
+    /**
+     * Whether the calling thread currently holds the writer connection.
+     */
+    public boolean isWriterHeldByCurrentThread() {
+        return writerLock.isHeldByCurrentThread();
+    }
+
+    public PoolMetrics getMetrics() {
+        long acquisitions = writerAcquisitions.get() + readerAcquisitions.get();
+        return new PoolMetrics(
+                maxReaders,
+                openedReaders.get(),
+                idleReaders.size(),
+                activeLeases.size(),
+                writerAcquisitions.get(),
+                readerAcquisitions.get(),
+                acquisitions == 0 ? 0 : totalWaitNanos.get() / acquisitions,
+                physicalConnectionsOpened.get(),
+                leaksDetected.get());
+    }
+
+    /**
+     * Close every physical connection. Leases still out are reported as leaks.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        for (Lease lease : activeLeases.values()) {
+            System.err.println("Warning: connection lease still open at pool shutdown (thread "
+                    + lease.threadName + ")");
+        }
+        synchronized (allReaders) {
+            for (Connection reader : allReaders) {
+                closeQuietly(reader);
+            }
+            allReaders.clear();
+        }
+        idleReaders.clear();
+        try {
+            if (writerLock.tryLock(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                try {
+                    closeQuietly(writer);
+                    writer = null;
+                } finally {
+                    writerLock.unlock();
+                }
+            } else {
+                System.err.println("Warning: write connection still busy at pool shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Connection openReaderIfBelowLimit() throws SQLException {
+        while (true) {
+            int current = openedReaders.get();
+            if (current >= maxReaders) {
+                return null;
+            }
+            if (openedReaders.compareAndSet(current, current + 1)) {
+                try {
+                    Connection conn = openPhysical(true);
+                    synchronized (allReaders) {
+                        allReaders.add(conn);
+                    }
+                    return conn;
+                } catch (SQLException e) {
+                    openedReaders.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Connection replaceReader(Connection broken) throws SQLException {
+        Connection fresh = openPhysical(true);
+        synchronized (allReaders) {
+            allReaders.remove(broken);
+            allReaders.add(fresh);
+        }
+        return fresh;
+    }
+
+    private Connection openPhysical(boolean readOnly) throws SQLException {
+        Properties props = new Properties();
+        if (readOnly) {
+            SQLiteConfig config = new SQLiteConfig();
+            config.setReadOnly(true);
+            props = config.toProperties();
+        }
+        Connection conn = DriverManager.getConnection(jdbcUrl, props);
+        try {
+            for (ConnectionInitializer initializer : initializers) {
+                initializer.initialize(conn);
+            }
+        } catch (SQLException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+        physicalConnectionsOpened.incrementAndGet();
+        return conn;
+    }
+
+    private Lease register(Connection physical, boolean isWriter) {
+        Lease lease = new Lease(leaseSequence.incrementAndGet(), physical, isWriter,
+                Thread.currentThread().getName(), System.currentTimeMillis());
+        activeLeases.put(lease.id, lease);
+        return lease;
+    }
+
+    private void release(Lease lease, boolean isWriter) {
+        if (isWriter) {
+            if (writerLock.getHoldCount() == 1) {
+                resetWriter(lease.physical);
+                activeLeases.remove(lease.id);
+                writerLease = null;
+            }
+            releaseWriter();
+        } else {
+            activeLeases.remove(lease.id);
+            if (closed) {
+                closeQuietly(lease.physical);
+            } else {
+                idleReaders.offer(lease.physical);
+            }
+        }
+    }
+
+    private void releaseWriter() {
+        if (writerLock.isHeldByCurrentThread()) {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Roll back anything a caller left open so the next borrower starts clean.
+     */
+    private void resetWriter(Connection physical) {
+        try {
+            if (!physical.isClosed() && !physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Warning: failed to reset write connection: " + e.getMessage());
+            closeQuietly(physical);
+        }
+    }
+
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (Lease lease : activeLeases.values()) {
+            if (!lease.reported && now - lease.acquiredAt > leakThresholdMillis) {
+                lease.reported = true;
+                leaksDetected.incrementAndGet();
+                System.err.println("Warning: possible connection leak - " + (lease.isWriter ? "write" : "read")
+                        + " connection held for " + (now - lease.acquiredAt) + " ms by thread "
+                        + lease.threadName);
+            }
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+
+    private Connection proxy(Lease lease, boolean isWriter) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new LeaseHandler(lease, isWriter));
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Warning: failed to close connection: " + e.getMessage());
+        }
+    }
+
+    private static final class Lease {
+        final long id;
+        final Connection physical;
+        final boolean isWriter;
+        final String threadName;
+        final long acquiredAt;
+        volatile boolean reported = false;
+
+        Lease(long id, Connection physical, boolean isWriter, String threadName, long acquiredAt) {
+            this.id = id;
+            this.physical = physical;
+            this.isWriter = isWriter;
+            this.threadName = threadName;
+            this.acquiredAt = acquiredAt;
+        }
+    }
+
+    private final class LeaseHandler implements InvocationHandler {
+        private final Lease lease;
+        private final boolean isWriter;
+        private boolean returned = false;
+
+        LeaseHandler(Lease lease, boolean isWriter) {
+            this.lease = lease;
+            this.isWriter = isWriter;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(lease, isWriter);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || lease.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (isWriter ? "writer" : "reader") + "#" + lease.id + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(lease.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Point-in-time view of pool usage.
+     */
+    public static final class PoolMetrics {
+        private final int maxReaders;
+        private final int openReaders;
+        private final int idleReaders;
+        private final int activeLeases;
+        private final long writerAcquisitions;
+        private final long readerAcquisitions;
+        private final long averageWaitNanos;
+        private final long physicalConnectionsOpened;
+        private final long leaksDetected;
+
+        PoolMetrics(int maxReaders, int openReaders, int idleReaders, int activeLeases,
+                    long writerAcquisitions, long readerAcquisitions, long averageWaitNanos,
+                    long physicalConnectionsOpened, long leaksDetected) {
+            this.maxReaders = maxReaders;
+            this.openReaders = openReaders;
+            this.idleReaders = idleReaders;
+            this.activeLeases = activeLeases;
+            this.writerAcquisitions = writerAcquisitions;
+            this.readerAcquisitions = readerAcquisitions;
+            this.averageWaitNanos = averageWaitNanos;
+            this.physicalConnectionsOpened = physicalConnectionsOpened;
+            this.leaksDetected = leaksDetected;
+        }
+
+        // Getters
+        public int getMaxReaders() { return maxReaders; }
+        public int getOpenReaders() { return openReaders; }
+        public int getIdleReaders() { return idleReaders; }
+        public int getActiveLeases() { return activeLeases; }
+        public long getWriterAcquisitions() { return writerAcquisitions; }
+        public long getReaderAcquisitions() { return readerAcquisitions; }
+        public long getAverageWaitNanos() { return averageWaitNanos; }
+        public long getPhysicalConnectionsOpened() { return physicalConnectionsOpened; }
+        public long getLeaksDetected() { return leaksDetected; }
+
+        @Override
+        public String toString() {
+            return "PoolMetrics{" +
+                    "readers=" + openReaders + "/" + maxReaders +
+                    ", idleReaders=" + idleReaders +
+                    ", activeLeases=" + activeLeases +
+                    ", writerAcquisitions=" + writerAcquisitions +
+                    ", readerAcquisitions=" + readerAcquisitions +
+                    ", averageWaitNanos=" + averageWaitNanos +
+                    ", physicalConnectionsOpened=" + physicalConnectionsOpened +
+                    ", leaksDetected=" + leaksDetected +
+                    '}';
+        }
+    }
+}
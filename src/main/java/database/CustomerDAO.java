@@ -7,54 +7,86 @@ import model.UserRole;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class CustomerDAO implements DAO<Customer> {
 
+    // Finder queries (package-private so query plans can be checked in tests)
+    static final String FIND_BY_ID_SQL = """
+            SELECT c.*, u.user_id, u.username, u.password, u.role
+            FROM customers c
+            JOIN users u ON c.user_id = u.user_id
+            WHERE c.customer_id = ?
+            """;
+    static final String FIND_BY_USER_ID_SQL = """
+            SELECT c.*, u.user_id, u.username, u.password, u.role
+            FROM customers c
+            JOIN users u ON c.user_id = u.user_id
+            WHERE c.user_id = ?
+            """;
+    private static final String INSERT_SQL = """
+            INSERT INTO customers (customer_id, user_id, first_name, surname, address, phone_number, email, customer_type)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String UPDATE_SQL = """
+            UPDATE customers SET first_name = ?, surname = ?, address = ?, phone_number = ?, email = ?, customer_type = ?
+            WHERE customer_id = ?
+            """;
+    private static final String FIND_ALL_SQL = """
+            SELECT c.*, u.user_id, u.username, u.password, u.role
+            FROM customers c
+            JOIN users u ON c.user_id = u.user_id
+            """;
+
+    // Hot findById lookups; holds row snapshots, invalidated after every write below
+    private static final EntityCache<String, CustomerRow> CACHE = DatabaseConnection.newEntityCache("customers");
+
     private UserDAO userDAO = new UserDAO();
 
     public UserDAO getUserDAO() {
         return userDAO;
     }
 
+    public static EntityCache<String, ?> getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Drop cached customers; the users table is part of every cached row.
+     */
+    static void invalidateCache() {
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * Served from the entity cache when possible; every call returns a fresh Customer.
+     */
     @Override
     public Optional<Customer> findById(String customerId) {
-        String sql = """
-                    SELECT c.*, u.user_id, u.username, u.password, u.role
-                    FROM customers c
-                    JOIN users u ON c.user_id = u.user_id
-                    WHERE c.customer_id = ?
-                """;
+        boolean cacheable = !DatabaseConnection.isWriterHeldByCurrentThread();
+        if (cacheable) {
+            CustomerRow cached = CACHE.get(customerId);
+            if (cached != null) {
+                return Optional.of(cached.toCustomer());
+            }
+        }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+        long generation = CACHE.generation();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+                PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
 
             stmt.setString(1, customerId);
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                User user = new User(
-                        rs.getString("user_id"),
-                        rs.getString("username"),
-                        rs.getString("password"),
-                        UserRole.valueOf(rs.getString("role")),
-                        true);
-
-                Customer customer = new Customer(
-                        user.getUserId(),
-                        user.getUsername(),
-                        user.getPassword(),
-                        rs.getString("customer_id"),
-                        rs.getString("first_name"),
-                        rs.getString("surname"),
-                        rs.getString("address"),
-                        rs.getString("phone_number"),
-                        rs.getString("email"),
-                        CustomerType.valueOf(rs.getString("customer_type")),
-                        true);
-
-                return Optional.of(customer);
+                CustomerRow row = new CustomerRow(rs);
+                if (cacheable) {
+                    CACHE.putIfUnchanged(customerId, row, generation);
+                }
+                return Optional.of(row.toCustomer());
             }
         } catch (SQLException e) {
             System.err.println("Error finding customer by ID: " + e.getMessage());
@@ -63,15 +95,8 @@ public class CustomerDAO implements DAO<Customer> {
     }
 
     public Optional<Customer> findByUserId(String userId) {
-        String sql = """
-                    SELECT c.*, u.user_id, u.username, u.password, u.role
-                    FROM customers c
-                    JOIN users u ON c.user_id = u.user_id
-                    WHERE c.user_id = ?
-                """;
-
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+                PreparedStatement stmt = conn.prepareStatement(FIND_BY_USER_ID_SQL)) {
 
             stmt.setString(1, userId);
             ResultSet rs = stmt.executeQuery();
@@ -105,41 +130,21 @@ public class CustomerDAO implements DAO<Customer> {
         return Optional.empty();
     }
 
+    @Override
+    public Stream<Customer> streamAll() {
+        return ResultStreams.stream(FIND_ALL_SQL, (rs, conn) -> mapResultSetToCustomer(rs), "customers");
+    }
+
     @Override
     public List<Customer> findAll() {
         List<Customer> customers = new ArrayList<>();
-        String sql = """
-                    SELECT c.*, u.user_id, u.username, u.password, u.role
-                    FROM customers c
-                    JOIN users u ON c.user_id = u.user_id
-                """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
                 Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
+                ResultSet rs = stmt.executeQuery(FIND_ALL_SQL)) {
 
             while (rs.next()) {
-                User user = new User(
-                        rs.getString("user_id"),
-                        rs.getString("username"),
-                        rs.getString("password"),
-                        UserRole.valueOf(rs.getString("role")),
-                        true);
-
-                Customer customer = new Customer(
-                        user.getUserId(),
-                        user.getUsername(),
-                        user.getPassword(),
-                        rs.getString("customer_id"),
-                        rs.getString("first_name"),
-                        rs.getString("surname"),
-                        rs.getString("address"),
-                        rs.getString("phone_number"),
-                        rs.getString("email"),
-                        CustomerType.valueOf(rs.getString("customer_type")),
-                        true);
-
-                customers.add(customer);
+                customers.add(mapResultSetToCustomer(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error finding all customers: " + e.getMessage());
@@ -150,35 +155,15 @@ public class CustomerDAO implements DAO<Customer> {
     @Override
     public boolean save(Customer customer) {
         // First save the user part
-        User user = new User(
-                customer.getUserId(),
-                customer.getUsername(),
-                customer.getPassword(),
-                UserRole.CUSTOMER,
-                true);
-
-        if (!userDAO.save(user)) {
+        if (!userDAO.save(asUser(customer))) {
             return false;
         }
 
         // Then save the customer specific data
-        String sql = """
-                    INSERT INTO customers (customer_id, user_id, first_name, surname, address, phone_number, email, customer_type)
-                    VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-
         try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, customer.getCustomerId());
-            stmt.setString(2, customer.getUserId());
-            stmt.setString(3, customer.getFirstName());
-            stmt.setString(4, customer.getSurname());
-            stmt.setString(5, customer.getAddress());
-            stmt.setString(6, customer.getPhoneNumber());
-            stmt.setString(7, customer.getEmail());
-            stmt.setString(8, customer.getCustomerType().toString());
+                PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
+            setInsertParameters(stmt, customer);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error saving customer: " + e.getMessage());
@@ -191,38 +176,50 @@ public class CustomerDAO implements DAO<Customer> {
     @Override
     public boolean update(Customer customer) {
         // Update user part
-        User user = new User(
-                customer.getUserId(),
-                customer.getUsername(),
-                customer.getPassword(),
-                UserRole.CUSTOMER,
-                true);
-
-        if (!userDAO.update(user)) {
+        if (!userDAO.update(asUser(customer))) {
             return false;
         }
 
         // Update customer part
-        String sql = """
-                    UPDATE customers SET first_name = ?, surname = ?, address = ?, phone_number = ?, email = ?, customer_type = ?
-                    WHERE customer_id = ?
-                """;
-
         try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, customer.getFirstName());
-            stmt.setString(2, customer.getSurname());
-            stmt.setString(3, customer.getAddress());
-            stmt.setString(4, customer.getPhoneNumber());
-            stmt.setString(5, customer.getEmail());
-            stmt.setString(6, customer.getCustomerType().toString());
-            stmt.setString(7, customer.getCustomerId());
+                PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
+            setUpdateParameters(stmt, customer);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error updating customer: " + e.getMessage());
             return false;
+        } finally {
+            invalidateCustomer(customer.getCustomerId());
+        }
+    }
+
+    /**
+     * Batched save; each customer's users row and customers row succeed or fail together.
+     */
+    @Override
+    public BatchResult saveAll(Collection<Customer> customers) {
+        try {
+            return new BatchWriter<Customer>("customer", Customer::getCustomerId)
+                    .step(UserDAO.INSERT_SQL, (stmt, customer) -> UserDAO.setInsertParameters(stmt, asUser(customer)))
+                    .step(INSERT_SQL, this::setInsertParameters)
+                    .write(customers);
+        } finally {
+            invalidateCache();
+            UserDAO.invalidateKnownIds(null);
+        }
+    }
+
+    @Override
+    public BatchResult updateAll(Collection<Customer> customers) {
+        try {
+            return new BatchWriter<Customer>("customer", Customer::getCustomerId)
+                    .step(UserDAO.UPDATE_SQL, (stmt, customer) -> UserDAO.setUpdateParameters(stmt, asUser(customer)))
+                    .step(UPDATE_SQL, this::setUpdateParameters)
+                    .write(customers);
+        } finally {
+            invalidateCache();
+            AccountDAO.invalidateCache();
         }
     }
 
@@ -234,7 +231,11 @@ public class CustomerDAO implements DAO<Customer> {
         String deleteUserSql = "DELETE FROM users WHERE user_id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection()) {
-            conn.setAutoCommit(false);
+            // Inside a unit of work the caller's transaction covers both deletes
+            boolean ownTransaction = conn.getAutoCommit();
+            if (ownTransaction) {
+                conn.setAutoCommit(false);
+            }
 
             // Get user ID
             String userId = null;
@@ -260,11 +261,107 @@ public class CustomerDAO implements DAO<Customer> {
                 }
             }
 
-            conn.commit();
+            if (ownTransaction) {
+                conn.commit();
+                conn.setAutoCommit(true);
+            }
+            if (userId != null) {
+                UserDAO.invalidateKnownIds(userId);
+            }
             return true;
         } catch (SQLException e) {
             System.err.println("Error deleting customer: " + e.getMessage());
             return false;
+        } finally {
+            invalidateCustomer(customerId);
+        }
+    }
+
+    /**
+     * Cached accounts carry their owner's details, so they go stale with the customer.
+     */
+    private static void invalidateCustomer(String customerId) {
+        CACHE.invalidate(customerId);
+        AccountDAO.invalidateCache();
+    }
+
+    private static User asUser(Customer customer) {
+        return new User(
+                customer.getUserId(),
+                customer.getUsername(),
+                customer.getPassword(),
+                UserRole.CUSTOMER,
+                true);
+    }
+
+    private void setInsertParameters(PreparedStatement stmt, Customer customer) throws SQLException {
+        stmt.setString(1, customer.getCustomerId());
+        stmt.setString(2, customer.getUserId());
+        stmt.setString(3, customer.getFirstName());
+        stmt.setString(4, customer.getSurname());
+        stmt.setString(5, customer.getAddress());
+        stmt.setString(6, customer.getPhoneNumber());
+        stmt.setString(7, customer.getEmail());
+        stmt.setString(8, customer.getCustomerType().toString());
+    }
+
+    private void setUpdateParameters(PreparedStatement stmt, Customer customer) throws SQLException {
+        stmt.setString(1, customer.getFirstName());
+        stmt.setString(2, customer.getSurname());
+        stmt.setString(3, customer.getAddress());
+        stmt.setString(4, customer.getPhoneNumber());
+        stmt.setString(5, customer.getEmail());
+        stmt.setString(6, customer.getCustomerType().toString());
+        stmt.setString(7, customer.getCustomerId());
+    }
+
+    /**
+     * Immutable copy of one customers-join-users row; Customer objects are mutable,
+     * so the cache keeps these and builds a new Customer per lookup.
+     */
+    private static final class CustomerRow {
+        final String userId;
+        final String username;
+        final String password;
+        final String customerId;
+        final String firstName;
+        final String surname;
+        final String address;
+        final String phoneNumber;
+        final String email;
+        final CustomerType customerType;
+
+        CustomerRow(ResultSet rs) throws SQLException {
+            userId = rs.getString("user_id");
+            username = rs.getString("username");
+            password = rs.getString("password");
+            customerId = rs.getString("customer_id");
+            firstName = rs.getString("first_name");
+            surname = rs.getString("surname");
+            address = rs.getString("address");
+            phoneNumber = rs.getString("phone_number");
+            email = rs.getString("email");
+            customerType = CustomerType.valueOf(rs.getString("customer_type"));
+        }
+
+        Customer toCustomer() {
+            return new Customer(userId, username, password, customerId, firstName, surname,
+                    address, phoneNumber, email, customerType, true);
         }
     }
+
+    private Customer mapResultSetToCustomer(ResultSet rs) throws SQLException {
+        return new Customer(
+                rs.getString("user_id"),
+                rs.getString("username"),
+                rs.getString("password"),
+                rs.getString("customer_id"),
+                rs.getString("first_name"),
+                rs.getString("surname"),
+                rs.getString("address"),
+                rs.getString("phone_number"),
+                rs.getString("email"),
+                CustomerType.valueOf(rs.getString("customer_type")),
+                true);
+    }
 }
@@ -1,13 +1,33 @@
 // DAO.java
 package database;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface DAO<T> {
     Optional<T> findById(String id);
     List<T> findAll();
+
+    /**
+     * Every row, mapped lazily while the caller consumes the stream. The stream holds a
+     * read connection until it is exhausted or closed, so use it in try-with-resources.
+     */
+    Stream<T> streamAll();
+
     boolean save(T entity);
     boolean update(T entity);
+
+    /**
+     * Insert many rows with batched statements, one transaction per chunk
+     * (db.batch.chunkSize). Rows that fail are reported; the others are kept.
+     */
+    BatchResult saveAll(Collection<T> entities);
+
+    /**
+     * Update many rows the same way as saveAll. A row that matches nothing is a failure.
+     */
+    BatchResult updateAll(Collection<T> entities);
     boolean delete(String id);
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package database;
+
+import model.Account;
+import model.BalanceHistory;
+import model.InterestBearing;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Reads the daily_balances prefix sums, so the sum or average of an account's
+ * end-of-day balances over any period is two index seeks however much it moved.
+ * The table is written only by the schema's triggers on postings.
+ */
+public class DailyBalanceDAO implements BalanceHistory {
+
+    // Accounts preloaded per statement, well under SQLite's bound parameter limit
+    private static final int PRELOAD_BATCH = 500;
+
+    /**
+     * Sum of the end-of-day balances of every day before {@code day}: the latest row
+     * at or before it plus its balance for the days since. NULL before the first row.
+     */
+    static String balanceDaysBefore(String accountNumber, String day) {
+        return """
+            (SELECT b.balance_days + b.balance * CAST(julianday(%2$s) - julianday(b.day) AS INTEGER)
+             FROM daily_balances b WHERE b.account_number = %1$s AND b.day <= %2$s
+             ORDER BY b.day DESC LIMIT 1)""".formatted(accountNumber, day);
+    }
+
+    // Package-private so the query plan can be checked in tests
+    static final String BALANCE_DAYS_SQL = "SELECT " + balanceDaysBefore("?", "?")
+        + " - COALESCE(" + balanceDaysBefore("?", "?") + ", 0)";
+
+    /**
+     * Empty only when the account has no daily_balances rows; a failed read throws
+     * IllegalStateException, so interest is never worked out on the current balance
+     * because of a database error.
+     */
+    @Override
+    public OptionalLong balanceDays(String accountNumber, LocalDate from, LocalDate to) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(BALANCE_DAYS_SQL)) {
+            stmt.setString(1, to.toString());
+            stmt.setString(2, accountNumber);
+            stmt.setString(3, to.toString());
+            stmt.setString(4, from.toString());
+            stmt.setString(5, accountNumber);
+            stmt.setString(6, from.toString());
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                long sum = rs.getLong(1);
+                if (!rs.wasNull()) {
+                    return OptionalLong.of(sum);
+                }
+            }
+            return OptionalLong.empty();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error reading daily balances for " + accountNumber + ": "
+                + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Average end-of-day balance in thebe over the days from {@code from} up to but not
+     * including {@code to}, rounded half-up; empty for an empty period or no history.
+     */
+    public OptionalLong averageDailyBalance(String accountNumber, LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(from, to);
+        if (days <= 0) {
+            return OptionalLong.empty();
+        }
+        OptionalLong sum = balanceDays(accountNumber, from, to);
+        if (sum.isEmpty()) {
+            return sum;
+        }
+        return OptionalLong.of(Math.floorDiv(sum.getAsLong() + days / 2, days));
+    }
+
+    /**
+     * The balance sums every account in {@code accounts} needs for interest as of
+     * {@code asOf}, read in one statement per batch instead of one per account. Other
+     * periods fall back to this DAO. A failed read throws, so the chunk is not paid.
+     */
+    public BalanceHistory preload(List<Account> accounts, LocalDate asOf) throws SQLException {
+        Map<String, LocalDate> periodStarts = new HashMap<>();
+        Map<String, Long> sums = new HashMap<>();
+        for (Account account : accounts) {
+            if (account instanceof InterestBearing) {
+                periodStarts.put(account.getAccountNumber(), ((InterestBearing) account).getLastInterestApplied());
+            }
+        }
+        List<Map.Entry<String, LocalDate>> pending = List.copyOf(periodStarts.entrySet());
+        for (int start = 0; start < pending.size(); start += PRELOAD_BATCH) {
+            List<Map.Entry<String, LocalDate>> batch =
+                pending.subList(start, Math.min(start + PRELOAD_BATCH, pending.size()));
+            String sql = "SELECT q.column1, " + balanceDaysBefore("q.column1", "?")
+                + " - COALESCE(" + balanceDaysBefore("q.column1", "q.column2") + ", 0) FROM (VALUES "
+                + String.join(", ", Collections.nCopies(batch.size(), "(?, ?)")) + ") q";
+            try (Connection conn = DatabaseConnection.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int index = 1;
+                stmt.setString(index++, asOf.toString());
+                stmt.setString(index++, asOf.toString());
+                for (Map.Entry<String, LocalDate> period : batch) {
+                    stmt.setString(index++, period.getKey());
+                    stmt.setString(index++, period.getValue().toString());
+                }
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    long sum = rs.getLong(2);
+                    sums.put(rs.getString(1), rs.wasNull() ? null : sum);
+                }
+            }
+        }
+        return (accountNumber, from, to) -> {
+            if (to.equals(asOf) && from.equals(periodStarts.get(accountNumber)) && sums.containsKey(accountNumber)) {
+                Long sum = sums.get(accountNumber);
+                return sum == null ? OptionalLong.empty() : OptionalLong.of(sum);
+            }
+            return balanceDays(accountNumber, from, to);
+        };
+    }
+}
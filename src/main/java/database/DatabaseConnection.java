@@ -1,12 +1,12 @@
 package database;
 
 import util.Passwords;
+import util.SnowflakeIdGenerator;
 
-import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.List;
 
 public final class DatabaseConnection {
 
@@ -18,48 +18,207 @@ public final class DatabaseConnection {
     // JDBC URL for SQLite
     private static final String JDBC_URL = "jdbc:sqlite:" + DB_FILE_PATH;
 
-    // Singleton connection 
-    private static Connection connection;
+    // Pool sizing and lease policy (overridable with -Ddb.pool.* system properties)
+    private static final int READ_CONNECTIONS = getIntProperty("db.pool.readers",
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    private static final long ACQUIRE_TIMEOUT_MILLIS = getLongProperty("db.pool.acquireTimeoutMillis", 30_000L);
+    private static final long LEAK_THRESHOLD_MILLIS = getLongProperty("db.pool.leakThresholdMillis", 60_000L);
+    private static final int BUSY_TIMEOUT_MILLIS = getIntProperty("db.busyTimeoutMillis", 5_000);
+    // Rows the driver buffers per round trip when a DAO streams a table
+    private static final int STREAM_FETCH_SIZE = getIntProperty("db.stream.fetchSize", 500);
+    // Rows per transaction in the DAOs' saveAll/updateAll
+    private static final int BATCH_CHUNK_SIZE = getIntProperty("db.batch.chunkSize", 500);
+    // Values reserved per round trip by the hi-lo sequences
+    private static final int SEQUENCE_BLOCK_SIZE = getIntProperty("db.sequence.blockSize", 20);
+    // Attempts a balance change gets when other writers keep moving the row's version
+    private static final int BALANCE_MAX_ATTEMPTS = getIntProperty("db.balance.maxAttempts", 10);
+    // Entity caches in front of the DAOs' findById (per-cache size via db.cache.<name>.maxSize)
+    private static final boolean CACHE_ENABLED = Boolean.parseBoolean(System.getProperty("db.cache.enabled", "true"));
+    private static final int CACHE_MAX_SIZE = getIntProperty("db.cache.maxSize", 1_000);
+    private static final long CACHE_TTL_MILLIS = getLongProperty("db.cache.ttlMillis", 30_000L);
 
-    private static final AtomicBoolean initialized = new AtomicBoolean(false);
+    // Asynchronous audit pipeline; -Ddb.audit.async=false writes each entry inline
+    private static final boolean AUDIT_ASYNC = Boolean.parseBoolean(System.getProperty("db.audit.async", "true"));
+    private static final int AUDIT_QUEUE_CAPACITY = getIntProperty("db.audit.queueCapacity", 10_000);
+    private static final int AUDIT_BATCH_SIZE = getIntProperty("db.audit.batchSize", 200);
+    private static final long AUDIT_MAX_LATENCY_MILLIS = getLongProperty("db.audit.maxLatencyMillis", 50L);
+    private static final AuditWriter.OverflowPolicy AUDIT_OVERFLOW = getOverflowPolicy("db.audit.overflow");
+
+    // Journal mode: WAL lets dashboard reads proceed while deposits and transfers commit.
+    // Set -Ddb.journalMode=DELETE to fall back to the classic rollback journal.
+    private static final boolean WAL_MODE = !"DELETE".equalsIgnoreCase(System.getProperty("db.journalMode", "WAL"));
+    // Commits fsync the WAL by default (FULL). -Ddb.synchronous=NORMAL skips that fsync: faster,
+    // but the latest committed transactions can be lost on power failure or an OS crash.
+    private static final String SYNCHRONOUS = getSynchronousMode("db.synchronous");
+    private static final long CHECKPOINT_WAL_BYTES = getLongProperty("db.checkpoint.walBytes", 4L * 1024 * 1024);
+    private static final long CHECKPOINT_INTERVAL_MILLIS = getLongProperty("db.checkpoint.intervalMillis", 60_000L);
+    private static final long CHECKPOINT_IDLE_MILLIS = getLongProperty("db.checkpoint.idleMillis", 10_000L);
+    private static final long CHECKPOINT_POLL_MILLIS = getLongProperty("db.checkpoint.pollMillis", 1_000L);
+
+    private static volatile ConnectionPool pool;
+    private static CheckpointManager checkpointManager;
+    private static volatile AuditWriter auditWriter;
+    // Snowflake node ID taken from the sequences table when this process first opened the database
+    private static volatile int nodeId = -1;
 
     private DatabaseConnection() { }
 
-    public static synchronized Connection getConnection() {
+    /**
+     * Borrow the write connection. Closing the returned connection hands it back to the pool.
+     */
+    public static Connection getConnection() {
+        try {
+            return getPool().acquireWriter();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to obtain write connection: " + JDBC_URL, e);
+        }
+    }
+
+    /**
+     * Borrow a read-only connection. Closing the returned connection hands it back to the pool.
+     */
+    public static Connection getReadConnection() {
         try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(JDBC_URL);
-                enablePragmas(connection);
-                // Trigger initialization once
-                if (initialized.compareAndSet(false, true)) {
-                    initializeDatabaseInternal();
+            return getPool().acquireReader();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to obtain read connection: " + JDBC_URL, e);
+        }
+    }
+
+    static int getStreamFetchSize() {
+        return STREAM_FETCH_SIZE;
+    }
+
+    static int getBatchChunkSize() {
+        return BATCH_CHUNK_SIZE;
+    }
+
+    static int getSequenceBlockSize() {
+        return SEQUENCE_BLOCK_SIZE;
+    }
+
+    static int getBalanceMaxAttempts() {
+        return BALANCE_MAX_ATTEMPTS;
+    }
+
+    static <K, V> EntityCache<K, V> newEntityCache(String name) {
+        EntityCache<K, V> cache = new EntityCache<>(name,
+            getIntProperty("db.cache." + name + ".maxSize", CACHE_MAX_SIZE), CACHE_TTL_MILLIS);
+        cache.setEnabled(CACHE_ENABLED);
+        return cache;
+    }
+
+    static boolean isWriterHeldByCurrentThread() {
+        return getPool().isWriterHeldByCurrentThread();
+    }
+
+    /**
+     * The running audit writer, started on first use; null when audits are written inline.
+     */
+    static AuditWriter getAuditWriter() {
+        AuditWriter current = auditWriter;
+        if (current == null && AUDIT_ASYNC) {
+            synchronized (DatabaseConnection.class) {
+                current = auditWriter;
+                if (current == null) {
+                    AuditDAO auditDAO = new AuditDAO();
+                    current = new AuditWriter(auditDAO::saveAll, AUDIT_QUEUE_CAPACITY, AUDIT_BATCH_SIZE,
+                            AUDIT_MAX_LATENCY_MILLIS, AUDIT_OVERFLOW, Path.of(DB_FILE_PATH + ".audit-spill"));
+                    current.start();
+                    auditWriter = current;
                 }
-            } else {
-                // ensure pragmas are set on reused connection as well
-                enablePragmas(connection);
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("Failed to connect to database: " + JDBC_URL, e);
         }
-        return connection;
+        return current;
+    }
+
+    /**
+     * The audit writer if one has been started, without starting it.
+     */
+    static AuditWriter peekAuditWriter() {
+        return auditWriter;
+    }
+
+    /**
+     * Write every queued audit entry and stop the writer thread. Safe to call repeatedly.
+     */
+    public static synchronized void stopAuditWriter() {
+        AuditWriter current = auditWriter;
+        if (current != null) {
+            current.stop();
+            System.out.println("Audit writer stopped: " + current.getMetrics());
+            auditWriter = null;
+        }
+    }
+
+    /**
+     * Audit queue depth and batch metrics, or null when no audit writer is running.
+     */
+    public static AuditWriter.AuditWriterMetrics getAuditWriterMetrics() {
+        AuditWriter current = auditWriter;
+        return current != null ? current.getMetrics() : null;
+    }
+
+    public static ConnectionPool.PoolMetrics getPoolMetrics() {
+        return getPool().getMetrics();
+    }
+
+    /**
+     * WAL size and checkpoint-lag metrics, or null when running in rollback-journal mode.
+     */
+    public static CheckpointManager.CheckpointMetrics getCheckpointMetrics() {
+        getPool();
+        CheckpointManager manager = checkpointManager;
+        return manager != null ? manager.getMetrics() : null;
+    }
+
+    public static boolean isWalMode() {
+        return WAL_MODE;
+    }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(JDBC_URL, READ_CONNECTIONS, ACQUIRE_TIMEOUT_MILLIS,
+                            LEAK_THRESHOLD_MILLIS, List.of(DatabaseConnection::enablePragmas));
+                    // The writer creates the file and schema before any read-only connection opens
+                    initializeDatabaseInternal(current);
+                    if (WAL_MODE) {
+                        checkpointManager = new CheckpointManager(current, Path.of(DB_FILE_PATH + "-wal"),
+                                CHECKPOINT_WAL_BYTES, CHECKPOINT_INTERVAL_MILLIS,
+                                CHECKPOINT_IDLE_MILLIS, CHECKPOINT_POLL_MILLIS);
+                        checkpointManager.start();
+                    }
+                    pool = current;
+                }
+            }
+        }
+        return current;
     }
 
     /**
      * Public trigger for initialization
      */
     public static void initializeDatabase() {
-        getConnection();
+        getPool();
     }
 
-    private static void initializeDatabaseInternal() {
+    private static void initializeDatabaseInternal(ConnectionPool target) {
         System.out.println("Initializing database (internal)...");
-        try (Connection conn = DriverManager.getConnection(JDBC_URL)) {
-            enablePragmas(conn);
+        try (Connection conn = target.acquireWriter()) {
+            setJournalMode(conn);
             conn.setAutoCommit(false);
             try {
-                createTables(conn);
+                new SchemaMigrator(Migrations.all()).migrate(conn);
                 seedInitialData(conn);
+                if (nodeId < 0) {
+                    nodeId = allocateNodeId(conn);
+                }
                 conn.commit();
+                SnowflakeIdGenerator.setDefaultNodeId(nodeId);
                 System.out.println("Database initialized successfully!");
             } catch (SQLException ex) {
                 conn.rollback();
@@ -69,99 +228,11 @@ public final class DatabaseConnection {
                 conn.setAutoCommit(true);
             }
         } catch (SQLException e) {
+            target.close();
             throw new RuntimeException("Failed to initialize database", e);
         }
     }
 
-    /**
-     * Create schema if missing.
-     */
-    private static void createTables(Connection conn) throws SQLException {
-        String createUsersTable = """
-            CREATE TABLE IF NOT EXISTS users (
-                user_id TEXT PRIMARY KEY,
-                username TEXT UNIQUE NOT NULL COLLATE NOCASE,
-                password TEXT NOT NULL,
-                role TEXT NOT NULL CHECK(role IN ('CUSTOMER', 'BANK_EMPLOYEE', 'ADMINISTRATOR')),
-                created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-            )
-            """;
-
-        String createCustomersTable = """
-            CREATE TABLE IF NOT EXISTS customers (
-                customer_id TEXT PRIMARY KEY,
-                user_id TEXT NOT NULL,
-                first_name TEXT NOT NULL,
-                surname TEXT NOT NULL,
-                address TEXT NOT NULL,
-                phone_number TEXT NOT NULL,
-                email TEXT NOT NULL,
-                customer_type TEXT NOT NULL CHECK(customer_type IN ('INDIVIDUAL', 'JOINT', 'BUSINESS')),
-                FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
-            )
-            """;
-
-        String createAccountsTable = """
-            CREATE TABLE IF NOT EXISTS accounts (
-                account_number TEXT PRIMARY KEY,
-                balance REAL NOT NULL DEFAULT 0.0,
-                date_created DATE NOT NULL,
-                date_opened DATE NOT NULL,
-                customer_id TEXT NOT NULL,
-                status TEXT NOT NULL CHECK(status IN ('ACTIVE', 'INACTIVE', 'CLOSED', 'SUSPENDED')),
-                account_type TEXT NOT NULL CHECK(account_type IN ('SAVINGS', 'CHEQUE', 'INVESTMENT')),
-                interest_rate REAL DEFAULT 0.0,
-                employer_name TEXT,
-                employer_address TEXT,
-                employment_status BOOLEAN,
-                FOREIGN KEY (customer_id) REFERENCES customers(customer_id) ON DELETE CASCADE
-            )
-            """;
-
-        String createTransactionsTable = """
-            CREATE TABLE IF NOT EXISTS transactions (
-                transaction_id TEXT PRIMARY KEY,
-                transaction_type TEXT NOT NULL CHECK(transaction_type IN ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER_INTERNAL', 'TRANSFER_EXTERNAL', 'INTEREST_PAYMENT')),
-                amount REAL NOT NULL,
-                timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                description TEXT,
-                account_number TEXT NOT NULL,
-                FOREIGN KEY (account_number) REFERENCES accounts(account_number) ON DELETE CASCADE
-            )
-            """;
-
-        String createAuditTable = """
-            CREATE TABLE IF NOT EXISTS audit_trail (
-                audit_id TEXT PRIMARY KEY,
-                action TEXT NOT NULL,
-                timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                user_id TEXT NOT NULL,
-                details TEXT,
-                FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
-            )
-            """;
-
-        String createEmployeesTable = """
-            CREATE TABLE IF NOT EXISTS bank_employees (
-                employee_id TEXT PRIMARY KEY,
-                user_id TEXT NOT NULL,
-                department TEXT NOT NULL,
-                FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
-            )
-            """;
-
-        try (Statement stmt = conn.createStatement()) {
-            stmt.execute(createUsersTable);
-            stmt.execute(createCustomersTable);
-            stmt.execute(createAccountsTable);
-            stmt.execute(createTransactionsTable);
-            stmt.execute(createAuditTable);
-            stmt.execute(createEmployeesTable);
-        }
-
-        System.out.println("All database tables verified/created.");
-    }
-
     /**
      * Insert initial data if missing.
      */
@@ -206,6 +277,7 @@ public final class DatabaseConnection {
                 System.out.println("Default admin user created (user_id=ADM-001).");
             }
         }
+        reserveSeededIds(conn, Sequences.ADMIN, 1);
         
         // Create sample data
         createSampleData(conn);
@@ -229,11 +301,12 @@ public final class DatabaseConnection {
             "INSERT INTO customers (customer_id, user_id, first_name, surname, address, phone_number, email, customer_type) VALUES ('CUST-002', 'USR-002', 'Jane', 'Smith', '456 Oak Ave', '555-0456', 'jane@email.com', 'INDIVIDUAL')"
         };
         
+        // Balances are in thebe
         String[] sampleAccounts = {
-            "INSERT INTO accounts (account_number, balance, date_created, date_opened, customer_id, status, account_type, interest_rate) VALUES ('ACC-001', 1500.00, '2024-01-15', '2024-01-15', 'CUST-001', 'ACTIVE', 'SAVINGS', 2.5)",
-            "INSERT INTO accounts (account_number, balance, date_created, date_opened, customer_id, status, account_type, interest_rate) VALUES ('ACC-002', 2500.00, '2024-02-20', '2024-02-20', 'CUST-001', 'ACTIVE', 'INVESTMENT', 4.0)",
-            "INSERT INTO accounts (account_number, balance, date_created, date_opened, customer_id, status, account_type, employer_name, employer_address, employment_status) VALUES ('ACC-003', 800.00, '2024-03-10', '2024-03-10', 'CUST-002', 'ACTIVE', 'CHEQUE', 'Tech Corp', '789 Business Blvd', 1)",
-            "INSERT INTO accounts (account_number, balance, date_created, date_opened, customer_id, status, account_type, interest_rate) VALUES ('ACC-004', 3200.00, '2024-04-05', '2024-04-05', 'CUST-002', 'ACTIVE', 'SAVINGS', 3.0)"
+            "INSERT INTO accounts (account_number, balance, date_created, date_opened, customer_id, status, account_type, interest_rate) VALUES ('ACC-001', 150000, '2024-01-15', '2024-01-15', 'CUST-001', 'ACTIVE', 'SAVINGS', 2.5)",
+            "INSERT INTO accounts (account_number, balance, date_created, date_opened, customer_id, status, account_type, interest_rate) VALUES ('ACC-002', 250000, '2024-02-20', '2024-02-20', 'CUST-001', 'ACTIVE', 'INVESTMENT', 4.0)",
+            "INSERT INTO accounts (account_number, balance, date_created, date_opened, customer_id, status, account_type, employer_name, employer_address, employment_status) VALUES ('ACC-003', 80000, '2024-03-10', '2024-03-10', 'CUST-002', 'ACTIVE', 'CHEQUE', 'Tech Corp', '789 Business Blvd', 1)",
+            "INSERT INTO accounts (account_number, balance, date_created, date_opened, customer_id, status, account_type, interest_rate) VALUES ('ACC-004', 320000, '2024-04-05', '2024-04-05', 'CUST-002', 'ACTIVE', 'SAVINGS', 3.0)"
         };
         
         String hashedPassword = Passwords.hashPassword("password123");
@@ -257,6 +330,9 @@ public final class DatabaseConnection {
                 stmt.execute(sql);
             }
             
+            reserveSeededIds(conn, Sequences.CUSTOMER_USER, 2);
+            reserveSeededIds(conn, Sequences.CUSTOMER, 2);
+
             System.out.println("Sample data created successfully!");
             System.out.println("- 3 users (2 customers, 1 employee)");
             System.out.println("- 2 customers");
@@ -264,10 +340,58 @@ public final class DatabaseConnection {
         }
     }
 
+    /**
+     * A node ID no other process opening this file since the last 1024 starts was given:
+     * the next value of the snowflake_node sequence, modulo the node ID range.
+     */
+    private static int allocateNodeId(Connection conn) throws SQLException {
+        long value = Sequences.reserve(conn, Sequences.SNOWFLAKE_NODE, 1) - 1;
+        return (int) Math.floorMod(value, (long) SnowflakeIdGenerator.MAX_NODE_ID + 1);
+    }
+
+    /**
+     * This process's Snowflake node ID, opening the database if needed.
+     */
+    public static int getNodeId() {
+        getPool();
+        return nodeId;
+    }
+
+    /**
+     * Keep a sequence past IDs the seed data hard-codes (e.g. CUST-002).
+     */
+    private static void reserveSeededIds(Connection conn, String sequence, long highestSeeded) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE sequences SET next_value = MAX(next_value, ?) WHERE name = ?")) {
+            stmt.setLong(1, highestSeeded + 1);
+            stmt.setString(2, sequence);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Journal mode is stored in the database file, so it only needs to be set by the writer.
+     */
+    private static void setJournalMode(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = " + (WAL_MODE ? "WAL" : "DELETE"));
+        }
+    }
+
+    /**
+     * Per-connection init hook, run once when the pool opens a physical connection.
+     */
     private static void enablePragmas(Connection conn) {
         try (Statement stmt = conn.createStatement()) {
             // enforces foreign key constraints on SQLite
             stmt.execute("PRAGMA foreign_keys = ON");
+            // wait for a competing lock instead of failing with SQLITE_BUSY
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+            stmt.execute("PRAGMA synchronous = " + SYNCHRONOUS);
+            if (WAL_MODE) {
+                // checkpoints are driven by CheckpointManager
+                stmt.execute("PRAGMA wal_autocheckpoint = 0");
+            }
         } catch (SQLException e) {
             System.err.println("Warning: failed to set PRAGMA: " + e.getMessage());
         }
@@ -296,16 +420,19 @@ public final class DatabaseConnection {
     }
 
     /**
-     * Close singleton connection.
+     * Close the connection pool. The next getConnection() call opens a fresh one.
      */
     public static synchronized void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                connection = null;
-            }
-        } catch (SQLException e) {
-            System.err.println("Error closing database connection: " + e.getMessage());
+        // queued audit entries need the pool, so they go first
+        stopAuditWriter();
+        if (checkpointManager != null) {
+            // final TRUNCATE checkpoint so a clean shutdown leaves no WAL behind
+            checkpointManager.stop();
+            checkpointManager = null;
+        }
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
     }
 
@@ -315,4 +442,40 @@ public final class DatabaseConnection {
     public static String getDbFilePath() {
         return DB_FILE_PATH;
     }
+
+    private static int getIntProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(System.getProperty(key));
+        } catch (Exception ex) {
+            return defaultValue;
+        }
+    }
+
+    private static String getSynchronousMode(String key) {
+        String mode = System.getProperty(key, "FULL").trim().toUpperCase();
+        return mode.equals("NORMAL") || mode.equals("EXTRA") ? mode : "FULL";
+    }
+
+    /**
+     * The PRAGMA synchronous level every connection runs with.
+     */
+    public static String getSynchronousMode() {
+        return SYNCHRONOUS;
+    }
+
+    private static AuditWriter.OverflowPolicy getOverflowPolicy(String key) {
+        try {
+            return AuditWriter.OverflowPolicy.valueOf(System.getProperty(key).trim().toUpperCase());
+        } catch (Exception ex) {
+            return AuditWriter.OverflowPolicy.BLOCK;
+        }
+    }
+
+    private static long getLongProperty(String key, long defaultValue) {
+        try {
+            return Long.parseLong(System.getProperty(key));
+        } catch (Exception ex) {
+            return defaultValue;
+        }
+    }
 }
@@ -0,0 +1,214 @@
+package database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache with a time-to-live, shared by the DAOs for hot findById lookups.
+ *
+ * DAOs cache immutable row snapshots, never the mutable model objects they hand out,
+ * and invalidate after every write. A load that raced with an invalidation is not
+ * stored: callers read {@link #generation()} before querying and pass it to
+ * {@link #putIfUnchanged}, which drops the value if anything was invalidated since.
+ */
+public final class EntityCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private volatile boolean enabled = true;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public EntityCache(String name, int maxSize, long ttlMillis) {
+        if (maxSize < 1 || ttlMillis < 1) {
+            throw new IllegalArgumentException("Cache size and TTL must be positive");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        // access order turns insertion-ordered LinkedHashMap into an LRU list
+        this.entries = new LinkedHashMap<>(Math.min(maxSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Cached value, or null on a miss (absent, expired or cache disabled).
+     */
+    public V get(K key) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.storedAt < ttlNanos) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Token to pass to putIfUnchanged; read it before loading from the database.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Store a freshly loaded value unless something was invalidated after the load began.
+     */
+    public void putIfUnchanged(K key, V value, long observedGeneration) {
+        if (!enabled || value == null) {
+            return;
+        }
+        synchronized (entries) {
+            if (generation.get() == observedGeneration) {
+                entries.put(key, new Entry<>(value, System.nanoTime()));
+            }
+        }
+    }
+
+    /**
+     * Inside a unit of work the entry is dropped again when the unit ends, since another
+     * thread may reload the old committed row before the unit's write is visible.
+     */
+    public void invalidate(K key) {
+        evict(key);
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.onCompletion(() -> evict(key));
+        }
+    }
+
+    public void invalidateAll() {
+        evictAll();
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.onCompletion(this::evictAll);
+        }
+    }
+
+    private void evict(K key) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            if (entries.remove(key) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    private void evictAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Turning the cache off also empties it, so re-enabling cannot serve stale rows.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            invalidateAll();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public CacheMetrics getMetrics() {
+        return new CacheMetrics(name, size(), maxSize, hits.get(), misses.get(),
+            evictions.get(), expirations.get(), invalidations.get());
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long storedAt;
+
+        Entry(V value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+
+    /**
+     * Point-in-time cache counters.
+     */
+    public static final class CacheMetrics {
+        private final String name;
+        private final int size;
+        private final int maxSize;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final long invalidations;
+
+        CacheMetrics(String name, int size, int maxSize, long hits, long misses,
+                     long evictions, long expirations, long invalidations) {
+            this.name = name;
+            this.size = size;
+            this.maxSize = maxSize;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.invalidations = invalidations;
+        }
+
+        // Getters
+        public int getSize() { return size; }
+        public int getMaxSize() { return maxSize; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getExpirations() { return expirations; }
+        public long getInvalidations() { return invalidations; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheMetrics{" + name +
+                    ", size=" + size + "/" + maxSize +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", evictions=" + evictions +
+                    ", expirations=" + expirations +
+                    ", invalidations=" + invalidations +
+                    '}';
+        }
+    }
+}
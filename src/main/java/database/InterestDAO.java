@@ -0,0 +1,359 @@
+package database;
+
+import model.TransactionType;
+import util.SnowflakeIdGenerator;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interest accrual runs: the interest_runs checkpoint, the chunked writes that pay
+ * interest and move it forward, and the set-based alternative run inside SQLite.
+ */
+public class InterestDAO {
+
+    private static final String START_RUN_SQL = """
+        INSERT OR IGNORE INTO interest_runs (run_id, run_date, range_start, range_end, status)
+        VALUES (?, ?, ?, ?, 'RUNNING')
+        """;
+    private static final String FIND_RUN_SQL = "SELECT * FROM interest_runs WHERE run_id = ?";
+    private static final String UNFINISHED_RUNS_SQL = "SELECT * FROM interest_runs WHERE status = 'RUNNING' ORDER BY run_date";
+    private static final String CHECKPOINT_SQL = """
+        UPDATE interest_runs SET last_account_number = ?, accounts_paid = accounts_paid + ?,
+                                 interest_paid = interest_paid + ?
+        WHERE run_id = ?
+        """;
+    private static final String COMPLETE_RUN_SQL = """
+        UPDATE interest_runs SET status = 'COMPLETED',
+                                 completed_at = strftime('%Y-%m-%dT%H:%M:%f', 'now', 'localtime')
+        WHERE run_id = ?
+        """;
+
+    // Claims the account for this run date; matches nothing if it was already paid
+    private static final String MARK_PAID_SQL = """
+        UPDATE accounts SET last_interest_applied = ?
+        WHERE account_number = ? AND (last_interest_applied IS NULL OR last_interest_applied < ?)
+        """;
+    private static final String CREDIT_SQL = """
+        UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE account_number = ?
+        """;
+
+    // Set-based posting. Interest is Money.simpleInterest in integer SQL on the sum of
+    // the period's end-of-day balances from daily_balances (the current balance for every
+    // day when none are recorded): (balance days * rate in millionths + half a divisor)
+    // / (1e6 * 365), rate rounded as Math.round does, the period counted back from the
+    // due date. Sums whose product would overflow 64 bits are left out rather than
+    // computed in floating point.
+    private static final String DUE_TABLE_SQL = """
+        CREATE TEMP TABLE IF NOT EXISTS interest_due (
+            account_number TEXT PRIMARY KEY,
+            interest INTEGER NOT NULL,
+            transaction_id TEXT NOT NULL,
+            description TEXT NOT NULL
+        )
+        """;
+    static final String DUE_INTEREST_SQL = """
+        SELECT account_number, balance, ? AS run_day,
+               CAST(COALESCE(interest_rate, 0) * 1000000 + 0.5 AS INTEGER) AS rate_micros,
+               date(next_interest_due, CASE account_type WHEN 'INVESTMENT' THEN '-90 days' ELSE '-30 days' END)
+                   AS period_start
+        FROM accounts
+        WHERE status = 'ACTIVE' AND next_interest_due <= ?
+          AND account_type IN ('SAVINGS', 'INVESTMENT')
+          AND account_number > ? AND (? IS NULL OR account_number < ?)
+          AND (last_interest_applied IS NULL OR last_interest_applied < ?)
+        """;
+    private static final String FILL_DUE_SQL = """
+        INSERT INTO temp.interest_due (account_number, interest, transaction_id, description)
+        SELECT account_number, interest, 'TXN_INT_' || run_day || '_' || account_number,
+               'Interest payment for account: ' || account_number
+        FROM (SELECT account_number, run_day, (balance_days * rate_micros + 182500000) / 365000000 AS interest
+              FROM (SELECT account_number, run_day, rate_micros,
+                           COALESCE(%s - COALESCE(%s, 0),
+                                    balance * CAST(julianday(run_day) - julianday(period_start) AS INTEGER))
+                               AS balance_days
+                    FROM (%s) d)
+              WHERE balance_days > 0 AND rate_micros > 0
+                AND balance_days <= (9223372036854775807 - 182500000) / rate_micros)
+        WHERE interest > 0
+        """.formatted(DailyBalanceDAO.balanceDaysBefore("d.account_number", "d.run_day"),
+            DailyBalanceDAO.balanceDaysBefore("d.account_number", "d.period_start"), DUE_INTEREST_SQL);
+    private static final String[] POST_DUE_SQL = {
+        // account leg, then the interest control account's
+        """
+        INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description)
+        SELECT transaction_id, account_number, 'LEDGER:INTEREST', interest, 'INTEREST_PAYMENT', description
+        FROM temp.interest_due
+        """,
+        """
+        INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description)
+        SELECT transaction_id, 'LEDGER:INTEREST', account_number, -interest, 'INTEREST_PAYMENT', description
+        FROM temp.interest_due
+        """
+    };
+    private static final String TRANSACTIONS_FROM_DUE_SQL = """
+        INSERT INTO transactions (transaction_id, transaction_type, amount, timestamp, description, account_number)
+        SELECT transaction_id, 'INTEREST_PAYMENT', interest, ?, description, account_number
+        FROM temp.interest_due
+        """;
+    private static final String CREDIT_DUE_SQL = """
+        UPDATE accounts SET
+            balance = balance + (SELECT interest FROM temp.interest_due d WHERE d.account_number = accounts.account_number),
+            version = version + 1,
+            last_interest_applied = ?
+        WHERE account_number IN (SELECT account_number FROM temp.interest_due)
+        """;
+    private static final String DUE_TOTALS_SQL = "SELECT COUNT(*), COALESCE(SUM(interest), 0) FROM temp.interest_due";
+    private static final String CLEAR_DUE_SQL = "DELETE FROM temp.interest_due";
+    private static final String RECORD_SET_RUN_SQL = """
+        UPDATE interest_runs SET accounts_paid = accounts_paid + ?, interest_paid = interest_paid + ?,
+                                 status = 'COMPLETED',
+                                 completed_at = strftime('%Y-%m-%dT%H:%M:%f', 'now', 'localtime')
+        WHERE run_id = ?
+        """;
+
+    /**
+     * Interest owed to one account by a run.
+     */
+    public static final class Payment {
+        private final String accountNumber;
+        private final long interestMinor;
+
+        public Payment(String accountNumber, long interestMinor) {
+            this.accountNumber = accountNumber;
+            this.interestMinor = interestMinor;
+        }
+
+        public String getAccountNumber() { return accountNumber; }
+        public long getInterestMinor() { return interestMinor; }
+    }
+
+    /**
+     * A run's checkpoint: the key range it covers and the last account completed.
+     */
+    public static final class RunState {
+        private final String runId;
+        private final LocalDate runDate;
+        private final String rangeStart;
+        private final String rangeEnd;
+        private final String lastAccountNumber;
+        private final long accountsPaid;
+        private final long interestPaidMinor;
+        private final boolean completed;
+
+        RunState(ResultSet rs) throws SQLException {
+            runId = rs.getString("run_id");
+            runDate = LocalDate.parse(rs.getString("run_date"));
+            rangeStart = rs.getString("range_start");
+            rangeEnd = rs.getString("range_end");
+            lastAccountNumber = rs.getString("last_account_number");
+            accountsPaid = rs.getLong("accounts_paid");
+            interestPaidMinor = rs.getLong("interest_paid");
+            completed = "COMPLETED".equals(rs.getString("status"));
+        }
+
+        public String getRunId() { return runId; }
+        public LocalDate getRunDate() { return runDate; }
+        /** Exclusive lower bound of the account numbers covered. */
+        public String getRangeStart() { return rangeStart; }
+        /** Exclusive upper bound, or null for no bound. */
+        public String getRangeEnd() { return rangeEnd; }
+        /** Where to resume: the last account of the last written chunk, or null. */
+        public String getLastAccountNumber() { return lastAccountNumber; }
+        public long getAccountsPaid() { return accountsPaid; }
+        public long getInterestPaidMinor() { return interestPaidMinor; }
+        public boolean isCompleted() { return completed; }
+    }
+
+    /**
+     * The run's checkpoint, created on first call; later calls return it as stored.
+     */
+    public RunState startOrResume(String runId, LocalDate runDate, String rangeStart, String rangeEnd)
+            throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(START_RUN_SQL)) {
+                stmt.setString(1, runId);
+                stmt.setString(2, runDate.toString());
+                stmt.setString(3, rangeStart);
+                stmt.setString(4, rangeEnd);
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(FIND_RUN_SQL)) {
+                stmt.setString(1, runId);
+                ResultSet rs = stmt.executeQuery();
+                rs.next();
+                return new RunState(rs);
+            }
+        }
+    }
+
+    public Optional<RunState> findRun(String runId) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_RUN_SQL)) {
+            stmt.setString(1, runId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.of(new RunState(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding interest run: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Runs that stopped before completing, oldest run date first.
+     */
+    public List<RunState> findUnfinishedRuns() {
+        List<RunState> runs = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(UNFINISHED_RUNS_SQL)) {
+            while (rs.next()) {
+                runs.add(new RunState(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding unfinished interest runs: " + e.getMessage());
+        }
+        return runs;
+    }
+
+    /**
+     * Pay one chunk and move the run's checkpoint to {@code lastAccountNumber}, in one
+     * transaction. An account whose last_interest_applied already reached the run date
+     * is skipped, so a chunk replayed after a crash pays nobody twice. Each payment is an
+     * INTEREST_PAYMENT transaction row with its postings against LEDGER:INTEREST, written
+     * before the balance so the ledger projection stays in step.
+     *
+     * Returns the payments actually made.
+     */
+    public List<Payment> writeChunk(String runId, LocalDate runDate, List<Payment> payments,
+                                    String lastAccountNumber) throws SQLException {
+        List<Payment> paid = new ArrayList<>(payments.size());
+        long interestPaid = 0;
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            Connection conn = unit.getConnection();
+            try (PreparedStatement mark = conn.prepareStatement(MARK_PAID_SQL);
+                 PreparedStatement postings = conn.prepareStatement(PostingDAO.INSERT_SQL);
+                 PreparedStatement transactions = conn.prepareStatement(TransactionDAO.INSERT_SQL);
+                 PreparedStatement credit = conn.prepareStatement(CREDIT_SQL)) {
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                for (Payment payment : payments) {
+                    mark.setString(1, runDate.toString());
+                    mark.setString(2, payment.getAccountNumber());
+                    mark.setString(3, runDate.toString());
+                    if (mark.executeUpdate() == 0) {
+                        continue;
+                    }
+                    String transactionId = SnowflakeIdGenerator.next("TXN_");
+                    String description = "Interest payment for account: " + payment.getAccountNumber();
+                    PostingDAO.Journal journal = new PostingDAO.Journal(
+                        transactionId, TransactionType.INTEREST_PAYMENT.name(), description);
+                    PostingDAO.addLeg(postings, journal, payment.getAccountNumber(),
+                        PostingDAO.INTEREST_ACCOUNT, payment.getInterestMinor());
+                    PostingDAO.addLeg(postings, journal, PostingDAO.INTEREST_ACCOUNT,
+                        payment.getAccountNumber(), -payment.getInterestMinor());
+
+                    transactions.setString(1, transactionId);
+                    transactions.setString(2, TransactionType.INTEREST_PAYMENT.toString());
+                    transactions.setLong(3, payment.getInterestMinor());
+                    transactions.setTimestamp(4, now);
+                    transactions.setString(5, description);
+                    transactions.setString(6, payment.getAccountNumber());
+                    transactions.addBatch();
+
+                    credit.setLong(1, payment.getInterestMinor());
+                    credit.setString(2, payment.getAccountNumber());
+                    credit.addBatch();
+
+                    paid.add(payment);
+                    interestPaid += payment.getInterestMinor();
+                }
+                postings.executeBatch();
+                credit.executeBatch();
+                transactions.executeBatch();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(CHECKPOINT_SQL)) {
+                stmt.setString(1, lastAccountNumber);
+                stmt.setLong(2, paid.size());
+                stmt.setLong(3, interestPaid);
+                stmt.setString(4, runId);
+                stmt.executeUpdate();
+            }
+            AccountDAO.invalidateCache();
+            unit.commit();
+        }
+        return paid;
+    }
+
+    /**
+     * Pay everything due on {@code runDate} in the key range with set-based statements
+     * and complete the run, in one transaction: due accounts are selected by the
+     * next_interest_due index into a temp table, from which postings, INTEREST_PAYMENT
+     * rows and balance credits are each one INSERT ... SELECT or UPDATE. Transaction IDs
+     * are derived from the run date and account, so no account can be paid twice for a date.
+     */
+    public RunState postDueInterest(String runId, LocalDate runDate, String rangeStart, String rangeEnd)
+            throws SQLException {
+        RunState state = startOrResume(runId, runDate, rangeStart, rangeEnd);
+        if (state.isCompleted()) {
+            return state;
+        }
+        String date = runDate.toString();
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            Connection conn = unit.getConnection();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(DUE_TABLE_SQL);
+                stmt.execute(CLEAR_DUE_SQL);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(FILL_DUE_SQL)) {
+                stmt.setString(1, date);
+                stmt.setString(2, date);
+                stmt.setString(3, rangeStart);
+                stmt.setString(4, rangeEnd);
+                stmt.setString(5, rangeEnd);
+                stmt.setString(6, date);
+                stmt.executeUpdate();
+            }
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : POST_DUE_SQL) {
+                    stmt.executeUpdate(sql);
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(TRANSACTIONS_FROM_DUE_SQL)) {
+                stmt.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(CREDIT_DUE_SQL)) {
+                stmt.setString(1, date);
+                stmt.executeUpdate();
+            }
+            try (Statement totals = conn.createStatement();
+                 ResultSet rs = totals.executeQuery(DUE_TOTALS_SQL);
+                 PreparedStatement stmt = conn.prepareStatement(RECORD_SET_RUN_SQL)) {
+                rs.next();
+                stmt.setLong(1, rs.getLong(1));
+                stmt.setLong(2, rs.getLong(2));
+                stmt.setString(3, runId);
+                stmt.executeUpdate();
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CLEAR_DUE_SQL);
+            }
+            AccountDAO.invalidateCache();
+            unit.commit();
+        }
+        return findRun(runId).orElseThrow();
+    }
+
+    public void completeRun(String runId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(COMPLETE_RUN_SQL)) {
+            stmt.setString(1, runId);
+            stmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package database;
+
+import model.LedgerCommand;
+import model.TransactionType;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the in-memory ledger engine's accepted commands into the tables: postings,
+ * transaction rows and balances, plus the journal sequence they cover.
+ */
+public class LedgerSnapshotDAO {
+
+    private static final String SNAPSHOT_SEQUENCE_SQL = "SELECT snapshot_sequence FROM ledger_engine_state WHERE id = 1";
+    private static final String UPDATE_SEQUENCE_SQL = "UPDATE ledger_engine_state SET snapshot_sequence = ? WHERE id = 1";
+
+    // Relative, so a balance written outside the engine is added to rather than overwritten
+    private static final String APPLY_DELTA_SQL = """
+        UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE account_number = ?
+        """;
+
+    // Commands a snapshot could not write, kept with the reason (V13)
+    private static final String DEAD_LETTER_SQL = """
+        INSERT INTO ledger_dead_letters (transaction_id, sequence, transaction_type, account_number,
+                                         counterparty, amount, submitted_at, reason)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    /**
+     * Highest journal sequence already written to the tables; 0 before the first snapshot.
+     */
+    public long loadSnapshotSequence() throws SQLException {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SNAPSHOT_SEQUENCE_SQL)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Write the commands and move the snapshot sequence to {@code throughSequence}, all in
+     * one transaction: replaying the journal after a crash either finds none of them
+     * written or all of them. Postings go in first, so each account's single net balance
+     * update lands on a matching projection and the adjustment trigger stays quiet.
+     *
+     * If the batch fails as a whole, each command is written again under its own
+     * savepoint; one that still fails (an account deleted after it was accepted, say)
+     * goes to ledger_dead_letters with the reason instead. Returns those commands, so
+     * the caller can take them back out of its balances.
+     */
+    public List<LedgerCommand> write(List<LedgerCommand> commands, long throughSequence) throws SQLException {
+        List<LedgerCommand> rejected = new ArrayList<>();
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            Connection conn = unit.getConnection();
+            Savepoint batch = conn.setSavepoint();
+            try {
+                writeCommands(conn, commands);
+                conn.releaseSavepoint(batch);
+            } catch (SQLException batchFailure) {
+                conn.rollback(batch);
+                conn.releaseSavepoint(batch);
+                for (LedgerCommand command : commands) {
+                    Savepoint single = conn.setSavepoint();
+                    try {
+                        writeCommands(conn, List.of(command));
+                        conn.releaseSavepoint(single);
+                    } catch (SQLException e) {
+                        conn.rollback(single);
+                        conn.releaseSavepoint(single);
+                        deadLetter(conn, command, e.getMessage());
+                        rejected.add(command);
+                    }
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SEQUENCE_SQL)) {
+                stmt.setLong(1, throughSequence);
+                stmt.executeUpdate();
+            }
+            AccountDAO.invalidateCache();
+            unit.commit();
+        }
+        for (LedgerCommand command : rejected) {
+            System.err.println("LedgerSnapshotDAO: command " + command.getTransactionId()
+                + " could not be written and was moved to ledger_dead_letters");
+        }
+        return rejected;
+    }
+
+    private static void writeCommands(Connection conn, List<LedgerCommand> commands) throws SQLException {
+        Map<String, Long> netDeltas = new LinkedHashMap<>();
+        try (PreparedStatement postings = conn.prepareStatement(PostingDAO.INSERT_SQL);
+             PreparedStatement transactions = conn.prepareStatement(TransactionDAO.INSERT_SQL)) {
+            for (LedgerCommand command : commands) {
+                addPostings(postings, command);
+                addTransaction(transactions, command);
+                netDeltas.merge(command.getAccountNumber(), command.getAccountDeltaMinor(), Long::sum);
+                if (command.getCounterparty() != null) {
+                    netDeltas.merge(command.getCounterparty(), command.getAmountMinor(), Long::sum);
+                }
+            }
+            postings.executeBatch();
+            transactions.executeBatch();
+        }
+        List<String> updated = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(APPLY_DELTA_SQL)) {
+            for (Map.Entry<String, Long> delta : netDeltas.entrySet()) {
+                if (delta.getValue() != 0) {
+                    stmt.setLong(1, delta.getValue());
+                    stmt.setString(2, delta.getKey());
+                    stmt.addBatch();
+                    updated.add(delta.getKey());
+                }
+            }
+            int[] counts = stmt.executeBatch();
+            // A missing account has no row to move; its postings would leave money nowhere
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    throw new SQLException("Account not found: " + updated.get(i));
+                }
+            }
+        }
+    }
+
+    private static void deadLetter(Connection conn, LedgerCommand command, String reason) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(DEAD_LETTER_SQL)) {
+            stmt.setString(1, command.getTransactionId());
+            stmt.setLong(2, command.getSequence());
+            stmt.setString(3, command.getType().name());
+            stmt.setString(4, command.getAccountNumber());
+            stmt.setString(5, command.getCounterparty());
+            stmt.setLong(6, command.getAmountMinor());
+            stmt.setLong(7, command.getTimestampMillis());
+            stmt.setString(8, reason);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static void addPostings(PreparedStatement stmt, LedgerCommand command) throws SQLException {
+        PostingDAO.Journal journal = new PostingDAO.Journal(
+            command.getTransactionId(), command.getType().name(), describe(command));
+        long delta = command.getAccountDeltaMinor();
+        if (command.getCounterparty() != null) {
+            PostingDAO.addLeg(stmt, journal, command.getAccountNumber(), command.getCounterparty(), delta);
+            PostingDAO.addLeg(stmt, journal, command.getCounterparty(), command.getAccountNumber(), -delta);
+        } else {
+            PostingDAO.addLeg(stmt, journal, command.getAccountNumber(), PostingDAO.CASH_ACCOUNT, delta);
+            PostingDAO.addLeg(stmt, journal, PostingDAO.CASH_ACCOUNT, command.getAccountNumber(), -delta);
+        }
+    }
+
+    private static void addTransaction(PreparedStatement stmt, LedgerCommand command) throws SQLException {
+        stmt.setString(1, command.getTransactionId());
+        stmt.setString(2, command.getType().toString());
+        stmt.setLong(3, command.getAmountMinor());
+        stmt.setTimestamp(4, new Timestamp(command.getTimestampMillis()));
+        stmt.setString(5, describe(command));
+        stmt.setString(6, command.getAccountNumber());
+        stmt.addBatch();
+    }
+
+    // Same descriptions as TransactionController's direct path
+    private static String describe(LedgerCommand command) {
+        if (command.getType() == TransactionType.DEPOSIT) {
+            return "Deposit processed for account: " + command.getAccountNumber();
+        }
+        if (command.getType() == TransactionType.WITHDRAWAL) {
+            return "Withdrawal processed for account: " + command.getAccountNumber();
+        }
+        return "Transfer to account " + command.getCounterparty();
+    }
+}
@@ -0,0 +1,496 @@
+package database;
+
+import java.util.List;
+
+/**
+ * Ordered list of schema migrations. Append new versions at the end; never edit one
+ * that has been released, its checksum is verified at every startup.
+ */
+public final class Migrations {
+
+    private Migrations() { }
+
+    public static List<Migration> all() {
+        return List.of(
+            baselineTables(),
+            hotQueryIndexes(),
+            keysetPageIndexes(),
+            moneyInMinorUnits(),
+            reservedAuditActors(),
+            idSequences(),
+            accountVersions(),
+            postingLedger(),
+            ledgerEngineState(),
+            interestRuns(),
+            interestDueDates(),
+            dailyBalances(),
+            ledgerDeadLetters()
+        );
+    }
+
+    /**
+     * V1: the original tables. IF NOT EXISTS lets databases created before migrations adopt them.
+     */
+    private static Migration baselineTables() {
+        return new Migration(1, "baseline tables",
+            """
+            CREATE TABLE IF NOT EXISTS users (
+                user_id TEXT PRIMARY KEY,
+                username TEXT UNIQUE NOT NULL COLLATE NOCASE,
+                password TEXT NOT NULL,
+                role TEXT NOT NULL CHECK(role IN ('CUSTOMER', 'BANK_EMPLOYEE', 'ADMINISTRATOR')),
+                created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS customers (
+                customer_id TEXT PRIMARY KEY,
+                user_id TEXT NOT NULL,
+                first_name TEXT NOT NULL,
+                surname TEXT NOT NULL,
+                address TEXT NOT NULL,
+                phone_number TEXT NOT NULL,
+                email TEXT NOT NULL,
+                customer_type TEXT NOT NULL CHECK(customer_type IN ('INDIVIDUAL', 'JOINT', 'BUSINESS')),
+                FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS accounts (
+                account_number TEXT PRIMARY KEY,
+                balance REAL NOT NULL DEFAULT 0.0,
+                date_created DATE NOT NULL,
+                date_opened DATE NOT NULL,
+                customer_id TEXT NOT NULL,
+                status TEXT NOT NULL CHECK(status IN ('ACTIVE', 'INACTIVE', 'CLOSED', 'SUSPENDED')),
+                account_type TEXT NOT NULL CHECK(account_type IN ('SAVINGS', 'CHEQUE', 'INVESTMENT')),
+                interest_rate REAL DEFAULT 0.0,
+                employer_name TEXT,
+                employer_address TEXT,
+                employment_status BOOLEAN,
+                FOREIGN KEY (customer_id) REFERENCES customers(customer_id) ON DELETE CASCADE
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS transactions (
+                transaction_id TEXT PRIMARY KEY,
+                transaction_type TEXT NOT NULL CHECK(transaction_type IN ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER_INTERNAL', 'TRANSFER_EXTERNAL', 'INTEREST_PAYMENT')),
+                amount REAL NOT NULL,
+                timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                description TEXT,
+                account_number TEXT NOT NULL,
+                FOREIGN KEY (account_number) REFERENCES accounts(account_number) ON DELETE CASCADE
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS audit_trail (
+                audit_id TEXT PRIMARY KEY,
+                action TEXT NOT NULL,
+                timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                user_id TEXT NOT NULL,
+                details TEXT,
+                FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS bank_employees (
+                employee_id TEXT PRIMARY KEY,
+                user_id TEXT NOT NULL,
+                department TEXT NOT NULL,
+                FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+            )
+            """
+        );
+    }
+
+    /**
+     * V2: secondary indexes for the DAO finders, which otherwise scan whole tables.
+     */
+    private static Migration hotQueryIndexes() {
+        return new Migration(2, "secondary indexes for hot queries",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_account_ts ON transactions(account_number, timestamp)",
+            "CREATE INDEX IF NOT EXISTS idx_audit_user_ts ON audit_trail(user_id, timestamp)",
+            "CREATE INDEX IF NOT EXISTS idx_audit_action_ts ON audit_trail(action, timestamp)",
+            "CREATE INDEX IF NOT EXISTS idx_accounts_customer ON accounts(customer_id)",
+            "CREATE INDEX IF NOT EXISTS idx_accounts_status ON accounts(status)",
+            "CREATE INDEX IF NOT EXISTS idx_accounts_type ON accounts(account_type)",
+            "CREATE INDEX IF NOT EXISTS idx_customers_user ON customers(user_id)",
+            "CREATE INDEX IF NOT EXISTS idx_employees_user ON bank_employees(user_id)"
+        );
+    }
+
+    /**
+     * V3: (timestamp, id) indexes for keyset pagination. They cover everything the V2
+     * timestamp indexes did, so those are dropped.
+     */
+    private static Migration keysetPageIndexes() {
+        return new Migration(3, "keyset pagination indexes",
+            "DROP INDEX IF EXISTS idx_transactions_account_ts",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_account_ts_id ON transactions(account_number, timestamp, transaction_id)",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_ts_id ON transactions(timestamp, transaction_id)",
+            "DROP INDEX IF EXISTS idx_audit_user_ts",
+            "CREATE INDEX IF NOT EXISTS idx_audit_user_ts_id ON audit_trail(user_id, timestamp, audit_id)",
+            "CREATE INDEX IF NOT EXISTS idx_audit_ts_id ON audit_trail(timestamp, audit_id)"
+        );
+    }
+
+    /**
+     * V4: accounts.balance and transactions.amount become INTEGER thebe instead of REAL Pula.
+     * Each column is rebuilt under the same name so queries and indexes are unaffected.
+     */
+    private static Migration moneyInMinorUnits() {
+        return new Migration(4, "money as integer thebe",
+            "ALTER TABLE accounts ADD COLUMN balance_minor INTEGER NOT NULL DEFAULT 0",
+            "UPDATE accounts SET balance_minor = CAST(ROUND(balance * 100) AS INTEGER)",
+            "ALTER TABLE accounts DROP COLUMN balance",
+            "ALTER TABLE accounts RENAME COLUMN balance_minor TO balance",
+            "ALTER TABLE transactions ADD COLUMN amount_minor INTEGER NOT NULL DEFAULT 0",
+            "UPDATE transactions SET amount_minor = CAST(ROUND(amount * 100) AS INTEGER)",
+            "ALTER TABLE transactions DROP COLUMN amount",
+            "ALTER TABLE transactions RENAME COLUMN amount_minor TO amount"
+        );
+    }
+
+    /**
+     * V5: users the audit trail can reference when no real user is behind an action.
+     * '!' is not an Argon2 hash, so neither account can ever log in.
+     */
+    private static Migration reservedAuditActors() {
+        return new Migration(5, "reserved audit actors",
+            "INSERT OR IGNORE INTO users (user_id, username, password, role) "
+                + "VALUES ('" + UserDAO.SYSTEM_USER_ID + "', '__system__', '!', 'CUSTOMER')",
+            "INSERT OR IGNORE INTO users (user_id, username, password, role) "
+                + "VALUES ('" + UserDAO.UNKNOWN_USER_ID + "', '__unknown__', '!', 'CUSTOMER')"
+        );
+    }
+
+    /**
+     * V6: hi-lo sequences for customer, user and account IDs, starting after the highest
+     * ID already issued in each format so existing rows are never collided with.
+     */
+    private static Migration idSequences() {
+        return new Migration(6, "id sequences",
+            """
+            CREATE TABLE sequences (
+                name TEXT PRIMARY KEY,
+                next_value INTEGER NOT NULL
+            )
+            """,
+            "INSERT INTO sequences (name, next_value) "
+                + "SELECT 'customer', COALESCE(MAX(CAST(SUBSTR(customer_id, 6) AS INTEGER)), 0) + 1 "
+                + "FROM customers WHERE customer_id LIKE 'CUST-%'",
+            // customer user IDs used to come from the customer counter as CUST-nnn
+            "INSERT INTO sequences (name, next_value) "
+                + "SELECT 'customer_user', COALESCE(MAX(CAST(SUBSTR(user_id, 5) AS INTEGER)), 0) + 1 "
+                + "FROM users WHERE user_id LIKE 'USR-%'",
+            "INSERT INTO sequences (name, next_value) "
+                + "SELECT 'employee', COALESCE(MAX(CAST(SUBSTR(user_id, 4) AS INTEGER)), 0) + 1 "
+                + "FROM users WHERE user_id LIKE 'BE-%'",
+            "INSERT INTO sequences (name, next_value) "
+                + "SELECT 'admin', COALESCE(MAX(CAST(SUBSTR(user_id, 5) AS INTEGER)), 0) + 1 "
+                + "FROM users WHERE user_id LIKE 'ADM-%'",
+            "INSERT INTO sequences (name, next_value) VALUES ('account', 1)"
+        );
+    }
+
+    /**
+     * V7: accounts.version, bumped by every balance write so a change based on a stale
+     * read can be detected and retried.
+     */
+    private static Migration accountVersions() {
+        return new Migration(7, "account row versions",
+            "ALTER TABLE accounts ADD COLUMN version INTEGER NOT NULL DEFAULT 0"
+        );
+    }
+
+    /**
+     * V8: double-entry postings ledger. Every balance movement is two rows under one
+     * journal ID whose amounts sum to zero; cash, opening, closing and adjustment legs
+     * go to LEDGER:* control accounts. account_balances is a projection kept by trigger,
+     * and accounts changing balance without postings (direct writes, inserts, deletes)
+     * get balancing postings from triggers, so the projection always matches.
+     */
+    private static Migration postingLedger() {
+        return new Migration(8, "posting ledger",
+            """
+            CREATE TABLE IF NOT EXISTS postings (
+                posting_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                journal_id TEXT NOT NULL,
+                account_number TEXT NOT NULL,
+                counterparty TEXT,
+                amount INTEGER NOT NULL,
+                posting_type TEXT NOT NULL,
+                posted_at TEXT NOT NULL DEFAULT (strftime('%Y-%m-%dT%H:%M:%f', 'now', 'localtime')),
+                description TEXT
+            )
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_postings_account_ts ON postings(account_number, posted_at)",
+            "CREATE INDEX IF NOT EXISTS idx_postings_counterparty_ts ON postings(counterparty, posted_at)",
+            "CREATE INDEX IF NOT EXISTS idx_postings_journal ON postings(journal_id)",
+            """
+            CREATE TABLE IF NOT EXISTS account_balances (
+                account_number TEXT PRIMARY KEY,
+                balance INTEGER NOT NULL,
+                posting_count INTEGER NOT NULL,
+                last_posting_id INTEGER NOT NULL
+            )
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS postings_append_only_update BEFORE UPDATE ON postings
+            BEGIN
+                SELECT RAISE(ABORT, 'postings are append-only');
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS postings_append_only_delete BEFORE DELETE ON postings
+            BEGIN
+                SELECT RAISE(ABORT, 'postings are append-only');
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS postings_project AFTER INSERT ON postings
+            BEGIN
+                INSERT INTO account_balances (account_number, balance, posting_count, last_posting_id)
+                VALUES (NEW.account_number, NEW.amount, 1, NEW.posting_id)
+                ON CONFLICT(account_number) DO UPDATE SET
+                    balance = balance + excluded.balance,
+                    posting_count = posting_count + 1,
+                    last_posting_id = excluded.last_posting_id;
+            END
+            """,
+            // Control-account leg first: it leaves the account's projection untouched,
+            // so the account leg can still read the old projected balance
+            """
+            CREATE TRIGGER IF NOT EXISTS accounts_ledger_open AFTER INSERT ON accounts
+            WHEN NEW.balance <> 0
+            BEGIN
+                INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description)
+                VALUES ('OPEN-' || NEW.account_number, 'LEDGER:OPENING', NEW.account_number,
+                        -NEW.balance, 'OPENING', 'Opening balance');
+                INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description)
+                VALUES ('OPEN-' || NEW.account_number, NEW.account_number, 'LEDGER:OPENING',
+                        NEW.balance, 'OPENING', 'Opening balance');
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS accounts_ledger_adjust AFTER UPDATE OF balance ON accounts
+            WHEN NEW.balance <> COALESCE(
+                (SELECT balance FROM account_balances WHERE account_number = NEW.account_number), 0)
+            BEGIN
+                INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description)
+                VALUES ('ADJ-' || NEW.account_number || '-' || NEW.version, 'LEDGER:ADJUSTMENT', NEW.account_number,
+                        COALESCE((SELECT balance FROM account_balances WHERE account_number = NEW.account_number), 0)
+                            - NEW.balance,
+                        'ADJUSTMENT', 'Balance written without postings');
+                INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description)
+                VALUES ('ADJ-' || NEW.account_number || '-' || NEW.version, NEW.account_number, 'LEDGER:ADJUSTMENT',
+                        NEW.balance - COALESCE(
+                            (SELECT balance FROM account_balances WHERE account_number = NEW.account_number), 0),
+                        'ADJUSTMENT', 'Balance written without postings');
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS accounts_ledger_close AFTER DELETE ON accounts
+            WHEN COALESCE((SELECT balance FROM account_balances WHERE account_number = OLD.account_number), 0) <> 0
+            BEGIN
+                INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description)
+                VALUES ('CLOSE-' || OLD.account_number || '-' || OLD.version, 'LEDGER:CLOSING', OLD.account_number,
+                        (SELECT balance FROM account_balances WHERE account_number = OLD.account_number),
+                        'CLOSING', 'Account deleted');
+                INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description)
+                VALUES ('CLOSE-' || OLD.account_number || '-' || OLD.version, OLD.account_number, 'LEDGER:CLOSING',
+                        -(SELECT balance FROM account_balances WHERE account_number = OLD.account_number),
+                        'CLOSING', 'Account deleted');
+            END
+            """,
+            // Existing balances become opening postings
+            "INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description) "
+                + "SELECT 'OPEN-' || account_number, 'LEDGER:OPENING', account_number, -balance, 'OPENING', "
+                + "'Opening balance' FROM accounts WHERE balance <> 0",
+            "INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description) "
+                + "SELECT 'OPEN-' || account_number, account_number, 'LEDGER:OPENING', balance, 'OPENING', "
+                + "'Opening balance' FROM accounts WHERE balance <> 0"
+        );
+    }
+
+    /**
+     * V9: how far the in-memory ledger engine's journal has been written into the
+     * tables. Commands after this sequence are replayed from the journal on restart.
+     */
+    private static Migration ledgerEngineState() {
+        return new Migration(9, "ledger engine snapshot state",
+            """
+            CREATE TABLE IF NOT EXISTS ledger_engine_state (
+                id INTEGER PRIMARY KEY CHECK (id = 1),
+                snapshot_sequence INTEGER NOT NULL
+            )
+            """,
+            "INSERT OR IGNORE INTO ledger_engine_state (id, snapshot_sequence) VALUES (1, 0)"
+        );
+    }
+
+    /**
+     * V10: accounts.last_interest_applied (ISO date; NULL accrues from date_created), an
+     * index for walking active accounts by number, and interest_runs, the checkpoint of
+     * each accrual run over a key range.
+     */
+    private static Migration interestRuns() {
+        return new Migration(10, "interest accrual runs",
+            "ALTER TABLE accounts ADD COLUMN last_interest_applied TEXT",
+            // interest runs walk active accounts in account number order
+            "CREATE INDEX IF NOT EXISTS idx_accounts_status_number ON accounts(status, account_number)",
+            """
+            CREATE TABLE IF NOT EXISTS interest_runs (
+                run_id TEXT PRIMARY KEY,
+                run_date TEXT NOT NULL,
+                range_start TEXT NOT NULL,
+                range_end TEXT,
+                last_account_number TEXT,
+                accounts_paid INTEGER NOT NULL DEFAULT 0,
+                interest_paid INTEGER NOT NULL DEFAULT 0,
+                status TEXT NOT NULL CHECK(status IN ('RUNNING', 'COMPLETED')),
+                started_at TEXT NOT NULL DEFAULT (strftime('%Y-%m-%dT%H:%M:%f', 'now', 'localtime')),
+                completed_at TEXT
+            )
+            """
+        );
+    }
+
+    // Date accrual starts from: the last payment, else the creation date (epoch millis
+    // from JDBC or ISO text from seed data), as the account model reads it
+    private static final String INTEREST_ANCHOR = """
+        COALESCE(NEW.last_interest_applied,
+                 CASE WHEN typeof(NEW.date_created) IN ('integer', 'real')
+                      THEN date(NEW.date_created / 1000, 'unixepoch', 'localtime')
+                      ELSE substr(NEW.date_created, 1, 10) END)""";
+    private static final String INTEREST_PERIOD =
+        "CASE NEW.account_type WHEN 'INVESTMENT' THEN '+90 days' ELSE '+30 days' END";
+    private static final String NEXT_INTEREST_DUE = "date(" + INTEREST_ANCHOR + ", " + INTEREST_PERIOD + ")";
+
+    /**
+     * V11: accounts.next_interest_due, the first date an interest-bearing account is due
+     * again (30 days after accrual starts for savings, 90 for investment), kept by
+     * trigger and indexed for active accounts, so due accounts are found by a range seek.
+     */
+    private static Migration interestDueDates() {
+        return new Migration(11, "interest due dates",
+            "ALTER TABLE accounts ADD COLUMN next_interest_due TEXT",
+            "UPDATE accounts SET next_interest_due = " + NEXT_INTEREST_DUE.replace("NEW.", "")
+                + " WHERE account_type IN ('SAVINGS', 'INVESTMENT')",
+            "CREATE INDEX IF NOT EXISTS idx_accounts_interest_due ON accounts(next_interest_due) WHERE status = 'ACTIVE'",
+            """
+            CREATE TRIGGER IF NOT EXISTS accounts_interest_due_insert AFTER INSERT ON accounts
+            WHEN NEW.account_type IN ('SAVINGS', 'INVESTMENT')
+            BEGIN
+                UPDATE accounts SET next_interest_due = %s WHERE account_number = NEW.account_number;
+            END
+            """.formatted(NEXT_INTEREST_DUE),
+            """
+            CREATE TRIGGER IF NOT EXISTS accounts_interest_due_update
+            AFTER UPDATE OF last_interest_applied, date_created, account_type ON accounts
+            BEGIN
+                UPDATE accounts SET next_interest_due =
+                    CASE WHEN NEW.account_type IN ('SAVINGS', 'INVESTMENT') THEN %s END
+                WHERE account_number = NEW.account_number;
+            END
+            """.formatted(NEXT_INTEREST_DUE)
+        );
+    }
+
+    // Day a posting moves the account's balance: opening balances count from the
+    // account's creation date, everything else from the day it was posted
+    private static String postingDay(String posting) {
+        return """
+            CASE WHEN %1$s.posting_type = 'OPENING'
+                 THEN COALESCE((SELECT min(CASE WHEN typeof(date_created) IN ('integer', 'real')
+                                                THEN date(date_created / 1000, 'unixepoch', 'localtime')
+                                                ELSE substr(date_created, 1, 10) END,
+                                           substr(%1$s.posted_at, 1, 10))
+                                FROM accounts WHERE account_number = %1$s.account_number),
+                               substr(%1$s.posted_at, 1, 10))
+                 ELSE substr(%1$s.posted_at, 1, 10) END""".formatted(posting);
+    }
+
+    /**
+     * V12: daily_balances, one row per account and day its balance moved, holding the
+     * end-of-day balance and balance_days, the sum of the end-of-day balances of every
+     * earlier day. The sum over any period is then two index seeks. Rows are kept from
+     * the postings by trigger (a backdated posting shifts the rows after it) and rebuilt
+     * from the existing postings here; deleting an account drops its rows.
+     */
+    private static Migration dailyBalances() {
+        String day = postingDay("NEW");
+        return new Migration(12, "daily balances",
+            """
+            CREATE TABLE IF NOT EXISTS daily_balances (
+                account_number TEXT NOT NULL,
+                day TEXT NOT NULL,
+                balance INTEGER NOT NULL,
+                balance_days INTEGER NOT NULL,
+                PRIMARY KEY (account_number, day)
+            ) WITHOUT ROWID
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS postings_daily_balance AFTER INSERT ON postings
+            WHEN NEW.account_number NOT LIKE 'LEDGER:%%' AND NEW.posting_type <> 'CLOSING'
+            BEGIN
+                UPDATE daily_balances SET
+                    balance = balance + NEW.amount,
+                    balance_days = balance_days + NEW.amount * CAST(julianday(day) - julianday(%1$s) AS INTEGER)
+                WHERE account_number = NEW.account_number AND day > %1$s;
+                INSERT INTO daily_balances (account_number, day, balance, balance_days)
+                SELECT NEW.account_number, %1$s, COALESCE(p.balance, 0) + NEW.amount,
+                       COALESCE(p.balance_days + p.balance * CAST(julianday(%1$s) - julianday(p.day) AS INTEGER), 0)
+                FROM (SELECT 1) LEFT JOIN daily_balances p ON p.account_number = NEW.account_number
+                    AND p.day = (SELECT max(day) FROM daily_balances
+                                 WHERE account_number = NEW.account_number AND day <= %1$s)
+                WHERE true
+                ON CONFLICT (account_number, day) DO UPDATE SET balance = excluded.balance;
+            END
+            """.formatted(day),
+            """
+            CREATE TRIGGER IF NOT EXISTS accounts_daily_balance_delete AFTER DELETE ON accounts
+            BEGIN
+                DELETE FROM daily_balances WHERE account_number = OLD.account_number;
+            END
+            """,
+            """
+            INSERT INTO daily_balances (account_number, day, balance, balance_days)
+            SELECT account_number, day, balance,
+                   COALESCE(SUM(span) OVER (PARTITION BY account_number ORDER BY day
+                                            ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0)
+            FROM (SELECT account_number, day, balance,
+                         balance * CAST(julianday(LEAD(day) OVER (PARTITION BY account_number ORDER BY day))
+                                        - julianday(day) AS INTEGER) AS span
+                  FROM (SELECT account_number, day,
+                               SUM(SUM(amount)) OVER (PARTITION BY account_number ORDER BY day) AS balance
+                        FROM (SELECT p.account_number, %s AS day, p.amount FROM postings p
+                              WHERE p.account_number IN (SELECT account_number FROM accounts))
+                        GROUP BY account_number, day))
+            """.formatted(postingDay("p"))
+        );
+    }
+
+    /**
+     * V13: ledger engine commands a snapshot could not write (an account deleted while
+     * the command waited, say). They are kept here with the reason instead of holding
+     * up every later snapshot.
+     */
+    private static Migration ledgerDeadLetters() {
+        return new Migration(13, "ledger dead letters",
+            """
+            CREATE TABLE IF NOT EXISTS ledger_dead_letters (
+                transaction_id TEXT PRIMARY KEY,
+                sequence INTEGER NOT NULL,
+                transaction_type TEXT NOT NULL,
+                account_number TEXT NOT NULL,
+                counterparty TEXT,
+                amount INTEGER NOT NULL,
+                submitted_at INTEGER NOT NULL,
+                failed_at TEXT NOT NULL DEFAULT (strftime('%Y-%m-%dT%H:%M:%f', 'now', 'localtime')),
+                reason TEXT
+            )
+            """
+        );
+    }
+}
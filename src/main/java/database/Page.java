@@ -0,0 +1,44 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing plus the cursor for the page after it.
+ */
+public final class Page<T> {
+    public static final int MAX_LIMIT = 500;
+
+    private final List<T> items;
+    private final PageCursor nextCursor;
+
+    public Page(List<T> items, PageCursor nextCursor) {
+        this.items = new ArrayList<>(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return new ArrayList<>(items);
+    }
+
+    /**
+     * Cursor to pass to the next findPage call, or null on the last page.
+     */
+    public PageCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    static void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Page limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package database;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Keyset position in a newest-first listing: the (timestamp, id) of the last row seen.
+ * The next page starts strictly after this key, so fetching page N costs the same as page 1.
+ */
+public final class PageCursor {
+    private final LocalDateTime timestamp;
+    private final String id;
+
+    public PageCursor(LocalDateTime timestamp, String id) {
+        if (timestamp == null || id == null) {
+            throw new IllegalArgumentException("Cursor needs both a timestamp and an id");
+        }
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * True when a row keyed (timestamp, id) belongs on a later page than this cursor,
+     * matching the SQL predicate (timestamp, id) < (cursor timestamp, cursor id).
+     */
+    public boolean precedes(LocalDateTime rowTimestamp, String rowId) {
+        int byTime = rowTimestamp.compareTo(timestamp);
+        return byTime != 0 ? byTime < 0 : rowId.compareTo(id) < 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PageCursor)) return false;
+        PageCursor that = (PageCursor) o;
+        return timestamp.equals(that.timestamp) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestamp, id);
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor{" + timestamp + ", " + id + '}';
+    }
+}
@@ -0,0 +1,309 @@
+package database;
+
+import model.Account;
+import model.Posting;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads the append-only postings ledger and its account_balances projection.
+ *
+ * Postings are only written by AccountDAO.updateBalances (in the same transaction as
+ * the balance change), by LedgerSnapshotDAO and InterestDAO, and by the schema's
+ * triggers; there is no update or delete.
+ */
+public class PostingDAO {
+
+    // Control accounts for the outside world's side of a journal
+    public static final String CASH_ACCOUNT = "LEDGER:CASH";
+    public static final String OPENING_ACCOUNT = "LEDGER:OPENING";
+    public static final String ADJUSTMENT_ACCOUNT = "LEDGER:ADJUSTMENT";
+    public static final String CLOSING_ACCOUNT = "LEDGER:CLOSING";
+    public static final String INTEREST_ACCOUNT = "LEDGER:INTEREST";
+
+    // Finder queries (package-private so query plans can be checked in tests)
+    static final String STATEMENT_SQL = """
+        SELECT * FROM postings WHERE account_number = ? AND posted_at >= ? AND posted_at < ?
+        ORDER BY posted_at, posting_id
+        """;
+    static final String BY_COUNTERPARTY_SQL = """
+        SELECT * FROM postings WHERE counterparty = ? AND posted_at >= ? AND posted_at < ?
+        ORDER BY posted_at, posting_id
+        """;
+    // Keyset pages, newest first; idx_postings_account_ts (ending in the rowid) serves them without sorting
+    static final String PAGE_BY_ACCOUNT_FIRST_SQL = """
+        SELECT * FROM postings WHERE account_number = ?
+        ORDER BY posted_at DESC, posting_id DESC LIMIT ?
+        """;
+    static final String PAGE_BY_ACCOUNT_AFTER_SQL = """
+        SELECT * FROM postings WHERE account_number = ?
+        AND (posted_at, posting_id) < (?, ?)
+        ORDER BY posted_at DESC, posting_id DESC LIMIT ?
+        """;
+    static final String BY_JOURNAL_SQL = "SELECT * FROM postings WHERE journal_id = ? ORDER BY posting_id";
+    static final String PROJECTED_BALANCE_SQL = "SELECT balance FROM account_balances WHERE account_number = ?";
+    static final String LEDGER_BALANCE_SQL = "SELECT COALESCE(SUM(amount), 0) FROM postings WHERE account_number = ?";
+
+    // Accounts whose stored balance, projection and posting total do not all agree
+    private static final String RECONCILE_SQL = """
+        SELECT a.account_number FROM accounts a
+        LEFT JOIN account_balances b ON b.account_number = a.account_number
+        LEFT JOIN (SELECT account_number, SUM(amount) AS total FROM postings GROUP BY account_number) p
+               ON p.account_number = a.account_number
+        WHERE a.balance <> COALESCE(b.balance, 0) OR COALESCE(b.balance, 0) <> COALESCE(p.total, 0)
+        ORDER BY a.account_number
+        """;
+
+    static final String INSERT_SQL = """
+        INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, description)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    // Same text form as the posted_at column default
+    private static final DateTimeFormatter POSTED_AT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+    /**
+     * What a set of balance changes is recorded as: the journal ID shared by its legs,
+     * a posting type and a description.
+     */
+    public static final class Journal {
+        private final String journalId;
+        private final String postingType;
+        private final String description;
+
+        public Journal(String journalId, String postingType, String description) {
+            if (journalId == null || journalId.isBlank()) {
+                throw new IllegalArgumentException("Journal ID cannot be null or empty");
+            }
+            this.journalId = journalId;
+            this.postingType = postingType;
+            this.description = description;
+        }
+
+        public String getJournalId() { return journalId; }
+        public String getPostingType() { return postingType; }
+        public String getDescription() { return description; }
+    }
+
+    /**
+     * An account's legs in [from, to), oldest first; an index range scan.
+     */
+    public List<Posting> findStatement(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        return findRange(STATEMENT_SQL, accountNumber, from, to, "statement");
+    }
+
+    /**
+     * Legs on other accounts whose counterparty is this account in [from, to): the
+     * receiving side of its outgoing transfers and the paying side of incoming ones.
+     */
+    public List<Posting> findByCounterparty(String accountNumber, LocalDateTime from, LocalDateTime to) {
+        return findRange(BY_COUNTERPARTY_SQL, accountNumber, from, to, "counterparty postings");
+    }
+
+    /**
+     * One page of the legs on a customer's accounts, newest first: both sides of a
+     * transfer land on the account they moved, so incoming transfers are included.
+     */
+    public Page<Posting> findPageByCustomerId(String customerId, PageCursor afterCursor, int limit) {
+        Page.validateLimit(limit);
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            List<String> accountNumbers = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(TransactionDAO.CUSTOMER_ACCOUNTS_SQL)) {
+                stmt.setString(1, customerId);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    accountNumbers.add(rs.getString("account_number"));
+                }
+            }
+
+            List<Posting> merged = new ArrayList<>();
+            for (String accountNumber : accountNumbers) {
+                merged.addAll(fetchAccountPage(conn, accountNumber, afterCursor, limit + 1));
+            }
+            merged.sort(NEWEST_FIRST);
+            return toPage(merged, limit);
+        } catch (SQLException | NumberFormatException e) {
+            System.err.println("Error finding posting page by customer: " + e.getMessage());
+        }
+        return new Page<>(new ArrayList<>(), null);
+    }
+
+    public List<Posting> findByJournal(String journalId) {
+        List<Posting> postings = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(BY_JOURNAL_SQL)) {
+            stmt.setString(1, journalId);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                postings.add(mapResultSetToPosting(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding journal postings: " + e.getMessage());
+        }
+        return postings;
+    }
+
+    /**
+     * Balance according to the trigger-maintained projection, in thebe.
+     */
+    public long getProjectedBalance(String accountNumber) {
+        return queryLong(PROJECTED_BALANCE_SQL, accountNumber);
+    }
+
+    /**
+     * Balance recomputed from the account's postings, in thebe.
+     */
+    public long getLedgerBalance(String accountNumber) {
+        return queryLong(LEDGER_BALANCE_SQL, accountNumber);
+    }
+
+    /**
+     * Account numbers whose stored balance, projected balance and posting total disagree;
+     * empty when the books balance.
+     */
+    public List<String> reconcile() {
+        List<String> mismatched = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(RECONCILE_SQL)) {
+            while (rs.next()) {
+                mismatched.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reconciling postings: " + e.getMessage());
+        }
+        return mismatched;
+    }
+
+    /**
+     * Write the legs for accounts whose balance moved from {@code before}, on the
+     * caller's connection and before the balances themselves are written. A journal
+     * between exactly two accounts that nets to zero is a transfer and each leg names
+     * the other account; otherwise the net goes to the cash control account.
+     */
+    static void insertLegs(Connection conn, Journal journal, List<Account> accounts, long[] before)
+            throws SQLException {
+        List<Account> changed = new ArrayList<>(accounts.size());
+        List<Long> deltas = new ArrayList<>(accounts.size());
+        long net = 0;
+        for (int i = 0; i < accounts.size(); i++) {
+            long delta = accounts.get(i).getBalanceMinor() - before[i];
+            if (delta != 0) {
+                changed.add(accounts.get(i));
+                deltas.add(delta);
+                net += delta;
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        boolean transfer = changed.size() == 2 && net == 0;
+
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (int i = 0; i < changed.size(); i++) {
+                String counterparty = transfer
+                    ? changed.get(1 - i).getAccountNumber()
+                    : CASH_ACCOUNT;
+                addLeg(stmt, journal, changed.get(i).getAccountNumber(), counterparty, deltas.get(i));
+            }
+            if (net != 0) {
+                addLeg(stmt, journal, CASH_ACCOUNT,
+                    changed.size() == 1 ? changed.get(0).getAccountNumber() : null, -net);
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    static void addLeg(PreparedStatement stmt, Journal journal, String accountNumber,
+                               String counterparty, long amountMinor) throws SQLException {
+        stmt.setString(1, journal.getJournalId());
+        stmt.setString(2, accountNumber);
+        stmt.setString(3, counterparty);
+        stmt.setLong(4, amountMinor);
+        stmt.setString(5, journal.getPostingType());
+        stmt.setString(6, journal.getDescription());
+        stmt.addBatch();
+    }
+
+    private List<Posting> findRange(String sql, String accountNumber, LocalDateTime from, LocalDateTime to,
+                                    String description) {
+        List<Posting> postings = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, accountNumber);
+            stmt.setString(2, from.format(POSTED_AT));
+            stmt.setString(3, to.format(POSTED_AT));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                postings.add(mapResultSetToPosting(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error finding " + description + ": " + e.getMessage());
+        }
+        return postings;
+    }
+
+    private List<Posting> fetchAccountPage(Connection conn, String accountNumber,
+                                           PageCursor afterCursor, int rows) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                afterCursor == null ? PAGE_BY_ACCOUNT_FIRST_SQL : PAGE_BY_ACCOUNT_AFTER_SQL)) {
+            int index = 1;
+            stmt.setString(index++, accountNumber);
+            if (afterCursor != null) {
+                stmt.setString(index++, afterCursor.getTimestamp().format(POSTED_AT));
+                stmt.setLong(index++, Long.parseLong(afterCursor.getId()));
+            }
+            stmt.setInt(index, rows);
+            List<Posting> postings = new ArrayList<>();
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                postings.add(mapResultSetToPosting(rs));
+            }
+            return postings;
+        }
+    }
+
+    private static final Comparator<Posting> NEWEST_FIRST = Comparator
+        .comparing(Posting::getPostedAt)
+        .thenComparingLong(Posting::getPostingId)
+        .reversed();
+
+    // Rows were fetched with limit + 1, so an extra row means another page exists
+    private static Page<Posting> toPage(List<Posting> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<Posting> items = rows.subList(0, limit);
+        Posting last = items.get(limit - 1);
+        return new Page<>(items, new PageCursor(last.getPostedAt(), Long.toString(last.getPostingId())));
+    }
+
+    private long queryLong(String sql, String accountNumber) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, accountNumber);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error reading ledger balance: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private Posting mapResultSetToPosting(ResultSet rs) throws SQLException {
+        return new Posting(
+            rs.getLong("posting_id"),
+            rs.getString("journal_id"),
+            rs.getString("account_number"),
+            rs.getString("counterparty"),
+            rs.getLong("amount"),
+            rs.getString("posting_type"),
+            LocalDateTime.parse(rs.getString("posted_at")),
+            rs.getString("description"));
+    }
+}
@@ -0,0 +1,108 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily mapped query results for the DAOs' streamAll() methods.
+ *
+ * The read lease, statement and ResultSet stay open while the stream is consumed and
+ * are released when it is closed or runs out of rows, so only the driver's fetch
+ * buffer and the current row are ever on the heap.
+ */
+final class ResultStreams {
+
+    /**
+     * Maps the current row. The connection is the stream's own lease, for per-row lookups.
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs, Connection conn) throws SQLException;
+    }
+
+    private ResultStreams() { }
+
+    static <T> Stream<T> stream(String sql, RowMapper<T> mapper, String description) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
+            stmt.setFetchSize(DatabaseConnection.getStreamFetchSize());
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            System.err.println("Error streaming " + description + ": " + e.getMessage());
+            close(rs, stmt, conn);
+            return Stream.empty();
+        }
+
+        RowSpliterator<T> rows = new RowSpliterator<>(conn, stmt, rs, mapper, description);
+        return StreamSupport.stream(rows, false).onClose(rows::release);
+    }
+
+    private static final class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private final String description;
+        private boolean released;
+
+        RowSpliterator(Connection conn, PreparedStatement stmt, ResultSet rs,
+                       RowMapper<T> mapper, String description) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+            this.mapper = mapper;
+            this.description = description;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (released) {
+                return false;
+            }
+            try {
+                if (!rs.next()) {
+                    // Hand the lease back as soon as the last row is read
+                    release();
+                    return false;
+                }
+                action.accept(mapper.map(rs, conn));
+                return true;
+            } catch (SQLException e) {
+                release();
+                throw new IllegalStateException("Error streaming " + description + ": " + e.getMessage(), e);
+            }
+        }
+
+        void release() {
+            if (!released) {
+                released = true;
+                close(rs, stmt, conn);
+            }
+        }
+    }
+
+    private static void close(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("Warning: failed to close streamed query resource: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hi-lo allocation from the sequences table.
+ *
+ * Each process reserves a block of values per round trip (one UPDATE ... RETURNING)
+ * and hands them out from memory until the block runs out. Values left in a block when
+ * the process exits are never used, so sequences can have gaps but never repeat.
+ */
+public final class Sequences {
+
+    public static final String CUSTOMER = "customer";
+    public static final String CUSTOMER_USER = "customer_user";
+    public static final String EMPLOYEE = "employee";
+    public static final String ADMIN = "admin";
+    public static final String ACCOUNT = "account";
+    // One value per process start, for Snowflake node IDs
+    static final String SNOWFLAKE_NODE = "snowflake_node";
+
+    private static final String RESERVE_SQL =
+        "UPDATE sequences SET next_value = next_value + ? WHERE name = ? RETURNING next_value";
+    private static final String CREATE_SQL =
+        "INSERT OR IGNORE INTO sequences (name, next_value) VALUES (?, 1)";
+
+    private static final Map<String, Block> BLOCKS = new ConcurrentHashMap<>();
+
+    private Sequences() { }
+
+    /**
+     * Next value of a named sequence, starting from 1 for a name not seen before.
+     */
+    public static long next(String name) {
+        return BLOCKS.computeIfAbsent(name, Block::new).next();
+    }
+
+    private static final class Block {
+        private final String name;
+        private long next;
+        private long limit; // exclusive
+
+        Block(String name) {
+            this.name = name;
+        }
+
+        /**
+         * The round trip runs outside the monitor: a thread holding the writer (inside a
+         * unit of work) must not wait here for a thread that is itself waiting for the writer.
+         */
+        long next() {
+            synchronized (this) {
+                if (next < limit) {
+                    return next++;
+                }
+            }
+            int size = DatabaseConnection.getSequenceBlockSize();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                long end = reserve(conn, name, size);
+                long start = end - size;
+                // Inside a caller's transaction the reservation may yet roll back,
+                // so keep nothing in memory that could be handed out twice
+                if (conn.getAutoCommit()) {
+                    synchronized (this) {
+                        // another thread may have installed a block meanwhile; this one's rest is a gap then
+                        if (next >= limit) {
+                            next = start + 1;
+                            limit = end;
+                        }
+                    }
+                }
+                return start;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not reserve values from sequence " + name, e);
+            }
+        }
+    }
+
+    /**
+     * Advance the stored value by size on {@code conn} and return the new (exclusive) end.
+     */
+    static long reserve(Connection conn, String name, int size) throws SQLException {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try (PreparedStatement stmt = conn.prepareStatement(RESERVE_SQL)) {
+                stmt.setInt(1, size);
+                stmt.setString(2, name);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getLong(1);
+                    }
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(CREATE_SQL)) {
+                stmt.setString(1, name);
+                stmt.executeUpdate();
+            }
+        }
+        throw new SQLException("Sequence row missing: " + name);
+    }
+}
@@ -4,17 +4,60 @@ import model.*;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class TransactionDAO implements DAO<Transaction> {
 
+    // Finder queries (package-private so query plans can be checked in tests)
+    static final String FIND_BY_ID_SQL = "SELECT * FROM transactions WHERE transaction_id = ?";
+    static final String FIND_BY_ACCOUNT_SQL = "SELECT * FROM transactions WHERE account_number = ? ORDER BY timestamp DESC";
+    static final String FIND_BY_CUSTOMER_SQL = """
+            SELECT t.* FROM transactions t
+            JOIN accounts a ON t.account_number = a.account_number
+            WHERE a.customer_id = ?
+            ORDER BY t.timestamp DESC
+            """;
+
+    // Keyset pages, newest first; the (timestamp, transaction_id) index serves them without sorting
+    static final String PAGE_BY_ACCOUNT_FIRST_SQL = """
+            SELECT * FROM transactions WHERE account_number = ?
+            ORDER BY timestamp DESC, transaction_id DESC LIMIT ?
+            """;
+    static final String PAGE_BY_ACCOUNT_AFTER_SQL = """
+            SELECT * FROM transactions WHERE account_number = ?
+            AND (timestamp, transaction_id) < (?, ?)
+            ORDER BY timestamp DESC, transaction_id DESC LIMIT ?
+            """;
+    static final String PAGE_ALL_FIRST_SQL = """
+            SELECT * FROM transactions
+            ORDER BY timestamp DESC, transaction_id DESC LIMIT ?
+            """;
+    static final String PAGE_ALL_AFTER_SQL = """
+            SELECT * FROM transactions WHERE (timestamp, transaction_id) < (?, ?)
+            ORDER BY timestamp DESC, transaction_id DESC LIMIT ?
+            """;
+    static final String CUSTOMER_ACCOUNTS_SQL = "SELECT account_number FROM accounts WHERE customer_id = ?";
+
+    // Also used by LedgerSnapshotDAO
+    static final String INSERT_SQL = """
+        INSERT INTO transactions (transaction_id, transaction_type, amount,
+                                 timestamp, description, account_number)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+    private static final String UPDATE_SQL = """
+        UPDATE transactions SET transaction_type = ?, amount = ?, timestamp = ?,
+                              description = ?, account_number = ?
+        WHERE transaction_id = ?
+        """;
+
     @Override
     public Optional<Transaction> findById(String transactionId) {
-        String sql = "SELECT * FROM transactions WHERE transaction_id = ?";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
             
             stmt.setString(1, transactionId);
             ResultSet rs = stmt.executeQuery();
@@ -31,10 +74,9 @@ public class TransactionDAO implements DAO<Transaction> {
 
     public List<Transaction> findByAccountNumber(String accountNumber) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT * FROM transactions WHERE account_number = ? ORDER BY timestamp DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_ACCOUNT_SQL)) {
             
             stmt.setString(1, accountNumber);
             ResultSet rs = stmt.executeQuery();
@@ -51,15 +93,9 @@ public class TransactionDAO implements DAO<Transaction> {
 
     public List<Transaction> findByCustomerId(String customerId) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = """
-            SELECT t.* FROM transactions t 
-            JOIN accounts a ON t.account_number = a.account_number 
-            WHERE a.customer_id = ? 
-            ORDER BY t.timestamp DESC
-        """;
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_CUSTOMER_SQL)) {
             
             stmt.setString(1, customerId);
             ResultSet rs = stmt.executeQuery();
@@ -74,12 +110,124 @@ public class TransactionDAO implements DAO<Transaction> {
         return transactions;
     }
 
+    /**
+     * One page of an account's history, newest first.
+     * @param afterCursor the previous page's next cursor, or null for the first page
+     */
+    public Page<Transaction> findPage(String accountNumber, PageCursor afterCursor, int limit) {
+        Page.validateLimit(limit);
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return toPage(fetchAccountPage(conn, accountNumber, afterCursor, limit + 1), limit);
+        } catch (SQLException e) {
+            System.err.println("Error finding transaction page by account: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return new Page<>(new ArrayList<>(), null);
+    }
+
+    /**
+     * One page of a customer's history across all their accounts, newest first.
+     * Each account is read through its own keyset index range and the results are merged,
+     * so a page costs at most (accounts x limit) rows however deep the cursor is.
+     */
+    public Page<Transaction> findPageByCustomerId(String customerId, PageCursor afterCursor, int limit) {
+        Page.validateLimit(limit);
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            List<String> accountNumbers = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(CUSTOMER_ACCOUNTS_SQL)) {
+                stmt.setString(1, customerId);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    accountNumbers.add(rs.getString("account_number"));
+                }
+            }
+
+            List<Transaction> merged = new ArrayList<>();
+            for (String accountNumber : accountNumbers) {
+                merged.addAll(fetchAccountPage(conn, accountNumber, afterCursor, limit + 1));
+            }
+            merged.sort(NEWEST_FIRST);
+            return toPage(merged, limit);
+        } catch (SQLException e) {
+            System.err.println("Error finding transaction page by customer: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return new Page<>(new ArrayList<>(), null);
+    }
+
+    /**
+     * One page of all transactions, newest first.
+     */
+    public Page<Transaction> findPage(PageCursor afterCursor, int limit) {
+        Page.validateLimit(limit);
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 afterCursor == null ? PAGE_ALL_FIRST_SQL : PAGE_ALL_AFTER_SQL)) {
+
+            int index = 1;
+            if (afterCursor != null) {
+                stmt.setTimestamp(index++, Timestamp.valueOf(afterCursor.getTimestamp()));
+                stmt.setString(index++, afterCursor.getId());
+            }
+            stmt.setInt(index, limit + 1);
+            return toPage(readAll(stmt.executeQuery()), limit);
+        } catch (SQLException e) {
+            System.err.println("Error finding transaction page: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return new Page<>(new ArrayList<>(), null);
+    }
+
+    private List<Transaction> fetchAccountPage(Connection conn, String accountNumber,
+                                               PageCursor afterCursor, int rows) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                afterCursor == null ? PAGE_BY_ACCOUNT_FIRST_SQL : PAGE_BY_ACCOUNT_AFTER_SQL)) {
+            int index = 1;
+            stmt.setString(index++, accountNumber);
+            if (afterCursor != null) {
+                stmt.setTimestamp(index++, Timestamp.valueOf(afterCursor.getTimestamp()));
+                stmt.setString(index++, afterCursor.getId());
+            }
+            stmt.setInt(index, rows);
+            return readAll(stmt.executeQuery());
+        }
+    }
+
+    private List<Transaction> readAll(ResultSet rs) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>();
+        while (rs.next()) {
+            transactions.add(mapResultSetToTransaction(rs));
+        }
+        return transactions;
+    }
+
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator
+        .comparing(Transaction::getTimeStamp)
+        .thenComparing(Transaction::getTransactionId)
+        .reversed();
+
+    // Rows were fetched with limit + 1, so an extra row means another page exists
+    private static Page<Transaction> toPage(List<Transaction> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<Transaction> items = rows.subList(0, limit);
+        Transaction last = items.get(limit - 1);
+        return new Page<>(items, new PageCursor(last.getTimeStamp(), last.getTransactionId()));
+    }
+
+    @Override
+    public Stream<Transaction> streamAll() {
+        return ResultStreams.stream("SELECT * FROM transactions",
+            (rs, conn) -> mapResultSetToTransaction(rs), "transactions");
+    }
+
     @Override
     public List<Transaction> findAll() {
         List<Transaction> transactions = new ArrayList<>();
         String sql = "SELECT * FROM transactions ORDER BY timestamp DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
             
@@ -95,22 +243,10 @@ public class TransactionDAO implements DAO<Transaction> {
 
     @Override
     public boolean save(Transaction transaction) {
-        String sql = """
-            INSERT INTO transactions (transaction_id, transaction_type, amount, 
-                                     timestamp, description, account_number) 
-            VALUES (?, ?, ?, ?, ?, ?)
-        """;
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, transaction.getTransactionId());
-            stmt.setString(2, transaction.getTransactionType().toString());
-            stmt.setDouble(3, transaction.getAmount());
-            stmt.setTimestamp(4, Timestamp.valueOf(transaction.getTimeStamp()));
-            stmt.setString(5, transaction.getDescription());
-            stmt.setString(6, transaction.getAccount().getAccountNumber());
-            
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+
+            setInsertParameters(stmt, transaction);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error saving transaction: " + e.getMessage());
@@ -121,22 +257,10 @@ public class TransactionDAO implements DAO<Transaction> {
 
     @Override
     public boolean update(Transaction transaction) {
-        String sql = """
-            UPDATE transactions SET transaction_type = ?, amount = ?, timestamp = ?, 
-                                  description = ?, account_number = ? 
-            WHERE transaction_id = ?
-        """;
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, transaction.getTransactionType().toString());
-            stmt.setDouble(2, transaction.getAmount());
-            stmt.setTimestamp(3, Timestamp.valueOf(transaction.getTimeStamp()));
-            stmt.setString(4, transaction.getDescription());
-            stmt.setString(5, transaction.getAccount().getAccountNumber());
-            stmt.setString(6, transaction.getTransactionId());
-            
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+
+            setUpdateParameters(stmt, transaction);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error updating transaction: " + e.getMessage());
@@ -145,6 +269,20 @@ public class TransactionDAO implements DAO<Transaction> {
         }
     }
 
+    @Override
+    public BatchResult saveAll(Collection<Transaction> transactions) {
+        return new BatchWriter<Transaction>("transaction", Transaction::getTransactionId)
+            .step(INSERT_SQL, this::setInsertParameters)
+            .write(transactions);
+    }
+
+    @Override
+    public BatchResult updateAll(Collection<Transaction> transactions) {
+        return new BatchWriter<Transaction>("transaction", Transaction::getTransactionId)
+            .step(UPDATE_SQL, this::setUpdateParameters)
+            .write(transactions);
+    }
+
     @Override
     public boolean delete(String transactionId) {
         String sql = "DELETE FROM transactions WHERE transaction_id = ?";
@@ -161,10 +299,28 @@ public class TransactionDAO implements DAO<Transaction> {
         }
     }
 
+    private void setInsertParameters(PreparedStatement stmt, Transaction transaction) throws SQLException {
+        stmt.setString(1, transaction.getTransactionId());
+        stmt.setString(2, transaction.getTransactionType().toString());
+        stmt.setLong(3, transaction.getAmountMinor());
+        stmt.setTimestamp(4, Timestamp.valueOf(transaction.getTimeStamp()));
+        stmt.setString(5, transaction.getDescription());
+        stmt.setString(6, transaction.getAccount().getAccountNumber());
+    }
+
+    private void setUpdateParameters(PreparedStatement stmt, Transaction transaction) throws SQLException {
+        stmt.setString(1, transaction.getTransactionType().toString());
+        stmt.setLong(2, transaction.getAmountMinor());
+        stmt.setTimestamp(3, Timestamp.valueOf(transaction.getTimeStamp()));
+        stmt.setString(4, transaction.getDescription());
+        stmt.setString(5, transaction.getAccount().getAccountNumber());
+        stmt.setString(6, transaction.getTransactionId());
+    }
+
     private Transaction mapResultSetToTransaction(ResultSet rs) throws SQLException {
         String transactionId = rs.getString("transaction_id");
         TransactionType type = TransactionType.valueOf(rs.getString("transaction_type"));
-        double amount = rs.getDouble("amount");
+        double amount = Money.toMajor(rs.getLong("amount"));
         LocalDateTime timestamp = rs.getTimestamp("timestamp").toLocalDateTime();
         String description = rs.getString("description");
         String accountNumber = rs.getString("account_number");
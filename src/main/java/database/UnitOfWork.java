@@ -0,0 +1,160 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One transaction on the write connection, bound to the current thread for the length
+ * of a business operation.
+ *
+ * While a unit is open every DAO call on the thread joins it: the writer lease is
+ * reentrant, so DAOs borrowing a connection get the unit's, and code that manages its
+ * own transaction sees auto-commit off and uses a savepoint instead. The operation then
+ * commits once. Beginning a unit inside another joins the outer one; if an inner unit
+ * closes without committing, the whole unit rolls back.
+ *
+ * <pre>
+ * try (UnitOfWork unit = UnitOfWork.begin()) {
+ *     ...DAO calls...
+ *     unit.commit();
+ * }
+ * </pre>
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final UnitOfWork root;
+    private final Connection connection;
+    private final boolean ownTransaction;
+    // Root only: cache invalidations replayed once the outcome is visible to other threads
+    private final List<Runnable> completionActions;
+    private boolean rollbackOnly;
+    private boolean committed;
+    private boolean closed;
+
+    private UnitOfWork(Connection connection, boolean ownTransaction) {
+        this.root = this;
+        this.connection = connection;
+        this.ownTransaction = ownTransaction;
+        this.completionActions = new ArrayList<>();
+    }
+
+    private UnitOfWork(UnitOfWork root) {
+        this.root = root;
+        this.connection = root.connection;
+        this.ownTransaction = false;
+        this.completionActions = null;
+    }
+
+    /**
+     * Open a unit on the current thread, or join the one already open.
+     */
+    public static UnitOfWork begin() throws SQLException {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            return new UnitOfWork(current);
+        }
+        Connection conn = DatabaseConnection.getConnection();
+        try {
+            boolean ownTransaction = conn.getAutoCommit();
+            if (ownTransaction) {
+                conn.setAutoCommit(false);
+            }
+            UnitOfWork unit = new UnitOfWork(conn, ownTransaction);
+            CURRENT.set(unit);
+            return unit;
+        } catch (SQLException | RuntimeException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Run an action when the current unit finishes, committed or not; runs it now if no
+     * unit is open. Caches use this so a reload cannot cache a row before its write is
+     * visible.
+     */
+    static void onCompletion(Runnable action) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            action.run();
+        } else {
+            current.root.completionActions.add(action);
+        }
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Make the whole unit roll back, whoever commits it.
+     */
+    public void setRollbackOnly() {
+        root.rollbackOnly = true;
+    }
+
+    /**
+     * Commit the unit. An inner unit only records that its part succeeded.
+     */
+    public void commit() throws SQLException {
+        if (closed || committed) {
+            throw new IllegalStateException("Unit of work is already finished");
+        }
+        if (root != this) {
+            committed = true;
+            return;
+        }
+        if (rollbackOnly) {
+            throw new SQLException("Unit of work was marked rollback-only by an inner operation");
+        }
+        if (ownTransaction) {
+            connection.commit();
+        }
+        committed = true;
+    }
+
+    /**
+     * Roll back unless committed, then hand the connection back.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (root != this) {
+            if (!committed) {
+                root.rollbackOnly = true;
+            }
+            return;
+        }
+        CURRENT.remove();
+        try {
+            if (ownTransaction) {
+                if (!committed) {
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Warning: failed to end unit of work: " + e.getMessage());
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Warning: failed to release unit of work connection: " + e.getMessage());
+            }
+            for (Runnable action : completionActions) {
+                action.run();
+            }
+        }
+    }
+}
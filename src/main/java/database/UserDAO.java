@@ -2,20 +2,96 @@ package database;
 
 import model.User;
 import model.UserRole;
-import util.Passwords;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class UserDAO implements DAO<User> {
 
+    // Reserved audit actors (created by migration V5); they cannot log in and are not listed
+    public static final String SYSTEM_USER_ID = "SYSTEM";
+    public static final String UNKNOWN_USER_ID = "UNKNOWN";
+
+    // Finder queries (package-private so query plans can be checked in tests)
+    static final String FIND_BY_ID_SQL = "SELECT * FROM users WHERE user_id = ?";
+    static final String EXISTS_SQL = "SELECT 1 FROM users WHERE user_id = ?";
+    private static final String FIND_ALL_SQL = "SELECT * FROM users WHERE user_id NOT IN ('"
+            + SYSTEM_USER_ID + "', '" + UNKNOWN_USER_ID + "')";
+    static final String FIND_BY_USERNAME_SQL = "SELECT * FROM users WHERE username = ?";
+    private static final String REPLACE_HASH_SQL = "UPDATE users SET password = ? WHERE username = ? AND password = ?";
+
+    // Shared with CustomerDAO, whose rows also write the users table
+    static final String INSERT_SQL = "INSERT INTO users (user_id, username, password, role) VALUES (?, ?, ?, ?)";
+    static final String UPDATE_SQL = "UPDATE users SET username = ?, password = ?, role = ? WHERE user_id = ?";
+
+    // Known and unknown user IDs, so audit writes can skip the existence query
+    private static final EntityCache<String, Boolean> KNOWN_IDS = DatabaseConnection.newEntityCache("userIds");
+
+    public static boolean isReserved(String userId) {
+        return SYSTEM_USER_ID.equals(userId) || UNKNOWN_USER_ID.equals(userId);
+    }
+
+    /**
+     * Whether a users row exists, answered from the known-ID cache when possible.
+     */
+    public static boolean exists(String userId) {
+        if (userId == null) {
+            return false;
+        }
+        if (isReserved(userId)) {
+            return true;
+        }
+        Boolean known = KNOWN_IDS.get(userId);
+        if (known != null) {
+            return known;
+        }
+
+        long generation = KNOWN_IDS.generation();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+                PreparedStatement stmt = conn.prepareStatement(EXISTS_SQL)) {
+
+            stmt.setString(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                boolean found = rs.next();
+                // a thread holding the writer may be looking at uncommitted rows
+                if (!DatabaseConnection.isWriterHeldByCurrentThread()) {
+                    KNOWN_IDS.putIfUnchanged(userId, found, generation);
+                }
+                return found;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error checking user ID: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // A row just read proves the ID exists, so a following audit needs no existence query
+    private static void rememberKnown(String userId, long generation) {
+        if (!DatabaseConnection.isWriterHeldByCurrentThread()) {
+            KNOWN_IDS.putIfUnchanged(userId, true, generation);
+        }
+    }
+
+    /**
+     * Forget cached existence answers after users rows change outside this DAO.
+     */
+    static void invalidateKnownIds(String userId) {
+        if (userId == null) {
+            KNOWN_IDS.invalidateAll();
+        } else {
+            KNOWN_IDS.invalidate(userId);
+        }
+    }
+
     @Override
     public Optional<User> findById(String userId) {
-        String sql = "SELECT * FROM users WHERE user_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+        long generation = KNOWN_IDS.generation();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+                PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
 
             stmt.setString(1, userId);
             ResultSet rs = stmt.executeQuery();
@@ -27,6 +103,7 @@ public class UserDAO implements DAO<User> {
                         rs.getString("password"),
                         UserRole.valueOf(rs.getString("role")),
                         true);
+                rememberKnown(user.getUserId(), generation);
                 return Optional.of(user);
             }
         } catch (SQLException e) {
@@ -36,9 +113,9 @@ public class UserDAO implements DAO<User> {
     }
 
     public Optional<User> findByUsername(String username) {
-        String sql = "SELECT * FROM users WHERE username = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+        long generation = KNOWN_IDS.generation();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+                PreparedStatement stmt = conn.prepareStatement(FIND_BY_USERNAME_SQL)) {
 
             stmt.setString(1, username);
             ResultSet rs = stmt.executeQuery();
@@ -50,6 +127,7 @@ public class UserDAO implements DAO<User> {
                         rs.getString("password"),
                         UserRole.valueOf(rs.getString("role")),
                         true);
+                rememberKnown(user.getUserId(), generation);
                 return Optional.of(user);
             }
         } catch (SQLException e) {
@@ -58,23 +136,21 @@ public class UserDAO implements DAO<User> {
         return Optional.empty();
     }
 
+    @Override
+    public Stream<User> streamAll() {
+        return ResultStreams.stream(FIND_ALL_SQL, (rs, conn) -> mapResultSetToUser(rs), "users");
+    }
+
     @Override
     public List<User> findAll() {
         List<User> users = new ArrayList<>();
-        String sql = "SELECT * FROM users";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
                 Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
+                ResultSet rs = stmt.executeQuery(FIND_ALL_SQL)) {
 
             while (rs.next()) {
-                User user = new User(
-                        rs.getString("user_id"),
-                        rs.getString("username"),
-                        rs.getString("password"),
-                        UserRole.valueOf(rs.getString("role")),
-                        true);
-                users.add(user);
+                users.add(mapResultSetToUser(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error finding all users: " + e.getMessage());
@@ -84,39 +160,54 @@ public class UserDAO implements DAO<User> {
 
     @Override
     public boolean save(User user) {
-        String sql = "INSERT INTO users (user_id, username, password, role) VALUES (?, ?, ?, ?)";
-
         try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, user.getUserId());
-            stmt.setString(2, user.getUsername());
-            stmt.setString(3, user.getPassword());
-            stmt.setString(4, user.getRole().toString());
+                PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
+            setInsertParameters(stmt, user);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error saving user: " + e.getMessage());
             return false;
+        } finally {
+            KNOWN_IDS.invalidate(user.getUserId());
         }
     }
 
     @Override
     public boolean update(User user) {
-        String sql = "UPDATE users SET username = ?, password = ?, role = ? WHERE user_id = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, user.getUsername());
-            stmt.setString(2, user.getPassword());
-            stmt.setString(3, user.getRole().toString());
-            stmt.setString(4, user.getUserId());
+                PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
+            setUpdateParameters(stmt, user);
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("Error updating user: " + e.getMessage());
             return false;
+        } finally {
+            // cached customers embed username and password hash
+            CustomerDAO.invalidateCache();
+        }
+    }
+
+    @Override
+    public BatchResult saveAll(Collection<User> users) {
+        try {
+            return new BatchWriter<User>("user", User::getUserId)
+                    .step(INSERT_SQL, UserDAO::setInsertParameters)
+                    .write(users);
+        } finally {
+            KNOWN_IDS.invalidateAll();
+        }
+    }
+
+    @Override
+    public BatchResult updateAll(Collection<User> users) {
+        try {
+            return new BatchWriter<User>("user", User::getUserId)
+                    .step(UPDATE_SQL, UserDAO::setUpdateParameters)
+                    .write(users);
+        } finally {
+            CustomerDAO.invalidateCache();
         }
     }
 
@@ -132,26 +223,52 @@ public class UserDAO implements DAO<User> {
         } catch (SQLException e) {
             System.err.println("Error deleting user: " + e.getMessage());
             return false;
+        } finally {
+            KNOWN_IDS.invalidate(userId);
+            CustomerDAO.invalidateCache();
         }
     }
 
-    // In UserDAOImpl.java - Update authenticate method
-    public boolean authenticate(String username, String password) {
-        String sql = "SELECT * FROM users WHERE username = ?";
-
+    /**
+     * Store {@code newHash} for {@code username} if its hash is still {@code oldHash},
+     * so a password changed meanwhile is not overwritten. Returns true if replaced.
+     */
+    public boolean replacePasswordHash(String username, String oldHash, String newHash) {
         try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+                PreparedStatement stmt = conn.prepareStatement(REPLACE_HASH_SQL)) {
 
-            stmt.setString(1, username);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                String storedHashedPassword = rs.getString("password");
-                return Passwords.verifyPassword(password, storedHashedPassword);
-            }
+            stmt.setString(1, newHash);
+            stmt.setString(2, username);
+            stmt.setString(3, oldHash);
+            return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error authenticating user: " + e.getMessage());
+            System.err.println("Error replacing password hash: " + e.getMessage());
+            return false;
+        } finally {
+            CustomerDAO.invalidateCache();
         }
-        return false;
+    }
+
+    static void setInsertParameters(PreparedStatement stmt, User user) throws SQLException {
+        stmt.setString(1, user.getUserId());
+        stmt.setString(2, user.getUsername());
+        stmt.setString(3, user.getPassword());
+        stmt.setString(4, user.getRole().toString());
+    }
+
+    static void setUpdateParameters(PreparedStatement stmt, User user) throws SQLException {
+        stmt.setString(1, user.getUsername());
+        stmt.setString(2, user.getPassword());
+        stmt.setString(3, user.getRole().toString());
+        stmt.setString(4, user.getUserId());
+    }
+
+    private User mapResultSetToUser(ResultSet rs) throws SQLException {
+        return new User(
+                rs.getString("user_id"),
+                rs.getString("username"),
+                rs.getString("password"),
+                UserRole.valueOf(rs.getString("role")),
+                true);
     }
 }
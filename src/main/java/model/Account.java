@@ -3,11 +3,12 @@ import java.time.LocalDate;
 
 public class Account {
     private String accountNumber;
-    private double balance;
+    private long balanceMinor; // thebe
     private LocalDate dateCreated;
     private LocalDate dateOpened;
     private Customer customer;
     private AccountStatus status;
+    private long version; // row version the balance was read at
 
     public Account(String accountNumber, double balance, LocalDate dateCreated,
                    LocalDate dateOpened, Customer customer, AccountStatus status) {
@@ -23,16 +24,26 @@ public class Account {
         if (amount <= 0) {
             throw new IllegalArgumentException("Deposit amount must be positive");
         }
+        depositMinor(toPositiveMinor(amount, "Deposit"));
+    }
+
+    /**
+     * Deposit an amount given in thebe.
+     */
+    public void depositMinor(long amountMinor) {
+        if (amountMinor <= 0) {
+            throw new IllegalArgumentException("Deposit amount must be positive");
+        }
         if (status != AccountStatus.ACTIVE) {
             throw new IllegalStateException("Cannot deposit to inactive account");
         }
-        this.balance += amount;
+        this.balanceMinor = Money.add(balanceMinor, amountMinor);
         
         // Record audit trail
         if (customer != null) {
             customer.recordAudit(Action.DEPOSIT, 
-                String.format("Deposited %.2f to account %s. New balance: %.2f", 
-                    amount, accountNumber, balance));
+                String.format("Deposited %s to account %s. New balance: %s", 
+                    Money.format(amountMinor), accountNumber, Money.format(balanceMinor)));
         }
     }
 
@@ -40,24 +51,50 @@ public class Account {
         if (amount <= 0) {
             throw new IllegalArgumentException("Withdrawal amount must be positive");
         }
+        withdrawMinor(toPositiveMinor(amount, "Withdrawal"));
+    }
+
+    /**
+     * Withdraw an amount given in thebe.
+     */
+    public void withdrawMinor(long amountMinor) {
+        if (amountMinor <= 0) {
+            throw new IllegalArgumentException("Withdrawal amount must be positive");
+        }
         if (status != AccountStatus.ACTIVE) {
             throw new IllegalStateException("Cannot withdraw from inactive account");
         }
-        if (balance < amount) {
+        if (balanceMinor < amountMinor) {
             throw new IllegalArgumentException("Insufficient funds");
         }
-        this.balance -= amount;
+        this.balanceMinor = Money.subtract(balanceMinor, amountMinor);
         
         // Record audit trail
         if (customer != null) {
             customer.recordAudit(Action.WITHDRAWAL, 
-                String.format("Withdrew %.2f from account %s. New balance: %.2f", 
-                    amount, accountNumber, balance));
+                String.format("Withdrew %s from account %s. New balance: %s", 
+                    Money.format(amountMinor), accountNumber, Money.format(balanceMinor)));
         }
     }
 
+    /**
+     * Balance in Pula. The exact value is getBalanceMinor().
+     */
     public double getBalance() {
-        return balance;
+        return Money.toMajor(balanceMinor);
+    }
+
+    public long getBalanceMinor() {
+        return balanceMinor;
+    }
+
+    // A positive Pula amount that rounds to zero thebe cannot be moved
+    static long toPositiveMinor(double amount, String operation) {
+        long minor = Money.toMinor(amount);
+        if (minor <= 0) {
+            throw new IllegalArgumentException(operation + " amount must be at least P0.01");
+        }
+        return minor;
     }
 
     public Account getAccountDetails() {
@@ -125,7 +162,22 @@ public class Account {
         if (balance < 0) {
             throw new IllegalArgumentException("Balance cannot be negative");
         }
-        this.balance = balance;
+        setBalanceMinor(Money.toMinor(balance));
+    }
+
+    public void setBalanceMinor(long balanceMinor) {
+        if (balanceMinor < 0) {
+            throw new IllegalArgumentException("Balance cannot be negative");
+        }
+        this.balanceMinor = balanceMinor;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     public LocalDate getDateCreated() {
@@ -173,7 +225,7 @@ public class Account {
     public String toString() {
         return "Account{" +
                 "accountNumber='" + accountNumber + '\'' +
-                ", balance=" + balance +
+                ", balance=" + Money.format(balanceMinor) +
                 ", dateCreated=" + dateCreated +
                 ", dateOpened=" + dateOpened +
                 ", customer=" + (customer != null ? customer.getCustomerId() : "null") +
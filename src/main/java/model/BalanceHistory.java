@@ -0,0 +1,17 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.OptionalLong;
+
+/**
+ * Where interest-bearing accounts read their past balances from.
+ */
+public interface BalanceHistory {
+    /**
+     * Sum of the account's end-of-day balances in thebe over the days from {@code from}
+     * up to but not including {@code to}, or empty when no history is recorded for it.
+     * Divided by the number of days it is the average daily balance. A history that
+     * cannot be read throws instead of answering empty.
+     */
+    OptionalLong balanceDays(String accountNumber, LocalDate from, LocalDate to);
+}
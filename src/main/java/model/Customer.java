@@ -3,6 +3,8 @@ package model;
 import java.util.ArrayList;
 import java.util.List;
 
+import util.SnowflakeIdGenerator;
+
 public class Customer extends User implements Auditable {
     private String customerId;
     private String firstName;
@@ -14,6 +16,8 @@ public class Customer extends User implements Auditable {
     private List<Account> accounts;
     private List<AuditEntry> auditTrail;
 
+    private static final String REFERENCE_USERNAME = "temp_username";
+
     public Customer(String userId, String username, String password,
             String customerId, String firstName, String surname, String address,
             String phoneNumber, String email, CustomerType customerType) {
@@ -36,6 +40,17 @@ public class Customer extends User implements Auditable {
         this.auditTrail = new ArrayList<>();
     }
 
+    /**
+     * Builds a credential-less customer for read paths (e.g. the owner attached to
+     * an account row). No password is carried, so no Argon2 hash is computed.
+     */
+    public static Customer reference(String userId, String customerId, String firstName,
+            String surname, String address, String phoneNumber, String email,
+            CustomerType customerType) {
+        return new Customer(userId, REFERENCE_USERNAME, null, customerId, firstName, surname,
+                address, phoneNumber, email, customerType, true);
+    }
+
     public void updateProfile(String firstName, String surname, String address,
             String phoneNumber, String email) {
         setFirstName(firstName);
@@ -67,7 +82,7 @@ public class Customer extends User implements Auditable {
     @Override
     public void recordAudit(Action action, String details) {
         AuditEntry auditEntry = new AuditEntry(
-                "AUDIT_" + System.currentTimeMillis() + "_" + auditTrail.size(),
+                SnowflakeIdGenerator.next("AUDIT_"),
                 action.toString(),
                 java.time.LocalDateTime.now(),
                 getUserId(),
@@ -87,9 +102,10 @@ public class Customer extends User implements Auditable {
     }
 
     public double getTotalBalance() {
-        return accounts.stream()
-                .mapToDouble(Account::getBalance)
-                .sum();
+        long totalMinor = accounts.stream()
+                .mapToLong(Account::getBalanceMinor)
+                .reduce(0, Money::add);
+        return Money.toMajor(totalMinor);
     }
 
     // Getters and Setters
@@ -1,6 +1,29 @@
 package model;
 
+import java.time.LocalDate;
+
 public interface InterestBearing {
     double calculateInterest();
+
+    /**
+     * Interest due in thebe, rounded explicitly; calculateInterest() is this in Pula.
+     */
+    long calculateInterestMinor();
+
+    /**
+     * Interest due as of {@code asOf} in thebe; 0 while the account is not due.
+     */
+    long calculateInterestMinor(LocalDate asOf);
+
     void applyInterest();
+
+    LocalDate getLastInterestApplied();
+
+    void setLastInterestApplied(LocalDate lastInterestApplied);
+
+    /**
+     * History interest is computed from, on the average daily balance; without one the
+     * current balance is used for every day of the period.
+     */
+    void setBalanceHistory(BalanceHistory balanceHistory);
 }
@@ -1,12 +1,14 @@
 package model;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.OptionalLong;
 
 public class InvestmentAccount extends Account implements InterestBearing {
     private double interestRate = 0.065; 
-    private static final double MINIMUM_INITIAL_DEPOSIT = 500.00;
-    private static final double MINIMUM_BALANCE = 500.00;
+    private static final long MINIMUM_INITIAL_DEPOSIT_MINOR = 50_000; // P500.00
+    private static final long MINIMUM_BALANCE_MINOR = 50_000; // P500.00
     private LocalDate lastInterestApplied;
+    private BalanceHistory balanceHistory; // null: the current balance stands for every day
 
     public InvestmentAccount(String accountNumber, double balance, LocalDate dateCreated,
                              LocalDate dateOpened, Customer customer, AccountStatus status) {
@@ -17,19 +19,37 @@ public class InvestmentAccount extends Account implements InterestBearing {
 
     @Override
     public double calculateInterest() {
+        return Money.toMajor(calculateInterestMinor());
+    }
+
+    /**
+     * Accrued simple interest in thebe, rounded half-up.
+     */
+    @Override
+    public long calculateInterestMinor() {
+        return calculateInterestMinor(LocalDate.now());
+    }
+
+    @Override
+    public long calculateInterestMinor(LocalDate asOf) {
         if (getStatus() != AccountStatus.ACTIVE) {
-            return 0.0;
+            return 0;
         }
         
         long daysSinceLastInterest = ChronoUnit.DAYS.between(
-            lastInterestApplied, LocalDate.now());
+            lastInterestApplied, asOf);
         
         if (daysSinceLastInterest < 90) { // Apply interest quarterly
-            return 0.0;
+            return 0;
         }
-        
-        double dailyInterestRate = interestRate / 365;
-        return getBalance() * dailyInterestRate * daysSinceLastInterest;
+
+        OptionalLong balanceDays = balanceHistory == null ? OptionalLong.empty()
+            : balanceHistory.balanceDays(getAccountNumber(), lastInterestApplied, asOf);
+        if (balanceDays.isPresent()) {
+            // average daily balance over the period times its days
+            return Money.simpleInterest(balanceDays.getAsLong(), interestRate, 1);
+        }
+        return Money.simpleInterest(getBalanceMinor(), interestRate, daysSinceLastInterest);
     }
 
     @Override
@@ -38,16 +58,16 @@ public class InvestmentAccount extends Account implements InterestBearing {
             return;
         }
         
-        double interest = calculateInterest();
+        long interest = calculateInterestMinor();
         if (interest > 0) {
-            deposit(interest);
+            depositMinor(interest);
             lastInterestApplied = LocalDate.now();
             
             // Record audit trail
             if (getCustomer() != null) {
                 getCustomer().recordAudit(Action.DEPOSIT, 
-                    String.format("Investment interest applied: P%.2f to account %s", 
-                        interest, getAccountNumber()));
+                    String.format("Investment interest applied: P%s to account %s", 
+                        Money.format(interest), getAccountNumber()));
             }
         }
     }
@@ -62,10 +82,11 @@ public class InvestmentAccount extends Account implements InterestBearing {
             throw new IllegalStateException("Cannot withdraw from inactive investment account");
         }
         
-        if (getBalance() - amount < MINIMUM_BALANCE) {
+        long amountMinor = toPositiveMinor(amount, "Withdrawal");
+        if (getBalanceMinor() - amountMinor < MINIMUM_BALANCE_MINOR) {
             throw new IllegalArgumentException(
-                String.format("Withdrawal would bring balance below minimum requirement of P%.2f", 
-                    MINIMUM_BALANCE));
+                String.format("Withdrawal would bring balance below minimum requirement of P%s", 
+                    Money.format(MINIMUM_BALANCE_MINOR)));
         }
         
         LocalDate noticeAnchor = getDateCreated() != null ? getDateCreated() : getDateOpened();
@@ -75,7 +96,7 @@ public class InvestmentAccount extends Account implements InterestBearing {
         }
         
         // Process withdrawal
-        setBalance(getBalance() - amount);
+        setBalanceMinor(getBalanceMinor() - amountMinor);
         
         // Record investment account withdrawal
         if (getCustomer() != null) {
@@ -86,7 +107,7 @@ public class InvestmentAccount extends Account implements InterestBearing {
     }
 
     public boolean validateInitialDeposit(double amount) {
-        return amount >= MINIMUM_INITIAL_DEPOSIT;
+        return Money.toMinor(amount) >= MINIMUM_INITIAL_DEPOSIT_MINOR;
     }
 
     // Getters and Setters
@@ -102,17 +123,28 @@ public class InvestmentAccount extends Account implements InterestBearing {
     }
 
     public static double getMinimumInitialDeposit() {
-        return MINIMUM_INITIAL_DEPOSIT;
+        return Money.toMajor(MINIMUM_INITIAL_DEPOSIT_MINOR);
     }
 
     public static double getMinimumBalance() {
-        return MINIMUM_BALANCE;
+        return Money.toMajor(MINIMUM_BALANCE_MINOR);
     }
 
+    @Override
     public LocalDate getLastInterestApplied() {
         return lastInterestApplied;
     }
 
+    @Override
+    public void setLastInterestApplied(LocalDate lastInterestApplied) {
+        this.lastInterestApplied = lastInterestApplied;
+    }
+
+    @Override
+    public void setBalanceHistory(BalanceHistory balanceHistory) {
+        this.balanceHistory = balanceHistory;
+    }
+
     @Override
     public String toString() {
         return "InvestmentAccount{" +
@@ -0,0 +1,77 @@
+package model;
+
+/**
+ * One money movement accepted by the in-memory ledger engine, as written to its
+ * journal: a deposit or withdrawal against one account, or a transfer to a counterparty.
+ */
+public final class LedgerCommand {
+    private final long sequence;
+    private final TransactionType type;
+    private final String accountNumber;
+    private final String counterparty; // transfer target; null otherwise
+    private final long amountMinor;
+    private final String transactionId;
+    private final long timestampMillis;
+
+    public LedgerCommand(long sequence, TransactionType type, String accountNumber, String counterparty,
+                         long amountMinor, String transactionId, long timestampMillis) {
+        if (amountMinor <= 0) {
+            throw new IllegalArgumentException("Ledger amount must be positive");
+        }
+        this.sequence = sequence;
+        this.type = type;
+        this.accountNumber = accountNumber;
+        this.counterparty = counterparty;
+        this.amountMinor = amountMinor;
+        this.transactionId = transactionId;
+        this.timestampMillis = timestampMillis;
+    }
+
+    /**
+     * Change this command makes to its account's balance, in thebe.
+     */
+    public long getAccountDeltaMinor() {
+        return type == TransactionType.DEPOSIT ? amountMinor : -amountMinor;
+    }
+
+    // Getters
+    public long getSequence() {
+        return sequence;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getCounterparty() {
+        return counterparty;
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerCommand{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", accountNumber='" + accountNumber + '\'' +
+                ", counterparty='" + counterparty + '\'' +
+                ", amount=" + Money.format(amountMinor) +
+                ", transactionId='" + transactionId + '\'' +
+                '}';
+    }
+}
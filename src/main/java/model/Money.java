@@ -0,0 +1,134 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of Pula held as a whole number of thebe (1 Pula = 100 thebe).
+ *
+ * Balances and transaction amounts are stored as primitive longs in minor units; the
+ * static helpers work on those longs directly so the hot path never allocates. Money
+ * instances are for code that wants a value type.
+ */
+public final class Money implements Comparable<Money> {
+    public static final long MINOR_PER_MAJOR = 100;
+    public static final Money ZERO = new Money(0);
+
+    // Annual rates are applied to a millionth (0.0001%)
+    static final long RATE_SCALE = 1_000_000;
+    static final long DAYS_PER_YEAR = 365;
+
+    private final long minor;
+
+    private Money(long minor) {
+        this.minor = minor;
+    }
+
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor);
+    }
+
+    /**
+     * Amount in Pula, rounded half-up to the nearest thebe.
+     */
+    public static Money of(double major) {
+        return ofMinor(toMinor(major));
+    }
+
+    public long getMinor() {
+        return minor;
+    }
+
+    public double toMajor() {
+        return toMajor(minor);
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(add(minor, other.minor));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(subtract(minor, other.minor));
+    }
+
+    public boolean isNegative() {
+        return minor < 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money && ((Money) o).minor == minor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minor);
+    }
+
+    @Override
+    public String toString() {
+        return "P" + format(minor);
+    }
+
+    // Allocation-free operations on raw thebe
+
+    /**
+     * Pula to thebe, rounding half away from zero. Every double within a thebe of a
+     * stored value converts back to exactly that value.
+     */
+    public static long toMinor(double major) {
+        if (Double.isNaN(major) || Double.isInfinite(major)) {
+            throw new IllegalArgumentException("Amount must be a finite number");
+        }
+        return Math.round(major * MINOR_PER_MAJOR);
+    }
+
+    public static double toMajor(long minor) {
+        return minor / (double) MINOR_PER_MAJOR;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Simple interest on a principal for a number of days, rounded half-up to the thebe:
+     * round(principal * rate * days / 365) with the rate taken to a millionth.
+     * Uses exact long arithmetic; only principals in the billions of Pula fall back to BigDecimal.
+     */
+    public static long simpleInterest(long principalMinor, double annualRate, long days) {
+        if (principalMinor <= 0 || days <= 0 || annualRate <= 0) {
+            return 0;
+        }
+        long rateMicros = Math.round(annualRate * RATE_SCALE);
+        long divisor = RATE_SCALE * DAYS_PER_YEAR;
+        try {
+            long numerator = Math.multiplyExact(Math.multiplyExact(principalMinor, rateMicros), days);
+            return Math.addExact(numerator, divisor / 2) / divisor;
+        } catch (ArithmeticException overflow) {
+            return BigDecimal.valueOf(principalMinor)
+                .multiply(BigDecimal.valueOf(rateMicros))
+                .multiply(BigDecimal.valueOf(days))
+                .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+        }
+    }
+
+    /**
+     * Thebe as a plain decimal string, e.g. 123456 -> "1234.56".
+     */
+    public static String format(long minor) {
+        long abs = Math.abs(minor);
+        long fraction = abs % MINOR_PER_MAJOR;
+        return (minor < 0 ? "-" : "") + (abs / MINOR_PER_MAJOR) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,87 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One leg of a double-entry journal: a signed amount against one account, with the
+ * account on the other side as counterparty. Legs of one journal sum to zero.
+ */
+public class Posting {
+    private final long postingId;
+    private final String journalId;
+    private final String accountNumber;
+    private final String counterparty;
+    private final long amountMinor; // thebe; credits positive, debits negative
+    private final String postingType;
+    private final LocalDateTime postedAt;
+    private final String description;
+
+    public Posting(long postingId, String journalId, String accountNumber, String counterparty,
+                   long amountMinor, String postingType, LocalDateTime postedAt, String description) {
+        this.postingId = postingId;
+        this.journalId = journalId;
+        this.accountNumber = accountNumber;
+        this.counterparty = counterparty;
+        this.amountMinor = amountMinor;
+        this.postingType = postingType;
+        this.postedAt = postedAt;
+        this.description = description;
+    }
+
+    public boolean isCredit() {
+        return amountMinor > 0;
+    }
+
+    // Getters
+    public long getPostingId() {
+        return postingId;
+    }
+
+    public String getJournalId() {
+        return journalId;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getCounterparty() {
+        return counterparty;
+    }
+
+    /**
+     * Signed amount in Pula. The exact value is getAmountMinor().
+     */
+    public double getAmount() {
+        return Money.toMajor(amountMinor);
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public String getPostingType() {
+        return postingType;
+    }
+
+    public LocalDateTime getPostedAt() {
+        return postedAt;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return "Posting{" +
+                "postingId=" + postingId +
+                ", journalId='" + journalId + '\'' +
+                ", accountNumber='" + accountNumber + '\'' +
+                ", counterparty='" + counterparty + '\'' +
+                ", amount=" + Money.format(amountMinor) +
+                ", postingType='" + postingType + '\'' +
+                ", postedAt=" + postedAt +
+                '}';
+    }
+}
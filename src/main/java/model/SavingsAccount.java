@@ -1,11 +1,13 @@
 package model;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.OptionalLong;
 
 public class SavingsAccount extends Account implements InterestBearing {
     private double interestRate = 0.025;
     private LocalDate lastInterestApplied;
-    private double minimumBalance = 500.0; // Minimum balance requirement
+    private BalanceHistory balanceHistory; // null: the current balance stands for every day
+    private long minimumBalanceMinor = 50_000; // Minimum balance requirement (P500.00)
 
     public SavingsAccount(String accountNumber, double balance, LocalDate dateCreated,
                           LocalDate dateOpened, Customer customer, AccountStatus status) {
@@ -18,19 +20,37 @@ public class SavingsAccount extends Account implements InterestBearing {
 
     @Override
     public double calculateInterest() {
+        return Money.toMajor(calculateInterestMinor());
+    }
+
+    /**
+     * Accrued simple interest in thebe, rounded half-up.
+     */
+    @Override
+    public long calculateInterestMinor() {
+        return calculateInterestMinor(LocalDate.now());
+    }
+
+    @Override
+    public long calculateInterestMinor(LocalDate asOf) {
         if (getStatus() != AccountStatus.ACTIVE) {
-            return 0.0;
+            return 0;
         }
         
         long daysSinceLastInterest = ChronoUnit.DAYS.between(
-            lastInterestApplied, LocalDate.now());
+            lastInterestApplied, asOf);
         
         if (daysSinceLastInterest < 30) { // Apply interest monthly
-            return 0.0;
+            return 0;
         }
-        
-        double dailyInterestRate = interestRate / 365;
-        return getBalance() * dailyInterestRate * daysSinceLastInterest;
+
+        OptionalLong balanceDays = balanceHistory == null ? OptionalLong.empty()
+            : balanceHistory.balanceDays(getAccountNumber(), lastInterestApplied, asOf);
+        if (balanceDays.isPresent()) {
+            // average daily balance over the period times its days
+            return Money.simpleInterest(balanceDays.getAsLong(), interestRate, 1);
+        }
+        return Money.simpleInterest(getBalanceMinor(), interestRate, daysSinceLastInterest);
     }
 
     @Override
@@ -39,16 +59,16 @@ public class SavingsAccount extends Account implements InterestBearing {
             return;
         }
         
-        double interest = calculateInterest();
+        long interest = calculateInterestMinor();
         if (interest > 0) {
-            deposit(interest);
+            depositMinor(interest);
             lastInterestApplied = LocalDate.now();
             
             // Record audit trail
             if (getCustomer() != null) {
                 getCustomer().recordAudit(Action.DEPOSIT, 
-                    String.format("Interest applied: P%.2f to savings account %s", 
-                        interest, getAccountNumber()));
+                    String.format("Interest applied: P%s to savings account %s", 
+                        Money.format(interest), getAccountNumber()));
             }
         }
     }
@@ -59,6 +79,11 @@ public class SavingsAccount extends Account implements InterestBearing {
         throw new IllegalStateException("Withdrawals are not permitted from savings accounts. Use transfers instead.");
     }
 
+    @Override
+    public void withdrawMinor(long amountMinor) {
+        throw new IllegalStateException("Withdrawals are not permitted from savings accounts. Use transfers instead.");
+    }
+
     @Override
     public void transferTo(Account targetAccount, double amount) {
         if (targetAccount == null) {
@@ -75,14 +100,15 @@ public class SavingsAccount extends Account implements InterestBearing {
         }
 
         // Ensure minimum balance is preserved after transfer
-        double availableForTransfer = getBalance() - minimumBalance;
-        if (amount > availableForTransfer) {
-            throw new IllegalArgumentException("Insufficient funds. Transfers must maintain the minimum balance of " + minimumBalance);
+        long amountMinor = toPositiveMinor(amount, "Transfer");
+        long availableForTransfer = getBalanceMinor() - minimumBalanceMinor;
+        if (amountMinor > availableForTransfer) {
+            throw new IllegalArgumentException("Insufficient funds. Transfers must maintain the minimum balance of " + getMinimumBalance());
         }
 
         // Perform transfer: do not call withdraw() since withdrawals are disallowed for savings
-        setBalance(getBalance() - amount);
-        targetAccount.deposit(amount);
+        setBalanceMinor(getBalanceMinor() - amountMinor);
+        targetAccount.depositMinor(amountMinor);
 
         // Record audit trail on customer
         if (getCustomer() != null) {
@@ -106,26 +132,37 @@ public class SavingsAccount extends Account implements InterestBearing {
         this.interestRate = interestRate;
     }
 
+    @Override
     public LocalDate getLastInterestApplied() {
         return lastInterestApplied;
     }
 
+    @Override
+    public void setLastInterestApplied(LocalDate lastInterestApplied) {
+        this.lastInterestApplied = lastInterestApplied;
+    }
+
+    @Override
+    public void setBalanceHistory(BalanceHistory balanceHistory) {
+        this.balanceHistory = balanceHistory;
+    }
+
     public double getMinimumBalance() {
-        return minimumBalance;
+        return Money.toMajor(minimumBalanceMinor);
     }
 
     public void setMinimumBalance(double minimumBalance) {
         if (minimumBalance < 0) {
             throw new IllegalArgumentException("Minimum balance cannot be negative");
         }
-        this.minimumBalance = minimumBalance;
+        this.minimumBalanceMinor = Money.toMinor(minimumBalance);
     }
 
     @Override
     public String toString() {
         return "SavingsAccount{" +
                 "interestRate=" + interestRate +
-                ", minimumBalance=" + minimumBalance +
+                ", minimumBalance=" + Money.format(minimumBalanceMinor) +
                 ", lastInterestApplied=" + lastInterestApplied +
                 "} " + super.toString();
     }
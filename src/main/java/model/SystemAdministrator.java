@@ -3,6 +3,8 @@ package model;
 import java.util.ArrayList;
 import java.util.List;
 
+import util.SnowflakeIdGenerator;
+
 public class SystemAdministrator extends User {
     private int adminLevel;
     private List<AuditEntry> systemAuditTrail;
@@ -74,7 +76,7 @@ public class SystemAdministrator extends User {
 
     private void recordSystemAudit(String action, String details) {
         AuditEntry auditEntry = new AuditEntry(
-            "SYS_AUDIT_" + System.currentTimeMillis(),
+            SnowflakeIdGenerator.next("SYS_AUDIT_"),
             action,
             java.time.LocalDateTime.now(),
             getUserId(),
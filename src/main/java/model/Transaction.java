@@ -2,14 +2,15 @@ package model;
 
 import java.time.LocalDateTime;
 
+import util.SnowflakeIdGenerator;
+
 public class Transaction implements Auditable {
     private String transactionId;
     private TransactionType transactionType;
-    private double amount;
+    private long amountMinor; // thebe
     private LocalDateTime timeStamp;
     private String description;
     private Account account;
-    private static int transactionCounter = 0;
 
     public Transaction(String transactionId, TransactionType transactionType,
                        double amount, LocalDateTime timeStamp,
@@ -57,13 +58,13 @@ public class Transaction implements Auditable {
         try {
             switch (transactionType) {
                 case DEPOSIT:
-                    account.deposit(amount);
+                    account.depositMinor(amountMinor);
                     break;
                 case WITHDRAWAL:
-                    account.withdraw(amount);
+                    account.withdrawMinor(amountMinor);
                     break;
                 case INTEREST_PAYMENT:
-                    account.deposit(amount);
+                    account.depositMinor(amountMinor);
                     break;
                 case TRANSFER_INTERNAL:
                 case TRANSFER_EXTERNAL:
@@ -79,7 +80,7 @@ public class Transaction implements Auditable {
     }
 
     private static String generateTransactionId() {
-        return "TXN" + System.currentTimeMillis() + "_" + (transactionCounter++);
+        return SnowflakeIdGenerator.next("TXN_");
     }
 
     // Getters and Setters
@@ -105,15 +106,29 @@ public class Transaction implements Auditable {
         this.transactionType = transactionType;
     }
 
+    /**
+     * Amount in Pula. The exact value is getAmountMinor().
+     */
     public double getAmount() {
-        return amount;
+        return Money.toMajor(amountMinor);
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
     }
 
     public void setAmount(double amount) {
         if (amount <= 0) {
             throw new IllegalArgumentException("Transaction amount must be positive");
         }
-        this.amount = amount;
+        setAmountMinor(Money.toMinor(amount));
+    }
+
+    public void setAmountMinor(long amountMinor) {
+        if (amountMinor <= 0) {
+            throw new IllegalArgumentException("Transaction amount must be positive");
+        }
+        this.amountMinor = amountMinor;
     }
 
     public LocalDateTime getTimeStamp() {
@@ -151,7 +166,7 @@ public class Transaction implements Auditable {
         return "Transaction{" +
                 "transactionId='" + transactionId + '\'' +
                 ", transactionType=" + transactionType +
-                ", amount=" + amount +
+                ", amount=" + Money.format(amountMinor) +
                 ", timeStamp=" + timeStamp +
                 ", description='" + description + '\'' +
                 ", account=" + account.getAccountNumber() +
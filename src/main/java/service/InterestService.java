@@ -2,57 +2,143 @@
 package service;
 
 import database.AccountDAO;
+import database.DailyBalanceDAO;
+import database.InterestDAO;
 import model.Account;
+import model.BalanceHistory;
 import model.InterestBearing;
-import model.SavingsAccount;
-import model.InvestmentAccount;
 
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Daily interest accrual, run as a pipeline over key ranges of accounts.
+ *
+ * Each chunk of active savings and investment accounts is read in account number
+ * order (the next chunk is read while the current one is written), its interest is
+ * computed in parallel on a fork/join pool by the accounts' own rules, on the average
+ * daily balance of the period (one daily_balances read per chunk), and the
+ * payments, their INTEREST_PAYMENT rows and the run's checkpoint commit together. A
+ * run interrupted part way resumes after its last committed chunk.
+ *
+ * With interest.mode=sql the same run is instead a handful of set-based statements
+ * inside SQLite (InterestDAO.postDueInterest) in one transaction, for the plain case
+ * where the accounts' rules are just the simple-interest formula.
+ *
+ * Payments are balance deltas, so they do not overwrite concurrent movements; a running
+ * ledger engine only sees them after its next restart.
+ */
 public class InterestService {
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+    // Below this many accounts a fork/join task computes directly instead of splitting
+    private static final int SPLIT_THRESHOLD = 64;
+
+    /**
+     * Where interest is computed: by the account model on a fork/join pool, or by SQL.
+     */
+    public enum Mode { JAVA, SQL }
+
     private AccountDAO accountDAO;
+    private InterestDAO interestDAO;
+    private DailyBalanceDAO dailyBalanceDAO;
     private ScheduledExecutorService scheduler;
+    private final ForkJoinPool workers;
+    private final int chunkSize;
+    private final Mode mode;
 
     public InterestService() {
-        this.accountDAO = new AccountDAO();
+        this(Integer.getInteger("interest.chunkSize", DEFAULT_CHUNK_SIZE),
+            Integer.getInteger("interest.parallelism", Runtime.getRuntime().availableProcessors()),
+            Mode.valueOf(System.getProperty("interest.mode", "java").toUpperCase()));
+    }
+
+    public InterestService(int chunkSize, int parallelism) {
+        this(chunkSize, parallelism, Mode.JAVA);
+    }
+
+    public InterestService(int chunkSize, int parallelism, Mode mode) {
+        this(chunkSize, parallelism, mode, new AccountDAO());
+    }
+
+    /**
+     * Service reading its chunks of accounts through {@code accountDAO}.
+     */
+    public InterestService(int chunkSize, int parallelism, Mode mode, AccountDAO accountDAO) {
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Interest chunk size and parallelism must be positive");
+        }
+        this.accountDAO = accountDAO;
+        this.interestDAO = new InterestDAO();
+        this.dailyBalanceDAO = new DailyBalanceDAO();
         this.scheduler = Executors.newScheduledThreadPool(1);
+        this.workers = new ForkJoinPool(parallelism);
+        this.chunkSize = chunkSize;
+        this.mode = mode;
+    }
+
+    /**
+     * Outcome of one call to runInterest.
+     */
+    public static class RunResult {
+        private final String runId;
+        private final int chunksWritten;
+        private final long accountsPaid;
+        private final long interestPaidMinor;
+        private final boolean completed;
+
+        public RunResult(String runId, int chunksWritten, long accountsPaid, long interestPaidMinor,
+                         boolean completed) {
+            this.runId = runId;
+            this.chunksWritten = chunksWritten;
+            this.accountsPaid = accountsPaid;
+            this.interestPaidMinor = interestPaidMinor;
+            this.completed = completed;
+        }
+
+        // Getters
+        public String getRunId() { return runId; }
+        /** Chunks written by this call; a resumed run does not count earlier ones. */
+        public int getChunksWritten() { return chunksWritten; }
+        public long getAccountsPaid() { return accountsPaid; }
+        public long getInterestPaidMinor() { return interestPaidMinor; }
+        public boolean isCompleted() { return completed; }
     }
 
     public void startInterestService() {
         // Run interest calculation every day at 2 AM
-        scheduler.scheduleAtFixedRate(this::applyInterestToAllAccounts, 
+        scheduler.scheduleAtFixedRate(this::applyInterestToAllAccounts,
             0, 1, TimeUnit.DAYS);
-        
+
         System.out.println("Interest service started - will run daily");
     }
 
     public void stopInterestService() {
         scheduler.shutdown();
+        workers.shutdown();
         System.out.println("Interest service stopped");
     }
 
     private void applyInterestToAllAccounts() {
         try {
-            System.out.println("Applying interest to all accounts...");
-            List<Account> allAccounts = accountDAO.findAll();
-            
-            int interestAppliedCount = 0;
-            for (Account account : allAccounts) {
-                if (account instanceof InterestBearing) {
-                    InterestBearing interestAccount = (InterestBearing) account;
-                    interestAccount.applyInterest();
-                    
-                    // Update account in database
-                    accountDAO.update(account);
-                    interestAppliedCount++;
-                }
+            // Runs cut short by a crash or shutdown finish first, with their own dates
+            for (InterestDAO.RunState unfinished : interestDAO.findUnfinishedRuns()) {
+                System.out.println("Resuming interest run " + unfinished.getRunId());
+                runInterest(unfinished.getRunDate(), unfinished.getRangeStart(), unfinished.getRangeEnd(),
+                    Integer.MAX_VALUE);
             }
-            
-            System.out.println("Interest applied to " + interestAppliedCount + " accounts");
-            
+            System.out.println("Applying interest to all accounts...");
+            RunResult result = runInterest(LocalDate.now());
+            System.out.println("Interest applied to " + result.getAccountsPaid() + " accounts");
+
         } catch (Exception e) {
             System.err.println("Error applying interest: " + e.getMessage());
             e.printStackTrace();
@@ -63,4 +149,135 @@ public class InterestService {
     public void applyInterestNow() {
         applyInterestToAllAccounts();
     }
-}
\ No newline at end of file
+
+    /**
+     * Pay interest due on {@code runDate} to every account.
+     */
+    public RunResult runInterest(LocalDate runDate) throws SQLException {
+        return runInterest(runDate, "", null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Pay interest due on {@code runDate} to accounts numbered after {@code rangeStart}
+     * and before {@code rangeEnd} (null for no upper bound), writing at most
+     * {@code maxChunks} chunks. The run is identified by its date and range: calling
+     * again continues after its last written chunk, and a completed run does nothing.
+     * In SQL mode the whole range is one transaction and maxChunks does not apply.
+     */
+    public RunResult runInterest(LocalDate runDate, String rangeStart, String rangeEnd, int maxChunks)
+            throws SQLException {
+        String runId = "INT-" + runDate + (rangeStart.isEmpty() && rangeEnd == null
+            ? "" : ":" + rangeStart + ".." + (rangeEnd == null ? "" : rangeEnd));
+        if (mode == Mode.SQL) {
+            InterestDAO.RunState before = interestDAO.startOrResume(runId, runDate, rangeStart, rangeEnd);
+            if (before.isCompleted()) {
+                return new RunResult(runId, 0, 0, 0, true);
+            }
+            InterestDAO.RunState after = interestDAO.postDueInterest(runId, runDate, rangeStart, rangeEnd);
+            return new RunResult(runId, 1, after.getAccountsPaid() - before.getAccountsPaid(),
+                after.getInterestPaidMinor() - before.getInterestPaidMinor(), true);
+        }
+        InterestDAO.RunState state = interestDAO.startOrResume(runId, runDate, rangeStart, rangeEnd);
+        if (state.isCompleted()) {
+            return new RunResult(runId, 0, 0, 0, true);
+        }
+
+        String after = state.getLastAccountNumber() != null ? state.getLastAccountNumber() : rangeStart;
+        List<Account> chunk = readChunk(after, rangeEnd, runDate);
+        int chunks = 0;
+        long accountsPaid = 0;
+        long interestPaid = 0;
+        while (!chunk.isEmpty()) {
+            if (chunks >= maxChunks) {
+                return new RunResult(runId, chunks, accountsPaid, interestPaid, false);
+            }
+            String last = chunk.get(chunk.size() - 1).getAccountNumber();
+            // read the next range while this one is computed and written
+            CompletableFuture<List<Account>> next = chunk.size() < chunkSize
+                ? CompletableFuture.completedFuture(List.of())
+                : CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return readChunk(last, rangeEnd, runDate);
+                    } catch (SQLException e) {
+                        throw new CompletionException(e);
+                    }
+                }, workers);
+
+            long[] interest = new long[chunk.size()];
+            workers.invoke(new InterestTask(chunk, runDate, interest, 0, chunk.size()));
+            List<InterestDAO.Payment> payments = new ArrayList<>();
+            for (int i = 0; i < interest.length; i++) {
+                if (interest[i] > 0) {
+                    payments.add(new InterestDAO.Payment(chunk.get(i).getAccountNumber(), interest[i]));
+                }
+            }
+            for (InterestDAO.Payment paid : interestDAO.writeChunk(runId, runDate, payments, last)) {
+                accountsPaid++;
+                interestPaid += paid.getInterestMinor();
+            }
+            chunks++;
+            chunk = awaitChunk(next);
+        }
+        interestDAO.completeRun(runId);
+        return new RunResult(runId, chunks, accountsPaid, interestPaid, true);
+    }
+
+    /**
+     * The next chunk of accounts with the daily balance sums their interest needs.
+     */
+    private List<Account> readChunk(String after, String rangeEnd, LocalDate runDate) throws SQLException {
+        List<Account> chunk = accountDAO.findInterestBearingPage(after, rangeEnd, chunkSize);
+        BalanceHistory history = dailyBalanceDAO.preload(chunk, runDate);
+        for (Account account : chunk) {
+            ((InterestBearing) account).setBalanceHistory(history);
+        }
+        return chunk;
+    }
+
+    // A failed read must not look like the end of the range: the run stays RUNNING and
+    // resumes from its checkpoint
+    private static List<Account> awaitChunk(CompletableFuture<List<Account>> next) throws SQLException {
+        try {
+            return next.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Interest for a slice of a chunk, split in halves until small enough.
+     */
+    private static final class InterestTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Account> accounts;
+        private final LocalDate runDate;
+        private final long[] interest;
+        private final int from;
+        private final int to;
+
+        InterestTask(List<Account> accounts, LocalDate runDate, long[] interest, int from, int to) {
+            this.accounts = accounts;
+            this.runDate = runDate;
+            this.interest = interest;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    interest[i] = ((InterestBearing) accounts.get(i)).calculateInterestMinor(runDate);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new InterestTask(accounts, runDate, interest, from, middle),
+                new InterestTask(accounts, runDate, interest, middle, to));
+        }
+    }
+}
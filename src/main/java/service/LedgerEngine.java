@@ -0,0 +1,540 @@
+package service;
+
+import database.AccountDAO;
+import database.DatabaseConnection;
+import database.LedgerSnapshotDAO;
+import model.Account;
+import model.LedgerCommand;
+import model.Money;
+import model.TransactionProcessing;
+import model.TransactionType;
+import util.SnowflakeIdGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * In-memory ledger: balances live in a table indexed by an int handle per account, each
+ * accepted command is appended to a memory-mapped write-ahead journal, and a snapshotter
+ * writes the accepted commands to SQLite in the background.
+ *
+ * A command is checked against the account's own rules (status, funds, savings
+ * restrictions) on an owner-less copy of the account, appended to the journal and
+ * applied to the table under one lock; with synchronous writes the caller then waits
+ * for the group fsync that covers it. On open, balances are loaded from the tables and
+ * the journal is replayed from the last snapshot's sequence.
+ *
+ * While an engine is running it owns balances: anything else changing them only reaches
+ * the engine after a restart. Snapshots apply net deltas, so such a change is not lost.
+ * Status changes and deletes made through AccountDAO mark the account's copy stale; it
+ * is read again, outside the lock, before the next command on it. A command the
+ * snapshot cannot write is dead-lettered and taken back out of the table.
+ */
+public final class LedgerEngine implements TransactionProcessing, AutoCloseable {
+
+    private static final int DEFAULT_JOURNAL_CAPACITY = 64 * 1024 * 1024;
+    private static final long DEFAULT_SNAPSHOT_INTERVAL_MILLIS = 1_000L;
+
+    private static LedgerEngine shared;
+
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final LedgerSnapshotDAO snapshotDAO = new LedgerSnapshotDAO();
+    private final LedgerJournal journal;
+    private final boolean syncWrites;
+    private final ScheduledExecutorService snapshotter;
+
+    // Guarded by lock
+    private final Object lock = new Object();
+    private final Map<String, Integer> handles = new HashMap<>();
+    private long[] balances = new long[256];
+    private Account[] rules = new Account[256]; // owner-less copies, used only to run the model's checks
+    private final Set<String> stale = new HashSet<>(); // rules changed in the tables since loaded
+    private long changeCount;
+    private int accountCount;
+    private long lastSequence;
+    private List<LedgerCommand> pending = new ArrayList<>();
+    private boolean running;
+
+    // One snapshot at a time
+    private final Object snapshotLock = new Object();
+    private final AtomicBoolean snapshotRequested = new AtomicBoolean();
+    private volatile long snapshotSequence;
+
+    private final Consumer<String> changeListener = this::accountChanged;
+
+    /**
+     * What a command left behind: its transaction ID and the balances after it.
+     */
+    public static final class Receipt {
+        private final String transactionId;
+        private final long balanceMinor;
+        private final long counterpartyBalanceMinor;
+
+        Receipt(String transactionId, long balanceMinor, long counterpartyBalanceMinor) {
+            this.transactionId = transactionId;
+            this.balanceMinor = balanceMinor;
+            this.counterpartyBalanceMinor = counterpartyBalanceMinor;
+        }
+
+        public String getTransactionId() { return transactionId; }
+        public long getBalanceMinor() { return balanceMinor; }
+        /** Transfer target's balance; 0 for deposits and withdrawals. */
+        public long getCounterpartyBalanceMinor() { return counterpartyBalanceMinor; }
+    }
+
+    private LedgerEngine(LedgerJournal journal, boolean syncWrites) {
+        this.journal = journal;
+        this.syncWrites = syncWrites;
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load balances, replay the journal after the last snapshot and start snapshotting.
+     * @param syncWrites wait for each command's fsync before returning; false acknowledges
+     *                   once the command is in the mapped file
+     */
+    public static LedgerEngine open(Path journalPath, int journalCapacityBytes, long snapshotIntervalMillis,
+                                    boolean syncWrites) throws IOException, SQLException {
+        LedgerEngine engine = new LedgerEngine(new LedgerJournal(journalPath, journalCapacityBytes), syncWrites);
+        engine.recover();
+        AccountDAO.addChangeListener(engine.changeListener);
+        engine.snapshotter.scheduleWithFixedDelay(engine::runSnapshot,
+            snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        return engine;
+    }
+
+    /**
+     * The process-wide engine when started with -Dledger.engine=true, opened on first use;
+     * null otherwise. Journal location, size and snapshot interval come from
+     * ledger.journal.path, ledger.journal.capacityBytes and ledger.snapshotIntervalMillis.
+     */
+    public static synchronized LedgerEngine shared() {
+        if (shared == null && Boolean.getBoolean("ledger.engine")) {
+            String journalPath = System.getProperty("ledger.journal.path",
+                DatabaseConnection.getDbFilePath() + ".ledger-journal");
+            try {
+                shared = open(Path.of(journalPath),
+                    Integer.getInteger("ledger.journal.capacityBytes", DEFAULT_JOURNAL_CAPACITY),
+                    Long.getLong("ledger.snapshotIntervalMillis", DEFAULT_SNAPSHOT_INTERVAL_MILLIS),
+                    !"false".equalsIgnoreCase(System.getProperty("ledger.journal.sync")));
+            } catch (IOException | SQLException e) {
+                throw new IllegalStateException("Unable to open ledger engine at " + journalPath, e);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Close the shared engine, writing its final snapshot. Call before the connection pool closes.
+     */
+    public static synchronized void stopShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    public Receipt deposit(String accountNumber, long amountMinor) {
+        return submit(TransactionType.DEPOSIT, accountNumber, null, amountMinor);
+    }
+
+    public Receipt withdraw(String accountNumber, long amountMinor) {
+        return submit(TransactionType.WITHDRAWAL, accountNumber, null, amountMinor);
+    }
+
+    public Receipt transfer(String fromAccountNumber, String toAccountNumber, long amountMinor) {
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        return submit(TransactionType.TRANSFER_INTERNAL, fromAccountNumber, toAccountNumber, amountMinor);
+    }
+
+    @Override
+    public void processDeposit(Account account, double amount) {
+        account.setBalanceMinor(deposit(account.getAccountNumber(), toMinor(amount, "Deposit")).getBalanceMinor());
+    }
+
+    @Override
+    public void processWithdrawal(Account account, double amount) {
+        account.setBalanceMinor(withdraw(account.getAccountNumber(), toMinor(amount, "Withdrawal")).getBalanceMinor());
+    }
+
+    @Override
+    public void transferFunds(Account fromAccount, Account toAccount, double amount) {
+        Receipt receipt = transfer(fromAccount.getAccountNumber(), toAccount.getAccountNumber(),
+            toMinor(amount, "Transfer"));
+        fromAccount.setBalanceMinor(receipt.getBalanceMinor());
+        toAccount.setBalanceMinor(receipt.getCounterpartyBalanceMinor());
+    }
+
+    /**
+     * Whether the account exists, loading it into the table if it is not there yet.
+     */
+    public boolean hasAccount(String accountNumber) {
+        return load(accountNumber);
+    }
+
+    /**
+     * The engine's current balance for the account, including commands not yet snapshotted.
+     */
+    public OptionalLong getBalanceMinor(String accountNumber) {
+        if (!load(accountNumber)) {
+            return OptionalLong.empty();
+        }
+        synchronized (lock) {
+            Integer handle = handles.get(accountNumber);
+            return handle == null ? OptionalLong.empty() : OptionalLong.of(balances[handle]);
+        }
+    }
+
+    /**
+     * Write every command accepted so far to the tables now, and compact the journal once
+     * more than half of it is in use. Returns the number of commands written; on failure
+     * they stay pending for the next attempt. Commands the tables reject one by one are
+     * dead-lettered and their movements reversed here, so they do not hold up the rest.
+     */
+    public int snapshot() {
+        synchronized (snapshotLock) {
+            snapshotRequested.set(false);
+            List<LedgerCommand> batch;
+            long throughSequence;
+            synchronized (lock) {
+                batch = pending;
+                pending = new ArrayList<>();
+                throughSequence = lastSequence;
+            }
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            List<LedgerCommand> rejected;
+            try {
+                rejected = snapshotDAO.write(batch, throughSequence);
+            } catch (SQLException | RuntimeException e) {
+                synchronized (lock) {
+                    batch.addAll(pending);
+                    pending = batch;
+                }
+                System.err.println("LedgerEngine: snapshot failed, will retry: " + e.getMessage());
+                return 0;
+            }
+            if (!rejected.isEmpty()) {
+                reverse(rejected);
+            }
+            snapshotSequence = throughSequence;
+            if (journal.getUsedBytes() > journal.getCapacity() / 2) {
+                compactJournal();
+            }
+            return batch.size() - rejected.size();
+        }
+    }
+
+    /**
+     * Stop accepting commands, write the final snapshot and close the journal.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        AccountDAO.removeChangeListener(changeListener);
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshot();
+        synchronized (snapshotLock) {
+            if (getPendingCount() == 0) {
+                compactJournal();
+            }
+        }
+        journal.close();
+        System.out.println("LedgerEngine: closed at sequence " + snapshotSequence);
+    }
+
+    /**
+     * Stop without a final snapshot, as a crash would; the next open replays the journal.
+     */
+    public void halt() {
+        synchronized (lock) {
+            running = false;
+        }
+        AccountDAO.removeChangeListener(changeListener);
+        snapshotter.shutdownNow();
+        synchronized (snapshotLock) {
+            journal.close();
+        }
+    }
+
+    // Metrics
+    public long getLastSequence() {
+        synchronized (lock) {
+            return lastSequence;
+        }
+    }
+
+    public long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    public int getJournalUsedBytes() {
+        return journal.getUsedBytes();
+    }
+
+    public long getJournalForceCount() {
+        return journal.getForceCount();
+    }
+
+    private Receipt submit(TransactionType type, String accountNumber, String counterparty, long amountMinor) {
+        LedgerCommand command;
+        long balance;
+        long counterpartyBalance = 0;
+        for (;;) {
+            requireLoaded(accountNumber);
+            if (counterparty != null) {
+                requireLoaded(counterparty);
+            }
+            synchronized (lock) {
+                if (!running) {
+                    throw new IllegalStateException("Ledger engine is not running");
+                }
+                // changed again since loaded: read it once more before checking the command
+                if (needsLoad(accountNumber) || (counterparty != null && needsLoad(counterparty))) {
+                    continue;
+                }
+                int handle = handles.get(accountNumber);
+                int counterpartyHandle = counterparty == null ? -1 : handles.get(counterparty);
+                Account account = rules[handle];
+                account.setBalanceMinor(balances[handle]);
+                if (counterpartyHandle >= 0) {
+                    rules[counterpartyHandle].setBalanceMinor(balances[counterpartyHandle]);
+                }
+
+                // A rule violation throws here and leaves the table untouched
+                if (type == TransactionType.DEPOSIT) {
+                    account.depositMinor(amountMinor);
+                } else if (type == TransactionType.WITHDRAWAL) {
+                    account.withdrawMinor(amountMinor);
+                } else {
+                    account.transferTo(rules[counterpartyHandle], Money.toMajor(amountMinor));
+                }
+
+                command = new LedgerCommand(lastSequence + 1, type, accountNumber, counterparty, amountMinor,
+                    SnowflakeIdGenerator.next("TXN_"), System.currentTimeMillis());
+                try {
+                    journal.append(command);
+                } catch (IllegalStateException full) {
+                    requestSnapshot();
+                    throw full;
+                }
+                lastSequence = command.getSequence();
+                pending.add(command);
+                balance = balances[handle] = account.getBalanceMinor();
+                if (counterpartyHandle >= 0) {
+                    counterpartyBalance = balances[counterpartyHandle] = rules[counterpartyHandle].getBalanceMinor();
+                }
+            }
+            break;
+        }
+        if (journal.getUsedBytes() > journal.getCapacity() / 2) {
+            requestSnapshot();
+        }
+        if (syncWrites) {
+            journal.awaitDurable(command.getSequence());
+        }
+        return new Receipt(command.getTransactionId(), balance, counterpartyBalance);
+    }
+
+    private void recover() throws IOException, SQLException {
+        snapshotSequence = snapshotDAO.loadSnapshotSequence();
+        List<LedgerCommand> replay;
+        List<Account> accounts = accountDAO.findAll();
+        synchronized (lock) {
+            for (Account account : accounts) {
+                register(account);
+            }
+            lastSequence = snapshotSequence;
+            replay = journal.open(snapshotSequence);
+            for (LedgerCommand command : replay) {
+                replayInto(command.getAccountNumber(), command.getAccountDeltaMinor(), command);
+                if (command.getCounterparty() != null) {
+                    replayInto(command.getCounterparty(), command.getAmountMinor(), command);
+                }
+                pending.add(command);
+                lastSequence = command.getSequence();
+            }
+            running = true;
+        }
+        if (!replay.isEmpty()) {
+            System.out.println("LedgerEngine: replayed " + replay.size() + " journal commands after sequence "
+                + snapshotSequence);
+        }
+    }
+
+    // Journaled commands were already checked when accepted; they are applied as they stand
+    private void replayInto(String accountNumber, long deltaMinor, LedgerCommand command) {
+        Integer handle = handles.get(accountNumber);
+        if (handle == null) {
+            System.err.println("LedgerEngine: account " + accountNumber + " no longer exists, replaying "
+                + command.getTransactionId() + " without it");
+            return;
+        }
+        balances[handle] += deltaMinor;
+    }
+
+    private void requestSnapshot() {
+        if (snapshotRequested.compareAndSet(false, true)) {
+            try {
+                snapshotter.execute(this::runSnapshot);
+            } catch (RuntimeException rejected) {
+                // shutting down; close() writes the final snapshot
+                snapshotRequested.set(false);
+            }
+        }
+    }
+
+    private void runSnapshot() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            System.err.println("LedgerEngine: snapshot failed: " + e.getMessage());
+        }
+    }
+
+    private void compactJournal() {
+        try {
+            journal.compact(snapshotSequence);
+        } catch (IOException e) {
+            System.err.println("LedgerEngine: journal compaction failed: " + e.getMessage());
+        }
+    }
+
+    private void requireLoaded(String accountNumber) {
+        if (!load(accountNumber)) {
+            throw new IllegalArgumentException("Account not found: " + accountNumber);
+        }
+    }
+
+    // Guarded by lock
+    private boolean needsLoad(String accountNumber) {
+        return !handles.containsKey(accountNumber) || stale.contains(accountNumber);
+    }
+
+    /**
+     * Read the account without holding lock when the table lacks it (accounts opened
+     * after the engine are loaded on first use) or its copy is stale; false if it does not
+     * exist. A reload replaces only the rules copy, never the engine's balance.
+     */
+    private boolean load(String accountNumber) {
+        long observed;
+        synchronized (lock) {
+            if (!needsLoad(accountNumber)) {
+                return true;
+            }
+            observed = changeCount;
+        }
+        Optional<Account> account = accountDAO.findById(accountNumber);
+        synchronized (lock) {
+            Integer handle = handles.get(accountNumber);
+            if (account.isEmpty()) {
+                // deleted; commands still pending for it are dead-lettered by the snapshot
+                handles.remove(accountNumber);
+                stale.remove(accountNumber);
+                return false;
+            }
+            if (handle == null) {
+                register(account.get());
+            } else {
+                account.get().setCustomer(null);
+                rules[handle] = account.get();
+            }
+            // a change notified during the read may not be in it
+            if (changeCount == observed) {
+                stale.remove(accountNumber);
+            }
+            return true;
+        }
+    }
+
+    private void accountChanged(String accountNumber) {
+        synchronized (lock) {
+            changeCount++;
+            if (handles.containsKey(accountNumber)) {
+                stale.add(accountNumber);
+            }
+        }
+    }
+
+    // Take dead-lettered commands back out of the balances of accounts still in the table
+    private void reverse(List<LedgerCommand> rejected) {
+        synchronized (lock) {
+            for (LedgerCommand command : rejected) {
+                Integer handle = handles.get(command.getAccountNumber());
+                if (handle != null) {
+                    balances[handle] -= command.getAccountDeltaMinor();
+                }
+                if (command.getCounterparty() != null) {
+                    Integer counterpartyHandle = handles.get(command.getCounterparty());
+                    if (counterpartyHandle != null) {
+                        balances[counterpartyHandle] -= command.getAmountMinor();
+                    }
+                }
+            }
+        }
+        System.err.println("LedgerEngine: " + rejected.size() + " commands dead-lettered and reversed");
+    }
+
+    private int register(Account account) {
+        if (accountCount == balances.length) {
+            balances = Arrays.copyOf(balances, accountCount * 2);
+            rules = Arrays.copyOf(rules, accountCount * 2);
+        }
+        // no owner, so the model's checks do not collect audit entries in memory
+        account.setCustomer(null);
+        int handle = accountCount++;
+        balances[handle] = account.getBalanceMinor();
+        rules[handle] = account;
+        handles.put(account.getAccountNumber(), handle);
+        return handle;
+    }
+
+    private static long toMinor(double amount, String operation) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException(operation + " amount must be positive");
+        }
+        long minor = Money.toMinor(amount);
+        if (minor <= 0) {
+            throw new IllegalArgumentException(operation + " amount must be at least P0.01");
+        }
+        return minor;
+    }
+}
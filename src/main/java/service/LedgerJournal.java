@@ -0,0 +1,337 @@
+package service;
+
+import model.LedgerCommand;
+import model.TransactionType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal for the ledger engine: a fixed-size file mapped into memory, with
+ * one record per accepted command.
+ *
+ * Appends are plain memory writes. A single sync thread forces the mapping to disk and
+ * everything appended while one force runs goes out with the next, so concurrent
+ * writers share fsyncs (group commit). Each record is
+ * {@code [length][sequence][millis][amount][type][account][counterparty][transaction id][crc32]};
+ * a zero length ends the log, and a record whose checksum does not match is a torn
+ * write from a crash and ends it too.
+ */
+public final class LedgerJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x4C47524A; // "LGRJ"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final Path path;
+    private final int capacity;
+    private final Object syncMonitor = new Object();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition = HEADER_BYTES;
+    private int recordCount;
+
+    // Guarded by syncMonitor
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean open;
+    private boolean stopping;
+    private long forces;
+
+    private Thread syncThread;
+
+    public LedgerJournal(Path path, int capacity) {
+        if (capacity < 4_096) {
+            throw new IllegalArgumentException("Ledger journal capacity must be at least 4096 bytes");
+        }
+        this.path = path;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Map the file, creating it if needed, and return the intact records with a sequence
+     * above {@code afterSequence}, oldest first. New records are appended after the last
+     * intact one.
+     */
+    public synchronized List<LedgerCommand> open(long afterSequence) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        map(path);
+        List<LedgerCommand> replay = new ArrayList<>();
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putInt(HEADER_BYTES, 0);
+        } else {
+            scan(afterSequence, replay);
+        }
+        synchronized (syncMonitor) {
+            open = true;
+            appendedSequence = replay.isEmpty() ? afterSequence : replay.get(replay.size() - 1).getSequence();
+            durableSequence = appendedSequence;
+        }
+        syncThread = new Thread(this::syncLoop, "ledger-journal-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+        return replay;
+    }
+
+    /**
+     * Write one command into the mapping; it is durable once awaitDurable returns for its
+     * sequence. Callers append in sequence order.
+     */
+    public synchronized void append(LedgerCommand command) {
+        byte[] payload = encode(command);
+        int end = writePosition + 4 + payload.length + 4;
+        // room for the record and the terminator after it
+        if (end + 4 > buffer.limit()) {
+            throw new IllegalStateException("Ledger journal is full; waiting for a snapshot to compact it");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        buffer.putInt(end, 0);
+        buffer.put(writePosition + 4, payload);
+        buffer.putInt(end - 4, (int) crc.getValue());
+        // the length goes last: until it is set the record is not part of the log
+        buffer.putInt(writePosition, payload.length);
+        writePosition = end;
+        recordCount++;
+        synchronized (syncMonitor) {
+            appendedSequence = command.getSequence();
+            syncMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Block until every record up to {@code sequence} has been forced to disk.
+     */
+    public void awaitDurable(long sequence) {
+        synchronized (syncMonitor) {
+            while (durableSequence < sequence) {
+                if (!open) {
+                    throw new IllegalStateException("Ledger journal closed before sequence " + sequence + " was synced");
+                }
+                try {
+                    syncMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for the ledger journal", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrite the journal keeping only records after {@code throughSequence}, which the
+     * tables already hold. The new file is synced before it atomically replaces the old one.
+     */
+    public synchronized void compact(long throughSequence) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+        ByteBuffer kept = ByteBuffer.allocate(writePosition + 4);
+        kept.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(0);
+        int keptRecords = 0;
+        for (int pos = HEADER_BYTES; pos < writePosition; ) {
+            int length = buffer.getInt(pos);
+            int recordBytes = 4 + length + 4;
+            if (buffer.getLong(pos + 4) > throughSequence) {
+                byte[] record = new byte[recordBytes];
+                buffer.get(pos, record);
+                kept.put(record);
+                keptRecords++;
+            }
+            pos += recordBytes;
+        }
+        kept.putInt(0);
+        kept.flip();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (kept.hasRemaining()) {
+                out.write(kept);
+            }
+            out.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            // the new file, or the old one again if the move failed
+            map(path);
+        }
+        writePosition = kept.limit() - 4;
+        recordCount = keptRecords;
+    }
+
+    /**
+     * Stop the sync thread, force what is left and unmap; waiting writers are released.
+     */
+    @Override
+    public void close() {
+        synchronized (syncMonitor) {
+            if (!open || stopping) {
+                return;
+            }
+            stopping = true;
+            syncMonitor.notifyAll();
+        }
+        try {
+            syncThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            buffer.force();
+            synchronized (syncMonitor) {
+                durableSequence = appendedSequence;
+                open = false;
+                syncMonitor.notifyAll();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing ledger journal: " + e.getMessage());
+            }
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int getUsedBytes() {
+        return writePosition;
+    }
+
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Forces issued so far; fewer than the records appended when writers share syncs.
+     */
+    public long getForceCount() {
+        synchronized (syncMonitor) {
+            return forces;
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            long target;
+            synchronized (syncMonitor) {
+                while (!stopping && appendedSequence == durableSequence) {
+                    try {
+                        syncMonitor.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (stopping) {
+                    return;
+                }
+                target = appendedSequence;
+            }
+            // Taken after the target: a compaction since then has already synced those
+            // records into the new file, and the old mapping stays valid to force
+            MappedByteBuffer mapping;
+            synchronized (this) {
+                mapping = buffer;
+            }
+            // appends keep going while this runs and ride on the next force
+            mapping.force();
+            synchronized (syncMonitor) {
+                durableSequence = Math.max(durableSequence, target);
+                forces++;
+                syncMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void map(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, channel.size()));
+    }
+
+    private void scan(long afterSequence, List<LedgerCommand> replay) {
+        int pos = HEADER_BYTES;
+        while (pos + 4 <= buffer.limit()) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + 4 + length + 4 > buffer.limit()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(pos + 4, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(pos + 4 + length)) {
+                System.err.println("Ledger journal: torn record at offset " + pos + ", ignoring the rest");
+                break;
+            }
+            LedgerCommand command = decode(ByteBuffer.wrap(payload));
+            if (command.getSequence() > afterSequence) {
+                replay.add(command);
+            }
+            pos += 4 + length + 4;
+            recordCount++;
+        }
+        writePosition = pos;
+        buffer.putInt(pos, 0);
+    }
+
+    private static byte[] encode(LedgerCommand command) {
+        byte[] account = command.getAccountNumber().getBytes(StandardCharsets.UTF_8);
+        byte[] counterparty = command.getCounterparty() == null
+            ? new byte[0] : command.getCounterparty().getBytes(StandardCharsets.UTF_8);
+        byte[] transactionId = command.getTransactionId().getBytes(StandardCharsets.UTF_8);
+        byte[] type = command.getType().name().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(8 + 8 + 8 + 8 + type.length + account.length
+            + counterparty.length + transactionId.length);
+        out.putLong(command.getSequence());
+        out.putLong(command.getTimestampMillis());
+        out.putLong(command.getAmountMinor());
+        putString(out, type);
+        putString(out, account);
+        putString(out, counterparty);
+        putString(out, transactionId);
+        return out.array();
+    }
+
+    private static LedgerCommand decode(ByteBuffer in) {
+        long sequence = in.getLong();
+        long millis = in.getLong();
+        long amount = in.getLong();
+        TransactionType type = TransactionType.valueOf(getString(in));
+        String account = getString(in);
+        String counterparty = getString(in);
+        String transactionId = getString(in);
+        return new LedgerCommand(sequence, type, account, counterparty.isEmpty() ? null : counterparty,
+            amount, transactionId, millis);
+    }
+
+    private static void putString(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
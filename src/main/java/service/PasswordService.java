@@ -0,0 +1,241 @@
+package service;
+
+import util.Passwords;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs Argon2 password checks and hashes on a fixed pool sized so that all workers hashing at
+ * once stay within a native memory budget (each call allocates Passwords'
+ * memory cost). Requests wait in a bounded queue; one that cannot be queued, or that
+ * is not picked up within the queue timeout, is answered BUSY instead of piling up
+ * more memory. A request already hashing is always finished.
+ *
+ * Configured by password.memoryBudgetMb (default 256), password.queueCapacity
+ * (default 32) and password.queueTimeoutMillis (default 5000).
+ */
+public final class PasswordService implements AutoCloseable {
+
+    private static final int DEFAULT_MEMORY_BUDGET_MB = 256;
+    private static final int DEFAULT_QUEUE_CAPACITY = 32;
+    private static final long DEFAULT_QUEUE_TIMEOUT_MILLIS = 5_000L;
+
+    private static PasswordService shared;
+
+    /**
+     * Outcome of a verification.
+     */
+    public enum Verdict { MATCH, MISMATCH, BUSY }
+
+    private final ThreadPoolExecutor workers;
+    private final long queueTimeoutNanos;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+
+    public PasswordService(int workerCount, int queueCapacity, long queueTimeoutMillis) {
+        if (workerCount < 1 || queueCapacity < 1 || queueTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Password workers, queue capacity and timeout must be positive");
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), task -> {
+                Thread thread = new Thread(task, "password-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+    }
+
+    /**
+     * Workers a memory budget allows: budget over the per-call memory cost, at least
+     * one and no more than the CPUs.
+     */
+    public static int workersFor(long memoryBudgetMb) {
+        long perCallMb = Math.max(1, Passwords.getMemoryCostKib() / 1024);
+        long byMemory = memoryBudgetMb / perCallMb;
+        return (int) Math.max(1, Math.min(byMemory, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * The application's service, created on first use from system properties.
+     */
+    public static synchronized PasswordService shared() {
+        if (shared == null) {
+            shared = new PasswordService(
+                workersFor(Long.getLong("password.memoryBudgetMb", DEFAULT_MEMORY_BUDGET_MB)),
+                Integer.getInteger("password.queueCapacity", DEFAULT_QUEUE_CAPACITY),
+                Long.getLong("password.queueTimeoutMillis", DEFAULT_QUEUE_TIMEOUT_MILLIS));
+        }
+        return shared;
+    }
+
+    public static synchronized void stopShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Check {@code password} against a stored hash on the pool, waiting at most the
+     * queue timeout for a worker.
+     */
+    public Verdict verify(String password, String hash) {
+        return run(() -> Passwords.verifyPassword(password, hash) ? Verdict.MATCH : Verdict.MISMATCH)
+            .orElse(Verdict.BUSY);
+    }
+
+    /**
+     * Hash {@code password} with the current parameters on the pool; empty when busy.
+     */
+    public Optional<String> hash(String password) {
+        return run(() -> Passwords.hashPassword(password));
+    }
+
+    private <T> Optional<T> run(Supplier<T> work) {
+        Job<T> job = new Job<>(work);
+        try {
+            workers.execute(job);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(job.result.get(TimeUnit.NANOSECONDS.toMillis(queueTimeoutNanos), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            // Still queued: withdraw it. Already hashing: the answer is on its way.
+            if (job.claimed.compareAndSet(false, true)) {
+                timedOut.incrementAndGet();
+                workers.remove(job);
+                return Optional.empty();
+            }
+            return Optional.of(job.result.join());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.claimed.compareAndSet(false, true);
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * One queued Argon2 call. Whoever sets claimed first owns it: the worker that
+     * starts hashing, or the caller giving up on the queue.
+     */
+    private final class Job<T> implements Runnable {
+        private final Supplier<T> work;
+        private final long queuedAt = System.nanoTime();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Job(Supplier<T> work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            long started = System.nanoTime();
+            long waited = started - queuedAt;
+            totalQueueWaitNanos.addAndGet(waited);
+            maxQueueWaitNanos.accumulateAndGet(waited, Math::max);
+            T value;
+            try {
+                value = work.get();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            } finally {
+                // counted before the caller sees the answer
+                totalHashNanos.addAndGet(System.nanoTime() - started);
+                completed.incrementAndGet();
+            }
+            result.complete(value);
+        }
+    }
+
+    public int getWorkerCount() {
+        return workers.getMaximumPoolSize();
+    }
+
+    public Metrics getMetrics() {
+        long done = completed.get();
+        return new Metrics(done, rejected.get(), timedOut.get(), workers.getQueue().size(),
+            done == 0 ? 0 : totalQueueWaitNanos.get() / done, maxQueueWaitNanos.get(),
+            done == 0 ? 0 : totalHashNanos.get() / done);
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Snapshot of the service's counters: time spent waiting for a worker is reported
+     * apart from time spent in Argon2.
+     */
+    public static final class Metrics {
+        private final long completed;
+        private final long rejected;
+        private final long timedOut;
+        private final int queued;
+        private final long averageQueueWaitNanos;
+        private final long maxQueueWaitNanos;
+        private final long averageHashNanos;
+
+        Metrics(long completed, long rejected, long timedOut, int queued, long averageQueueWaitNanos,
+                long maxQueueWaitNanos, long averageHashNanos) {
+            this.completed = completed;
+            this.rejected = rejected;
+            this.timedOut = timedOut;
+            this.queued = queued;
+            this.averageQueueWaitNanos = averageQueueWaitNanos;
+            this.maxQueueWaitNanos = maxQueueWaitNanos;
+            this.averageHashNanos = averageHashNanos;
+        }
+
+        // Getters
+        public long getCompleted() { return completed; }
+        /** Turned away because the queue was full. */
+        public long getRejected() { return rejected; }
+        /** Withdrawn after waiting the queue timeout without a worker. */
+        public long getTimedOut() { return timedOut; }
+        public int getQueued() { return queued; }
+        public long getAverageQueueWaitNanos() { return averageQueueWaitNanos; }
+        public long getMaxQueueWaitNanos() { return maxQueueWaitNanos; }
+        public long getAverageHashNanos() { return averageHashNanos; }
+
+        @Override
+        public String toString() {
+            return "PasswordService.Metrics{completed=" + completed + ", rejected=" + rejected
+                + ", timedOut=" + timedOut + ", queued=" + queued
+                + ", avgQueueWaitMs=" + averageQueueWaitNanos / 1_000_000
+                + ", maxQueueWaitMs=" + maxQueueWaitNanos / 1_000_000
+                + ", avgHashMs=" + averageHashNanos / 1_000_000 + '}';
+        }
+    }
+}
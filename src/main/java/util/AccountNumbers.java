@@ -0,0 +1,80 @@
+package util;
+
+/**
+ * Account number format: "ACC" + nine-digit sequence + Luhn check digit, e.g. ACC0000000018.
+ *
+ * The check digit catches single-digit typos and most transpositions, so a mistyped
+ * number can be rejected before any lookup. Numbers in older formats (ACC-001, ACC plus
+ * a millisecond timestamp) carry no check digit and are accepted as they are.
+ */
+public final class AccountNumbers {
+
+    private static final String PREFIX = "ACC";
+    private static final int SEQUENCE_DIGITS = 9;
+    private static final long MAX_SEQUENCE = 999_999_999L;
+
+    private AccountNumbers() { }
+
+    public static String format(long sequence) {
+        if (sequence < 1 || sequence > MAX_SEQUENCE) {
+            throw new IllegalArgumentException("Account sequence out of range: " + sequence);
+        }
+        String digits = String.format("%0" + SEQUENCE_DIGITS + "d", sequence);
+        return PREFIX + digits + checkDigit(digits);
+    }
+
+    /**
+     * True for numbers in the current format whose check digit matches.
+     */
+    public static boolean hasValidCheckDigit(String accountNumber) {
+        if (!isCurrentFormat(accountNumber)) {
+            return false;
+        }
+        String digits = accountNumber.substring(PREFIX.length(), accountNumber.length() - 1);
+        return accountNumber.charAt(accountNumber.length() - 1) == checkDigit(digits);
+    }
+
+    /**
+     * False only when the number is certainly wrong: null, blank, or current-format with a
+     * bad check digit. Legacy numbers cannot be checked and pass.
+     */
+    public static boolean isPlausible(String accountNumber) {
+        if (accountNumber == null || accountNumber.isBlank()) {
+            return false;
+        }
+        return !isCurrentFormat(accountNumber) || hasValidCheckDigit(accountNumber);
+    }
+
+    private static boolean isCurrentFormat(String accountNumber) {
+        if (accountNumber == null || !accountNumber.startsWith(PREFIX)
+                || accountNumber.length() != PREFIX.length() + SEQUENCE_DIGITS + 1) {
+            return false;
+        }
+        for (int i = PREFIX.length(); i < accountNumber.length(); i++) {
+            if (!Character.isDigit(accountNumber.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Luhn (mod 10) check digit for a digit string.
+     */
+    static char checkDigit(String digits) {
+        int sum = 0;
+        boolean doubled = true; // the rightmost payload digit is doubled
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int d = digits.charAt(i) - '0';
+            if (doubled) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+            doubled = !doubled;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+}
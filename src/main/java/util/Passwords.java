@@ -3,29 +3,156 @@ package util;
 import de.mkammerer.argon2.Argon2;
 import de.mkammerer.argon2.Argon2Factory;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class Passwords {
 
+    // Defaults until calibrate() measures the host; the floor calibration never goes below
     private static final int ITERATIONS = 3;      
     private static final int MEMORY = 65536;       
     private static final int PARALLELISM = 1;     
+    private static final int MIN_ITERATIONS = 2;
+    private static final int MIN_MEMORY = 19456; // 19 MiB
+    private static final int MAX_ITERATIONS = 64;
+    private static final long DEFAULT_TARGET_MILLIS = 250L;
 
-    public static String hashPassword(String password) {
-        Argon2 argon2 = Argon2Factory.create();
+    // Stateless and thread-safe; creating one per call loads the native binding each time
+    private static final Argon2 ARGON2 = Argon2Factory.create();
+
+    // Number of Argon2 hash/verify calls made by this process (used by regression tests)
+    private static final AtomicLong argon2Invocations = new AtomicLong();
+
+    private static volatile Parameters current = new Parameters(ITERATIONS, MEMORY, PARALLELISM);
+
+    /**
+     * Argon2 cost parameters. New hashes use the current ones, and every hash records
+     * the ones it was made with, so verification needs no configuration.
+     */
+    public static final class Parameters {
+        private final int iterations;
+        private final int memoryKib;
+        private final int parallelism;
+
+        public Parameters(int iterations, int memoryKib, int parallelism) {
+            if (iterations < 1 || memoryKib < 8 * parallelism || parallelism < 1) {
+                throw new IllegalArgumentException("Invalid Argon2 parameters");
+            }
+            this.iterations = iterations;
+            this.memoryKib = memoryKib;
+            this.parallelism = parallelism;
+        }
+
+        // Getters
+        public int getIterations() { return iterations; }
+        public int getMemoryKib() { return memoryKib; }
+        public int getParallelism() { return parallelism; }
 
+        /** As encoded in a hash, e.g. m=65536,t=3,p=1. */
+        @Override
+        public String toString() {
+            return "m=" + memoryKib + ",t=" + iterations + ",p=" + parallelism;
+        }
+    }
+
+    public static String hashPassword(String password) {
+        argon2Invocations.incrementAndGet();
+        Parameters params = current;
+        char[] chars = password.toCharArray();
         try {
-            return argon2.hash(ITERATIONS, MEMORY, PARALLELISM, password.toCharArray());
+            return ARGON2.hash(params.iterations, params.memoryKib, params.parallelism, chars);
         } finally {
-            argon2.wipeArray(password.toCharArray()); // Clears password from memory
+            ARGON2.wipeArray(chars); // Clears password from memory
         }
     }
 
     public static boolean verifyPassword(String password, String hash) {
-        Argon2 argon2 = Argon2Factory.create();
+        // Reserved users store a placeholder that no password can match
+        if (hash == null || !hash.startsWith("$argon2")) {
+            return false;
+        }
+        argon2Invocations.incrementAndGet();
+        char[] chars = password.toCharArray();
         try {
-            return argon2.verify(hash, password.toCharArray());
+            return ARGON2.verify(hash, chars);
         } finally {
-            argon2.wipeArray(password.toCharArray());
+            ARGON2.wipeArray(chars);
+        }
+    }
+
+    /**
+     * True when {@code hash} was made with other than the current parameters, so the
+     * password should be hashed again the next time it is known. This goes both ways:
+     * a host calibrated cheaper also brings slow hashes down to its latency target.
+     * Placeholders never need it.
+     */
+    public static boolean needsRehash(String hash) {
+        if (hash == null || !hash.startsWith("$argon2")) {
+            return false;
         }
+        // $argon2i$v=19$m=65536,t=3,p=1$salt$hash
+        String[] fields = hash.split("\\$");
+        return fields.length < 4 || !fields[3].equals(current.toString());
+    }
+
+    public static Parameters getParameters() {
+        return current;
+    }
+
+    public static void setParameters(Parameters parameters) {
+        current = parameters;
+    }
+
+    /**
+     * Native memory one hash or verify call allocates, in KiB.
+     */
+    public static int getMemoryCostKib() {
+        return current.memoryKib;
+    }
+
+    /**
+     * Measure this host and make current the most iterations whose hash fits in
+     * {@code targetMillis}, at {@code maxMemoryKib} or, when even the minimum iterations
+     * are too slow there, at half the memory down to the 19 MiB floor.
+     */
+    public static Parameters calibrate(long targetMillis, int maxMemoryKib) {
+        long targetNanos = targetMillis * 1_000_000L;
+        char[] probe = "calibration-probe".toCharArray();
+        ARGON2.hash(1, MIN_MEMORY, PARALLELISM, probe); // warm up the native library
+        int memory = Math.max(MIN_MEMORY, maxMemoryKib);
+        while (true) {
+            long perIteration = Long.MAX_VALUE;
+            for (int run = 0; run < 2; run++) { // best of two, to skip a cold cache
+                long start = System.nanoTime();
+                ARGON2.hash(1, memory, PARALLELISM, probe);
+                perIteration = Math.min(perIteration, System.nanoTime() - start);
+            }
+            long fits = targetNanos / Math.max(1, perIteration);
+            if (fits >= MIN_ITERATIONS || memory == MIN_MEMORY) {
+                int iterations = (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, fits));
+                Parameters calibrated = new Parameters(iterations, memory, PARALLELISM);
+                current = calibrated;
+                return calibrated;
+            }
+            memory = Math.max(MIN_MEMORY, memory / 2);
+        }
+    }
+
+    /**
+     * Startup calibration from password.targetMillis (default 250) and
+     * password.hashMemoryKib (default 65536); password.calibrate=false keeps the defaults.
+     */
+    public static Parameters calibrateForHost() {
+        if ("false".equalsIgnoreCase(System.getProperty("password.calibrate"))) {
+            return current;
+        }
+        Parameters calibrated = calibrate(Long.getLong("password.targetMillis", DEFAULT_TARGET_MILLIS),
+            Integer.getInteger("password.hashMemoryKib", MEMORY));
+        System.out.println("Argon2 parameters calibrated: " + calibrated);
+        return calibrated;
+    }
+
+    public static long getArgon2Invocations() {
+        return argon2Invocations.get();
     }
 
     // Keep your strong password validation as is
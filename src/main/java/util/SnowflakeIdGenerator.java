@@ -0,0 +1,141 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Unique, time-ordered 64-bit IDs without locks.
+ *
+ * Layout: 41 bits of milliseconds since 2024-01-01, 10 bits of node ID, 12 bits of
+ * sequence. The last issued (millis, sequence) pair lives in one AtomicLong and is
+ * advanced by CAS, so IDs never repeat and never go backwards: if the wall clock steps
+ * back, issuing continues from the last millisecond, and a sequence overflow carries
+ * into the next millisecond instead of spinning until the clock catches up.
+ */
+public final class SnowflakeIdGenerator {
+
+    // 2024-01-01T00:00:00Z
+    static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Crockford base32: digits and letters without I, L, O, U; sorts like the number it encodes
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+
+    private static volatile SnowflakeIdGenerator defaultGenerator;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    // (millis since epoch << SEQUENCE_BITS) | sequence, of the last ID issued
+    private final AtomicLong last = new AtomicLong();
+    private final AtomicLong issuedAheadOfClock = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    /**
+     * Process-wide generator. The node ID comes from -Did.nodeId, else from
+     * setDefaultNodeId; asking before either is available throws IllegalStateException.
+     */
+    public static SnowflakeIdGenerator getDefault() {
+        SnowflakeIdGenerator generator = defaultGenerator;
+        if (generator != null) {
+            return generator;
+        }
+        synchronized (SnowflakeIdGenerator.class) {
+            if (defaultGenerator == null) {
+                defaultGenerator = new SnowflakeIdGenerator(configuredNodeId(), System::currentTimeMillis);
+            }
+            return defaultGenerator;
+        }
+    }
+
+    /**
+     * Give the process-wide generator its node ID, once; DatabaseConnection does so with
+     * the ID it allocates from the sequences table, so processes sharing the file never
+     * share one. Ignored when -Did.nodeId is set or the generator already exists.
+     */
+    public static synchronized void setDefaultNodeId(int nodeId) {
+        String configured = System.getProperty("id.nodeId");
+        if (defaultGenerator == null && (configured == null || configured.isBlank())) {
+            defaultGenerator = new SnowflakeIdGenerator(nodeId, System::currentTimeMillis);
+        }
+    }
+
+    /**
+     * Prefixed ID from the default generator, e.g. "TXN_0DQ4Z3K8W2R01".
+     */
+    public static String next(String prefix) {
+        return getDefault().nextId(prefix);
+    }
+
+    public long nextId() {
+        long now = clock.getAsLong() - EPOCH_MILLIS;
+        long prev;
+        long next;
+        do {
+            prev = last.get();
+            // A later millisecond restarts the sequence; otherwise take the next one,
+            // letting an overflow carry into the millisecond bits
+            next = now > (prev >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : prev + 1;
+        } while (!last.compareAndSet(prev, next));
+
+        if ((next >>> SEQUENCE_BITS) > now) {
+            issuedAheadOfClock.incrementAndGet();
+        }
+        return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * Prefix plus a fixed-width base32 ID, so string order matches issue order.
+     */
+    public String nextId(String prefix) {
+        long id = nextId();
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return prefix + new String(chars);
+    }
+
+    /**
+     * Wall-clock milliseconds encoded in an ID.
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static int nodeIdOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+
+    /**
+     * IDs stamped later than the clock said, because it stepped back or a millisecond's
+     * sequence ran out.
+     */
+    public long getIssuedAheadOfClock() {
+        return issuedAheadOfClock.get();
+    }
+
+    private static int configuredNodeId() {
+        String configured = System.getProperty("id.nodeId");
+        if (configured == null || configured.isBlank()) {
+            throw new IllegalStateException("No Snowflake node ID: set -Did.nodeId or open the database first");
+        }
+        try {
+            return Integer.parseInt(configured.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("id.nodeId must be a number between 0 and " + MAX_NODE_ID
+                    + ": " + configured);
+        }
+    }
+}
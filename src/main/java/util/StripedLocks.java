@@ -0,0 +1,99 @@
+package util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared out by key hash, so work on one key serializes while work
+ * on different keys mostly runs in parallel, without keeping a lock per key alive.
+ *
+ * Several keys are always locked in ascending stripe order, so two threads locking the
+ * same pair in opposite argument order cannot deadlock.
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * The stripe count is rounded up to a power of two.
+     */
+    public StripedLocks(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        int size = stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    int stripeOf(String key) {
+        int h = key.hashCode();
+        // spread the high bits down, as HashMap does, before masking
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Lock the stripes of all the given keys; close the result to release them.
+     */
+    public Held lock(String... keys) {
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = stripeOf(keys[i]);
+        }
+        Arrays.sort(order);
+        int count = 0;
+        for (int i = 0; i < order.length; i++) {
+            // keys sharing a stripe take it once
+            if (i == 0 || order[i] != order[i - 1]) {
+                order[count++] = order[i];
+            }
+        }
+        ReentrantLock[] held = new ReentrantLock[count];
+        int acquired = 0;
+        try {
+            for (; acquired < count; acquired++) {
+                ReentrantLock lock = stripes[order[acquired]];
+                lock.lock();
+                held[acquired] = lock;
+            }
+        } catch (RuntimeException | Error e) {
+            release(held, acquired);
+            throw e;
+        }
+        return new Held(held);
+    }
+
+    private static void release(ReentrantLock[] held, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            held[i].unlock();
+        }
+    }
+
+    /**
+     * Stripes taken by one lock call, released in reverse order.
+     */
+    public static final class Held implements AutoCloseable {
+        private final ReentrantLock[] locks;
+        private boolean released;
+
+        private Held(ReentrantLock[] locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(locks, locks.length);
+            }
+        }
+    }
+}
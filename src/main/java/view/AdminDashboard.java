@@ -449,30 +449,39 @@ public class AdminDashboard {
         // Status label
         Label statusLabel = new Label();
 
-        // Load audit data
-        refreshButton.setOnAction(e -> {
-            try {
-                List<AuditEntry> auditEntries = auditDAO.findAll();
-                ObservableList<AuditEntry> observableList = FXCollections.observableArrayList(auditEntries);
-                auditTable.setItems(observableList);
+        // The audit trail is read a page at a time; scrolling to the bottom fetches the next page
+        Button loadMoreButton = new Button("Load More");
+        loadMoreButton.getStyleClass().addAll("button", "button-secondary");
+        PagedTable<AuditEntry> pagedAudit = new PagedTable<>(auditTable, auditDAO::findPage, loadMoreButton::fire);
 
-                statusLabel.setText("Loaded " + auditEntries.size() + " audit entries");
-                statusLabel.getStyleClass().removeAll("status-label-error");
-                statusLabel.getStyleClass().add("status-label-success");
-            } catch (Exception ex) {
-                statusLabel.setText("Error loading audit trail: " + ex.getMessage());
-                statusLabel.getStyleClass().removeAll("status-label-success");
-                statusLabel.getStyleClass().add("status-label-error");
-            }
-        });
+        // Load audit data
+        refreshButton.setOnAction(e -> showAuditPage(pagedAudit, true, loadMoreButton, statusLabel));
+        loadMoreButton.setOnAction(e -> showAuditPage(pagedAudit, false, loadMoreButton, statusLabel));
 
         // Load initial data
         refreshButton.fire();
 
-        tabContent.getChildren().addAll(titleLabel, refreshButton, auditTable, statusLabel);
+        tabContent.getChildren().addAll(titleLabel, refreshButton, auditTable, loadMoreButton, statusLabel);
         return tabContent;
     }
 
+    private void showAuditPage(PagedTable<AuditEntry> pagedAudit, boolean reload,
+                               Button loadMoreButton, Label statusLabel) {
+        try {
+            int shown = reload ? pagedAudit.reload() : pagedAudit.loadMore();
+            loadMoreButton.setDisable(!pagedAudit.hasMore());
+
+            statusLabel.setText("Loaded " + shown + " audit entries"
+                    + (pagedAudit.hasMore() ? " (scroll for more)" : ""));
+            statusLabel.getStyleClass().removeAll("status-label-error");
+            statusLabel.getStyleClass().add("status-label-success");
+        } catch (Exception ex) {
+            statusLabel.setText("Error loading audit trail: " + ex.getMessage());
+            statusLabel.getStyleClass().removeAll("status-label-success");
+            statusLabel.getStyleClass().add("status-label-error");
+        }
+    }
+
     private VBox createSystemInfoTab() {
         VBox tabContent = new VBox(15);
         tabContent.setPadding(new Insets(20));
@@ -488,7 +497,7 @@ public class AdminDashboard {
         Label javaFxVersion = new Label("JavaFX Version: 17.0.2");
         Label databaseInfo = new Label("Database: SQLite");
         Label userCount = new Label("Total Users: " + userDAO.findAll().size());
-        Label auditCount = new Label("Audit Entries: " + auditDAO.findAll().size());
+        Label auditCount = new Label("Audit Entries: " + auditDAO.count());
 
         infoBox.getChildren().addAll(javaVersion, javaFxVersion, databaseInfo, userCount, auditCount);
 
@@ -586,10 +595,10 @@ public class AdminDashboard {
      */
     private boolean performDatabaseBackup(File backupFile) {
         try {
-            // Get the current database connection to ensure it's initialized
-            database.DatabaseConnection.getConnection();
+            // Make sure the database is initialized
+            database.DatabaseConnection.initializeDatabase();
 
-            // Close the connection temporarily to allow backup
+            // Close the pool temporarily to allow backup
             database.DatabaseConnection.closeConnection();
 
             // Get the source database file path from DatabaseConnection
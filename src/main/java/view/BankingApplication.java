@@ -5,6 +5,9 @@ import database.DatabaseConnection;
 import javafx.application.Application;
 import javafx.stage.Stage;
 import service.InterestService;
+import service.LedgerEngine;
+import service.PasswordService;
+import util.Passwords;
 
 public class BankingApplication extends Application {
     
@@ -29,6 +32,12 @@ public class BankingApplication extends Application {
     }
 
     private void initializeServices() {
+        // Opening the database allocates this process's ID node, which every new ID needs
+        DatabaseConnection.initializeDatabase();
+
+        // Argon2 cost for this host, before the password pool is sized from it
+        Passwords.calibrateForHost();
+
         // Start interest service
         interestService = new InterestService();
         interestService.startInterestService();
@@ -41,6 +50,10 @@ public class BankingApplication extends Application {
         if (interestService != null) {
             interestService.stopInterestService();
         }
+        // The ledger engine's final snapshot and queued audit entries need the pool
+        LedgerEngine.stopShared();
+        PasswordService.stopShared();
+        DatabaseConnection.stopAuditWriter();
         DatabaseConnection.closeConnection();
         System.out.println("Banking application stopped");
     }
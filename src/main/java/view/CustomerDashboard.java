@@ -4,7 +4,7 @@ import controller.TransactionController;
 import database.AccountDAO;
 import database.AuditDAO;
 import database.CustomerDAO;
-import database.TransactionDAO;
+import database.PostingDAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -18,7 +18,7 @@ import javafx.util.Callback;
 import javafx.beans.value.ObservableValue;
 import model.Account;
 import model.Customer;
-import model.Transaction;
+import model.Posting;
 import model.User;
 import model.UserRole;
 
@@ -31,7 +31,7 @@ public class CustomerDashboard {
     private Customer currentCustomer;
     private AccountDAO accountDAO;
     private CustomerDAO customerDAO;
-    private TransactionDAO transactionDAO;
+    private PostingDAO postingDAO;
     private AuditDAO auditDAO;
     private TransactionController transactionController;
 
@@ -40,7 +40,7 @@ public class CustomerDashboard {
         this.currentUser = user;
         this.customerDAO = new CustomerDAO();
         this.accountDAO = new AccountDAO();
-        this.transactionDAO = new TransactionDAO();
+        this.postingDAO = new PostingDAO();
         this.auditDAO = new AuditDAO();
         this.transactionController = new TransactionController();
 
@@ -291,62 +291,70 @@ public class CustomerDashboard {
         Button refreshButton = new Button("Refresh Transactions");
         refreshButton.getStyleClass().addAll("button", "button-secondary");
 
-        // Transactions table
-        TableView<Transaction> transactionsTable = new TableView<>();
+        // Transactions table: one row per posting, so transfers in show as well as transfers out
+        TableView<Posting> transactionsTable = new TableView<>();
 
-        TableColumn<Transaction, String> transIdCol = new TableColumn<>("Transaction ID");
-        transIdCol.setCellValueFactory(new PropertyValueFactory<>("transactionId"));
+        TableColumn<Posting, String> transIdCol = new TableColumn<>("Transaction ID");
+        transIdCol.setCellValueFactory(new PropertyValueFactory<>("journalId"));
 
-        TableColumn<Transaction, String> typeCol = new TableColumn<>("Type");
-        typeCol.setCellValueFactory(new PropertyValueFactory<>("transactionType"));
+        TableColumn<Posting, String> typeCol = new TableColumn<>("Type");
+        typeCol.setCellValueFactory(new PropertyValueFactory<>("postingType"));
 
-        TableColumn<Transaction, Double> amountCol = new TableColumn<>("Amount");
+        TableColumn<Posting, String> accountCol = new TableColumn<>("Account");
+        accountCol.setCellValueFactory(new PropertyValueFactory<>("accountNumber"));
+
+        TableColumn<Posting, Double> amountCol = new TableColumn<>("Amount");
         amountCol.setCellValueFactory(new PropertyValueFactory<>("amount"));
 
-        TableColumn<Transaction, String> dateCol = new TableColumn<>("Date");
-        dateCol.setCellValueFactory(new PropertyValueFactory<>("timeStamp"));
+        TableColumn<Posting, String> dateCol = new TableColumn<>("Date");
+        dateCol.setCellValueFactory(new PropertyValueFactory<>("postedAt"));
+
+        TableColumn<Posting, String> counterpartyCol = new TableColumn<>("Counterparty");
+        counterpartyCol.setCellValueFactory(new PropertyValueFactory<>("counterparty"));
 
-        TableColumn<Transaction, String> descCol = new TableColumn<>("Description");
+        TableColumn<Posting, String> descCol = new TableColumn<>("Description");
         descCol.setCellValueFactory(new PropertyValueFactory<>("description"));
 
-        transactionsTable.getColumns().addAll(transIdCol, typeCol, amountCol, dateCol, descCol);
+        transactionsTable.getColumns().addAll(transIdCol, typeCol, accountCol, amountCol, dateCol, counterpartyCol, descCol);
 
         // Status label
         Label statusLabel = new Label();
 
+        // History is read a page at a time; scrolling to the bottom fetches the next page
+        Button loadMoreButton = new Button("Load More");
+        loadMoreButton.getStyleClass().addAll("button", "button-secondary");
+        PagedTable<Posting> pagedTransactions = new PagedTable<>(transactionsTable,
+                (cursor, limit) -> postingDAO.findPageByCustomerId(currentCustomer.getCustomerId(), cursor, limit),
+                loadMoreButton::fire);
+
         // Load transactions
-        refreshButton.setOnAction(e -> {
-            try {
-                // Load only transactions for current customer's accounts
-                List<Account> customerAccounts = accountDAO.findByCustomerId(currentCustomer.getCustomerId());
-                List<String> accountNumbers = customerAccounts.stream()
-                        .map(Account::getAccountNumber)
-                        .collect(java.util.stream.Collectors.toList());
-
-                List<Transaction> allTransactions = transactionDAO.findAll();
-                List<Transaction> transactions = allTransactions.stream()
-                        .filter(t -> accountNumbers.contains(t.getAccount().getAccountNumber()))
-                        .collect(java.util.stream.Collectors.toList());
-                ObservableList<Transaction> observableList = FXCollections.observableArrayList(transactions);
-                transactionsTable.setItems(observableList);
-
-                statusLabel.setText("Loaded " + transactions.size() + " transactions");
-                statusLabel.getStyleClass().removeAll("status-label-error");
-                statusLabel.getStyleClass().add("status-label-success");
-            } catch (Exception ex) {
-                statusLabel.setText("Error loading transactions: " + ex.getMessage());
-                statusLabel.getStyleClass().removeAll("status-label-success");
-                statusLabel.getStyleClass().add("status-label-error");
-            }
-        });
+        refreshButton.setOnAction(e -> showTransactionPage(pagedTransactions, true, loadMoreButton, statusLabel));
+        loadMoreButton.setOnAction(e -> showTransactionPage(pagedTransactions, false, loadMoreButton, statusLabel));
 
         // Load initial data
         refreshButton.fire();
 
-        tabContent.getChildren().addAll(titleLabel, refreshButton, transactionsTable, statusLabel);
+        tabContent.getChildren().addAll(titleLabel, refreshButton, transactionsTable, loadMoreButton, statusLabel);
         return tabContent;
     }
 
+    private void showTransactionPage(PagedTable<Posting> pagedTransactions, boolean reload,
+                                     Button loadMoreButton, Label statusLabel) {
+        try {
+            int shown = reload ? pagedTransactions.reload() : pagedTransactions.loadMore();
+            loadMoreButton.setDisable(!pagedTransactions.hasMore());
+
+            statusLabel.setText("Loaded " + shown + " transactions"
+                    + (pagedTransactions.hasMore() ? " (scroll for more)" : ""));
+            statusLabel.getStyleClass().removeAll("status-label-error");
+            statusLabel.getStyleClass().add("status-label-success");
+        } catch (Exception ex) {
+            statusLabel.setText("Error loading transactions: " + ex.getMessage());
+            statusLabel.getStyleClass().removeAll("status-label-success");
+            statusLabel.getStyleClass().add("status-label-error");
+        }
+    }
+
     private VBox createProfileTab() {
         VBox profileContent = new VBox(15);
         profileContent.setPadding(new Insets(20));
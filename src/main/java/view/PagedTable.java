@@ -0,0 +1,71 @@
+package view;
+
+import database.Page;
+import database.PageCursor;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+
+/**
+ * Feeds a TableView from a keyset-paginated DAO query one page at a time.
+ * Scrolling to the bottom of the table runs the supplied load-more action.
+ */
+final class PagedTable<T> {
+
+    static final int PAGE_SIZE = 50;
+
+    interface PageSource<T> {
+        Page<T> fetch(PageCursor afterCursor, int limit);
+    }
+
+    private final TableView<T> table;
+    private final PageSource<T> source;
+    private PageCursor nextCursor;
+    private boolean exhausted;
+
+    PagedTable(TableView<T> table, PageSource<T> source, Runnable onScrolledToEnd) {
+        this.table = table;
+        this.source = source;
+        // The scroll bar only exists once the table has been skinned
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            for (Node node : table.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                    ScrollBar bar = (ScrollBar) node;
+                    bar.valueProperty().addListener((o, oldValue, value) -> {
+                        if (value.doubleValue() >= bar.getMax() && hasMore()) {
+                            onScrolledToEnd.run();
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Clear the table and load the first page. Returns the number of rows shown.
+     */
+    int reload() {
+        table.getItems().clear();
+        nextCursor = null;
+        exhausted = false;
+        return loadMore();
+    }
+
+    /**
+     * Append the next page, if there is one. Returns the number of rows shown.
+     */
+    int loadMore() {
+        if (!exhausted) {
+            Page<T> page = source.fetch(nextCursor, PAGE_SIZE);
+            table.getItems().addAll(page.getItems());
+            nextCursor = page.getNextCursor();
+            exhausted = !page.hasMore();
+        }
+        return table.getItems().size();
+    }
+
+    boolean hasMore() {
+        return !exhausted;
+    }
+}
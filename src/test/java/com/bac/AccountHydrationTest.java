@@ -0,0 +1,102 @@
+package com.bac;
+
+import database.AccountDAO;
+import model.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import util.Passwords;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Regression benchmark for account row hydration.
+ * Reading accounts must decode rows only - it must never hash a password.
+ */
+public class AccountHydrationTest {
+
+    private static final int ACCOUNT_COUNT = 200;
+
+    private AccountDAO accountDAO;
+
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Before
+    public void setUp() {
+        accountDAO = new AccountDAO();
+
+        String prefix = "HYD" + System.nanoTime() + "-";
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            accounts.save(new SavingsAccount(prefix + i, 1000.0,
+                LocalDate.now(), LocalDate.now(), TestAccounts.seededOwner(), AccountStatus.ACTIVE));
+        }
+    }
+
+    @Test
+    public void testCustomerReferenceDoesNotHash() {
+        long before = Passwords.getArgon2Invocations();
+        Customer reference = Customer.reference("USR-001", "CUST-001", "John", "Doe",
+            "123 Main St", "555-0123", "john@email.com", CustomerType.INDIVIDUAL);
+
+        assertEquals(before, Passwords.getArgon2Invocations());
+        assertNull(reference.getPassword());
+        assertEquals("CUST-001", reference.getCustomerId());
+    }
+
+    @Test
+    public void testAccountReadsNeverCallArgon2() {
+        long before = Passwords.getArgon2Invocations();
+        long start = System.nanoTime();
+
+        List<Account> all = accountDAO.findAll();
+        List<Account> byCustomer = accountDAO.findByCustomerId("CUST-001");
+        List<Account> active = accountDAO.findByStatus(AccountStatus.ACTIVE);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long hashes = Passwords.getArgon2Invocations() - before;
+
+        System.out.printf("AccountHydrationTest: read %d account rows in %d ms (%d Argon2 calls)%n",
+            all.size() + byCustomer.size() + active.size(), elapsedMillis, hashes);
+
+        assertTrue(all.size() >= ACCOUNT_COUNT);
+        assertTrue(byCustomer.size() >= ACCOUNT_COUNT);
+        assertEquals("DAO reads must not call into Argon2", 0, hashes);
+        assertEquals("John", byCustomer.get(0).getCustomer().getFirstName());
+    }
+
+    @Test
+    public void testAccountsOfOneCustomerShareOneOwner() {
+        List<Account> byCustomer = accountDAO.findByCustomerId("CUST-001");
+        Customer owner = byCustomer.get(0).getCustomer();
+        for (Account account : byCustomer) {
+            assertSame("Owner should be materialized once per query", owner, account.getCustomer());
+        }
+
+        Customer fromFindAll = null;
+        for (Account account : accountDAO.findAll()) {
+            if ("CUST-001".equals(account.getCustomer().getCustomerId())) {
+                if (fromFindAll == null) {
+                    fromFindAll = account.getCustomer();
+                }
+                assertSame(fromFindAll, account.getCustomer());
+            }
+        }
+        assertNotNull(fromFindAll);
+
+        // streams read in owner order and keep only the current owner
+        try (Stream<Account> stream = accountDAO.streamAll()) {
+            long owners = stream
+                .filter(account -> "CUST-001".equals(account.getCustomer().getCustomerId()))
+                .map(Account::getCustomer)
+                .map(System::identityHashCode)
+                .distinct()
+                .count();
+            assertEquals(1, owners);
+        }
+    }
+}
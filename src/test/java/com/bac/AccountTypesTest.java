@@ -1,8 +1,10 @@
 package com.bac;
 
+import database.DatabaseConnection;
 import model.*;
 import org.junit.Test;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import static org.junit.Assert.*;
 
 import java.time.LocalDate;
@@ -16,6 +18,12 @@ public class AccountTypesTest {
     
     private Customer customer;
     private LocalDate today;
+
+    @BeforeClass
+    public static void openDatabase() {
+        // New IDs need the node ID the database allocates
+        DatabaseConnection.initializeDatabase();
+    }
     
     @Before
     public void setUp() {
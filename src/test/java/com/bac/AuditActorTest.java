@@ -0,0 +1,81 @@
+package com.bac;
+
+import controller.AuthenticationController;
+import database.AuditDAO;
+import database.DatabaseConnection;
+import database.UserDAO;
+import model.AuditEntry;
+import model.User;
+import model.UserRole;
+import org.junit.After;
+import org.junit.Test;
+import service.PasswordService;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+/**
+ * Test class for audit actor resolution: the known-user cache and the reserved
+ * SYSTEM/UNKNOWN users.
+ */
+public class AuditActorTest {
+
+    private final AuditDAO auditDAO = new AuditDAO();
+    private final UserDAO userDAO = new UserDAO();
+    private final String userId = "AAT" + System.nanoTime();
+
+    @After
+    public void tearDown() {
+        // audit entries cascade with the user
+        userDAO.delete(userId);
+    }
+
+    @Test
+    public void testKnownUserNeedsNoReadRoundTrip() {
+        assertTrue(userDAO.save(new User(userId, userId, "x", UserRole.CUSTOMER, true)));
+        auditDAO.recordAudit(userId, "CACHE_WARM", "first");
+
+        long reads = DatabaseConnection.getPoolMetrics().getReaderAcquisitions();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(UserDAO.exists(userId));
+        }
+        assertEquals(reads, DatabaseConnection.getPoolMetrics().getReaderAcquisitions());
+        assertEquals(1, auditDAO.findByUserId(userId).size());
+    }
+
+    @Test
+    public void testSaveAndDeleteInvalidateKnownIds() {
+        assertFalse(UserDAO.exists(userId));
+        assertFalse(UserDAO.exists(userId)); // negative answer is cached too
+
+        assertTrue(userDAO.save(new User(userId, userId, "x", UserRole.CUSTOMER, true)));
+        assertTrue(UserDAO.exists(userId));
+
+        assertTrue(userDAO.delete(userId));
+        assertFalse(UserDAO.exists(userId));
+    }
+
+    @Test
+    public void testUnknownAndSystemActorsAreRecorded() {
+        String marker = "marker-" + userId;
+        auditDAO.recordAudit(userId, "GHOST_ACTION", marker);
+        auditDAO.recordAudit(null, "SYSTEM_ACTION", marker);
+
+        List<AuditEntry> unknown = auditDAO.findByUserId(UserDAO.UNKNOWN_USER_ID);
+        assertTrue(unknown.stream().anyMatch(e -> e.getDetails().contains(marker)
+            && e.getDetails().contains(userId)));
+        List<AuditEntry> system = auditDAO.findByUserId(UserDAO.SYSTEM_USER_ID);
+        assertTrue(system.stream().anyMatch(e -> e.getDetails().equals(marker)));
+    }
+
+    @Test
+    public void testReservedUsersAreHiddenAndCannotLogIn() {
+        assertTrue(userDAO.findAll().stream().noneMatch(u -> UserDAO.isReserved(u.getUserId())));
+        try (PasswordService service = new PasswordService(1, 4, 10_000)) {
+            AuthenticationController controller = new AuthenticationController(service);
+            assertFalse(controller.login("__system__", "!").isSuccess());
+            assertFalse(controller.login("__unknown__", "").isSuccess());
+        }
+    }
+}
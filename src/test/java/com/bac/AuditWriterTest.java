@@ -0,0 +1,270 @@
+package com.bac;
+
+import database.AuditDAO;
+import database.AuditWriter;
+import database.BatchResult;
+import database.UserDAO;
+import model.AuditEntry;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Test class for the asynchronous group-commit AuditWriter: batching thresholds,
+ * overflow policies, spill-file replay, failed batches and submits after stop.
+ */
+public class AuditWriterTest {
+
+    private final AuditDAO auditDAO = new AuditDAO();
+    private final String prefix = "AWT" + System.nanoTime() + "-";
+    private final List<String> createdIds = new ArrayList<>();
+    private AuditWriter writer;
+
+    @After
+    public void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+        for (String auditId : createdIds) {
+            auditDAO.delete(auditId);
+        }
+    }
+
+    @Test
+    public void testBatchesOnSizeAndLatency() throws Exception {
+        writer = new AuditWriter(auditDAO::saveAll, 1_000, 50, 20, AuditWriter.OverflowPolicy.BLOCK, null);
+        writer.start();
+
+        for (int i = 0; i < 120; i++) {
+            assertTrue(writer.submit(newEntry(i)));
+        }
+        waitForWritten(120);
+        AuditWriter.AuditWriterMetrics metrics = writer.getMetrics();
+        assertEquals(50, metrics.getMaxBatchSize());
+        assertTrue(metrics.getBatches() >= 3);
+
+        // a lone entry goes out once the latency threshold passes
+        assertTrue(writer.submit(newEntry(120)));
+        waitForWritten(121);
+        assertEquals(1, writer.getMetrics().getLastBatchSize());
+        assertEquals(0, writer.getMetrics().getQueueDepth());
+        assertTrue(auditDAO.findById(prefix + 120).isPresent());
+        System.out.println("AuditWriterTest: " + writer.getMetrics());
+    }
+
+    @Test
+    public void testDropPolicyCountsOverflow() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        writer = new AuditWriter(gated(release), 5, 1, 1, AuditWriter.OverflowPolicy.DROP, null);
+        writer.start();
+
+        assertTrue(writer.submit(newEntry(0)));
+        waitUntilQueueEmpty(); // the writer thread now holds entry 0 in the gated sink
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(writer.submit(newEntry(i)));
+        }
+        assertFalse(writer.submit(newEntry(6)));
+        assertFalse(writer.submit(newEntry(7)));
+        assertEquals(2, writer.getMetrics().getDropped());
+        assertEquals(5, writer.getMetrics().getQueueDepth());
+
+        release.countDown();
+        writer.flush();
+        assertEquals(6, writer.getMetrics().getWritten());
+        assertFalse(auditDAO.findById(prefix + 6).isPresent());
+    }
+
+    @Test
+    public void testSpillPolicyReplaysOnNextStart() throws Exception {
+        Path spill = File.createTempFile("audit-spill", ".log").toPath();
+        Files.delete(spill);
+        CountDownLatch release = new CountDownLatch(1);
+        writer = new AuditWriter(gated(release), 2, 1, 1, AuditWriter.OverflowPolicy.SPILL, spill);
+        writer.start();
+
+        assertTrue(writer.submit(newEntry(0)));
+        waitUntilQueueEmpty();
+        assertTrue(writer.submit(newEntry(1)));
+        assertTrue(writer.submit(newEntry(2)));
+        AuditEntry tricky = new AuditEntry(prefix + 3, "SPILLED", LocalDateTime.now(),
+            UserDAO.SYSTEM_USER_ID, "tab\there\nnewline \\ backslash");
+        createdIds.add(tricky.getAuditId());
+        assertTrue(writer.submit(tricky));
+        assertEquals(1, writer.getMetrics().getSpilled());
+        assertTrue(Files.exists(spill));
+
+        release.countDown();
+        writer.stop();
+        assertFalse(auditDAO.findById(tricky.getAuditId()).isPresent());
+
+        writer = new AuditWriter(auditDAO::saveAll, 2, 1, 1, AuditWriter.OverflowPolicy.SPILL, spill);
+        writer.start();
+        assertFalse(Files.exists(spill));
+        AuditEntry replayed = auditDAO.findById(tricky.getAuditId()).orElseThrow();
+        assertEquals(tricky.getDetails(), replayed.getDetails());
+    }
+
+    @Test
+    public void testBlockPolicyWaitsForSpace() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        writer = new AuditWriter(gated(release), 2, 1, 1, AuditWriter.OverflowPolicy.BLOCK, null);
+        writer.start();
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 6; i++) {
+                writer.submit(newEntry(i));
+            }
+        });
+        producer.start();
+        producer.join(300);
+        assertTrue("producer should be blocked on a full queue", producer.isAlive());
+        assertTrue(writer.getMetrics().getBlocked() > 0);
+
+        release.countDown();
+        producer.join(5_000);
+        assertFalse(producer.isAlive());
+        writer.flush();
+        assertEquals(6, writer.getMetrics().getWritten());
+        assertEquals(0, writer.getMetrics().getDropped());
+    }
+
+    @Test
+    public void testFailedBatchIsSpilledNotLost() throws Exception {
+        Path spill = File.createTempFile("audit-spill", ".log").toPath();
+        Files.delete(spill);
+        writer = new AuditWriter(failingFirst(1), 10, 5, 1, AuditWriter.OverflowPolicy.BLOCK, spill);
+        writer.start();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(writer.submit(newEntry(i)));
+        }
+        writer.flush();
+        assertEquals(5, writer.getMetrics().getFailed());
+        assertEquals(5, writer.getMetrics().getSpilled());
+        assertEquals(0, writer.getMetrics().getDropped());
+        writer.stop();
+
+        // replayed on the next start, whatever the overflow policy was
+        writer = new AuditWriter(auditDAO::saveAll, 10, 5, 1, AuditWriter.OverflowPolicy.BLOCK, spill);
+        writer.start();
+        assertFalse(Files.exists(spill));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(auditDAO.findById(prefix + i).isPresent());
+        }
+    }
+
+    @Test
+    public void testEntryRejectedEveryTimeIsDeadLetteredNotRespilledForever() throws Exception {
+        Path spill = File.createTempFile("audit-spill", ".log").toPath();
+        Files.delete(spill);
+        Path deadLetters = spill.resolveSibling(spill.getFileName() + ".dead");
+        // each start replays the spill file into a database that keeps rejecting the entry
+        for (int start = 1; start <= 3; start++) {
+            writer = new AuditWriter(failingFirst(Integer.MAX_VALUE), 10, 5, 1,
+                AuditWriter.OverflowPolicy.BLOCK, spill);
+            writer.start();
+            if (start == 1) {
+                assertTrue(writer.submit(newEntry(0)));
+                writer.flush();
+            }
+            writer.stop();
+        }
+        assertFalse("given up on after its attempts", Files.exists(spill));
+        assertEquals(1, writer.getMetrics().getDropped());
+        try {
+            List<String> lines = Files.readAllLines(deadLetters);
+            assertEquals(1, lines.size());
+            assertTrue(lines.get(0).startsWith(prefix + "0\t"));
+            assertTrue(lines.get(0).endsWith("\t3"));
+        } finally {
+            Files.deleteIfExists(deadLetters);
+        }
+
+        // nothing is left to replay
+        writer = new AuditWriter(failingFirst(Integer.MAX_VALUE), 10, 5, 1, AuditWriter.OverflowPolicy.BLOCK, spill);
+        writer.start();
+        assertEquals(0, writer.getMetrics().getFailed());
+    }
+
+    @Test
+    public void testFailedBatchIsRequeuedWithoutSpillFile() throws Exception {
+        writer = new AuditWriter(failingFirst(1), 10, 5, 1, AuditWriter.OverflowPolicy.BLOCK, null);
+        writer.start();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(writer.submit(newEntry(i)));
+        }
+        waitForWritten(5);
+        assertEquals(5, writer.getMetrics().getFailed());
+        assertEquals(0, writer.getMetrics().getDropped());
+        assertTrue(auditDAO.findById(prefix + 4).isPresent());
+    }
+
+    @Test
+    public void testSubmitAfterStopWritesInline() throws Exception {
+        writer = new AuditWriter(auditDAO::saveAll, 1, 1, 1_000, AuditWriter.OverflowPolicy.BLOCK, null);
+        writer.start();
+        writer.stop();
+        // the queue would be full, yet nothing is left to wait for
+        assertTrue(writer.submit(newEntry(0)));
+        assertTrue(writer.submit(newEntry(1)));
+        assertTrue(auditDAO.findById(prefix + 1).isPresent());
+        assertEquals(2, writer.getMetrics().getWritten());
+        assertEquals(0, writer.getMetrics().getQueueDepth());
+    }
+
+    // Throws for the first {@code failures} batches, like a writer lease timing out
+    private Function<List<AuditEntry>, BatchResult> failingFirst(int failures) {
+        AtomicInteger calls = new AtomicInteger();
+        return batch -> {
+            if (calls.incrementAndGet() <= failures) {
+                throw new RuntimeException("Failed to obtain write connection");
+            }
+            return auditDAO.saveAll(batch);
+        };
+    }
+
+    private Function<List<AuditEntry>, BatchResult> gated(CountDownLatch release) {
+        return batch -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return auditDAO.saveAll(batch);
+        };
+    }
+
+    private AuditEntry newEntry(int i) {
+        String auditId = prefix + i;
+        createdIds.add(auditId);
+        return new AuditEntry(auditId, "WRITER_TEST", LocalDateTime.now(), UserDAO.SYSTEM_USER_ID, "entry " + i);
+    }
+
+    private void waitForWritten(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (writer.getMetrics().getWritten() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, writer.getMetrics().getWritten());
+    }
+
+    private void waitUntilQueueEmpty() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (writer.getMetrics().getQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, writer.getMetrics().getQueueDepth());
+    }
+}
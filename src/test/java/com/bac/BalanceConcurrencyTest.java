@@ -0,0 +1,223 @@
+package com.bac;
+
+import controller.BankEmployeeController;
+import controller.TransactionController;
+import database.AccountDAO;
+import model.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class for the versioned, SQL-side balance updates behind TransactionController:
+ * stale in-memory accounts, closes and updates that lose to a deposit, all-or-nothing transfers, and a stress run checking that
+ * no money is created or destroyed under contention.
+ */
+public class BalanceConcurrencyTest {
+
+    private static final int ACCOUNTS = 4;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 150;
+    private static final long OPENING_BALANCE_MINOR = 100_000; // P1000.00
+
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final TransactionController controller = new TransactionController();
+    private final List<String> accountNumbers = new ArrayList<>();
+    private final String prefix = "BC" + System.nanoTime() + "-";
+
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountNumbers.add(accounts.save(new ChequeAccount(prefix + i, Money.toMajor(OPENING_BALANCE_MINOR),
+                LocalDate.now(), LocalDate.now(), TestAccounts.seededOwner(), AccountStatus.ACTIVE,
+                "Acme", "1 Plot Rd", true)).getAccountNumber());
+        }
+    }
+
+    @Test
+    public void testStaleAccountDoesNotOverwriteNewerBalance() {
+        Account first = accountDAO.findById(accountNumbers.get(0)).orElseThrow();
+        Account second = accountDAO.findById(accountNumbers.get(0)).orElseThrow();
+
+        controller.processWithdrawal(first, 100.0);
+        // second still believes the balance is P1000.00
+        controller.processWithdrawal(second, 50.0);
+
+        assertEquals(85_000, storedBalance(0));
+        assertEquals(85_000, second.getBalanceMinor());
+        assertEquals(first.getVersion() + 1, second.getVersion());
+    }
+
+    @Test
+    public void testStaleCloseOrUpdateDoesNotEraseADeposit() {
+        String accountNumber = accountNumbers.get(0);
+        assertTrue(accountDAO.adjustBalanceMinor(accountNumber, -OPENING_BALANCE_MINOR));
+        Account stale = accountDAO.findById(accountNumber).orElseThrow();
+        assertEquals(0, stale.getBalanceMinor());
+
+        // a deposit commits after the closing employee read the empty account
+        controller.processDeposit(accountDAO.findById(accountNumber).orElseThrow(), 10.0);
+        assertFalse(accountDAO.close(accountNumber, stale.getVersion()));
+        stale.setStatus(AccountStatus.CLOSED);
+        assertFalse(accountDAO.update(stale));
+
+        Account current = accountDAO.findById(accountNumber).orElseThrow();
+        assertEquals(1_000, current.getBalanceMinor());
+        assertEquals(AccountStatus.ACTIVE, current.getStatus());
+
+        BankEmployeeController employees = new BankEmployeeController();
+        assertFalse(employees.closeAccount(accountNumber, "EMP-001"));
+        controller.processWithdrawal(current, 10.0);
+        assertTrue(employees.closeAccount(accountNumber, "EMP-001"));
+        Account closed = accountDAO.findById(accountNumber).orElseThrow();
+        assertEquals(AccountStatus.CLOSED, closed.getStatus());
+        assertEquals(0, closed.getBalanceMinor());
+    }
+
+    @Test
+    public void testSameAccountIsSerializedAcrossInstances() throws Exception {
+        long conflictsBefore = AccountDAO.getBalanceConflicts();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < 20; i++) {
+                    // a separate instance per call, as every DAO read returns
+                    Account copy = accountDAO.findById(accountNumbers.get(0)).orElseThrow();
+                    controller.processDeposit(copy, 1.0);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(OPENING_BALANCE_MINOR + THREADS * 20 * 100L, storedBalance(0));
+        // the account lock queued the writers, so none lost a version race
+        assertEquals(conflictsBefore, AccountDAO.getBalanceConflicts());
+    }
+
+    @Test
+    public void testRuleFailureWritesNothing() {
+        Account account = accountDAO.findById(accountNumbers.get(0)).orElseThrow();
+        try {
+            controller.processWithdrawal(account, 5_000.0);
+            fail("Should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Insufficient"));
+        }
+        assertEquals(OPENING_BALANCE_MINOR, storedBalance(0));
+    }
+
+    @Test
+    public void testTransferIsAllOrNothing() {
+        Account from = accountDAO.findById(accountNumbers.get(0)).orElseThrow();
+        Account to = accountDAO.findById(accountNumbers.get(1)).orElseThrow();
+        to.setStatus(AccountStatus.SUSPENDED);
+        assertTrue(accountDAO.update(to));
+
+        try {
+            controller.transferFunds(from, to, 100.0);
+            fail("Transfer into a suspended account should fail");
+        } catch (RuntimeException expected) {
+            // the credit failed, so the debit must not be written either
+        }
+        assertEquals(OPENING_BALANCE_MINOR, storedBalance(0));
+        assertEquals(OPENING_BALANCE_MINOR, storedBalance(1));
+    }
+
+    @Test
+    public void testConcurrentOperationsConserveMoney() throws Exception {
+        AtomicLong depositedMinor = new AtomicLong();
+        AtomicLong withdrawnMinor = new AtomicLong();
+        AtomicLong transfers = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        List<Throwable> unexpected = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            Thread worker = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    for (int op = 0; op < OPERATIONS_PER_THREAD; op++) {
+                        int from = random.nextInt(ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        long amountMinor = 100 + random.nextInt(40_000);
+                        double amount = Money.toMajor(amountMinor);
+                        try {
+                            // callers hold whatever copy they loaded; it is usually stale
+                            Account source = accountDAO.findById(accountNumbers.get(from)).orElseThrow();
+                            switch (op % 3) {
+                                case 0:
+                                    Account target = accountDAO.findById(accountNumbers.get(to)).orElseThrow();
+                                    controller.transferFunds(source, target, amount);
+                                    transfers.incrementAndGet();
+                                    break;
+                                case 1:
+                                    controller.processDeposit(source, amount);
+                                    depositedMinor.addAndGet(amountMinor);
+                                    break;
+                                default:
+                                    controller.processWithdrawal(source, amount);
+                                    withdrawnMinor.addAndGet(amountMinor);
+                            }
+                        } catch (IllegalArgumentException | IllegalStateException e) {
+                            // insufficient funds, or retries exhausted: nothing was written
+                            rejected.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            if (e.getCause() instanceof IllegalArgumentException) {
+                                rejected.incrementAndGet(); // transferTo wraps insufficient funds
+                            } else {
+                                throw e;
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    synchronized (unexpected) {
+                        unexpected.add(e);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertTrue("Unexpected failures: " + unexpected, unexpected.isEmpty());
+        long total = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            long balance = storedBalance(i);
+            assertTrue("Balance went negative: " + balance, balance >= 0);
+            total += balance;
+        }
+        assertEquals(ACCOUNTS * OPENING_BALANCE_MINOR + depositedMinor.get() - withdrawnMinor.get(), total);
+        assertTrue("Expected some transfers to commit", transfers.get() > 0);
+
+        System.out.printf("Balance stress: %d transfers, %d rejected, %d version conflicts retried%n",
+            transfers.get(), rejected.get(), AccountDAO.getBalanceConflicts());
+    }
+
+    private long storedBalance(int index) {
+        AccountDAO.getCache().invalidateAll();
+        return accountDAO.findById(accountNumbers.get(index)).orElseThrow().getBalanceMinor();
+    }
+}
@@ -0,0 +1,112 @@
+package com.bac;
+
+import database.BatchResult;
+import database.TransactionDAO;
+import model.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class and benchmark for the DAOs' batched saveAll/updateAll.
+ */
+public class BatchWriteTest {
+
+    private static final int ROW_COUNT = 2_000;
+
+    private final String prefix = "BW" + System.nanoTime();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private SavingsAccount account;
+
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Before
+    public void setUp() {
+        account = accounts.save(new SavingsAccount(prefix, 100.0, LocalDate.now(), LocalDate.now(),
+            TestAccounts.seededOwner(), AccountStatus.ACTIVE));
+    }
+
+    @Test
+    public void testBatchedInsertsBenchmark() {
+        List<Transaction> single = newTransactions("S", ROW_COUNT, account);
+        long start = System.nanoTime();
+        for (Transaction transaction : single) {
+            assertTrue(transactionDAO.save(transaction));
+        }
+        double singleRate = ROW_COUNT / ((System.nanoTime() - start) / 1e9);
+
+        List<Transaction> batched = newTransactions("B", ROW_COUNT, account);
+        start = System.nanoTime();
+        BatchResult result = transactionDAO.saveAll(batched);
+        double batchedRate = ROW_COUNT / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("BatchWriteTest: single inserts %.0f rows/sec, saveAll %.0f rows/sec (%.1fx)%n",
+            singleRate, batchedRate, batchedRate / singleRate);
+
+        assertTrue(result.toString(), result.isComplete());
+        assertEquals(ROW_COUNT, result.getWritten());
+        assertEquals(2 * ROW_COUNT, transactionDAO.findByAccountNumber(account.getAccountNumber()).size());
+        assertTrue("Batched inserts should beat row-at-a-time commits", batchedRate > singleRate);
+    }
+
+    @Test
+    public void testFailedRowsAreReportedAndOthersKept() {
+        List<Transaction> rows = newTransactions("F", 1_200, account);
+        // duplicate key in the second chunk, unknown account (foreign key) in the third
+        rows.set(700, rows.get(10));
+        Account missing = new Account("NO-SUCH-" + prefix, 0.0, LocalDate.now(), LocalDate.now(),
+            null, AccountStatus.ACTIVE);
+        Transaction orphan = rows.get(1_100);
+        rows.set(1_100, new Transaction(orphan.getTransactionId(), TransactionType.DEPOSIT, 1.0,
+            orphan.getTimeStamp(), "orphan", missing));
+
+        BatchResult result = transactionDAO.saveAll(rows);
+
+        assertFalse(result.isComplete());
+        assertEquals(2, result.getFailures().size());
+        assertEquals(700, result.getFailures().get(0).getIndex());
+        assertEquals(1_100, result.getFailures().get(1).getIndex());
+        assertEquals(orphan.getTransactionId(), result.getFailures().get(1).getKey());
+        assertEquals(1_198, result.getWritten());
+        assertEquals(1_198, transactionDAO.findByAccountNumber(account.getAccountNumber()).size());
+    }
+
+    @Test
+    public void testUpdateAllReportsMissingRows() {
+        List<Transaction> rows = newTransactions("U", 3, account);
+        assertTrue(transactionDAO.saveAll(rows).isComplete());
+
+        List<Transaction> changed = new ArrayList<>();
+        for (Transaction row : rows) {
+            changed.add(new Transaction(row.getTransactionId(), row.getTransactionType(), 5.0,
+                row.getTimeStamp(), "updated", account));
+        }
+        changed.add(new Transaction(prefix + "-ghost", TransactionType.DEPOSIT, 1.0,
+            LocalDateTime.now(), "never saved", account));
+
+        BatchResult result = transactionDAO.updateAll(changed);
+
+        assertEquals(3, result.getWritten());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(prefix + "-ghost", result.getFailures().get(0).getKey());
+        assertEquals("updated", transactionDAO.findById(rows.get(0).getTransactionId()).get().getDescription());
+    }
+
+    private List<Transaction> newTransactions(String tag, int count, Account target) {
+        List<Transaction> rows = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Transaction(prefix + "-" + tag + "-" + i, TransactionType.DEPOSIT, 1.0,
+                now, "batch probe", target));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,188 @@
+package com.bac;
+
+import database.ConnectionPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for ConnectionPool
+ * Tests lease reuse, init hooks, writer reentrancy, concurrency and leak detection
+ */
+public class ConnectionPoolTest {
+
+    private File dbFile;
+    private ConnectionPool pool;
+    private AtomicInteger initCalls;
+
+    @Before
+    public void setUp() throws Exception {
+        dbFile = File.createTempFile("pool-test", ".db");
+        initCalls = new AtomicInteger();
+        pool = newPool(200);
+
+        try (Connection conn = pool.acquireWriter();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE counters (id INTEGER PRIMARY KEY, value INTEGER NOT NULL)");
+            stmt.execute("INSERT INTO counters (id, value) VALUES (1, 0)");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        dbFile.delete();
+    }
+
+    private ConnectionPool newPool(long leakThresholdMillis) {
+        List<ConnectionPool.ConnectionInitializer> hooks = new ArrayList<>();
+        hooks.add(conn -> initCalls.incrementAndGet());
+        hooks.add(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout = 5000");
+            }
+        });
+        return new ConnectionPool("jdbc:sqlite:" + dbFile.getAbsolutePath(), 2, 5_000,
+            leakThresholdMillis, hooks);
+    }
+
+    @Test
+    public void testClosedLeasesAreReused() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            try (Connection conn = pool.acquireReader();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT value FROM counters WHERE id = 1")) {
+                assertTrue(rs.next());
+            }
+        }
+
+        ConnectionPool.PoolMetrics metrics = pool.getMetrics();
+        // one writer plus at most two readers, no matter how many leases were taken
+        assertTrue(metrics.getPhysicalConnectionsOpened() <= 3);
+        assertEquals(metrics.getPhysicalConnectionsOpened(), initCalls.get());
+        assertEquals(0, metrics.getActiveLeases());
+        assertEquals(50, metrics.getReaderAcquisitions());
+    }
+
+    @Test
+    public void testReadConnectionsAreReadOnly() throws Exception {
+        try (Connection conn = pool.acquireReader();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("UPDATE counters SET value = 99 WHERE id = 1");
+            fail("Read connection should reject writes");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().toLowerCase().contains("readonly"));
+        }
+    }
+
+    @Test
+    public void testWriterIsReentrantAndServesNestedReads() throws Exception {
+        try (Connection outer = pool.acquireWriter()) {
+            outer.setAutoCommit(false);
+            try (PreparedStatement stmt = outer.prepareStatement("UPDATE counters SET value = 7 WHERE id = 1")) {
+                stmt.executeUpdate();
+            }
+            // nested read on the same thread must see the uncommitted update
+            try (Connection nested = pool.acquireReader();
+                 Statement stmt = nested.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT value FROM counters WHERE id = 1")) {
+                assertTrue(rs.next());
+                assertEquals(7, rs.getInt(1));
+            }
+            assertTrue(pool.isWriterHeldByCurrentThread());
+            // leave the transaction open: the pool must roll it back on release
+        }
+
+        assertFalse(pool.isWriterHeldByCurrentThread());
+        try (Connection conn = pool.acquireWriter();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT value FROM counters WHERE id = 1")) {
+            assertTrue(conn.getAutoCommit());
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    public void testConcurrentReadersAndWriters() throws Exception {
+        int threads = 8;
+        int iterations = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final boolean writerThread = t % 2 == 0;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    if (writerThread) {
+                        try (Connection conn = pool.acquireWriter();
+                             Statement stmt = conn.createStatement()) {
+                            stmt.executeUpdate("UPDATE counters SET value = value + 1 WHERE id = 1");
+                        }
+                    } else {
+                        try (Connection conn = pool.acquireReader();
+                             Statement stmt = conn.createStatement();
+                             ResultSet rs = stmt.executeQuery("SELECT value FROM counters WHERE id = 1")) {
+                            assertTrue(rs.next());
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        try (Connection conn = pool.acquireReader();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT value FROM counters WHERE id = 1")) {
+            assertTrue(rs.next());
+            assertEquals((threads / 2) * iterations, rs.getInt(1));
+        }
+        System.out.println("ConnectionPoolTest: " + pool.getMetrics());
+    }
+
+    @Test
+    public void testLeakedLeaseIsReported() throws Exception {
+        Connection leaked = pool.acquireReader();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.getMetrics().getLeaksDetected() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, pool.getMetrics().getLeaksDetected());
+        leaked.close();
+        assertEquals(0, pool.getMetrics().getActiveLeases());
+    }
+
+    @Test
+    public void testUseAfterCloseIsRejected() throws Exception {
+        Connection conn = pool.acquireReader();
+        conn.close();
+        conn.close(); // double close is harmless
+        assertTrue(conn.isClosed());
+        try {
+            conn.createStatement();
+            fail("Returned lease should not be usable");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("returned"));
+        }
+    }
+}
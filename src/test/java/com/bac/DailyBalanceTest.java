@@ -0,0 +1,136 @@
+package com.bac;
+
+import database.AccountDAO;
+import database.DailyBalanceDAO;
+import database.DatabaseConnection;
+import database.UnitOfWork;
+import model.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import service.InterestService;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Test class for the daily balance prefix sums: sums and averages over any period,
+ * backdated postings, and interest on the average daily balance in both interest modes.
+ */
+public class DailyBalanceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final DailyBalanceDAO dailyBalanceDAO = new DailyBalanceDAO();
+    private final String prefix = "DB" + System.nanoTime();
+    private final String javaPaid = prefix + "-J";
+    private final String sqlPaid = prefix + "-Q";
+
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Before
+    public void setUp() throws Exception {
+        for (String accountNumber : new String[] {javaPaid, sqlPaid}) {
+            accounts.save(new SavingsAccount(accountNumber, 1_000.0, TODAY.minusDays(60),
+                TODAY.minusDays(60), TestAccounts.seededOwner(), AccountStatus.ACTIVE));
+            // P500 in 20 days ago, then P200 out 40 days ago recorded after it
+            post(accountNumber, 50_000, TODAY.minusDays(20));
+            post(accountNumber, -20_000, TODAY.minusDays(40));
+        }
+    }
+
+    @Test
+    public void testSumsAndAveragesOverAnyPeriod() throws Exception {
+        // 20 days at P1000, 20 at P800, 20 at P1300
+        assertEquals(6_200_000, dailyBalanceDAO.balanceDays(javaPaid, TODAY.minusDays(60), TODAY).getAsLong());
+        assertEquals(103_333, dailyBalanceDAO.averageDailyBalance(javaPaid, TODAY.minusDays(60), TODAY).getAsLong());
+        assertEquals(10 * 80_000 + 10 * 130_000,
+            dailyBalanceDAO.balanceDays(javaPaid, TODAY.minusDays(30), TODAY.minusDays(10)).getAsLong());
+        assertEquals(80_000, dailyBalanceDAO.averageDailyBalance(javaPaid, TODAY.minusDays(40), TODAY.minusDays(39))
+            .getAsLong());
+        // before the account existed, and after today's balance carries forward
+        assertEquals(0, dailyBalanceDAO.balanceDays(javaPaid, TODAY.minusDays(70), TODAY.minusDays(60)).getAsLong());
+        assertEquals(5 * 130_000, dailyBalanceDAO.balanceDays(javaPaid, TODAY, TODAY.plusDays(5)).getAsLong());
+        assertFalse(dailyBalanceDAO.balanceDays(prefix + "-missing", TODAY.minusDays(1), TODAY).isPresent());
+
+        BalanceHistory preloaded = dailyBalanceDAO.preload(
+            List.of(accountDAO.findById(javaPaid).orElseThrow()), TODAY);
+        assertEquals(6_200_000, preloaded.balanceDays(javaPaid, TODAY.minusDays(60), TODAY).getAsLong());
+    }
+
+    @Test
+    public void testInterestIsPaidOnTheAverageDailyBalance() throws Exception {
+        long expected = Money.simpleInterest(6_200_000, 0.025, 1);
+        assertNotEquals(Money.simpleInterest(130_000, 0.025, 60), expected);
+        Account loaded = accountDAO.findById(javaPaid).orElseThrow();
+        assertEquals(expected, ((InterestBearing) loaded).calculateInterestMinor(TODAY));
+
+        new InterestService(500, 2, InterestService.Mode.JAVA).runInterest(TODAY, prefix + "-I", prefix + "-K",
+            Integer.MAX_VALUE);
+        new InterestService(500, 2, InterestService.Mode.SQL).runInterest(TODAY, prefix + "-P", prefix + "-R",
+            Integer.MAX_VALUE);
+        assertEquals(130_000 + expected, accountDAO.findById(javaPaid).orElseThrow().getBalanceMinor());
+        assertEquals(130_000 + expected, accountDAO.findById(sqlPaid).orElseThrow().getBalanceMinor());
+        // the interest is part of today's end-of-day balance
+        assertEquals(130_000 + expected,
+            dailyBalanceDAO.balanceDays(sqlPaid, TODAY, TODAY.plusDays(1)).getAsLong());
+    }
+
+    @Test
+    public void testDeletedAccountDropsItsHistory() throws Exception {
+        assertEquals(3, rowCount(javaPaid));
+        accountDAO.delete(javaPaid);
+        assertEquals(0, rowCount(javaPaid));
+        assertFalse(dailyBalanceDAO.balanceDays(javaPaid, TODAY.minusDays(60), TODAY).isPresent());
+    }
+
+    // A movement with an explicit posting date, as a cash journal, and the matching balance
+    private void post(String accountNumber, long amount, LocalDate day) throws Exception {
+        String sql = "INSERT INTO postings (journal_id, account_number, counterparty, amount, posting_type, "
+            + "description, posted_at) VALUES (?, ?, ?, ?, 'DEPOSIT', 'Backdated movement', ?)";
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            Connection conn = unit.getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                String journal = "TXN_DB_" + System.nanoTime();
+                String postedAt = day + "T12:00:00.000";
+                stmt.setString(1, journal);
+                stmt.setString(2, "LEDGER:CASH");
+                stmt.setString(3, accountNumber);
+                stmt.setLong(4, -amount);
+                stmt.setString(5, postedAt);
+                stmt.executeUpdate();
+                stmt.setString(1, journal);
+                stmt.setString(2, accountNumber);
+                stmt.setString(3, "LEDGER:CASH");
+                stmt.setLong(4, amount);
+                stmt.setString(5, postedAt);
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE accounts SET balance = balance + ?, version = version + 1 WHERE account_number = ?")) {
+                stmt.setLong(1, amount);
+                stmt.setString(2, accountNumber);
+                stmt.executeUpdate();
+            }
+            unit.commit();
+        }
+    }
+
+    private int rowCount(String accountNumber) throws Exception {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT COUNT(*) FROM daily_balances WHERE account_number = ?")) {
+            stmt.setString(1, accountNumber);
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.bac;
+
+import database.AccountDAO;
+import database.CustomerDAO;
+import database.EntityCache;
+import model.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for EntityCache and the account/customer caches behind findById,
+ * plus a hot-lookup benchmark with the cache on and off.
+ */
+public class EntityCacheTest {
+
+    private static final int HOT_ACCOUNTS = 10;
+    private static final int LOOKUPS = 5_000;
+
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final List<String> createdAccounts = new ArrayList<>();
+    private final String prefix = "EC" + System.nanoTime() + "-";
+
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < HOT_ACCOUNTS; i++) {
+            createdAccounts.add(accounts.save(new SavingsAccount(prefix + i, 1000.0, LocalDate.now(),
+                LocalDate.now(), TestAccounts.seededOwner(), AccountStatus.ACTIVE)).getAccountNumber());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        AccountDAO.getCache().setEnabled(true);
+    }
+
+    @Test
+    public void testLruEvictionAndTtl() throws Exception {
+        EntityCache<String, String> cache = new EntityCache<>("test", 2, 100);
+        cache.putIfUnchanged("a", "A", cache.generation());
+        cache.putIfUnchanged("b", "B", cache.generation());
+        assertEquals("A", cache.get("a")); // a is now most recently used
+        cache.putIfUnchanged("c", "C", cache.generation());
+
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1, cache.getMetrics().getEvictions());
+
+        Thread.sleep(150);
+        assertNull(cache.get("a"));
+        EntityCache.CacheMetrics metrics = cache.getMetrics();
+        assertEquals(1, metrics.getExpirations());
+        assertEquals(3, metrics.getHits());
+        assertEquals(2, metrics.getMisses());
+    }
+
+    @Test
+    public void testLoadRacingAnInvalidationIsDropped() {
+        EntityCache<String, String> cache = new EntityCache<>("test", 10, 60_000);
+        long generation = cache.generation();
+        cache.invalidate("a"); // a write lands while the load is in flight
+        cache.putIfUnchanged("a", "stale", generation);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testWritesInvalidateCachedAccount() {
+        String accountNumber = createdAccounts.get(0);
+        Account first = accountDAO.findById(accountNumber).orElseThrow();
+        long hits = AccountDAO.getCache().getMetrics().getHits();
+
+        // callers mutate what they get back; that must not leak into the cache
+        first.depositMinor(50_000);
+        Account second = accountDAO.findById(accountNumber).orElseThrow();
+        assertEquals(hits + 1, AccountDAO.getCache().getMetrics().getHits());
+        assertNotSame(first, second);
+        assertEquals(100_000, second.getBalanceMinor());
+
+        assertTrue(accountDAO.adjustBalanceMinor(accountNumber, 23_456));
+        Account third = accountDAO.findById(accountNumber).orElseThrow();
+        assertEquals(123_456, third.getBalanceMinor());
+
+        // second was read before the balance moved, so writing it back is refused
+        second.setStatus(AccountStatus.SUSPENDED);
+        assertFalse(accountDAO.update(second));
+        third.setStatus(AccountStatus.SUSPENDED);
+        assertTrue(accountDAO.update(third));
+        assertEquals(AccountStatus.SUSPENDED, accountDAO.findById(accountNumber).orElseThrow().getStatus());
+
+        assertTrue(accountDAO.delete(accountNumber));
+        assertFalse(accountDAO.findById(accountNumber).isPresent());
+    }
+
+    @Test
+    public void testCustomerUpdateRefreshesCachedOwners() {
+        CustomerDAO customerDAO = new CustomerDAO();
+        Customer customer = customerDAO.findById("CUST-001").orElseThrow();
+        String originalAddress = customer.getAddress();
+        assertEquals(originalAddress,
+            accountDAO.findById(createdAccounts.get(0)).orElseThrow().getCustomer().getAddress());
+
+        try {
+            customer.setAddress("1 Cache Lane");
+            assertTrue(customerDAO.update(customer));
+            assertEquals("1 Cache Lane", customerDAO.findById("CUST-001").orElseThrow().getAddress());
+            assertEquals("1 Cache Lane",
+                accountDAO.findById(createdAccounts.get(0)).orElseThrow().getCustomer().getAddress());
+        } finally {
+            customer.setAddress(originalAddress);
+            customerDAO.update(customer);
+        }
+    }
+
+    @Test
+    public void testHotLookupBenchmark() {
+        AccountDAO.getCache().setEnabled(false);
+        long uncachedNanos = timeLookups();
+
+        AccountDAO.getCache().setEnabled(true);
+        timeLookups(); // warm the cache
+        long cachedNanos = timeLookups();
+
+        System.out.printf("EntityCacheTest: hot findById %.1f us uncached, %.1f us cached (%s)%n",
+            uncachedNanos / 1e3 / LOOKUPS, cachedNanos / 1e3 / LOOKUPS, AccountDAO.getCache().getMetrics());
+        assertTrue("cached lookups should beat the database", cachedNanos < uncachedNanos);
+    }
+
+    private long timeLookups() {
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertTrue(accountDAO.findById(createdAccounts.get(i % HOT_ACCOUNTS)).isPresent());
+        }
+        return System.nanoTime() - start;
+    }
+}
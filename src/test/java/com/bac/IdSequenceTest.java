@@ -0,0 +1,146 @@
+package com.bac;
+
+import database.DatabaseConnection;
+import database.Migrations;
+import database.SchemaMigrator;
+import database.Sequences;
+import database.UnitOfWork;
+import org.junit.Test;
+import service.IDGeneratorService;
+import util.AccountNumbers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for hi-lo sequences, IDGeneratorService and check-digit account numbers.
+ */
+public class IdSequenceTest {
+
+    @Test
+    public void testBlocksNeedFewRoundTrips() {
+        String name = "test_" + System.nanoTime();
+        Sequences.next(name); // first block
+        long writes = DatabaseConnection.getPoolMetrics().getWriterAcquisitions();
+        long previous = 1;
+        for (int i = 0; i < 100; i++) {
+            long value = Sequences.next(name);
+            assertEquals(previous + 1, value);
+            previous = value;
+        }
+        // the default block holds 20 values; allow for a stray background writer
+        long roundTrips = DatabaseConnection.getPoolMetrics().getWriterAcquisitions() - writes;
+        assertTrue("round trips: " + roundTrips, roundTrips <= 100 / 20 + 2);
+    }
+
+    @Test
+    public void testConcurrentAllocationIsUnique() throws Exception {
+        IDGeneratorService ids = new IDGeneratorService();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                List<String> issued = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    issued.add(ids.generateAccountNumber());
+                }
+                return issued;
+            }));
+        }
+        Set<String> all = new HashSet<>();
+        for (Future<List<String>> future : futures) {
+            for (String accountNumber : future.get(30, TimeUnit.SECONDS)) {
+                assertTrue(AccountNumbers.hasValidCheckDigit(accountNumber));
+                assertTrue("duplicate " + accountNumber, all.add(accountNumber));
+            }
+        }
+        executor.shutdown();
+        assertEquals(1_600, all.size());
+    }
+
+    @Test
+    public void testWriterHolderIsNotBlockedByAThreadWaitingForTheWriter() throws Exception {
+        String name = "test_" + System.nanoTime();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> waiting;
+            long mine;
+            try (UnitOfWork unit = UnitOfWork.begin()) {
+                // this thread holds the writer; the other one needs a block and waits for it
+                waiting = executor.submit(() -> Sequences.next(name));
+                Thread.sleep(200);
+                assertFalse(waiting.isDone());
+
+                long start = System.nanoTime();
+                mine = Sequences.next(name);
+                assertTrue("next() waited on the blocked thread",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+                unit.commit();
+            }
+            assertNotEquals(mine, (long) waiting.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCheckDigitRejectsTypos() {
+        assertEquals("ACC0000000018", AccountNumbers.format(1));
+        String accountNumber = AccountNumbers.format(123_456_789);
+        assertTrue(AccountNumbers.isPlausible(accountNumber));
+
+        // every single-digit substitution is caught
+        for (int i = 3; i < accountNumber.length(); i++) {
+            for (char d = '0'; d <= '9'; d++) {
+                if (d == accountNumber.charAt(i)) {
+                    continue;
+                }
+                String typo = accountNumber.substring(0, i) + d + accountNumber.substring(i + 1);
+                assertFalse(typo, AccountNumbers.isPlausible(typo));
+            }
+        }
+        // older formats carry no check digit and are still accepted
+        assertTrue(AccountNumbers.isPlausible("ACC-001"));
+        assertTrue(AccountNumbers.isPlausible("ACC1718000000000"));
+        assertFalse(AccountNumbers.isPlausible(" "));
+    }
+
+    @Test
+    public void testMigrationStartsAfterExistingIds() throws Exception {
+        File dbFile = File.createTempFile("sequence-migration", ".db");
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+             Statement stmt = conn.createStatement()) {
+            new SchemaMigrator(Migrations.all().subList(0, 5)).migrate(conn);
+            stmt.execute("INSERT INTO users (user_id, username, password, role) VALUES ('USR-041', 'a', 'x', 'CUSTOMER')");
+            stmt.execute("INSERT INTO users (user_id, username, password, role) VALUES ('CUST-007', 'b', 'x', 'CUSTOMER')");
+            stmt.execute("INSERT INTO users (user_id, username, password, role) VALUES ('BE-012', 'c', 'x', 'BANK_EMPLOYEE')");
+            stmt.execute("INSERT INTO customers VALUES ('CUST-009', 'USR-041', 'A', 'B', 'addr', '1', 'e', 'INDIVIDUAL')");
+
+            new SchemaMigrator(Migrations.all()).migrate(conn);
+
+            try (ResultSet rs = stmt.executeQuery("SELECT name, next_value FROM sequences ORDER BY name")) {
+                StringBuilder sequences = new StringBuilder();
+                while (rs.next()) {
+                    sequences.append(rs.getString(1)).append('=').append(rs.getLong(2)).append(' ');
+                }
+                assertEquals("account=1 admin=1 customer=10 customer_user=42 employee=13 ",
+                    sequences.toString());
+            }
+        } finally {
+            dbFile.delete();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.bac;
+
+import database.AccountDAO;
+import database.InterestDAO;
+import database.PostingDAO;
+import database.TransactionDAO;
+import model.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import service.InterestService;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for the chunked interest run: payments, INTEREST_PAYMENT rows and postings,
+ * the persisted accrual date, and resuming an interrupted run without paying twice.
+ */
+public class InterestRunTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final PostingDAO postingDAO = new PostingDAO();
+    private final InterestDAO interestDAO = new InterestDAO();
+    // Every run below is limited to this test's key range
+    private final String prefix = "IR" + System.nanoTime();
+    private final String rangeEnd = prefix + "~";
+    private final List<String> due = new ArrayList<>();
+
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Before
+    public void setUp() {
+        Customer owner = TestAccounts.seededOwner();
+        for (int i = 0; i < 5; i++) {
+            due.add(save(new SavingsAccount(prefix + "-S" + i, 1_000.0, TODAY.minusDays(60), TODAY.minusDays(60),
+                owner, AccountStatus.ACTIVE)));
+        }
+        due.add(save(new InvestmentAccount(prefix + "-V", 2_000.0, TODAY.minusDays(100), TODAY.minusDays(100),
+            owner, AccountStatus.ACTIVE)));
+        // not due yet, and not active
+        save(new SavingsAccount(prefix + "-W", 1_000.0, TODAY.minusDays(10), TODAY.minusDays(10),
+            owner, AccountStatus.ACTIVE));
+        save(new SavingsAccount(prefix + "-X", 1_000.0, TODAY.minusDays(60), TODAY.minusDays(60),
+            owner, AccountStatus.SUSPENDED));
+    }
+
+    @Test
+    public void testRunPaysDueAccountsOnce() throws Exception {
+        InterestService.RunResult result = new InterestService(500, 2).runInterest(TODAY, prefix, rangeEnd, Integer.MAX_VALUE);
+        assertTrue(result.isCompleted());
+        assertEquals(due.size(), result.getAccountsPaid());
+
+        long savingsInterest = Money.simpleInterest(100_000, 0.025, 60);
+        Account savings = accountDAO.findById(prefix + "-S0").orElseThrow();
+        assertEquals(100_000 + savingsInterest, savings.getBalanceMinor());
+        assertEquals(TODAY, ((InterestBearing) savings).getLastInterestApplied());
+        assertEquals(200_000 + Money.simpleInterest(200_000, 0.065, 100),
+            accountDAO.findById(prefix + "-V").orElseThrow().getBalanceMinor());
+        assertEquals(100_000, accountDAO.findById(prefix + "-W").orElseThrow().getBalanceMinor());
+        assertEquals(100_000, accountDAO.findById(prefix + "-X").orElseThrow().getBalanceMinor());
+
+        List<Transaction> history = transactionDAO.findByAccountNumber(prefix + "-S0");
+        assertEquals(1, history.size());
+        assertEquals(TransactionType.INTEREST_PAYMENT, history.get(0).getTransactionType());
+        assertEquals(savingsInterest, history.get(0).getAmountMinor());
+        List<String> unreconciled = postingDAO.reconcile();
+        for (String accountNumber : due) {
+            assertFalse("Unreconciled " + accountNumber, unreconciled.contains(accountNumber));
+        }
+
+        // the same run again, and a later run before the next period, pay nothing
+        assertEquals(0, new InterestService(500, 2).runInterest(TODAY, prefix, rangeEnd, Integer.MAX_VALUE)
+            .getAccountsPaid());
+        assertEquals(0, new InterestService(500, 2).runInterest(TODAY.plusDays(1), prefix, rangeEnd, Integer.MAX_VALUE)
+            .getAccountsPaid());
+    }
+
+    @Test
+    public void testInterruptedRunResumesWithoutPayingTwice() throws Exception {
+        InterestService service = new InterestService(2, 2);
+        InterestService.RunResult first = service.runInterest(TODAY, prefix, rangeEnd, 1);
+        assertFalse(first.isCompleted());
+        assertEquals(2, first.getAccountsPaid());
+
+        InterestDAO.RunState checkpoint = interestDAO.findRun(first.getRunId()).orElseThrow();
+        assertFalse(checkpoint.isCompleted());
+        assertEquals(prefix + "-S1", checkpoint.getLastAccountNumber());
+
+        // a fresh service, as after a restart, picks up after the checkpoint
+        InterestService.RunResult resumed = new InterestService(2, 2).runInterest(TODAY, prefix, rangeEnd, Integer.MAX_VALUE);
+        assertTrue(resumed.isCompleted());
+        assertEquals(due.size() - 2, resumed.getAccountsPaid());
+        assertEquals(due.size(), interestDAO.findRun(first.getRunId()).orElseThrow().getAccountsPaid());
+
+        long savingsInterest = Money.simpleInterest(100_000, 0.025, 60);
+        for (int i = 0; i < 5; i++) {
+            String accountNumber = prefix + "-S" + i;
+            assertEquals(100_000 + savingsInterest, accountDAO.findById(accountNumber).orElseThrow().getBalanceMinor());
+            assertEquals(1, transactionDAO.findByAccountNumber(accountNumber).size());
+        }
+    }
+
+    @Test
+    public void testFailedChunkReadLeavesRunToResume() throws Exception {
+        // the second page read fails, as a busy database or a lease timeout would
+        AtomicInteger reads = new AtomicInteger();
+        AccountDAO failingSecondRead = new AccountDAO() {
+            @Override
+            public List<Account> findInterestBearingPage(String after, String before, int limit) throws SQLException {
+                if (reads.incrementAndGet() == 2) {
+                    throw new SQLException("database is locked");
+                }
+                return super.findInterestBearingPage(after, before, limit);
+            }
+        };
+        InterestService failing = new InterestService(2, 2, InterestService.Mode.JAVA, failingSecondRead);
+        assertThrows(SQLException.class, () -> failing.runInterest(TODAY, prefix, rangeEnd, Integer.MAX_VALUE));
+
+        String runId = "INT-" + TODAY + ":" + prefix + ".." + rangeEnd;
+        InterestDAO.RunState checkpoint = interestDAO.findRun(runId).orElseThrow();
+        assertFalse("a failed read must not complete the run", checkpoint.isCompleted());
+        assertEquals(2, checkpoint.getAccountsPaid());
+        assertTrue(interestDAO.findUnfinishedRuns().stream().anyMatch(run -> run.getRunId().equals(runId)));
+
+        InterestService.RunResult resumed = new InterestService(2, 2).runInterest(TODAY, prefix, rangeEnd, Integer.MAX_VALUE);
+        assertTrue(resumed.isCompleted());
+        assertEquals(due.size() - 2, resumed.getAccountsPaid());
+        for (String accountNumber : due) {
+            assertEquals(1, transactionDAO.findByAccountNumber(accountNumber).size());
+        }
+    }
+
+    private String save(Account account) {
+        return accounts.save(account).getAccountNumber();
+    }
+}
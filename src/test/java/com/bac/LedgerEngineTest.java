@@ -0,0 +1,288 @@
+package com.bac;
+
+import controller.TransactionController;
+import database.AccountDAO;
+import database.DatabaseConnection;
+import database.PostingDAO;
+import database.TransactionDAO;
+import model.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import service.LedgerEngine;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class for the in-memory ledger engine: account rules, snapshots into the tables,
+ * status changes and deletes, dead-lettered commands, journal replay after a crash, compaction, routing through TransactionController, and
+ * a deposit throughput comparison with the database path.
+ */
+public class LedgerEngineTest {
+
+    private static final int BENCHMARK_DEPOSITS = 200;
+    // Long enough that only the test's own snapshot() calls write to the tables
+    private static final long NO_BACKGROUND_SNAPSHOTS = 3_600_000L;
+
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final PostingDAO postingDAO = new PostingDAO();
+    private final String cheque = "LE" + System.nanoTime() + "-C";
+    private final String target = "LE" + System.nanoTime() + "-T";
+    private final String savings = "LE" + System.nanoTime() + "-S";
+    private final Path journalPath = Path.of("target", "ledger-" + System.nanoTime() + ".journal");
+    private final List<LedgerEngine> engines = new ArrayList<>();
+
+    // deletes the accounts after tearDown has closed the engines
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Before
+    public void setUp() {
+        for (String accountNumber : new String[] {cheque, target}) {
+            accounts.save(new ChequeAccount(accountNumber, 500.0, LocalDate.now(), LocalDate.now(),
+                TestAccounts.seededOwner(), AccountStatus.ACTIVE, "Acme", "1 Plot Rd", true));
+        }
+        accounts.save(new SavingsAccount(savings, 500.0, LocalDate.now(), LocalDate.now(),
+            TestAccounts.seededOwner(), AccountStatus.ACTIVE));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (LedgerEngine engine : engines) {
+            engine.close();
+        }
+        Files.deleteIfExists(journalPath);
+    }
+
+    @Test
+    public void testMovementsFollowAccountRulesAndReachTablesOnSnapshot() {
+        LedgerEngine engine = open(64 * 1024);
+        engine.deposit(cheque, 5_000);
+        engine.withdraw(cheque, 2_000);
+        LedgerEngine.Receipt transfer = engine.transfer(cheque, target, 10_000);
+        assertEquals(43_000, transfer.getBalanceMinor());
+        assertEquals(60_000, transfer.getCounterpartyBalanceMinor());
+
+        assertThrows(IllegalArgumentException.class, () -> engine.withdraw(cheque, 1_000_000));
+        assertThrows(IllegalStateException.class, () -> engine.withdraw(savings, 100));
+        assertThrows(IllegalArgumentException.class, () -> engine.deposit("LE-missing", 100));
+        assertEquals(43_000, engine.getBalanceMinor(cheque).getAsLong());
+
+        // nothing reaches the tables before a snapshot
+        assertEquals(50_000, storedBalance(cheque));
+        assertEquals(3, engine.snapshot());
+        assertEquals(43_000, storedBalance(cheque));
+        assertEquals(60_000, storedBalance(target));
+        assertEquals(3, transactionDAO.findByAccountNumber(cheque).size());
+        assertEquals(2, postingDAO.findByJournal(transfer.getTransactionId()).size());
+        List<String> unreconciled = postingDAO.reconcile();
+        assertFalse("Unreconciled: " + unreconciled, unreconciled.contains(cheque) || unreconciled.contains(target));
+    }
+
+    @Test
+    public void testRestartReplaysJournalAfterLastSnapshot() {
+        LedgerEngine first = open(64 * 1024);
+        first.deposit(cheque, 1_000);
+        first.snapshot();
+        first.deposit(cheque, 2_000);
+        first.transfer(cheque, target, 500);
+        first.halt(); // crash: the last two commands are only in the journal
+        assertEquals(51_000, storedBalance(cheque));
+
+        LedgerEngine second = open(64 * 1024);
+        assertEquals(2, second.getPendingCount());
+        assertEquals(52_500, second.getBalanceMinor(cheque).getAsLong());
+        assertEquals(50_500, second.getBalanceMinor(target).getAsLong());
+        second.close();
+        assertEquals(52_500, storedBalance(cheque));
+        assertEquals(50_500, storedBalance(target));
+
+        // the snapshot covers the replayed commands, so they are not applied twice
+        LedgerEngine third = open(64 * 1024);
+        assertEquals(0, third.getPendingCount());
+        assertEquals(52_500, third.getBalanceMinor(cheque).getAsLong());
+    }
+
+    @Test
+    public void testStatusChangeReachesLoadedAccount() {
+        LedgerEngine engine = open(64 * 1024);
+        engine.deposit(cheque, 1_000); // loads the account while it is active
+
+        Account suspended = accountDAO.findById(cheque).orElseThrow();
+        suspended.setStatus(AccountStatus.SUSPENDED);
+        assertTrue(accountDAO.update(suspended));
+
+        assertThrows(IllegalStateException.class, () -> engine.deposit(cheque, 1_000));
+        // the model wraps a refused transfer leg
+        assertThrows(RuntimeException.class, () -> engine.transfer(cheque, target, 1_000));
+        assertEquals(51_000, engine.getBalanceMinor(cheque).getAsLong());
+
+        accountDAO.delete(target);
+        assertFalse(engine.hasAccount(target));
+        assertThrows(IllegalArgumentException.class, () -> engine.deposit(target, 1_000));
+    }
+
+    @Test
+    public void testCommandOnDeletedAccountIsDeadLetteredNotRetried() throws SQLException {
+        LedgerEngine engine = open(64 * 1024);
+        LedgerEngine.Receipt orphaned = engine.transfer(cheque, target, 1_000);
+        accountDAO.delete(target); // before the transfer reaches the tables
+        engine.deposit(savings, 300);
+        accountDAO.delete(savings); // its transaction row now has no account to reference
+        engine.deposit(cheque, 500);
+
+        assertEquals("the deposit is written, the transfer is not", 1, engine.snapshot());
+        assertEquals(0, engine.getPendingCount());
+        assertEquals(50_500, storedBalance(cheque));
+        assertEquals("transfer taken back out of the engine", 50_500, engine.getBalanceMinor(cheque).getAsLong());
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "SELECT account_number, counterparty, amount, reason FROM ledger_dead_letters WHERE transaction_id = ?")) {
+            stmt.setString(1, orphaned.getTransactionId());
+            ResultSet rs = stmt.executeQuery();
+            assertTrue(rs.next());
+            assertEquals(cheque, rs.getString("account_number"));
+            assertEquals(target, rs.getString("counterparty"));
+            assertEquals(1_000, rs.getLong("amount"));
+            assertNotNull(rs.getString("reason"));
+        }
+
+        // later snapshots are not held up
+        engine.deposit(cheque, 200);
+        assertEquals(1, engine.snapshot());
+        assertEquals(50_700, storedBalance(cheque));
+    }
+
+    @Test
+    public void testCompactionKeepsJournalBounded() {
+        int capacity = 8 * 1024;
+        LedgerEngine engine = open(capacity);
+        for (int i = 0; i < 300; i++) {
+            engine.deposit(cheque, 100);
+            if (i % 25 == 24) {
+                engine.snapshot();
+            }
+        }
+        assertTrue(engine.getJournalUsedBytes() < capacity);
+        engine.snapshot();
+        assertEquals(80_000, storedBalance(cheque));
+    }
+
+    @Test
+    public void testControllerRoutesThroughEngine() {
+        LedgerEngine engine = open(64 * 1024);
+        TransactionController controller = new TransactionController(engine);
+        Account from = accountDAO.findById(cheque).orElseThrow();
+        Account to = accountDAO.findById(target).orElseThrow();
+
+        controller.processDeposit(from, 25.0);
+        controller.transferFunds(from, to, 5.0);
+        assertEquals(52_000, from.getBalanceMinor());
+        assertEquals(50_500, to.getBalanceMinor());
+
+        TransactionController.DepositResult result = controller.processDeposit(target, 1.0, "USR-001");
+        assertTrue(result.isSuccess());
+        assertEquals(506.0, result.getNewBalance(), 0.001);
+        assertFalse(controller.processDeposit("LE-missing", 1.0, "USR-001").isSuccess());
+
+        assertEquals(50_000, storedBalance(cheque));
+        engine.snapshot();
+        assertEquals(52_000, storedBalance(cheque));
+        assertEquals(50_600, storedBalance(target));
+    }
+
+    @Test
+    public void testConcurrentTransfersConserveMoney() throws Exception {
+        LedgerEngine engine = open(1024 * 1024);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                boolean forward = t % 2 == 0;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        if (forward) {
+                            engine.transfer(cheque, target, 100);
+                        } else {
+                            engine.transfer(target, cheque, 100);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(100_000, engine.getBalanceMinor(cheque).getAsLong() + engine.getBalanceMinor(target).getAsLong());
+        assertTrue(engine.getJournalForceCount() <= engine.getLastSequence());
+        engine.snapshot();
+        assertEquals(100_000, storedBalance(cheque) + storedBalance(target));
+    }
+
+    @Test
+    public void benchmarkDepositThroughput() throws Exception {
+        TransactionController databasePath = new TransactionController(null);
+        LedgerEngine engine = open(4 * 1024 * 1024);
+        TransactionController enginePath = new TransactionController(engine);
+        Account databaseAccount = accountDAO.findById(cheque).orElseThrow();
+        Account engineAccount = accountDAO.findById(target).orElseThrow();
+
+        // warm up both paths
+        for (int i = 0; i < 20; i++) {
+            databasePath.processDeposit(databaseAccount, 1.0);
+            enginePath.processDeposit(engineAccount, 1.0);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_DEPOSITS; i++) {
+            databasePath.processDeposit(databaseAccount, 1.0);
+        }
+        long databaseMicros = (System.nanoTime() - start) / 1_000 / BENCHMARK_DEPOSITS;
+
+        long forcesBefore = engine.getJournalForceCount();
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_DEPOSITS; i++) {
+            enginePath.processDeposit(engineAccount, 1.0);
+        }
+        long engineMicros = (System.nanoTime() - start) / 1_000 / BENCHMARK_DEPOSITS;
+
+        System.out.printf("Deposit latency: %d us through the database, %d us through the ledger engine "
+            + "(%d journal forces for %d deposits)%n",
+            databaseMicros, engineMicros, engine.getJournalForceCount() - forcesBefore, BENCHMARK_DEPOSITS);
+        engine.snapshot();
+        assertEquals(50_000 + (20 + BENCHMARK_DEPOSITS) * 100L, storedBalance(cheque));
+        assertEquals(50_000 + (20 + BENCHMARK_DEPOSITS) * 100L, storedBalance(target));
+    }
+
+    private LedgerEngine open(int capacity) {
+        try {
+            LedgerEngine engine = LedgerEngine.open(journalPath, capacity, NO_BACKGROUND_SNAPSHOTS, true);
+            engines.add(engine);
+            return engine;
+        } catch (Exception e) {
+            throw new AssertionError("Unable to open ledger engine", e);
+        }
+    }
+
+    private long storedBalance(String accountNumber) {
+        return accountDAO.findById(accountNumber).orElseThrow().getBalanceMinor();
+    }
+}
@@ -0,0 +1,105 @@
+package com.bac;
+
+import controller.AuthenticationController;
+import database.AuditDAO;
+import database.DatabaseConnection;
+import database.UserDAO;
+import model.AuditEntry;
+import model.User;
+import model.UserRole;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.PasswordService;
+import util.Passwords;
+import util.SnowflakeIdGenerator;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Test class for the login pipeline: one users read per login, the audit handed off,
+ * the DB/hash/audit breakdown, and logins/sec against the former query-per-step login.
+ */
+public class LoginPipelineTest {
+
+    private static final String PASSWORD = "Secret123!";
+    private static final int LOGINS = 30;
+
+    private final UserDAO userDAO = new UserDAO();
+    private final AuditDAO auditDAO = new AuditDAO();
+    private final String userId = "LP" + System.nanoTime();
+    private Passwords.Parameters defaults;
+    private PasswordService service;
+
+    @Before
+    public void setUp() {
+        defaults = Passwords.getParameters();
+        // Cheapest allowed parameters, so the database and audit share of a login shows
+        Passwords.setParameters(new Passwords.Parameters(2, 19456, 1));
+        assertTrue(userDAO.save(new User(userId, userId, Passwords.hashPassword(PASSWORD), UserRole.CUSTOMER, true)));
+        service = new PasswordService(1, 4, 10_000);
+    }
+
+    @After
+    public void tearDown() {
+        service.close();
+        auditDAO.flush();
+        Passwords.setParameters(defaults);
+        userDAO.delete(userId);
+    }
+
+    @Test
+    public void testLoginReadsTheUserRowOnce() {
+        AuthenticationController controller = new AuthenticationController(service);
+        long readsBefore = DatabaseConnection.getPoolMetrics().getReaderAcquisitions();
+        assertTrue(controller.login(userId, PASSWORD).isSuccess());
+        assertEquals("users row read once, audit user check answered by it", 1,
+            DatabaseConnection.getPoolMetrics().getReaderAcquisitions() - readsBefore);
+
+        assertEquals(1, auditDAO.findByUserId(userId).stream()
+            .filter(entry -> entry.getAction().equals("LOGIN_SUCCESS")).count());
+    }
+
+    @Test
+    public void testLatencyBreakdownAndThroughput() {
+        AuthenticationController controller = new AuthenticationController(service);
+        // warm up both paths
+        assertTrue(controller.login(userId, PASSWORD).isSuccess());
+        assertTrue(queryPerStepLogin(userId, PASSWORD));
+
+        AuthenticationController.LoginMetrics before = AuthenticationController.getLoginMetrics();
+        long start = System.nanoTime();
+        for (int i = 0; i < LOGINS; i++) {
+            assertTrue(controller.login(userId, PASSWORD).isSuccess());
+        }
+        double pipelineRate = LOGINS / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        for (int i = 0; i < LOGINS; i++) {
+            assertTrue(queryPerStepLogin(userId, PASSWORD));
+        }
+        double queryPerStepRate = LOGINS / ((System.nanoTime() - start) / 1e9);
+
+        AuthenticationController.LoginMetrics after = AuthenticationController.getLoginMetrics();
+        assertEquals(before.getLogins() + LOGINS, after.getLogins());
+        assertTrue(after.getAverageDbNanos() > 0);
+        assertTrue(after.getAverageHashNanos() > 0);
+        assertTrue(after.getAverageAuditNanos() > 0);
+        System.out.printf("LoginPipelineTest: pipeline %.0f logins/sec, query per step %.0f logins/sec (%.2fx); %s%n",
+            pipelineRate, queryPerStepRate, pipelineRate / queryPerStepRate, after);
+    }
+
+    // The login before the pipeline: hash, user and audit actor each read apart, audit written inline
+    private boolean queryPerStepLogin(String username, String password) {
+        String hash = userDAO.findByUsername(username).map(User::getPassword).orElse(null);
+        if (hash == null || service.verify(password, hash) != PasswordService.Verdict.MATCH) {
+            return false;
+        }
+        // findById stands in for the audit actor existence query
+        User user = userDAO.findById(userDAO.findByUsername(username).orElseThrow().getUserId()).orElseThrow();
+        return auditDAO.save(new AuditEntry(SnowflakeIdGenerator.next("AUDIT_"), "LOGIN_SUCCESS",
+            LocalDateTime.now(), user.getUserId(), "Benchmark login"));
+    }
+}
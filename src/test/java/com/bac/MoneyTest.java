@@ -0,0 +1,165 @@
+package com.bac;
+
+import database.Migrations;
+import database.SchemaMigrator;
+import model.*;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Test class and benchmark for fixed-point money in thebe
+ */
+public class MoneyTest {
+
+    private static final int ITERATIONS = 2_000_000;
+
+    @Test
+    public void testConversionsRoundTripExactly() {
+        assertEquals(1005, Money.toMinor(10.05));
+        assertEquals(30, Money.toMinor(0.1 + 0.2));
+        assertEquals(-250, Money.toMinor(-2.5));
+        for (long minor = 0; minor < 100_000; minor += 7) {
+            assertEquals(minor, Money.toMinor(Money.toMajor(minor)));
+        }
+        assertEquals("1234.05", Money.format(123405));
+        assertEquals("P-0.50", Money.ofMinor(-50).toString());
+        assertEquals(Money.of(12.34), Money.ofMinor(1000).plus(Money.ofMinor(234)));
+    }
+
+    @Test
+    public void testRepeatedDepositsDoNotDrift() {
+        Account account = new Account("MONEY-1", 0.0, LocalDate.now(), LocalDate.now(),
+            null, AccountStatus.ACTIVE);
+        double naive = 0.0;
+        for (int i = 0; i < 1_000; i++) {
+            account.deposit(0.10);
+            naive += 0.10;
+        }
+        assertEquals(10_000, account.getBalanceMinor());
+        assertEquals(100.0, account.getBalance(), 0.0);
+        assertNotEquals("double accumulation drifts", 100.0, naive, 0.0);
+    }
+
+    @Test
+    public void testInterestRoundsHalfUpLikeBigDecimal() {
+        long[] balances = {1, 99, 50_000, 123_457, 150_000, 987_654_321L, 400_000_000_000L};
+        double[] rates = {0.025, 0.065, 0.0375};
+        long[] days = {30, 31, 90, 365};
+        for (long balance : balances) {
+            for (double rate : rates) {
+                for (long d : days) {
+                    assertEquals(balance + " @ " + rate + " for " + d,
+                        bigDecimalInterest(balance, rate, d), Money.simpleInterest(balance, rate, d));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSavingsInterestIsWholeThebe() {
+        SavingsAccount savings = new SavingsAccount("MONEY-2", 1234.57,
+            LocalDate.now().minusDays(45), LocalDate.now().minusDays(45), null, AccountStatus.ACTIVE);
+        long interest = savings.calculateInterestMinor();
+        assertEquals(bigDecimalInterest(123_457, 0.025, 45), interest);
+        assertEquals(Money.toMajor(interest), savings.calculateInterest(), 0.0);
+
+        savings.applyInterest();
+        assertEquals(123_457 + interest, savings.getBalanceMinor());
+    }
+
+    @Test
+    public void testMigrationConvertsRealColumns() throws Exception {
+        File dbFile = File.createTempFile("money-migration", ".db");
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+             Statement stmt = conn.createStatement()) {
+            // schema as it was before money moved to thebe
+            new SchemaMigrator(Migrations.all().subList(0, 3)).migrate(conn);
+            stmt.execute("INSERT INTO users (user_id, username, password, role) VALUES ('U1', 'u1', 'x', 'CUSTOMER')");
+            stmt.execute("INSERT INTO customers VALUES ('C1', 'U1', 'A', 'B', 'addr', '1', 'e', 'INDIVIDUAL')");
+            stmt.execute("INSERT INTO accounts (account_number, balance, date_created, date_opened, customer_id, status, account_type) "
+                + "VALUES ('A1', 1500.29, '2024-01-01', '2024-01-01', 'C1', 'ACTIVE', 'SAVINGS')");
+            stmt.execute("INSERT INTO transactions (transaction_id, transaction_type, amount, account_number) "
+                + "VALUES ('T1', 'DEPOSIT', 0.1, 'A1')");
+
+            new SchemaMigrator(Migrations.all()).migrate(conn);
+
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT a.balance, typeof(a.balance), t.amount, typeof(t.amount) "
+                    + "FROM accounts a JOIN transactions t ON t.account_number = a.account_number")) {
+                assertTrue(rs.next());
+                assertEquals(150_029, rs.getLong(1));
+                assertEquals("integer", rs.getString(2));
+                assertEquals(10, rs.getLong(3));
+                assertEquals("integer", rs.getString(4));
+            }
+        } finally {
+            dbFile.delete();
+        }
+    }
+
+    @Test
+    public void testLongArithmeticBenchmarkAgainstBigDecimal() {
+        // warm up both paths before timing
+        runLong(ITERATIONS / 10);
+        runBigDecimal(ITERATIONS / 10);
+
+        long start = System.nanoTime();
+        long longResult = runLong(ITERATIONS);
+        long longNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long bigDecimalResult = runBigDecimal(ITERATIONS);
+        long bigDecimalNanos = System.nanoTime() - start;
+
+        System.out.printf("MoneyTest: %d deposit+interest steps - long %d ms, BigDecimal %d ms (%.1fx)%n",
+            ITERATIONS, longNanos / 1_000_000, bigDecimalNanos / 1_000_000,
+            (double) bigDecimalNanos / longNanos);
+
+        assertEquals("Both representations must agree to the thebe", bigDecimalResult, longResult);
+        assertTrue("Primitive thebe arithmetic should beat BigDecimal", longNanos < bigDecimalNanos);
+    }
+
+    private static long runLong(int iterations) {
+        long balance = 0;
+        for (int i = 0; i < iterations; i++) {
+            balance = Money.add(balance, 1_234);
+            if (i % 1_000 == 999) {
+                balance = Money.add(balance, Money.simpleInterest(balance, 0.025, 30));
+            }
+        }
+        return balance;
+    }
+
+    private static long runBigDecimal(int iterations) {
+        BigDecimal balance = BigDecimal.ZERO.setScale(2);
+        BigDecimal deposit = new BigDecimal("12.34");
+        for (int i = 0; i < iterations; i++) {
+            balance = balance.add(deposit);
+            if (i % 1_000 == 999) {
+                BigDecimal interest = balance.multiply(new BigDecimal("0.025"))
+                    .multiply(BigDecimal.valueOf(30))
+                    .divide(BigDecimal.valueOf(365), 2, RoundingMode.HALF_UP);
+                balance = balance.add(interest);
+            }
+        }
+        return balance.movePointRight(2).longValueExact();
+    }
+
+    private static long bigDecimalInterest(long balanceMinor, double rate, long days) {
+        return BigDecimal.valueOf(balanceMinor)
+            .multiply(BigDecimal.valueOf(rate))
+            .multiply(BigDecimal.valueOf(days))
+            .divide(BigDecimal.valueOf(365), 0, RoundingMode.HALF_UP)
+            .longValueExact();
+    }
+}
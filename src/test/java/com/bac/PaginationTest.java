@@ -0,0 +1,164 @@
+package com.bac;
+
+import database.AccountDAO;
+import database.AuditDAO;
+import database.Page;
+import database.PageCursor;
+import database.TransactionDAO;
+import model.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Test class for keyset pagination on TransactionDAO and AuditDAO.
+ * Rows deliberately share timestamps so the id tiebreaker is exercised.
+ */
+public class PaginationTest {
+
+    private static final int ROWS_PER_ACCOUNT = 37;
+    private static final int PAGE_SIZE = 10;
+
+    private final String prefix = "PG" + System.nanoTime();
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final AuditDAO auditDAO = new AuditDAO();
+    private final List<String> accounts = new ArrayList<>();
+    private final List<String> auditIds = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        // CUST-002 is part of the seeded sample data
+        Customer owner = Customer.reference("USR-002", "CUST-002", "Jane", "Smith",
+            "456 Oak Ave", "555-0456", "jane@email.com", CustomerType.INDIVIDUAL);
+        LocalDateTime base = LocalDateTime.now().withNano(0);
+
+        for (int a = 0; a < 2; a++) {
+            SavingsAccount account = new SavingsAccount(prefix + "-" + a, 100.0,
+                LocalDate.now(), LocalDate.now(), owner, AccountStatus.ACTIVE);
+            assertTrue(accountDAO.save(account));
+            accounts.add(account.getAccountNumber());
+
+            for (int i = 0; i < ROWS_PER_ACCOUNT; i++) {
+                // three rows per second, interleaved across both accounts
+                LocalDateTime timestamp = base.minusSeconds(i / 3);
+                assertTrue(transactionDAO.save(new Transaction(prefix + "-" + a + "-" + i,
+                    TransactionType.DEPOSIT, 1.0, timestamp, "page probe", account)));
+            }
+        }
+
+        for (int i = 0; i < ROWS_PER_ACCOUNT; i++) {
+            String auditId = "AUDIT_" + prefix + "_" + i;
+            assertTrue(auditDAO.save(new AuditEntry(auditId, "PAGE_TEST",
+                base.plusYears(1).minusSeconds(i / 4), "ADM-001", "page probe")));
+            auditIds.add(auditId);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        // transactions cascade with their account
+        for (String accountNumber : accounts) {
+            accountDAO.delete(accountNumber);
+        }
+        for (String auditId : auditIds) {
+            auditDAO.delete(auditId);
+        }
+    }
+
+    @Test
+    public void testAccountPagesCoverHistoryExactlyOnce() {
+        List<Transaction> paged = new ArrayList<>();
+        PageCursor cursor = null;
+        int pages = 0;
+        do {
+            Page<Transaction> page = transactionDAO.findPage(accounts.get(0), cursor, PAGE_SIZE);
+            assertTrue(page.size() <= PAGE_SIZE);
+            paged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(ROWS_PER_ACCOUNT, paged.size());
+        assertEquals((ROWS_PER_ACCOUNT + PAGE_SIZE - 1) / PAGE_SIZE, pages);
+        assertNewestFirst(paged);
+        assertEquals(ROWS_PER_ACCOUNT, ids(paged).size());
+    }
+
+    @Test
+    public void testCustomerPagesMergeAccounts() {
+        List<Transaction> paged = new ArrayList<>();
+        PageCursor cursor = null;
+        do {
+            Page<Transaction> page = transactionDAO.findPageByCustomerId("CUST-002", cursor, PAGE_SIZE);
+            paged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertNewestFirst(paged);
+        assertEquals(ids(transactionDAO.findByCustomerId("CUST-002")), ids(paged));
+        assertEquals(paged.size(), ids(paged).size());
+    }
+
+    @Test
+    public void testAuditPagesByUserAndGlobal() {
+        // the probe entries are dated a year ahead, so they lead both listings
+        List<String> seen = new ArrayList<>();
+        PageCursor cursor = null;
+        do {
+            Page<AuditEntry> page = auditDAO.findPageByUserId("ADM-001", cursor, PAGE_SIZE);
+            for (AuditEntry entry : page.getItems()) {
+                seen.add(entry.getAuditId());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(auditIds.size(), seen.stream().filter(auditIds::contains).count());
+        assertEquals(seen.size(), new HashSet<>(seen).size());
+
+        Page<AuditEntry> first = auditDAO.findPage(null, PAGE_SIZE);
+        Page<AuditEntry> second = auditDAO.findPage(first.getNextCursor(), PAGE_SIZE);
+        assertEquals(seen.subList(0, PAGE_SIZE), auditIdsOf(first));
+        assertEquals(seen.subList(PAGE_SIZE, 2 * PAGE_SIZE), auditIdsOf(second));
+        assertTrue(auditDAO.count() >= auditIds.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOversizedPageIsRejected() {
+        transactionDAO.findPage(accounts.get(0), null, Page.MAX_LIMIT + 1);
+    }
+
+    private static void assertNewestFirst(List<Transaction> transactions) {
+        for (int i = 1; i < transactions.size(); i++) {
+            Transaction prev = transactions.get(i - 1);
+            Transaction next = transactions.get(i);
+            PageCursor prevKey = new PageCursor(prev.getTimeStamp(), prev.getTransactionId());
+            assertTrue("Out of order at " + i,
+                prevKey.precedes(next.getTimeStamp(), next.getTransactionId()));
+        }
+    }
+
+    private static Set<String> ids(List<Transaction> transactions) {
+        Set<String> ids = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            ids.add(transaction.getTransactionId());
+        }
+        return ids;
+    }
+
+    private static List<String> auditIdsOf(Page<AuditEntry> page) {
+        List<String> ids = new ArrayList<>();
+        for (AuditEntry entry : page.getItems()) {
+            ids.add(entry.getAuditId());
+        }
+        return ids;
+    }
+}
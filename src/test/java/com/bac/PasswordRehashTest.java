@@ -0,0 +1,111 @@
+package com.bac;
+
+import controller.AuthenticationController;
+import database.UserDAO;
+import model.User;
+import model.UserRole;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.PasswordService;
+import util.Passwords;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for Argon2 calibration and rehash-on-login: calibrated parameters are
+ * recorded in new hashes, and a successful login replaces a hash made with old ones.
+ */
+public class PasswordRehashTest {
+
+    private static final String PASSWORD = "Secret123!";
+    // Cheapest parameters calibration may choose, so these tests stay fast
+    private static final Passwords.Parameters FLOOR = new Passwords.Parameters(2, 19456, 1);
+
+    private final UserDAO userDAO = new UserDAO();
+    private final String userId = "RH" + System.nanoTime();
+    private Passwords.Parameters defaults;
+    private String originalHash;
+
+    @Before
+    public void setUp() {
+        defaults = Passwords.getParameters();
+        originalHash = Passwords.hashPassword(PASSWORD);
+        assertTrue(userDAO.save(new User(userId, userId, originalHash, UserRole.CUSTOMER, true)));
+    }
+
+    @After
+    public void tearDown() {
+        Passwords.setParameters(defaults);
+        userDAO.delete(userId);
+    }
+
+    @Test
+    public void testCalibrationMeetsBudgetAndIsRecordedInHashes() {
+        Passwords.Parameters calibrated = Passwords.calibrate(50, 32768);
+        System.out.println("PasswordRehashTest: calibrated to " + calibrated);
+        assertSame(calibrated, Passwords.getParameters());
+        assertTrue(calibrated.getMemoryKib() >= 19456 && calibrated.getMemoryKib() <= 32768);
+        assertTrue(calibrated.getIterations() >= 2);
+        assertEquals(calibrated.getMemoryKib(), Passwords.getMemoryCostKib());
+
+        String hash = Passwords.hashPassword(PASSWORD);
+        assertTrue(hash, hash.contains("$m=" + calibrated.getMemoryKib() + ",t=" + calibrated.getIterations() + ",p=1$"));
+        assertFalse(Passwords.needsRehash(hash));
+        // hashes keep verifying under whatever parameters are current
+        Passwords.setParameters(defaults);
+        assertTrue(Passwords.verifyPassword(PASSWORD, hash));
+        assertTrue(Passwords.needsRehash(hash));
+    }
+
+    @Test
+    public void testLoginRehashesOutOfDateHash() {
+        assertFalse(Passwords.needsRehash(originalHash));
+        Passwords.setParameters(FLOOR);
+        assertTrue(Passwords.needsRehash(originalHash));
+
+        try (PasswordService service = new PasswordService(1, 4, 10_000)) {
+            AuthenticationController controller = new AuthenticationController(service);
+            // a wrong password proves nothing, so the hash stays
+            assertFalse(controller.login(userId, "Wrong123!").isSuccess());
+            assertEquals(originalHash, storedHash());
+
+            assertTrue(controller.login(userId, PASSWORD).isSuccess());
+            String upgraded = storedHash();
+            assertNotEquals(originalHash, upgraded);
+            assertTrue(upgraded.contains("$m=19456,t=2,p=1$"));
+            assertFalse(Passwords.needsRehash(upgraded));
+
+            // already current: left alone
+            assertTrue(controller.login(userId, PASSWORD).isSuccess());
+            assertEquals(upgraded, storedHash());
+        }
+    }
+
+    @Test
+    public void testLoginRehashesThroughThePasswordPool() {
+        try (PasswordService service = new PasswordService(1, 4, 10_000)) {
+            Passwords.setParameters(FLOOR);
+            AuthenticationController controller = new AuthenticationController(service);
+            assertTrue(controller.login(userId, PASSWORD).isSuccess());
+            assertTrue(storedHash().contains("$m=19456,t=2,p=1$"));
+            assertEquals("verify and rehash", 2, service.getMetrics().getCompleted());
+
+            assertTrue(controller.login(userId, PASSWORD).isSuccess());
+            assertEquals("verify only", 3, service.getMetrics().getCompleted());
+        }
+    }
+
+    @Test
+    public void testReplaceOnlyIfUnchanged() {
+        String newer = Passwords.hashPassword(PASSWORD);
+        assertFalse(userDAO.replacePasswordHash(userId, "$argon2i$stale", newer));
+        assertEquals(originalHash, storedHash());
+        assertTrue(userDAO.replacePasswordHash(userId, originalHash, newer));
+        assertEquals(newer, storedHash());
+    }
+
+    private String storedHash() {
+        return userDAO.findByUsername(userId).orElseThrow().getPassword();
+    }
+}
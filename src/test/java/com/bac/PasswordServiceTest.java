@@ -0,0 +1,120 @@
+package com.bac;
+
+import controller.AuthenticationController;
+import org.junit.After;
+import org.junit.Test;
+import service.PasswordService;
+import util.Passwords;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class for the bounded password pool: sizing by memory budget, verdicts, BUSY
+ * answers under load with queue wait and hash time measured apart, and logins through it.
+ */
+public class PasswordServiceTest {
+
+    private static final String HASH = Passwords.hashPassword("Secret123!");
+
+    private final List<PasswordService> services = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (PasswordService service : services) {
+            service.close();
+        }
+    }
+
+    @Test
+    public void testWorkersAreSizedByMemoryBudget() {
+        int perCallMb = Passwords.getMemoryCostKib() / 1024;
+        assertEquals(1, PasswordService.workersFor(0));
+        assertEquals(1, PasswordService.workersFor(perCallMb));
+        assertEquals(Math.min(2, Runtime.getRuntime().availableProcessors()), PasswordService.workersFor(2L * perCallMb));
+        assertEquals(Runtime.getRuntime().availableProcessors(), PasswordService.workersFor(Long.MAX_VALUE / 2));
+        assertThrows(IllegalArgumentException.class, () -> new PasswordService(0, 1, 1_000));
+    }
+
+    @Test
+    public void testVerdicts() {
+        PasswordService service = open(1, 4, 10_000);
+        assertEquals(PasswordService.Verdict.MATCH, service.verify("Secret123!", HASH));
+        assertEquals(PasswordService.Verdict.MISMATCH, service.verify("wrong", HASH));
+        // reserved users' placeholder hash never matches
+        assertEquals(PasswordService.Verdict.MISMATCH, service.verify("Secret123!", "!reserved"));
+
+        PasswordService.Metrics metrics = service.getMetrics();
+        assertEquals(3, metrics.getCompleted());
+        assertEquals(0, metrics.getRejected() + metrics.getTimedOut());
+        assertTrue(metrics.getAverageHashNanos() > 0);
+    }
+
+    @Test
+    public void testOverloadAnswersBusyInsteadOfQueueingMore() throws Exception {
+        PasswordService service = open(1, 1, 50);
+        List<PasswordService.Verdict> verdicts = runConcurrently(8, () -> service.verify("Secret123!", HASH));
+
+        long busy = verdicts.stream().filter(v -> v == PasswordService.Verdict.BUSY).count();
+        long matched = verdicts.stream().filter(v -> v == PasswordService.Verdict.MATCH).count();
+        assertEquals(8, busy + matched);
+        assertTrue("Some requests must be turned away", busy > 0);
+        assertTrue("Some requests must be served", matched > 0);
+
+        PasswordService.Metrics metrics = service.getMetrics();
+        assertEquals(busy, metrics.getRejected() + metrics.getTimedOut());
+        assertEquals(matched, metrics.getCompleted());
+        assertEquals(0, metrics.getQueued());
+        System.out.println("PasswordServiceTest: " + metrics);
+    }
+
+    @Test
+    public void testLoginGoesThroughThePool() throws Exception {
+        PasswordService service = open(1, 1, 50);
+        AuthenticationController controller = new AuthenticationController(service);
+        // seeded sample customer
+        assertTrue(controller.login("john_doe", "password123").isSuccess());
+        assertFalse(controller.login("john_doe", "wrong-password").isSuccess());
+        long completed = service.getMetrics().getCompleted();
+        assertEquals(2, completed);
+
+        List<AuthenticationController.LoginResult> results =
+            runConcurrently(8, () -> controller.login("john_doe", "password123"));
+        long busy = results.stream().filter(r -> r.getMessage().contains("busy")).count();
+        assertTrue(busy > 0);
+        for (AuthenticationController.LoginResult result : results) {
+            assertTrue(result.getMessage(), result.isSuccess() || result.getMessage().contains("busy"));
+        }
+        // busy answers are not failed attempts, so the account is not locked
+        assertTrue(controller.login("john_doe", "password123").isSuccess());
+    }
+
+    private PasswordService open(int workers, int queueCapacity, long queueTimeoutMillis) {
+        PasswordService service = new PasswordService(workers, queueCapacity, queueTimeoutMillis);
+        services.add(service);
+        return service;
+    }
+
+    private static <T> List<T> runConcurrently(int callers, Callable<T> call) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(pool.submit(call));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
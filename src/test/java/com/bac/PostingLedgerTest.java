@@ -0,0 +1,154 @@
+package com.bac;
+
+import controller.TransactionController;
+import database.AccountDAO;
+import database.DatabaseConnection;
+import database.Page;
+import database.PageCursor;
+import database.PostingDAO;
+import model.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Test class for the double-entry postings ledger: two legs per movement, counterparty
+ * lookups, trigger-posted opening/adjustment/closing journals, the balance projection
+ * and reconciliation.
+ */
+public class PostingLedgerTest {
+
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final PostingDAO postingDAO = new PostingDAO();
+    private final TransactionController controller = new TransactionController();
+    private final String source = "PL" + System.nanoTime() + "-A";
+    private final String target = "PL" + System.nanoTime() + "-B";
+    private final LocalDateTime testStart = LocalDateTime.now().minusMinutes(1);
+
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Before
+    public void setUp() {
+        for (String accountNumber : new String[] {source, target}) {
+            accounts.save(new ChequeAccount(accountNumber, 500.0, LocalDate.now(), LocalDate.now(),
+                TestAccounts.seededOwner(), AccountStatus.ACTIVE, "Acme", "1 Plot Rd", true));
+        }
+    }
+
+    @Test
+    public void testTransferPostsBothLegsUnderOneJournal() {
+        Account from = accountDAO.findById(source).orElseThrow();
+        Account to = accountDAO.findById(target).orElseThrow();
+        controller.transferFunds(from, to, 120.0);
+
+        List<Posting> targetStatement = postingDAO.findStatement(target, testStart, LocalDateTime.now().plusMinutes(1));
+        Posting credit = targetStatement.get(targetStatement.size() - 1);
+        assertEquals(12_000, credit.getAmountMinor());
+        assertEquals(source, credit.getCounterparty());
+        assertEquals("TRANSFER_INTERNAL", credit.getPostingType());
+
+        List<Posting> journal = postingDAO.findByJournal(credit.getJournalId());
+        assertEquals(2, journal.size());
+        assertEquals(0, journal.get(0).getAmountMinor() + journal.get(1).getAmountMinor());
+
+        // the target's side of the transfer, found from the source account
+        List<Posting> paidBySource = postingDAO.findByCounterparty(source, testStart, LocalDateTime.now().plusMinutes(1));
+        assertTrue(paidBySource.stream().anyMatch(p -> p.getPostingId() == credit.getPostingId()));
+
+        assertEquals(38_000, postingDAO.getProjectedBalance(source));
+        assertEquals(62_000, postingDAO.getProjectedBalance(target));
+    }
+
+    @Test
+    public void testIncomingTransferIsInTheTargetCustomersHistory() {
+        // CUST-002 is part of the seeded sample data
+        Customer payee = Customer.reference("USR-002", "CUST-002", "Jane", "Smith",
+            "456 Oak Ave", "555-0456", "jane@email.com", CustomerType.INDIVIDUAL);
+        String payeeAccount = "PL" + System.nanoTime() + "-C";
+        accounts.save(new ChequeAccount(payeeAccount, 0.0, LocalDate.now(), LocalDate.now(),
+            payee, AccountStatus.ACTIVE, "Acme", "1 Plot Rd", true));
+        controller.transferFunds(accountDAO.findById(source).orElseThrow(),
+            accountDAO.findById(payeeAccount).orElseThrow(), 45.0);
+
+        // walk the payee's history in small pages; no posting may repeat across pages
+        Set<Long> seen = new HashSet<>();
+        Posting credit = null;
+        PageCursor cursor = null;
+        do {
+            Page<Posting> page = postingDAO.findPageByCustomerId("CUST-002", cursor, 3);
+            for (Posting posting : page.getItems()) {
+                assertTrue("posting repeated across pages", seen.add(posting.getPostingId()));
+                if (posting.getAccountNumber().equals(payeeAccount)) {
+                    credit = posting;
+                }
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null && credit == null);
+
+        assertNotNull("incoming transfer missing from the payee's history", credit);
+        assertEquals(4_500, credit.getAmountMinor());
+        assertEquals(source, credit.getCounterparty());
+    }
+
+    @Test
+    public void testDepositAndWithdrawalBalanceAgainstCash() {
+        Account account = accountDAO.findById(source).orElseThrow();
+        controller.processDeposit(account, 30.0);
+        controller.processWithdrawal(account, 10.0);
+
+        List<Posting> statement = postingDAO.findStatement(source, testStart, LocalDateTime.now().plusMinutes(1));
+        // opening balance, deposit, withdrawal
+        assertEquals(3, statement.size());
+        for (Posting leg : statement) {
+        List<Posting> journal = postingDAO.findByJournal(leg.getJournalId());
+        assertEquals(2, journal.size());
+        assertEquals(0, journal.stream().mapToLong(Posting::getAmountMinor).sum());
+        }
+        assertEquals(PostingDAO.CASH_ACCOUNT, statement.get(1).getCounterparty());
+        assertEquals(52_000, postingDAO.getLedgerBalance(source));
+        assertEquals(52_000, postingDAO.getProjectedBalance(source));
+    }
+
+    @Test
+    public void testDirectBalanceWritesAreAdjustedAndBooksReconcile() {
+        assertTrue(accountDAO.adjustBalanceMinor(source, 27_700));
+
+        List<Posting> statement = postingDAO.findStatement(source, testStart, LocalDateTime.now().plusMinutes(1));
+        Posting adjustment = statement.get(statement.size() - 1);
+        assertEquals("ADJUSTMENT", adjustment.getPostingType());
+        assertEquals(27_700, adjustment.getAmountMinor());
+        assertEquals(77_700, postingDAO.getProjectedBalance(source));
+        assertTrue("Unreconciled accounts: " + postingDAO.reconcile(), postingDAO.reconcile().isEmpty());
+    }
+
+    @Test
+    public void testDeletedAccountIsClosedOut() {
+        accountDAO.delete(target);
+        assertEquals(0, postingDAO.getProjectedBalance(target));
+        assertEquals(0, postingDAO.getLedgerBalance(target));
+    }
+
+    @Test
+    public void testPostingsAreAppendOnly() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE postings SET amount = 0 WHERE account_number = '" + source + "'");
+            fail("Postings should reject updates");
+        } catch (SQLException expected) {
+            assertTrue(expected.getMessage().contains("append-only"));
+        }
+        assertEquals(50_000, postingDAO.getLedgerBalance(source));
+    }
+}
@@ -0,0 +1,130 @@
+package com.bac;
+
+import database.AccountDAO;
+import database.DatabaseConnection;
+import database.InterestDAO;
+import database.PostingDAO;
+import database.TransactionDAO;
+import model.*;
+import org.junit.Rule;
+import org.junit.Test;
+import service.InterestService;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for set-based interest posting: the same accounts paid by the Java
+ * pipeline and by SQL must receive the same interest to the thebe.
+ */
+public class SetBasedInterestTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final long[] BALANCES = {1, 99, 1_234_567, 50_000, 100_000_000_000L};
+    private static final double[] RATES = {0.0001, 0.025, 0.0333333, 0.065, 0.12345678};
+    private static final int[] AGES_IN_DAYS = {29, 30, 31, 89, 90, 91, 365, 400};
+
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final PostingDAO postingDAO = new PostingDAO();
+    private final InterestDAO interestDAO = new InterestDAO();
+    private final String javaPrefix = "SJ" + System.nanoTime();
+    private final String sqlPrefix = "SQ" + System.nanoTime();
+    private final List<String> created = new ArrayList<>();
+
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Test
+    public void testSqlModeMatchesJavaModeToTheThebe() throws Exception {
+        List<Account> javaAccounts = grid(javaPrefix);
+        List<Account> sqlAccounts = grid(sqlPrefix);
+        assertTrue(accountDAO.saveAll(javaAccounts).isComplete());
+        assertTrue(accountDAO.saveAll(sqlAccounts).isComplete());
+        // seed-style rows keep date_created as ISO text rather than epoch millis
+        insertWithTextDate(javaPrefix + "-T");
+        insertWithTextDate(sqlPrefix + "-T");
+
+        InterestService.RunResult javaRun = new InterestService(64, 2, InterestService.Mode.JAVA)
+            .runInterest(TODAY, javaPrefix, javaPrefix + "~", Integer.MAX_VALUE);
+        InterestService.RunResult sqlRun = new InterestService(64, 2, InterestService.Mode.SQL)
+            .runInterest(TODAY, sqlPrefix, sqlPrefix + "~", Integer.MAX_VALUE);
+
+        assertTrue(javaRun.getAccountsPaid() > 0);
+        assertEquals(javaRun.getAccountsPaid(), sqlRun.getAccountsPaid());
+        assertEquals(javaRun.getInterestPaidMinor(), sqlRun.getInterestPaidMinor());
+        for (String suffix : suffixes()) {
+            Account paidByJava = accountDAO.findById(javaPrefix + suffix).orElseThrow();
+            Account paidBySql = accountDAO.findById(sqlPrefix + suffix).orElseThrow();
+            assertEquals("Balance for " + suffix, paidByJava.getBalanceMinor(), paidBySql.getBalanceMinor());
+            assertEquals("Accrual date for " + suffix, ((InterestBearing) paidByJava).getLastInterestApplied(),
+                ((InterestBearing) paidBySql).getLastInterestApplied());
+            assertEquals(transactionDAO.findByAccountNumber(javaPrefix + suffix).size(),
+                transactionDAO.findByAccountNumber(sqlPrefix + suffix).size());
+        }
+        List<String> unreconciled = postingDAO.reconcile();
+        for (String accountNumber : created) {
+            assertFalse("Unreconciled " + accountNumber, unreconciled.contains(accountNumber));
+        }
+
+        // accounts are paid once per date whichever mode runs next, even under another run
+        assertEquals(0, new InterestService(64, 2, InterestService.Mode.SQL)
+            .runInterest(TODAY, sqlPrefix, sqlPrefix + "~", Integer.MAX_VALUE).getAccountsPaid());
+        assertEquals(0, interestDAO.postDueInterest("INT-" + TODAY + ":recheck-" + javaPrefix, TODAY,
+            javaPrefix, javaPrefix + "~").getAccountsPaid());
+    }
+
+    private List<Account> grid(String prefix) {
+        Customer owner = TestAccounts.seededOwner();
+        List<Account> grid = new ArrayList<>();
+        int i = 0;
+        for (long balance : BALANCES) {
+            for (double rate : RATES) {
+                for (int age : AGES_IN_DAYS) {
+                    LocalDate created = TODAY.minusDays(age);
+                    String accountNumber = prefix + String.format("-%03d", i++);
+                    if (i % 2 == 0) {
+                        SavingsAccount savings = new SavingsAccount(accountNumber, Money.toMajor(balance),
+                            created, created, owner, AccountStatus.ACTIVE);
+                        savings.setInterestRate(rate);
+                        grid.add(savings);
+                    } else {
+                        InvestmentAccount investment = new InvestmentAccount(accountNumber, Money.toMajor(balance),
+                            created, created, owner, AccountStatus.ACTIVE);
+                        investment.setInterestRate(rate);
+                        grid.add(investment);
+                    }
+                    this.created.add(accountNumber);
+                    accounts.deleteAfter(accountNumber);
+                }
+            }
+        }
+        return grid;
+    }
+
+    private List<String> suffixes() {
+        List<String> suffixes = new ArrayList<>();
+        for (String accountNumber : created) {
+            if (accountNumber.startsWith(javaPrefix)) {
+                suffixes.add(accountNumber.substring(javaPrefix.length()));
+            }
+        }
+        return suffixes;
+    }
+
+    private void insertWithTextDate(String accountNumber) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO accounts (account_number, balance, date_created, date_opened, customer_id, "
+                + "status, account_type, interest_rate) VALUES ('" + accountNumber + "', 150000, '"
+                + TODAY.minusDays(45) + "', '" + TODAY.minusDays(45) + "', 'CUST-001', 'ACTIVE', 'SAVINGS', 0.025)");
+        }
+        created.add(accountNumber);
+        accounts.deleteAfter(accountNumber);
+    }
+}
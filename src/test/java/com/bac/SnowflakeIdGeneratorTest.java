@@ -0,0 +1,126 @@
+package com.bac;
+
+import database.DatabaseConnection;
+import org.junit.Test;
+import util.SnowflakeIdGenerator;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class and multi-threaded benchmark for SnowflakeIdGenerator.
+ */
+public class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 500_000;
+
+    @Test
+    public void testIdsEncodeTimeAndNode() {
+        long now = 1_750_000_000_000L;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(42, () -> now);
+        long id = generator.nextId();
+        assertEquals(now, SnowflakeIdGenerator.timestampOf(id));
+        assertEquals(42, SnowflakeIdGenerator.nodeIdOf(id));
+        assertTrue(id > 0);
+    }
+
+    @Test
+    public void testDefaultNodeIsAllocatedFromTheDatabase() throws Exception {
+        assumeTrue(System.getProperty("id.nodeId") == null);
+        int nodeId = DatabaseConnection.getNodeId();
+        assertEquals(nodeId, SnowflakeIdGenerator.nodeIdOf(SnowflakeIdGenerator.getDefault().nextId()));
+        // the next process to open the file is handed the following node
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT next_value FROM sequences WHERE name = 'snowflake_node'")) {
+            assertTrue(rs.next());
+            assertEquals(nodeId, (rs.getLong(1) - 1) % (SnowflakeIdGenerator.MAX_NODE_ID + 1));
+        }
+    }
+
+    @Test
+    public void testClockGoingBackwardsNeverRepeatsIds() {
+        AtomicLong clock = new AtomicLong(1_750_000_000_000L);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+        long first = generator.nextId();
+        clock.addAndGet(-5_000); // NTP step back
+        long second = generator.nextId();
+        assertTrue(second > first);
+        assertEquals(1, generator.getIssuedAheadOfClock());
+    }
+
+    @Test
+    public void testSequenceOverflowCarriesIntoNextMillisecond() {
+        long now = 1_750_000_000_000L;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> now);
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertTrue(SnowflakeIdGenerator.timestampOf(previous) > now);
+    }
+
+    @Test
+    public void testStringIdsSortInIssueOrder() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, System::currentTimeMillis);
+        String previous = generator.nextId("TXN_");
+        for (int i = 0; i < 10_000; i++) {
+            String id = generator.nextId("TXN_");
+            assertEquals(previous.length(), id.length());
+            assertTrue(id.compareTo(previous) > 0);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testConcurrentIdsAreUniqueBenchmark() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, System::currentTimeMillis);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                long[] ids = new long[IDS_PER_THREAD];
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        long[] all = new long[THREADS * IDS_PER_THREAD];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get(60, TimeUnit.SECONDS);
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue("IDs must increase within a thread", ids[i] > ids[i - 1]);
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals("duplicate ID", all[i - 1], all[i]);
+        }
+        System.out.printf("SnowflakeIdGeneratorTest: %d IDs on %d threads, %.1f million IDs/sec, %d issued ahead of clock%n",
+            all.length, THREADS, all.length / seconds / 1e6, generator.getIssuedAheadOfClock());
+    }
+}
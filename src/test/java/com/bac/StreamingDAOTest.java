@@ -0,0 +1,127 @@
+package com.bac;
+
+import database.AuditDAO;
+import database.DatabaseConnection;
+import database.UserDAO;
+import model.AuditEntry;
+import model.User;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Test class for the DAOs' streamAll() cursors.
+ * A full-table pass must map rows lazily, keep heap flat as rows go by and hand its
+ * read connection back when the stream ends.
+ */
+public class StreamingDAOTest {
+
+    private static final int ROW_COUNT = 50_000;
+    private static final String PREFIX = "STREAM_" + System.nanoTime() + "_";
+    // ~1 KB per row, so materializing the table would cost tens of megabytes
+    private static final String DETAILS = "x".repeat(1024);
+
+    @BeforeClass
+    public static void insertRows() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                 "INSERT INTO audit_trail (audit_id, action, timestamp, user_id, details) VALUES (?, ?, ?, ?, ?)")) {
+            conn.setAutoCommit(false);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (int i = 0; i < ROW_COUNT; i++) {
+                stmt.setString(1, PREFIX + i);
+                stmt.setString(2, "STREAM_TEST");
+                stmt.setTimestamp(3, now);
+                stmt.setString(4, "ADM-001");
+                stmt.setString(5, DETAILS);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            conn.commit();
+        }
+    }
+
+    @AfterClass
+    public static void deleteRows() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM audit_trail WHERE audit_id LIKE ?")) {
+            stmt.setString(1, PREFIX + "%");
+            stmt.executeUpdate();
+        }
+    }
+
+    @Test
+    public void testHeapStaysFlatDuringFullPass() {
+        long early = -1;
+        long peak = 0;
+        int seen = 0;
+        List<WeakReference<AuditEntry>> sampled = new ArrayList<>();
+
+        try (Stream<AuditEntry> entries = new AuditDAO().streamAll()) {
+            Iterator<AuditEntry> it = entries.iterator();
+            while (it.hasNext()) {
+                AuditEntry entry = it.next();
+                seen++;
+                if (seen % 1_000 == 0) {
+                    sampled.add(new WeakReference<>(entry));
+                }
+                if (seen == 1_000 || seen % 10_000 == 0) {
+                    long used = usedHeapAfterGc();
+                    if (early < 0) {
+                        early = used;
+                    }
+                    peak = Math.max(peak, used);
+                }
+            }
+        }
+
+        long growth = peak - early;
+        System.out.printf("StreamingDAOTest: streamed %d rows, heap at 1k rows %d KB, peak %d KB (growth %d KB)%n",
+            seen, early / 1024, peak / 1024, growth / 1024);
+
+        assertTrue(seen >= ROW_COUNT);
+        // a materialized list of these rows would be ~50 MB
+        assertTrue("Heap grew by " + growth / 1024 + " KB during the pass", growth < 16L * 1024 * 1024);
+
+        usedHeapAfterGc();
+        long retained = sampled.stream().filter(ref -> ref.get() != null).count();
+        assertTrue("Stream retained " + retained + " already-consumed rows", retained <= 1);
+    }
+
+    @Test
+    public void testStreamIsLazyAndReleasesItsLease() {
+        long activeBefore = DatabaseConnection.getPoolMetrics().getActiveLeases();
+
+        try (Stream<AuditEntry> entries = new AuditDAO().streamAll()) {
+            assertEquals(5, entries.limit(5).count());
+            assertEquals(activeBefore + 1, DatabaseConnection.getPoolMetrics().getActiveLeases());
+        }
+        assertEquals("Closing the stream must release the lease",
+            activeBefore, DatabaseConnection.getPoolMetrics().getActiveLeases());
+
+        // Running to the end releases the lease even without close()
+        Stream<User> users = new UserDAO().streamAll();
+        assertTrue(users.count() > 0);
+        assertEquals(activeBefore, DatabaseConnection.getPoolMetrics().getActiveLeases());
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,170 @@
+package com.bac;
+
+import controller.TransactionController;
+import database.AccountDAO;
+import model.*;
+import org.junit.Rule;
+import org.junit.Test;
+import util.StripedLocks;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for StripedLocks: ordered multi-key locking, per-key serialization, and
+ * TransactionController deposits and transfers by thread count, distinct accounts
+ * against one hot account.
+ */
+public class StripedLocksTest {
+
+    private static final int WARMUP_OPERATIONS = 100;
+    private static final int CONTROLLER_OPERATIONS = 200;
+    private static final long OPENING_MINOR = 100_000; // P1000.00
+
+    private final AccountDAO accountDAO = new AccountDAO();
+
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Test
+    public void testStripeCountRoundsUpToPowerOfTwo() {
+        assertEquals(1, new StripedLocks(1).getStripeCount());
+        assertEquals(64, new StripedLocks(64).getStripeCount());
+        assertEquals(128, new StripedLocks(65).getStripeCount());
+    }
+
+    @Test
+    @SuppressWarnings("try") // the Held resource only releases its stripes
+    public void testOppositeOrderLockingDoesNotDeadlock() throws Exception {
+        StripedLocks locks = new StripedLocks(64);
+        CountDownLatch done = new CountDownLatch(2);
+        Runnable forward = () -> {
+            for (int i = 0; i < 50_000; i++) {
+                try (StripedLocks.Held held = locks.lock("ACC-A", "ACC-B")) {
+                    Thread.onSpinWait();
+                }
+            }
+            done.countDown();
+        };
+        Runnable backward = () -> {
+            for (int i = 0; i < 50_000; i++) {
+                try (StripedLocks.Held held = locks.lock("ACC-B", "ACC-A")) {
+                    Thread.onSpinWait();
+                }
+            }
+            done.countDown();
+        };
+        new Thread(forward).start();
+        new Thread(backward).start();
+        assertTrue("Transfers in opposite directions deadlocked", done.await(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @SuppressWarnings("try") // the Held resource only releases its stripes
+    public void testSameKeySerializes() throws Exception {
+        StripedLocks locks = new StripedLocks(16);
+        long[] counter = new long[1];
+        runThreads(8, 20_000, (thread, i) -> {
+            try (StripedLocks.Held held = locks.lock("ACC-HOT")) {
+                counter[0]++; // not atomic; only the lock keeps this exact
+            }
+        });
+        assertEquals(8 * 20_000L, counter[0]);
+    }
+
+    @Test
+    public void benchmarkControllerThroughputByThreadCount() throws Exception {
+        // the database path of the controller, not the in-memory ledger engine
+        TransactionController controller = new TransactionController(null);
+        List<String> accountNumbers = openAccounts(16);
+        measure(2, WARMUP_OPERATIONS, (thread, i) -> deposit(controller, accountNumbers.get(thread)));
+
+        System.out.println("TransactionController throughput (ops/sec):");
+        System.out.println("threads  deposits-distinct  deposits-hot  transfers-distinct  transfers-hot");
+        long expectedTotal = 16 * OPENING_MINOR + WARMUP_OPERATIONS * 100L;
+        for (int threads : new int[] {1, 2, 4, 8}) {
+            long depositsDistinct = measure(threads, CONTROLLER_OPERATIONS,
+                (thread, i) -> deposit(controller, accountNumbers.get(thread)));
+            long depositsHot = measure(threads, CONTROLLER_OPERATIONS,
+                (thread, i) -> deposit(controller, accountNumbers.get(0)));
+            long transfersDistinct = measure(threads, CONTROLLER_OPERATIONS,
+                (thread, i) -> transfer(controller, accountNumbers.get(2 * thread),
+                    accountNumbers.get(2 * thread + 1), i));
+            long transfersHot = measure(threads, CONTROLLER_OPERATIONS,
+                (thread, i) -> transfer(controller, accountNumbers.get(0), accountNumbers.get(1), i + thread));
+            System.out.printf("%7d  %17d  %12d  %18d  %13d%n",
+                threads, depositsDistinct, depositsHot, transfersDistinct, transfersHot);
+            expectedTotal += 2L * CONTROLLER_OPERATIONS * 100L;
+        }
+        // every deposit landed and no transfer created or destroyed money
+        long total = 0;
+        for (String accountNumber : accountNumbers) {
+            total += accountDAO.findById(accountNumber).orElseThrow().getBalanceMinor();
+        }
+        assertEquals(expectedTotal, total);
+    }
+
+    private List<String> openAccounts(int count) {
+        String prefix = "SL" + System.nanoTime() + "-";
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            accountNumbers.add(accounts.save(new ChequeAccount(prefix + i, Money.toMajor(OPENING_MINOR),
+                LocalDate.now(), LocalDate.now(), TestAccounts.seededOwner(), AccountStatus.ACTIVE,
+                "Acme", "1 Plot Rd", true)).getAccountNumber());
+        }
+        return accountNumbers;
+    }
+
+    private void deposit(TransactionController controller, String accountNumber) {
+        controller.processDeposit(accountDAO.findById(accountNumber).orElseThrow(), 1.0);
+    }
+
+    // Alternating direction keeps both balances near their opening amount
+    private void transfer(TransactionController controller, String first, String second, int i) {
+        boolean forward = i % 2 == 0;
+        Account from = accountDAO.findById(forward ? first : second).orElseThrow();
+        Account to = accountDAO.findById(forward ? second : first).orElseThrow();
+        controller.transferFunds(from, to, 1.0);
+    }
+
+    private static long measure(int threads, int operations, Operation operation) throws Exception {
+        int perThread = operations / threads;
+        long start = System.nanoTime();
+        runThreads(threads, perThread, operation);
+        double elapsedSeconds = Math.max(1, System.nanoTime() - start) / 1e9;
+        return Math.round(perThread * threads / elapsedSeconds);
+    }
+
+    private static void runThreads(int threads, int perThread, Operation operation) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    operation.run(thread, i);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private interface Operation {
+        void run(int thread, int iteration);
+    }
+}
@@ -0,0 +1,54 @@
+package com.bac;
+
+import database.AccountDAO;
+import model.Account;
+import model.Customer;
+import model.CustomerType;
+import org.junit.rules.ExternalResource;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test rule for accounts owned by the seeded customer: saves them on request
+ * and deletes them (their transactions cascade) after each test.
+ */
+public class TestAccounts extends ExternalResource {
+
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final List<String> created = new ArrayList<>();
+
+    /**
+     * Reference to CUST-001, which is part of the seeded sample data.
+     */
+    public static Customer seededOwner() {
+        return Customer.reference("USR-001", "CUST-001", "John", "Doe",
+            "123 Main St", "555-0123", "john@email.com", CustomerType.INDIVIDUAL);
+    }
+
+    /**
+     * Saves the account, failing the test if it cannot be, and deletes it after the test.
+     */
+    public <T extends Account> T save(T account) {
+        assertTrue(accountDAO.save(account));
+        created.add(account.getAccountNumber());
+        return account;
+    }
+
+    /**
+     * Deletes an account saved some other way (e.g. in a batch) after the test.
+     */
+    public void deleteAfter(String accountNumber) {
+        created.add(accountNumber);
+    }
+
+    @Override
+    protected void after() {
+        for (String accountNumber : created) {
+            accountDAO.delete(accountNumber);
+        }
+        created.clear();
+    }
+}
@@ -3,11 +3,13 @@ package com.bac;
 import controller.TransactionController;
 import controller.TransactionController.DepositResult;
 import database.AccountDAO;
+import database.DatabaseConnection;
 import database.TransactionDAO;
 import database.AuditDAO;
 import model.*;
 import org.junit.Test;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import static org.junit.Assert.*;
 
 import java.time.LocalDate;
@@ -22,6 +24,12 @@ public class TransactionControllerTest {
     private Customer customer1;
     private Customer customer2;
     private LocalDate today;
+
+    @BeforeClass
+    public static void openDatabase() {
+        // New IDs need the node ID the database allocates
+        DatabaseConnection.initializeDatabase();
+    }
     
     @Before
     public void setUp() {
@@ -0,0 +1,157 @@
+package com.bac;
+
+import database.AccountDAO;
+import database.AuditDAO;
+import database.PostingDAO;
+import database.TransactionDAO;
+import database.UnitOfWork;
+import model.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Test class for UnitOfWork: DAO writes joining one transaction, rollback of every
+ * part, nested units, cache consistency, and a deposit latency comparison against
+ * one auto-commit per write.
+ */
+public class UnitOfWorkTest {
+
+    private static final int BENCHMARK_DEPOSITS = 200;
+
+    private final AccountDAO accountDAO = new AccountDAO();
+    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final AuditDAO auditDAO = new AuditDAO();
+    private final String accountNumber = "UW" + System.nanoTime();
+    private final String action = "UOW_TEST_" + System.nanoTime();
+
+    @Rule
+    public final TestAccounts accounts = new TestAccounts();
+
+    @Before
+    public void setUp() {
+        accounts.save(new SavingsAccount(accountNumber, 100.0,
+            LocalDate.now(), LocalDate.now(), TestAccounts.seededOwner(), AccountStatus.ACTIVE));
+    }
+
+    @Test
+    public void testCommitCoversEveryDao() throws Exception {
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            Account account = writeDeposit();
+            // other threads still see the committed state
+            assertEquals(10_000, readElsewhere());
+            // while this thread sees its own uncommitted ledger row
+            assertEquals(1, transactionDAO.findByAccountNumber(accountNumber).size());
+            unit.commit();
+            assertEquals(15_000, account.getBalanceMinor());
+        }
+        assertEquals(15_000, readElsewhere());
+        assertEquals(1, transactionDAO.findByAccountNumber(accountNumber).size());
+        assertEquals(1, auditDAO.findByAction(action).size());
+    }
+
+    @Test
+    @SuppressWarnings("try") // closing the unit uncommitted is the point
+    public void testCloseWithoutCommitRollsBackEveryDao() throws Exception {
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            writeDeposit();
+        }
+        assertFalse(UnitOfWork.isActive());
+        assertEquals(10_000, readElsewhere());
+        assertTrue(transactionDAO.findByAccountNumber(accountNumber).isEmpty());
+        assertTrue(auditDAO.findByAction(action).isEmpty());
+    }
+
+    @Test
+    public void testInnerUnitFailureRollsBackOuter() throws Exception {
+        try (UnitOfWork outer = UnitOfWork.begin()) {
+            writeDeposit();
+            try (UnitOfWork inner = UnitOfWork.begin()) {
+                assertSame(outer.getConnection(), inner.getConnection());
+                // inner part fails and closes without committing
+            }
+            try {
+                outer.commit();
+                fail("Outer commit should refuse after an inner unit failed");
+            } catch (SQLException expected) {
+                assertTrue(expected.getMessage().contains("rollback-only"));
+            }
+        }
+        assertEquals(10_000, readElsewhere());
+    }
+
+    @Test
+    public void testCacheNeverKeepsPreCommitRow() throws Exception {
+        assertEquals(10_000, readElsewhere()); // now cached
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            writeDeposit();
+            // a reader reloads and caches the committed row while the unit is open
+            assertEquals(10_000, readElsewhere());
+            unit.commit();
+        }
+        assertEquals(15_000, CompletableFuture.supplyAsync(
+            () -> accountDAO.findById(accountNumber).orElseThrow().getBalanceMinor()).get().longValue());
+    }
+
+    @Test
+    public void benchmarkDepositLatency() throws Exception {
+        // warm up both paths
+        for (int i = 0; i < 20; i++) {
+            depositWrites();
+            try (UnitOfWork unit = UnitOfWork.begin()) {
+                depositWrites();
+                unit.commit();
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_DEPOSITS; i++) {
+            depositWrites();
+        }
+        long separateMicros = (System.nanoTime() - start) / 1_000 / BENCHMARK_DEPOSITS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_DEPOSITS; i++) {
+            try (UnitOfWork unit = UnitOfWork.begin()) {
+                depositWrites();
+                unit.commit();
+            }
+        }
+        long unitMicros = (System.nanoTime() - start) / 1_000 / BENCHMARK_DEPOSITS;
+
+        System.out.printf("Deposit latency: %d us with one commit per write, %d us in one unit of work%n",
+            separateMicros, unitMicros);
+        assertEquals(10_000 + 2 * (20 + BENCHMARK_DEPOSITS) * 100L, readElsewhere());
+    }
+
+    // A deposit's writes: balance, ledger row and audit entry, each auto-committed
+    // unless a unit is open
+    private void depositWrites() {
+        Account account = accountDAO.findById(accountNumber).orElseThrow();
+        account.deposit(1.0);
+        accountDAO.adjustBalanceMinor(accountNumber, 100);
+        transactionDAO.save(new Transaction(TransactionType.DEPOSIT, 1.0, "benchmark", account));
+        auditDAO.save(new AuditEntry("AUDIT_B" + System.nanoTime(), action, java.time.LocalDateTime.now(),
+            "SYSTEM", "benchmark"));
+    }
+
+    private Account writeDeposit() {
+        Account account = accountDAO.updateBalances(
+            new PostingDAO.Journal("TXN_UOW" + System.nanoTime(), "DEPOSIT", "unit test"),
+            accounts -> accounts.get(0).deposit(50.0), accountNumber).orElseThrow().get(0);
+        assertTrue(transactionDAO.save(new Transaction(TransactionType.DEPOSIT, 50.0, "unit test", account)));
+        auditDAO.recordAudit(null, action, "deposit in unit");
+        return account;
+    }
+
+    private long readElsewhere() throws Exception {
+        return CompletableFuture.supplyAsync(
+            () -> accountDAO.findById(accountNumber).orElseThrow().getBalanceMinor()).get();
+    }
+}
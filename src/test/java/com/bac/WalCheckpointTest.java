@@ -0,0 +1,78 @@
+package com.bac;
+
+import database.AuditDAO;
+import database.CheckpointManager;
+import database.DatabaseConnection;
+import model.AuditEntry;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+/**
+ * Test class for WAL journaling and the checkpoint manager
+ */
+public class WalCheckpointTest {
+
+    private static final int ENTRY_COUNT = 50;
+    private final String prefix = "WAL_" + System.nanoTime() + "_";
+
+    @After
+    public void tearDown() {
+        AuditDAO auditDAO = new AuditDAO();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            auditDAO.delete(prefix + i);
+        }
+    }
+
+    @Test
+    public void testDatabaseRunsInWalMode() throws Exception {
+        assertTrue(DatabaseConnection.isWalMode());
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+            assertTrue(rs.next());
+            assertEquals("wal", rs.getString(1).toLowerCase());
+        }
+    }
+
+    @Test
+    public void testCommitsAreDurableByDefault() throws Exception {
+        assertEquals("FULL", DatabaseConnection.getSynchronousMode());
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA synchronous")) {
+            assertTrue(rs.next());
+            // 2 = FULL: each commit fsyncs the WAL
+            assertEquals(2, rs.getInt(1));
+        }
+    }
+
+    @Test
+    public void testWritesGrowWalAndCleanShutdownRemovesIt() {
+        AuditDAO auditDAO = new AuditDAO();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertTrue(auditDAO.save(new AuditEntry(prefix + i, "WAL_TEST", LocalDateTime.now(),
+                "ADM-001", "checkpoint probe " + i)));
+        }
+
+        CheckpointManager.CheckpointMetrics metrics = DatabaseConnection.getCheckpointMetrics();
+        assertNotNull(metrics);
+        System.out.println("WalCheckpointTest: " + metrics);
+        assertTrue("WAL should hold the uncheckpointed writes", metrics.getWalSizeBytes() > 0);
+
+        DatabaseConnection.closeConnection();
+
+        File wal = new File(DatabaseConnection.getDbFilePath() + "-wal");
+        assertFalse("Clean shutdown must not leave a WAL file behind", wal.exists());
+
+        // the pool reopens lazily and the data is still there
+        assertTrue(auditDAO.findById(prefix + "0").isPresent());
+    }
+}
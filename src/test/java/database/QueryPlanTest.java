@@ -0,0 +1,139 @@
+package database;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks via EXPLAIN QUERY PLAN that the filtered DAO finders use an index.
+ * Lives in the database package so it can read the DAOs' package-private SQL.
+ * Unfiltered findAll() queries are full scans by design and are not listed here.
+ */
+public class QueryPlanTest {
+
+    private static final String[] FINDERS = {
+        AccountDAO.FIND_BY_ID_SQL,
+        AccountDAO.FIND_BY_CUSTOMER_SQL,
+        AccountDAO.FIND_BY_STATUS_SQL,
+        AccountDAO.FIND_BY_TYPE_SQL,
+        TransactionDAO.FIND_BY_ID_SQL,
+        TransactionDAO.FIND_BY_ACCOUNT_SQL,
+        TransactionDAO.FIND_BY_CUSTOMER_SQL,
+        AuditDAO.FIND_BY_ID_SQL,
+        AuditDAO.FIND_BY_USER_SQL,
+        AuditDAO.FIND_BY_ACTION_SQL,
+        CustomerDAO.FIND_BY_ID_SQL,
+        CustomerDAO.FIND_BY_USER_ID_SQL,
+        UserDAO.FIND_BY_ID_SQL,
+        UserDAO.FIND_BY_USERNAME_SQL,
+        TransactionDAO.PAGE_BY_ACCOUNT_FIRST_SQL,
+        TransactionDAO.PAGE_BY_ACCOUNT_AFTER_SQL,
+        TransactionDAO.PAGE_ALL_AFTER_SQL,
+        TransactionDAO.CUSTOMER_ACCOUNTS_SQL,
+        AuditDAO.PAGE_ALL_AFTER_SQL,
+        AuditDAO.PAGE_BY_USER_FIRST_SQL,
+        AuditDAO.PAGE_BY_USER_AFTER_SQL,
+        PostingDAO.STATEMENT_SQL,
+        PostingDAO.BY_COUNTERPARTY_SQL,
+        PostingDAO.PAGE_BY_ACCOUNT_FIRST_SQL,
+        PostingDAO.PAGE_BY_ACCOUNT_AFTER_SQL,
+        PostingDAO.BY_JOURNAL_SQL,
+        PostingDAO.PROJECTED_BALANCE_SQL,
+        PostingDAO.LEDGER_BALANCE_SQL,
+        AccountDAO.INTEREST_PAGE_SQL,
+        InterestDAO.DUE_INTEREST_SQL,
+        DailyBalanceDAO.BALANCE_DAYS_SQL
+    };
+
+    // Keyset pages and ordered streams must walk an index in order; a temp b-tree means
+    // every call re-sorts the table
+    private static final String[] ORDERED_READS = {
+        AccountDAO.STREAM_ALL_SQL,
+        TransactionDAO.PAGE_BY_ACCOUNT_FIRST_SQL,
+        TransactionDAO.PAGE_BY_ACCOUNT_AFTER_SQL,
+        TransactionDAO.PAGE_ALL_FIRST_SQL,
+        TransactionDAO.PAGE_ALL_AFTER_SQL,
+        AuditDAO.PAGE_ALL_FIRST_SQL,
+        AuditDAO.PAGE_ALL_AFTER_SQL,
+        AuditDAO.PAGE_BY_USER_FIRST_SQL,
+        AuditDAO.PAGE_BY_USER_AFTER_SQL,
+        PostingDAO.STATEMENT_SQL,
+        PostingDAO.BY_COUNTERPARTY_SQL,
+        PostingDAO.PAGE_BY_ACCOUNT_FIRST_SQL,
+        PostingDAO.PAGE_BY_ACCOUNT_AFTER_SQL,
+        AccountDAO.INTEREST_PAGE_SQL
+    };
+
+    @Test
+    public void testNoFinderScansATable() throws SQLException {
+        for (String sql : FINDERS) {
+            List<String> plan = explain(sql);
+            for (String step : plan) {
+                // a SELECT without FROM reads one constant row, not a table
+                assertFalse("Full table scan in plan " + plan + " for: " + sql.trim(),
+                    step.startsWith("SCAN ") && !step.equals("SCAN CONSTANT ROW"));
+            }
+        }
+    }
+
+    @Test
+    public void testOrderedReadsNeverSort() throws SQLException {
+        for (String sql : ORDERED_READS) {
+            List<String> plan = explain(sql);
+            for (String step : plan) {
+                assertFalse("Sort in plan " + plan + " for: " + sql.trim(),
+                    step.contains("TEMP B-TREE"));
+                assertFalse("Unindexed scan in plan " + plan + " for: " + sql.trim(),
+                    step.startsWith("SCAN ") && !step.contains("INDEX"));
+            }
+        }
+    }
+
+    @Test
+    public void testMigrationsAreRecorded() throws SQLException {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version ORDER BY version")) {
+            for (Migration migration : Migrations.all()) {
+                assertTrue("Missing schema_version row for " + migration, rs.next());
+                assertEquals(migration.getVersion(), rs.getInt("version"));
+                assertEquals(migration.getChecksum(), rs.getString("checksum"));
+            }
+        }
+    }
+
+    @Test
+    public void testEditedMigrationIsRejected() throws SQLException {
+        List<Migration> tampered = new ArrayList<>(Migrations.all());
+        Migration first = tampered.get(0);
+        tampered.set(0, new Migration(first.getVersion(), first.getDescription(),
+            "CREATE TABLE IF NOT EXISTS users (user_id TEXT PRIMARY KEY)"));
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            new SchemaMigrator(tampered).migrate(conn);
+            fail("Checksum mismatch should be detected");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("Checksum mismatch"));
+        }
+    }
+
+    private List<String> explain(String sql) throws SQLException {
+        List<String> steps = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                steps.add(rs.getString("detail"));
+            }
+        }
+        return steps;
+    }
+}